@@ -32,6 +32,8 @@ import org.restlet.ext.apispark.internal.firewall.rule.FirewallCounterRule;
 import org.restlet.ext.apispark.internal.firewall.rule.FirewallIpFilteringRule;
 import org.restlet.ext.apispark.internal.firewall.rule.FirewallRule;
 import org.restlet.ext.apispark.internal.firewall.rule.PeriodicFirewallCounterRule;
+import org.restlet.ext.apispark.internal.firewall.rule.SlidingWindowFirewallCounterRule;
+import org.restlet.ext.apispark.internal.firewall.rule.TokenBucketFirewallCounterRule;
 import org.restlet.ext.apispark.internal.firewall.rule.policy.HostDomainCountingPolicy;
 import org.restlet.ext.apispark.internal.firewall.rule.policy.IpAddressCountingPolicy;
 import org.restlet.ext.apispark.internal.firewall.rule.policy.UserCountingPolicy;
@@ -150,6 +152,49 @@ public class FirewallConfig {
         add(rule);
     }
 
+    /**
+     * Adds a rule that restricts access by sliding period of time according to
+     * the IP address of the request's client. A unique limit is applied for
+     * all IP addresses. Contrary to
+     * {@link #addIpAddressesPeriodicCounter(int, TimeUnit, int)}, the limit
+     * can't be exceeded around the end of a period.
+     * 
+     * @param period
+     *            The period of time.
+     * @param periodUnit
+     *            Period time unit associated to the rule.
+     * @param limit
+     *            The maximum number of accepted requests for a period of time.
+     */
+    public void addIpAddressesSlidingWindowCounter(int period,
+            TimeUnit periodUnit, int limit) {
+        FirewallCounterRule rule = new SlidingWindowFirewallCounterRule(
+                period, periodUnit, new IpAddressCountingPolicy());
+        rule.addHandler(new BlockingHandler(new UniqueLimitPolicy(limit)));
+        add(rule);
+    }
+
+    /**
+     * Adds a rule that restricts the rate of requests according to the IP
+     * address of the request's client, using a token bucket. A unique limit is
+     * applied for all IP addresses, up to which requests can be bursted, the
+     * bucket being refilled at a rate of limit requests per period.
+     * 
+     * @param period
+     *            The period of time.
+     * @param periodUnit
+     *            Period time unit associated to the rule.
+     * @param limit
+     *            The maximum number of accepted requests for a period of time.
+     */
+    public void addIpAddressesTokenBucketCounter(int period,
+            TimeUnit periodUnit, int limit) {
+        FirewallCounterRule rule = new TokenBucketFirewallCounterRule(period,
+                periodUnit, limit, new IpAddressCountingPolicy());
+        rule.addHandler(new BlockingHandler(new UniqueLimitPolicy(limit)));
+        add(rule);
+    }
+
     /**
      * Adds a rule that restricts access to the given set of IP addresses.
      * 
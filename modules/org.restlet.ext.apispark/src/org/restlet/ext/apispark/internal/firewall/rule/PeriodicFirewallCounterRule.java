@@ -26,6 +26,7 @@ package org.restlet.ext.apispark.internal.firewall.rule;
 
 import java.util.concurrent.TimeUnit;
 
+import org.restlet.ext.apispark.internal.firewall.rule.counter.Counter;
 import org.restlet.ext.apispark.internal.firewall.rule.counter.PeriodicCounter;
 import org.restlet.ext.apispark.internal.firewall.rule.policy.CountingPolicy;
 
@@ -36,14 +37,22 @@ import com.google.common.cache.LoadingCache;
 /**
  * {@link FirewallCounterRule} specialized in counting requests on a specific
  * period of time. For each countedValue (value returned by the
- * {@link CountingPolicy}), a {@link PeriodicCounter} is associated.
+ * {@link CountingPolicy}), a {@link PeriodicCounter} is associated, unless
+ * the {@link #createCounter()} method is overridden.<br>
+ * <br>
+ * Counters are kept in memory while they are used. Counters idle for twice the
+ * period (at least one minute) are evicted, as well as the least recently used
+ * counters when more than {@link #MAXIMUM_COUNTED_VALUES} values are counted.
  * 
  * @author Guillaume Blondeau
  */
 public class PeriodicFirewallCounterRule extends FirewallCounterRule {
 
-    /** Cache of {@link PeriodicCounter}. */
-    private LoadingCache<String, PeriodicCounter> cache;
+    /** The maximum number of counted values kept in memory. */
+    public static final int MAXIMUM_COUNTED_VALUES = 100000;
+
+    /** Cache of {@link Counter}. */
+    private LoadingCache<String, Counter> cache;
 
     /** Period in second associated to the {@link FirewallCounterRule} */
     private long period;
@@ -67,6 +76,16 @@ public class PeriodicFirewallCounterRule extends FirewallCounterRule {
         initializeCache();
     }
 
+    /**
+     * Creates the counter associated to a new counted value. By default, it
+     * returns a {@link PeriodicCounter}.
+     * 
+     * @return The new counter.
+     */
+    protected Counter createCounter() {
+        return new PeriodicCounter(period);
+    }
+
     /**
      * Does nothing.
      */
@@ -74,16 +93,25 @@ public class PeriodicFirewallCounterRule extends FirewallCounterRule {
     protected void decrementCounter(String countedValue) {
     }
 
+    /**
+     * Returns the period associated to the rule, in seconds.
+     * 
+     * @return The period associated to the rule, in seconds.
+     */
+    public long getPeriod() {
+        return period;
+    }
+
     @Override
     protected CounterResult incrementCounter(String countedValue) {
-        PeriodicCounter individualCounter = cache.getUnchecked(countedValue);
+        Counter individualCounter = cache.getUnchecked(countedValue);
         return individualCounter.increment();
     }
 
     private void initializeCache() {
-        CacheLoader<String, PeriodicCounter> loader = new CacheLoader<String, PeriodicCounter>() {
-            public PeriodicCounter load(String key) {
-                return new PeriodicCounter(period);
+        CacheLoader<String, Counter> loader = new CacheLoader<String, Counter>() {
+            public Counter load(String key) {
+                return createCounter();
             }
         };
 
@@ -91,7 +119,11 @@ public class PeriodicFirewallCounterRule extends FirewallCounterRule {
         long cacheExpiration = 2 * period < TimeUnit.MINUTES.toSeconds(1) ? TimeUnit.MINUTES
                 .toSeconds(1) : 2 * period;
 
+        // use more segments than cores to reduce contention on hot values
         cache = CacheBuilder.newBuilder()
+                .concurrencyLevel(
+                        4 * Runtime.getRuntime().availableProcessors())
+                .maximumSize(MAXIMUM_COUNTED_VALUES)
                 .expireAfterAccess(cacheExpiration, TimeUnit.SECONDS)
                 .build(loader);
     }
@@ -0,0 +1,71 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or or EPL 1.0 (the "Licenses"). You can
+ * select the license that you prefer but you may not use this file except in
+ * compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.ext.apispark.internal.firewall.rule;
+
+import java.util.concurrent.TimeUnit;
+
+import org.restlet.ext.apispark.internal.firewall.rule.counter.Counter;
+import org.restlet.ext.apispark.internal.firewall.rule.counter.TokenBucketCounter;
+import org.restlet.ext.apispark.internal.firewall.rule.policy.CountingPolicy;
+
+/**
+ * {@link PeriodicFirewallCounterRule} limiting the rate of requests with a
+ * token bucket. For each countedValue (value returned by the
+ * {@link CountingPolicy}), a {@link TokenBucketCounter} is associated, refilled
+ * with the given capacity over the given period of time. The limit of the
+ * attached handlers should be equal to this capacity.
+ * 
+ * @author Guillaume Blondeau
+ */
+public class TokenBucketFirewallCounterRule extends PeriodicFirewallCounterRule {
+
+    /** The capacity of each bucket. */
+    private final int capacity;
+
+    /**
+     * Contructor.
+     * 
+     * @param period
+     *            Period needed to refill a bucket.
+     * @param periodUnit
+     *            Period time unit associated to the {@link FirewallCounterRule}
+     *            .
+     * @param capacity
+     *            The capacity of each bucket.
+     * @param countingPolicy
+     *            The associated counting policy.
+     */
+    public TokenBucketFirewallCounterRule(int period, TimeUnit periodUnit,
+            int capacity, CountingPolicy countingPolicy) {
+        super(period, periodUnit, countingPolicy);
+        this.capacity = capacity;
+    }
+
+    @Override
+    protected Counter createCounter() {
+        return new TokenBucketCounter(getPeriod(), capacity);
+    }
+
+}
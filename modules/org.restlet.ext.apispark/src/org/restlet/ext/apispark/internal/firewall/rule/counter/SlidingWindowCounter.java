@@ -0,0 +1,140 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or or EPL 1.0 (the "Licenses"). You can
+ * select the license that you prefer but you may not use this file except in
+ * compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.ext.apispark.internal.firewall.rule.counter;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.restlet.ext.apispark.internal.firewall.rule.CounterResult;
+
+/**
+ * {@link Counter} which counts requests on a sliding period. The count of the
+ * current period is added to the count of the previous period, weighted by the
+ * part of the previous period still covered by the sliding period. Contrary to
+ * the {@link PeriodicCounter}, this prevents clients from sending twice the
+ * limit around the end of a period.<br>
+ * <br>
+ * This counter is lock-free and the count of the current period is striped in
+ * order to reduce the contention between threads counting the same value.
+ * 
+ * @author Guillaume Blondeau
+ */
+public class SlidingWindowCounter extends Counter {
+
+    /** Count of requests on a given period. */
+    private static final class Window {
+
+        /** The count of requests in this period. */
+        private final StripedLong count;
+
+        /** The index of the period since the epoch. */
+        private final long index;
+
+        /** The count of requests in the previous period. */
+        private final long previousCount;
+
+        /**
+         * Constructor.
+         * 
+         * @param index
+         *            The index of the period since the epoch.
+         * @param previousCount
+         *            The count of requests in the previous period.
+         */
+        private Window(long index, long previousCount) {
+            this.count = new StripedLong();
+            this.index = index;
+            this.previousCount = previousCount;
+        }
+    }
+
+    /** The period associated to the counter, in milliseconds. */
+    private final long period;
+
+    /** The current period. */
+    private final AtomicReference<Window> window;
+
+    /**
+     * Constructor.
+     * 
+     * @param period
+     *            The period associated to the counter, in seconds.
+     */
+    public SlidingWindowCounter(long period) {
+        this.period = Math.max(1L, TimeUnit.SECONDS.toMillis(period));
+        this.window = new AtomicReference<Window>(new Window(
+                System.currentTimeMillis() / this.period, 0L));
+    }
+
+    @Override
+    public void decrement() {
+    }
+
+    /**
+     * Returns the window of the given period, replacing the current one if
+     * needed.
+     * 
+     * @param index
+     *            The index of the period since the epoch.
+     * @return The window of the period.
+     */
+    private Window getWindow(long index) {
+        Window result = this.window.get();
+
+        while (result.index < index) {
+            long previousCount = (result.index == index - 1) ? result.count
+                    .sum() : 0L;
+            Window next = new Window(index, previousCount);
+
+            if (this.window.compareAndSet(result, next)) {
+                result = next;
+            } else {
+                result = this.window.get();
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public CounterResult increment() {
+        long now = System.currentTimeMillis();
+        Window current = getWindow(now / this.period);
+        current.count.increment();
+
+        long elapsed = Math.max(0L, now - current.index * this.period);
+        long consumed = current.count.sum()
+                + (current.previousCount * (this.period - elapsed))
+                / this.period;
+
+        CounterResult counterResult = new CounterResult();
+        counterResult.setConsumed((int) Math.min(consumed, Integer.MAX_VALUE));
+        counterResult.setElapsed(TimeUnit.MILLISECONDS.toSeconds(elapsed));
+        counterResult.setReset(TimeUnit.MILLISECONDS
+                .toSeconds((current.index + 1) * this.period));
+        return counterResult;
+    }
+
+}
@@ -0,0 +1,140 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or or EPL 1.0 (the "Licenses"). You can
+ * select the license that you prefer but you may not use this file except in
+ * compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.ext.apispark.internal.firewall.rule.counter;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Sum of long values that can be updated by many threads at the same time
+ * with low contention. Updates are first attempted on a single base value.
+ * When two threads collide, updates are spread on a set of cells selected by
+ * the identifier of the current thread, each cell being padded in order to
+ * avoid false sharing between CPU cores.<br>
+ * <br>
+ * Note that the sum is not an atomic snapshot when concurrent updates occur.
+ * 
+ * @author Guillaume Blondeau
+ */
+final class StripedLong {
+
+    /** Number of long slots per cell, spanning a full cache line. */
+    private static final int PADDING = 8;
+
+    /** Number of cells, a power of two greater than the number of CPUs. */
+    private static final int STRIPES;
+
+    static {
+        int stripes = 1;
+
+        while (stripes < Runtime.getRuntime().availableProcessors()) {
+            stripes <<= 1;
+        }
+
+        STRIPES = stripes;
+    }
+
+    /**
+     * Returns the cell index of the current thread.
+     * 
+     * @return The cell index of the current thread.
+     */
+    private static int getStripe() {
+        long id = Thread.currentThread().getId();
+        int hash = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+    }
+
+    /** The base value, updated while there is no contention. */
+    private final AtomicLong base;
+
+    /** The padded cells, created on first contention. */
+    private final AtomicReference<AtomicLongArray> cells;
+
+    /**
+     * Constructor.
+     */
+    public StripedLong() {
+        this.base = new AtomicLong();
+        this.cells = new AtomicReference<AtomicLongArray>();
+    }
+
+    /**
+     * Adds a given value.
+     * 
+     * @param value
+     *            The value to add.
+     */
+    public void add(long value) {
+        if (STRIPES == 1) {
+            this.base.addAndGet(value);
+            return;
+        }
+
+        AtomicLongArray cells = this.cells.get();
+
+        if (cells == null) {
+            long current = this.base.get();
+
+            if (this.base.compareAndSet(current, current + value)) {
+                return;
+            }
+
+            // Contention detected, switch to the cells
+            this.cells.compareAndSet(null, new AtomicLongArray(STRIPES
+                    * PADDING));
+            cells = this.cells.get();
+        }
+
+        cells.addAndGet(getStripe() * PADDING, value);
+    }
+
+    /**
+     * Increments the value.
+     */
+    public void increment() {
+        add(1L);
+    }
+
+    /**
+     * Returns the current sum.
+     * 
+     * @return The current sum.
+     */
+    public long sum() {
+        long result = this.base.get();
+        AtomicLongArray cells = this.cells.get();
+
+        if (cells != null) {
+            for (int i = 0; i < STRIPES; i++) {
+                result += cells.get(i * PADDING);
+            }
+        }
+
+        return result;
+    }
+
+}
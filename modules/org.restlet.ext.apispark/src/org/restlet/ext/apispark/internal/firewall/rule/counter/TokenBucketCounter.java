@@ -0,0 +1,107 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or or EPL 1.0 (the "Licenses"). You can
+ * select the license that you prefer but you may not use this file except in
+ * compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.ext.apispark.internal.firewall.rule.counter;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.restlet.ext.apispark.internal.firewall.rule.CounterResult;
+
+/**
+ * {@link Counter} implementing a token bucket, refilled with a given capacity
+ * of tokens per period. Each request consumes a token, and the number of
+ * tokens consumed and not yet refilled is returned as the counter's value.
+ * When the bucket is empty, no token is consumed and the returned value
+ * exceeds the capacity, so that a limit equal to the capacity rejects the
+ * request without penalizing the following ones.<br>
+ * <br>
+ * The bucket is implemented as a single theoretical arrival time updated with
+ * a compare-and-set operation, so this counter is lock-free and never needs to
+ * be reset.
+ * 
+ * @author Guillaume Blondeau
+ */
+public class TokenBucketCounter extends Counter {
+
+    /** The capacity of the bucket. */
+    private final int capacity;
+
+    /** The time needed to refill a token, in nanoseconds. */
+    private final long interval;
+
+    /** The time when the bucket will be full again, in nanoseconds. */
+    private final AtomicLong refilled;
+
+    /**
+     * Constructor.
+     * 
+     * @param period
+     *            The period needed to refill the bucket, in seconds.
+     * @param capacity
+     *            The capacity of the bucket.
+     */
+    public TokenBucketCounter(long period, int capacity) {
+        this.capacity = Math.max(1, capacity);
+        this.interval = Math.max(1L, TimeUnit.SECONDS.toNanos(period)
+                / this.capacity);
+        this.refilled = new AtomicLong(System.nanoTime());
+    }
+
+    @Override
+    public void decrement() {
+    }
+
+    @Override
+    public CounterResult increment() {
+        long now = System.nanoTime();
+        long refilled;
+        int consumed;
+
+        for (;;) {
+            long current = this.refilled.get();
+            long next = ((current - now) > 0 ? current : now) + this.interval;
+            long pending = next - now;
+
+            if (pending > this.capacity * this.interval) {
+                // Bucket empty, don't consume any token
+                refilled = current;
+                consumed = this.capacity + 1;
+                break;
+            } else if (this.refilled.compareAndSet(current, next)) {
+                refilled = next;
+                consumed = (int) ((pending + this.interval - 1) / this.interval);
+                break;
+            }
+        }
+
+        CounterResult counterResult = new CounterResult();
+        counterResult.setConsumed(consumed);
+        counterResult.setReset(TimeUnit.MILLISECONDS.toSeconds(System
+                .currentTimeMillis()
+                + TimeUnit.NANOSECONDS.toMillis(Math.max(0L, refilled - now))));
+        return counterResult;
+    }
+
+}
@@ -25,6 +25,8 @@
 package org.restlet.ext.crypto;
 
 import java.security.GeneralSecurityException;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.logging.Level;
 
 import org.restlet.Context;
@@ -68,16 +70,59 @@ import org.restlet.security.ChallengeAuthenticator;
  * Note that credentials, both identifier and secret, are stored in a cookie in
  * an encrypted manner. The default encryption algorithm is AES but can be
  * changed with {@link #setEncryptAlgorithm(String)}. It is also strongly
- * recommended to
+ * recommended to<br>
+ * <br>
+ * In order to avoid decrypting the same cookie on each request, the decrypted
+ * credentials are cached for a limited duration, indexed by cookie value. The
+ * credentials are still checked by the verifier on each request. See
+ * {@link #setCredentialsCacheDuration(long)}.
  * 
  * @author Remi Dewitte
  * @author Jerome Louvel
  */
 public class CookieAuthenticator extends ChallengeAuthenticator {
 
+    /**
+     * Decrypted credentials cached with their expiration time.
+     */
+    private static final class CachedCredentials {
+
+        /** The decrypted credentials. */
+        private final ChallengeResponse credentials;
+
+        /** The expiration time, in milliseconds. */
+        private final long expirationTime;
+
+        /**
+         * Constructor.
+         * 
+         * @param credentials
+         *            The decrypted credentials.
+         * @param expirationTime
+         *            The expiration time, in milliseconds.
+         */
+        private CachedCredentials(ChallengeResponse credentials,
+                long expirationTime) {
+            this.credentials = credentials;
+            this.expirationTime = expirationTime;
+        }
+    }
+
+    /** The maximum number of decrypted credentials cached. */
+    public static final int MAX_CACHED_CREDENTIALS = 1024;
+
     /** The name of the cookie that stores log info. */
     private volatile String cookieName;
 
+    /**
+     * The decrypted credentials, indexed by cookie value, in access order. The
+     * least recently used entry is evicted when the cache is full.
+     */
+    private final Map<String, CachedCredentials> credentialsCache;
+
+    /** The duration in milliseconds of the decrypted credentials cache. */
+    private volatile long credentialsCacheDuration;
+
     /** The name of the algorithm used to encrypt the log info cookie value. */
     private volatile String encryptAlgorithm;
 
@@ -134,6 +179,17 @@ public class CookieAuthenticator extends ChallengeAuthenticator {
             byte[] encryptSecretKey) {
         super(context, optional, ChallengeScheme.HTTP_COOKIE, realm);
         this.cookieName = "Credentials";
+        this.credentialsCache = new LinkedHashMap<String, CachedCredentials>(
+                16, 0.75F, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(
+                    Map.Entry<String, CachedCredentials> eldest) {
+                return size() > MAX_CACHED_CREDENTIALS;
+            }
+        };
+        this.credentialsCacheDuration = 60000L;
         this.interceptingLogin = true;
         this.interceptingLogout = true;
         this.identifierFormName = "login";
@@ -190,7 +246,7 @@ public class CookieAuthenticator extends ChallengeAuthenticator {
                 getCookieName());
 
         if (credentialsCookie != null) {
-            request.setChallengeResponse(parseCredentials(credentialsCookie
+            request.setChallengeResponse(restoreCredentials(credentialsCookie
                     .getValue()));
         }
 
@@ -307,6 +363,17 @@ public class CookieAuthenticator extends ChallengeAuthenticator {
         return cookieName;
     }
 
+    /**
+     * Returns the duration in milliseconds during which the credentials
+     * decrypted from a given cookie value are cached. By default, it is one
+     * minute.
+     * 
+     * @return The duration in milliseconds of the decrypted credentials cache.
+     */
+    public long getCredentialsCacheDuration() {
+        return credentialsCacheDuration;
+    }
+
     /**
      * Returns the credentials cookie setting. It first try to find an existing
      * cookie. If necessary, it creates a new one.
@@ -577,6 +644,58 @@ public class CookieAuthenticator extends ChallengeAuthenticator {
         }
     }
 
+    /**
+     * Restores the credentials stored in a cookie value, either from the cache
+     * of decrypted credentials or by calling
+     * {@link #parseCredentials(String)}.
+     * 
+     * @param cookieValue
+     *            The credentials to decode from cookie value.
+     * @return The credentials as a proper challenge response.
+     */
+    private ChallengeResponse restoreCredentials(String cookieValue) {
+        long duration = getCredentialsCacheDuration();
+
+        if ((duration <= 0) || (cookieValue == null)) {
+            return parseCredentials(cookieValue);
+        }
+
+        long now = System.currentTimeMillis();
+        CachedCredentials cached;
+
+        synchronized (this.credentialsCache) {
+            cached = this.credentialsCache.get(cookieValue);
+        }
+
+        ChallengeResponse result = null;
+
+        if ((cached != null) && (cached.expirationTime > now)) {
+            result = cached.credentials;
+        } else {
+            result = parseCredentials(cookieValue);
+
+            if (result != null) {
+                synchronized (this.credentialsCache) {
+                    this.credentialsCache.put(cookieValue,
+                            new CachedCredentials(result, now + duration));
+                }
+            }
+        }
+
+        // Return a copy as the credentials are owned by the request
+        if (result != null) {
+            ChallengeResponse copy = new ChallengeResponse(result.getScheme(),
+                    result.getIdentifier(), result.getSecret() == null ? null
+                            : result.getSecret().clone());
+            copy.setRawValue(result.getRawValue());
+            copy.setTimeIssued(result.getTimeIssued());
+            copy.getParameters().addAll(result.getParameters());
+            result = copy;
+        }
+
+        return result;
+    }
+
     /**
      * Sets the cookie name to use for the authentication credentials.
      * 
@@ -587,6 +706,23 @@ public class CookieAuthenticator extends ChallengeAuthenticator {
         this.cookieName = cookieName;
     }
 
+    /**
+     * Sets the duration in milliseconds during which the credentials decrypted
+     * from a given cookie value are cached. A zero or negative value disables
+     * the cache.
+     * 
+     * @param credentialsCacheDuration
+     *            The duration in milliseconds of the decrypted credentials
+     *            cache.
+     */
+    public void setCredentialsCacheDuration(long credentialsCacheDuration) {
+        this.credentialsCacheDuration = credentialsCacheDuration;
+
+        synchronized (this.credentialsCache) {
+            this.credentialsCache.clear();
+        }
+    }
+
     /**
      * Sets the name of the algorithm used to encrypt the log info cookie value.
      * 
@@ -596,6 +732,10 @@ public class CookieAuthenticator extends ChallengeAuthenticator {
      */
     public void setEncryptAlgorithm(String secretAlgorithm) {
         this.encryptAlgorithm = secretAlgorithm;
+
+        synchronized (this.credentialsCache) {
+            this.credentialsCache.clear();
+        }
     }
 
     /**
@@ -608,6 +748,10 @@ public class CookieAuthenticator extends ChallengeAuthenticator {
      */
     public void setEncryptSecretKey(byte[] secretKey) {
         this.encryptSecretKey = secretKey;
+
+        synchronized (this.credentialsCache) {
+            this.credentialsCache.clear();
+        }
     }
 
     /**
@@ -33,13 +33,22 @@ import org.restlet.data.ChallengeScheme;
 import org.restlet.data.Digest;
 import org.restlet.data.Reference;
 import org.restlet.ext.crypto.internal.CryptoUtils;
+import org.restlet.ext.crypto.internal.NonceCache;
 import org.restlet.security.ChallengeAuthenticator;
 import org.restlet.security.LocalVerifier;
 import org.restlet.security.Verifier;
 
 /**
  * Authenticator supporting the digest challenge authentication schemes. By
- * default, it only knows about the {@link ChallengeScheme#HTTP_DIGEST} scheme.
+ * default, it only knows about the {@link ChallengeScheme#HTTP_DIGEST}
+ * scheme.<br>
+ * <br>
+ * The server nonces used in successfully verified requests are tracked in a
+ * bounded cache, along with the nonce-count values received, so that replayed
+ * requests are rejected as stale. Once a nonce has reached half of its
+ * lifespan, the next nonce is sent to the client via the "Authentication-Info"
+ * header, allowing active clients to keep authenticating without being
+ * challenged again.
  * 
  * @see DigestVerifier
  * @see DigestAuthenticator
@@ -56,6 +65,9 @@ public class DigestAuthenticator extends ChallengeAuthenticator {
     /** Lifespan of nonce in milliseconds */
     private volatile long maxServerNonceAge;
 
+    /** The cache of used nonces. */
+    private volatile NonceCache nonceCache;
+
     /** The secret key known only to server. */
     private volatile String serverKey;
 
@@ -81,6 +93,8 @@ public class DigestAuthenticator extends ChallengeAuthenticator {
         this.domainRefs = domainRefs;
         this.maxServerNonceAge = DEFAULT_MAX_SERVER_NONCE_AGE;
         this.serverKey = serverKey;
+        this.nonceCache = new NonceCache(this.maxServerNonceAge,
+                NonceCache.DEFAULT_MAX_SIZE);
         setVerifier(new org.restlet.ext.crypto.internal.HttpDigestVerifier(
                 this, null, null));
     }
@@ -110,7 +124,8 @@ public class DigestAuthenticator extends ChallengeAuthenticator {
     }
 
     /**
-     * Generates a server nonce.
+     * Generates a server nonce. It is only added to the nonce cache once used
+     * in a successfully verified request.
      * 
      * @return A new server nonce.
      */
@@ -168,6 +183,15 @@ public class DigestAuthenticator extends ChallengeAuthenticator {
         return this.maxServerNonceAge;
     }
 
+    /**
+     * Returns the cache of used nonces.
+     * 
+     * @return The cache of used nonces.
+     */
+    public NonceCache getNonceCache() {
+        return this.nonceCache;
+    }
+
     /**
      * Returns the secret key known only by server.
      * 
@@ -202,6 +226,8 @@ public class DigestAuthenticator extends ChallengeAuthenticator {
      */
     public void setMaxServerNonceAge(long maxServerNonceAge) {
         this.maxServerNonceAge = maxServerNonceAge;
+        this.nonceCache = new NonceCache(maxServerNonceAge,
+                NonceCache.DEFAULT_MAX_SIZE);
     }
 
     /**
@@ -212,6 +238,7 @@ public class DigestAuthenticator extends ChallengeAuthenticator {
      */
     public void setServerKey(String serverKey) {
         this.serverKey = serverKey;
+        getNonceCache().clear();
     }
 
     /**
@@ -30,10 +30,11 @@ import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 
 import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
 
 import org.restlet.data.Digest;
 import org.restlet.engine.util.Base64;
+import org.restlet.ext.crypto.internal.MacPool;
+import org.restlet.ext.crypto.internal.MessageDigestPool;
 
 /**
  * Security data manipulation utilities.
@@ -85,6 +86,59 @@ public class DigestUtils {
         throw new IllegalArgumentException("Unsupported algorithm.");
     };
 
+    /**
+     * Returns the digest of the source bytes, using a pooled message digest.
+     * 
+     * @param source
+     *            The bytes to digest.
+     * @param algorithm
+     *            The digest algorithm to use.
+     * @return The digest of the source bytes.
+     * @throws NoSuchAlgorithmException
+     */
+    private static byte[] toDigest(byte[] source, String algorithm)
+            throws NoSuchAlgorithmException {
+        MessageDigestPool pool = MessageDigestPool.getInstance(algorithm);
+        MessageDigest digest = pool.checkout();
+
+        if (digest == null) {
+            digest = pool.newMessageDigest();
+        }
+
+        byte[] result = digest.digest(source);
+        pool.checkin(digest);
+        return result;
+    }
+
+    /**
+     * Returns the HMAC value of the source bytes, using a pooled message
+     * authentication code initialized with the secret key.
+     * 
+     * @param source
+     *            The bytes to authenticate.
+     * @param secretKey
+     *            The secret key to use.
+     * @param algorithm
+     *            The MAC algorithm to use.
+     * @return The HMAC value of the source bytes.
+     * @throws NoSuchAlgorithmException
+     * @throws InvalidKeyException
+     */
+    private static byte[] toHMac(byte[] source, byte[] secretKey,
+            String algorithm) throws NoSuchAlgorithmException,
+            InvalidKeyException {
+        MacPool pool = MacPool.getInstance(algorithm, secretKey);
+        Mac mac = pool.checkout();
+
+        if (mac == null) {
+            mac = pool.newMac();
+        }
+
+        byte[] result = mac.doFinal(source);
+        pool.checkin(mac);
+        return result;
+    }
+
     /**
      * Converts a source string to its HMAC/SHA-1 value.
      * 
@@ -98,15 +152,7 @@ public class DigestUtils {
         byte[] result = null;
 
         try {
-            // Create the HMAC/SHA1 key
-            SecretKeySpec signingKey = new SecretKeySpec(secretKey, "HmacSHA1");
-
-            // Create the message authentication code (MAC)
-            Mac mac = Mac.getInstance("HmacSHA1");
-            mac.init(signingKey);
-
-            // Compute the HMAC value
-            result = mac.doFinal(source.getBytes());
+            result = toHMac(source.getBytes(), secretKey, "HmacSHA1");
         } catch (NoSuchAlgorithmException nsae) {
             throw new RuntimeException(
                     "Could not find the SHA-1 algorithm. HMac conversion failed.",
@@ -146,16 +192,8 @@ public class DigestUtils {
         byte[] result = null;
 
         try {
-            // Create the HMAC/SHA256 key
-            SecretKeySpec signingKey = new SecretKeySpec(secretKey,
+            result = toHMac(source.getBytes("UTF-8"), secretKey,
                     "HmacSHA256");
-
-            // Create the message authentication code (MAC)
-            Mac mac = Mac.getInstance("HmacSHA256");
-            mac.init(signingKey);
-
-            // Compute the HMAC value
-            result = mac.doFinal(source.getBytes("UTF-8"));
         } catch (NoSuchAlgorithmException nsae) {
             throw new RuntimeException(
                     "Could not find the SHA256 algorithm. HMac conversion failed.",
@@ -249,8 +287,7 @@ public class DigestUtils {
     public static String toMd5(String target, String charsetName)
             throws UnsupportedEncodingException {
         try {
-            final byte[] md5 = MessageDigest.getInstance("MD5").digest(
-                    target.getBytes(charsetName));
+            final byte[] md5 = toDigest(target.getBytes(charsetName), "MD5");
             final char[] md5Chars = new char[32];
             int i = 0;
             for (final byte b : md5) {
@@ -298,8 +335,7 @@ public class DigestUtils {
             throws UnsupportedEncodingException {
         try {
             return Base64.encode(
-                    MessageDigest.getInstance("SHA1").digest(
-                            target.getBytes(charsetName)), false);
+                    toDigest(target.getBytes(charsetName), "SHA1"), false);
         } catch (NoSuchAlgorithmException nsae) {
             throw new RuntimeException(
                     "No SHA1 algorithm, unable to compute SHA1");
@@ -0,0 +1,196 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or or EPL 1.0 (the "Licenses"). You can
+ * select the license that you prefer but you may not use this file except in
+ * compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.ext.crypto.internal;
+
+import java.security.GeneralSecurityException;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.restlet.engine.util.Pool;
+
+/**
+ * Bounded pool of ciphers initialized with the same algorithm, secret key and
+ * mode. The secret key specification is computed once, and pooled ciphers are
+ * reused without looking up the provider or initializing them again. Note that
+ * a cipher must only be checked in after a successful final operation, which
+ * resets it to its initialized state.
+ * 
+ * @author Jerome Louvel
+ */
+public class CipherPool extends Pool<Cipher> {
+
+    /**
+     * Key of a shared pool, made of the cipher mode and the secret key
+     * specification, which compares the algorithm and the key bytes.
+     */
+    private static final class Key {
+
+        /** The secret key specification. */
+        private final SecretKeySpec keySpec;
+
+        /** The cipher mode. */
+        private final int mode;
+
+        /**
+         * Constructor.
+         * 
+         * @param keySpec
+         *            The secret key specification.
+         * @param mode
+         *            The cipher mode.
+         */
+        private Key(SecretKeySpec keySpec, int mode) {
+            this.keySpec = keySpec;
+            this.mode = mode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+
+            Key that = (Key) obj;
+            return (this.mode == that.mode)
+                    && this.keySpec.equals(that.keySpec);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * this.keySpec.hashCode() + this.mode;
+        }
+    }
+
+    /** The maximum number of idle ciphers kept by each pool. */
+    public static final int MAX_IDLE_CIPHERS = 4 * Runtime.getRuntime()
+            .availableProcessors();
+
+    /** The maximum number of shared pools. */
+    public static final int MAX_POOLS = 64;
+
+    /** The shared pools, indexed by algorithm, mode and secret key. */
+    private static final ConcurrentMap<Key, CipherPool> POOLS = new ConcurrentHashMap<Key, CipherPool>();
+
+    /**
+     * Returns the shared pool for a given algorithm, secret key and mode.
+     * 
+     * @param algorithm
+     *            The cryptographic algorithm.
+     * @param secretKey
+     *            The cryptographic secret key.
+     * @param mode
+     *            The cipher mode, either {@link Cipher#ENCRYPT_MODE} or
+     *            {@link Cipher#DECRYPT_MODE}.
+     * @return The pool of ciphers.
+     */
+    public static CipherPool getInstance(String algorithm, byte[] secretKey,
+            int mode) {
+        Key key = new Key(new SecretKeySpec(secretKey, algorithm), mode);
+        CipherPool result = POOLS.get(key);
+
+        if (result == null) {
+            if (POOLS.size() >= MAX_POOLS) {
+                POOLS.clear();
+            }
+
+            result = new CipherPool(algorithm, key.keySpec, mode);
+            CipherPool current = POOLS.putIfAbsent(key, result);
+
+            if (current != null) {
+                result = current;
+            }
+        }
+
+        return result;
+    }
+
+    /** The cryptographic algorithm. */
+    private final String algorithm;
+
+    /** The precomputed secret key specification. */
+    private final SecretKeySpec keySpec;
+
+    /** The cipher mode. */
+    private final int mode;
+
+    /**
+     * Constructor.
+     * 
+     * @param algorithm
+     *            The cryptographic algorithm.
+     * @param keySpec
+     *            The secret key specification.
+     * @param mode
+     *            The cipher mode, either {@link Cipher#ENCRYPT_MODE} or
+     *            {@link Cipher#DECRYPT_MODE}.
+     */
+    private CipherPool(String algorithm, SecretKeySpec keySpec, int mode) {
+        super();
+        this.algorithm = algorithm;
+        this.keySpec = keySpec;
+        this.mode = mode;
+    }
+
+    /**
+     * Creates an initialized cipher.
+     * 
+     * @return A new cipher or null if it couldn't be created.
+     */
+    @Override
+    protected Cipher createObject() {
+        try {
+            return newCipher();
+        } catch (GeneralSecurityException gse) {
+            return null;
+        }
+    }
+
+    @Override
+    protected Queue<Cipher> createStore() {
+        return new ArrayBlockingQueue<Cipher>(MAX_IDLE_CIPHERS);
+    }
+
+    /**
+     * Creates an initialized cipher, without using the pool.
+     * 
+     * @return A new cipher.
+     * @throws GeneralSecurityException
+     */
+    public Cipher newCipher() throws GeneralSecurityException {
+        Cipher result = Cipher.getInstance(this.algorithm);
+        result.init(this.mode, this.keySpec);
+        return result;
+    }
+
+}
@@ -27,7 +27,6 @@ package org.restlet.ext.crypto.internal;
 import java.security.GeneralSecurityException;
 
 import javax.crypto.Cipher;
-import javax.crypto.spec.SecretKeySpec;
 
 import org.restlet.engine.util.Base64;
 import org.restlet.ext.crypto.DigestUtils;
@@ -40,26 +39,6 @@ import org.restlet.ext.crypto.DigestUtils;
  */
 public final class CryptoUtils {
 
-    /**
-     * Creates a cipher for a given algorithm and secret.
-     * 
-     * @param algorithm
-     *            The cryptographic algorithm.
-     * @param secretKey
-     *            The cryptographic secret.
-     * @param mode
-     *            The cipher mode, either {@link Cipher#ENCRYPT_MODE} or
-     *            {@link Cipher#DECRYPT_MODE}.
-     * @return The new cipher.
-     * @throws GeneralSecurityException
-     */
-    private static Cipher createCipher(String algorithm, byte[] secretKey,
-            int mode) throws GeneralSecurityException {
-        Cipher cipher = Cipher.getInstance(algorithm);
-        cipher.init(mode, new SecretKeySpec(secretKey, algorithm));
-        return cipher;
-    }
-
     /**
      * Decrypts a bytes array.
      * 
@@ -97,7 +76,7 @@ public final class CryptoUtils {
     }
 
     /**
-     * Does final processing.
+     * Does final processing, using a pooled cipher.
      * 
      * @param algo
      *            The cryptographic algorithm.
@@ -113,7 +92,17 @@ public final class CryptoUtils {
      */
     private static byte[] doFinal(String algo, byte[] secretKey, int mode,
             byte[] what) throws GeneralSecurityException {
-        return createCipher(algo, secretKey, mode).doFinal(what);
+        CipherPool pool = CipherPool.getInstance(algo, secretKey, mode);
+        Cipher cipher = pool.checkout();
+
+        if (cipher == null) {
+            cipher = pool.newCipher();
+        }
+
+        // Only ciphers reset by a successful operation are checked in
+        byte[] result = cipher.doFinal(what);
+        pool.checkin(cipher);
+        return result;
     }
 
     /**
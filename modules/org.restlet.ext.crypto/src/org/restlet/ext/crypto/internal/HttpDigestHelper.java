@@ -53,6 +53,20 @@ import org.restlet.util.Series;
  */
 public class HttpDigestHelper extends AuthenticatorHelper {
 
+    /**
+     * Returns the time when a nonce was generated, as specified by
+     * {@link CryptoUtils#makeNonce(String)}.
+     * 
+     * @param nonce
+     *            The nonce value.
+     * @return The time in milliseconds when the nonce was generated.
+     */
+    public static long getNonceTime(String nonce) {
+        String decodedNonce = new String(Base64.decode(nonce));
+        return Long.parseLong(decodedNonce.substring(0,
+                decodedNonce.indexOf(':')));
+    }
+
     /**
      * Checks whether the specified nonce is valid with respect to the specified
      * secretKey, and further confirms that the nonce was generated less than
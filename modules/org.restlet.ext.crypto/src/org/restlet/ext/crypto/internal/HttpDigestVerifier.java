@@ -26,6 +26,7 @@ package org.restlet.ext.crypto.internal;
 
 import org.restlet.Request;
 import org.restlet.Response;
+import org.restlet.data.AuthenticationInfo;
 import org.restlet.data.ChallengeResponse;
 import org.restlet.data.Digest;
 import org.restlet.data.Reference;
@@ -94,6 +95,36 @@ public class HttpDigestVerifier extends
         return digestAuthenticator;
     }
 
+    /**
+     * Sends the next nonce to the client via the "Authentication-Info" header
+     * once the current nonce has reached half of its lifespan. This lets active
+     * clients switch to a fresh nonce without being challenged again.
+     * 
+     * @param nonce
+     *            The current nonce, already verified.
+     * @param response
+     *            The current response.
+     */
+    private void refreshNonce(String nonce, Response response) {
+        DigestAuthenticator authenticator = getDigestAuthenticator();
+        long age = System.currentTimeMillis()
+                - HttpDigestHelper.getNonceTime(nonce);
+
+        if ((response != null)
+                && (age >= authenticator.getMaxServerNonceAge() / 2)) {
+            NonceCache nonceCache = authenticator.getNonceCache();
+            String nextNonce = nonceCache.getNextNonce(nonce);
+
+            if (nextNonce == null) {
+                nextNonce = nonceCache.setNextNonce(nonce,
+                        authenticator.generateServerNonce());
+            }
+
+            response.setAuthenticationInfo(new AuthenticationInfo(nextNonce,
+                    0, null, null, null));
+        }
+    }
+
     /**
      * Sets the associated digest authenticator.
      * 
@@ -188,8 +219,17 @@ public class HttpDigestVerifier extends
                 }
             }
 
+            if ((result == RESULT_VALID) && (qop != null) && (nc > 0)
+                    && !getDigestAuthenticator().getNonceCache().record(nonce,
+                            HttpDigestHelper.getNonceTime(nonce), nc)) {
+                // Replayed or unchecked nonce-count, send challenge request
+                // with stale=true
+                result = RESULT_STALE;
+            }
+
             if (result == RESULT_VALID) {
                 request.getClientInfo().setUser(new User(username));
+                refreshNonce(nonce, response);
             }
         }
 
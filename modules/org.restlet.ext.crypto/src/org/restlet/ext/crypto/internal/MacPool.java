@@ -0,0 +1,148 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or or EPL 1.0 (the "Licenses"). You can
+ * select the license that you prefer but you may not use this file except in
+ * compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.ext.crypto.internal;
+
+import java.security.GeneralSecurityException;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.restlet.engine.util.Pool;
+
+/**
+ * Bounded pool of message authentication codes initialized with the same
+ * algorithm and secret key. The secret key specification is computed once, and
+ * pooled MACs are reset when checked in.
+ * 
+ * @author Jerome Louvel
+ */
+public class MacPool extends Pool<Mac> {
+
+    /** The maximum number of idle MACs kept by each pool. */
+    public static final int MAX_IDLE_MACS = 4 * Runtime.getRuntime()
+            .availableProcessors();
+
+    /** The maximum number of shared pools. */
+    public static final int MAX_POOLS = 64;
+
+    /**
+     * The shared pools, indexed by secret key specification, which compares
+     * the algorithm and the key bytes.
+     */
+    private static final ConcurrentMap<SecretKeySpec, MacPool> POOLS = new ConcurrentHashMap<SecretKeySpec, MacPool>();
+
+    /**
+     * Returns the shared pool for a given algorithm and secret key.
+     * 
+     * @param algorithm
+     *            The MAC algorithm, such as "HmacSHA1".
+     * @param secretKey
+     *            The secret key.
+     * @return The pool of MACs.
+     */
+    public static MacPool getInstance(String algorithm, byte[] secretKey) {
+        SecretKeySpec key = new SecretKeySpec(secretKey, algorithm);
+        MacPool result = POOLS.get(key);
+
+        if (result == null) {
+            if (POOLS.size() >= MAX_POOLS) {
+                POOLS.clear();
+            }
+
+            result = new MacPool(algorithm, key);
+            MacPool current = POOLS.putIfAbsent(key, result);
+
+            if (current != null) {
+                result = current;
+            }
+        }
+
+        return result;
+    }
+
+    /** The MAC algorithm. */
+    private final String algorithm;
+
+    /** The precomputed secret key specification. */
+    private final SecretKeySpec keySpec;
+
+    /**
+     * Constructor.
+     * 
+     * @param algorithm
+     *            The MAC algorithm.
+     * @param keySpec
+     *            The secret key specification.
+     */
+    private MacPool(String algorithm, SecretKeySpec keySpec) {
+        super();
+        this.algorithm = algorithm;
+        this.keySpec = keySpec;
+    }
+
+    @Override
+    protected void clear(Mac mac) {
+        mac.reset();
+    }
+
+    /**
+     * Creates an initialized MAC.
+     * 
+     * @return A new MAC or null if it couldn't be created.
+     */
+    @Override
+    protected Mac createObject() {
+        try {
+            return newMac();
+        } catch (GeneralSecurityException gse) {
+            return null;
+        }
+    }
+
+    @Override
+    protected Queue<Mac> createStore() {
+        return new ArrayBlockingQueue<Mac>(MAX_IDLE_MACS);
+    }
+
+    /**
+     * Creates an initialized MAC, without using the pool.
+     * 
+     * @return A new MAC.
+     * @throws NoSuchAlgorithmException
+     * @throws InvalidKeyException
+     */
+    public Mac newMac() throws NoSuchAlgorithmException, InvalidKeyException {
+        Mac result = Mac.getInstance(this.algorithm);
+        result.init(this.keySpec);
+        return result;
+    }
+
+}
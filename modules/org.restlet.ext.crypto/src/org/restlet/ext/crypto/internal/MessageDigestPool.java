@@ -0,0 +1,121 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or or EPL 1.0 (the "Licenses"). You can
+ * select the license that you prefer but you may not use this file except in
+ * compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.ext.crypto.internal;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.restlet.engine.util.Pool;
+
+/**
+ * Bounded pool of message digests sharing the same algorithm. Pooled digests
+ * are reset when checked in.
+ * 
+ * @author Jerome Louvel
+ */
+public class MessageDigestPool extends Pool<MessageDigest> {
+
+    /** The maximum number of idle digests kept by each pool. */
+    public static final int MAX_IDLE_DIGESTS = 4 * Runtime.getRuntime()
+            .availableProcessors();
+
+    /** The shared pools, indexed by algorithm. */
+    private static final ConcurrentMap<String, MessageDigestPool> POOLS = new ConcurrentHashMap<String, MessageDigestPool>();
+
+    /**
+     * Returns the shared pool for a given algorithm.
+     * 
+     * @param algorithm
+     *            The digest algorithm, such as "MD5".
+     * @return The pool of digests.
+     */
+    public static MessageDigestPool getInstance(String algorithm) {
+        MessageDigestPool result = POOLS.get(algorithm);
+
+        if (result == null) {
+            result = new MessageDigestPool(algorithm);
+            MessageDigestPool current = POOLS.putIfAbsent(algorithm, result);
+
+            if (current != null) {
+                result = current;
+            }
+        }
+
+        return result;
+    }
+
+    /** The digest algorithm. */
+    private final String algorithm;
+
+    /**
+     * Constructor.
+     * 
+     * @param algorithm
+     *            The digest algorithm.
+     */
+    private MessageDigestPool(String algorithm) {
+        super();
+        this.algorithm = algorithm;
+    }
+
+    @Override
+    protected void clear(MessageDigest digest) {
+        digest.reset();
+    }
+
+    /**
+     * Creates a message digest.
+     * 
+     * @return A new digest or null if it couldn't be created.
+     */
+    @Override
+    protected MessageDigest createObject() {
+        try {
+            return newMessageDigest();
+        } catch (NoSuchAlgorithmException nsae) {
+            return null;
+        }
+    }
+
+    @Override
+    protected Queue<MessageDigest> createStore() {
+        return new ArrayBlockingQueue<MessageDigest>(MAX_IDLE_DIGESTS);
+    }
+
+    /**
+     * Creates a message digest, without using the pool.
+     * 
+     * @return A new digest.
+     * @throws NoSuchAlgorithmException
+     */
+    public MessageDigest newMessageDigest() throws NoSuchAlgorithmException {
+        return MessageDigest.getInstance(this.algorithm);
+    }
+
+}
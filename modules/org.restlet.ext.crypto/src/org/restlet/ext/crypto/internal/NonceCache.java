@@ -0,0 +1,395 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or or EPL 1.0 (the "Licenses"). You can
+ * select the license that you prefer but you may not use this file except in
+ * compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.ext.crypto.internal;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded cache of the server nonces used by the clients of a digest
+ * authenticator. For each nonce, it records the nonce-count values already
+ * received in order to detect replayed requests, as well as the next nonce sent
+ * to the client via the "Authentication-Info" header.<br>
+ * <br>
+ * A nonce is only tracked once it has been used in a successfully verified
+ * request, so that unauthenticated clients, which can obtain as many nonces as
+ * they want via challenges, can't fill the cache and evict the nonces of
+ * legitimate clients.<br>
+ * <br>
+ * Nonces are expired with a time wheel: each slot of the wheel lists the nonces
+ * first used during a tick, and the slots are cleared as the wheel turns, so
+ * that expiring entries never requires a scan of the whole cache. When the
+ * cache is full, the oldest slot is cleared early. The cache remembers the
+ * latest issue time of the nonces it removed, so that a nonce that may have
+ * been tracked before isn't accepted again with a fresh nonce-count window.<br>
+ * <br>
+ * Nonce-counts are accepted out of order, within a window of 64 values below
+ * the highest count received, so that concurrent requests sharing a nonce
+ * don't have to arrive in sequence.<br>
+ * <br>
+ * Concurrency note: the nonce entries are spread over several independently
+ * locked stripes, so recording the counts of known nonces and handling their
+ * next nonces only locks a stripe. Inserting a nonce and turning the wheel are
+ * serialized by a single lock, which only happens once per nonce lifespan for
+ * each client.
+ * 
+ * @author Jerome Louvel
+ */
+public class NonceCache {
+
+    /**
+     * State of a cached nonce.
+     */
+    private static final class Entry {
+
+        /** The highest nonce-count received. */
+        private long highestCount;
+
+        /** The issue time of the nonce. */
+        private final long issueTime;
+
+        /** The next nonce sent to the client, if any. */
+        private String nextNonce;
+
+        /**
+         * The nonce-counts received below the highest one, as a bit mask. The
+         * lowest bit represents the highest count itself.
+         */
+        private long window;
+
+        /**
+         * Constructor.
+         * 
+         * @param issueTime
+         *            The issue time of the nonce.
+         */
+        private Entry(long issueTime) {
+            this.issueTime = issueTime;
+        }
+    }
+
+    /** The default maximum number of cached nonces. */
+    public static final int DEFAULT_MAX_SIZE = 10000;
+
+    /** The number of slots in the time wheel. */
+    private static final int SLOTS = 16;
+
+    /** The number of lock stripes, must be a power of two. */
+    private static final int STRIPES = 16;
+
+    /** The size of the nonce-count window. */
+    private static final int WINDOW_SIZE = 64;
+
+    /**
+     * Records a nonce-count value in the window of a nonce entry. Must be
+     * called while holding the lock on the stripe of the entry.
+     * 
+     * @param entry
+     *            The nonce entry.
+     * @param nonceCount
+     *            The nonce-count value received.
+     * @return True if the nonce-count is new, false if it was already received
+     *         or is too old to be checked.
+     */
+    private static boolean record(Entry entry, long nonceCount) {
+        if (nonceCount > entry.highestCount) {
+            long shift = nonceCount - entry.highestCount;
+            entry.window = (shift >= WINDOW_SIZE) ? 1L
+                    : (entry.window << shift) | 1L;
+            entry.highestCount = nonceCount;
+            return true;
+        }
+
+        long offset = entry.highestCount - nonceCount;
+
+        if (offset >= WINDOW_SIZE) {
+            return false;
+        }
+
+        long bit = 1L << offset;
+
+        if ((entry.window & bit) != 0) {
+            return false;
+        }
+
+        entry.window |= bit;
+        return true;
+    }
+
+    /** The current tick of the time wheel. */
+    private volatile long currentTick;
+
+    /** The maximum number of cached nonces. */
+    private final int maxSize;
+
+    /**
+     * The latest issue time of the removed nonces. Guarded by the lock on the
+     * slots.
+     */
+    private long removedIssueTime;
+
+    /** The current number of cached nonces. */
+    private final AtomicInteger size;
+
+    /** The slots of the time wheel, each listing the nonces of a tick. */
+    private final List<List<String>> slots;
+
+    /** The cached nonce entries, spread over the lock stripes. */
+    private final List<Map<String, Entry>> stripes;
+
+    /** The duration of a tick of the time wheel, in milliseconds. */
+    private final long tickDuration;
+
+    /**
+     * Constructor.
+     * 
+     * @param lifespan
+     *            The nonce lifespan in milliseconds.
+     * @param maxSize
+     *            The maximum number of cached nonces.
+     */
+    public NonceCache(long lifespan, int maxSize) {
+        this.maxSize = maxSize;
+        this.removedIssueTime = Long.MIN_VALUE;
+        this.size = new AtomicInteger();
+        this.tickDuration = Math.max(1L, (lifespan + SLOTS - 1) / SLOTS);
+        this.currentTick = System.currentTimeMillis() / this.tickDuration;
+        this.slots = new ArrayList<List<String>>(SLOTS);
+
+        for (int i = 0; i < SLOTS; i++) {
+            this.slots.add(new ArrayList<String>());
+        }
+
+        this.stripes = new ArrayList<Map<String, Entry>>(STRIPES);
+
+        for (int i = 0; i < STRIPES; i++) {
+            this.stripes.add(new HashMap<String, Entry>());
+        }
+    }
+
+    /**
+     * Turns the time wheel up to the given time, removing the nonces of the
+     * slots that expired. Must be called while holding the lock on the slots.
+     * 
+     * @param now
+     *            The current time in milliseconds.
+     */
+    private void advance(long now) {
+        long tick = now / this.tickDuration;
+        long from = Math.max(this.currentTick, tick - SLOTS);
+
+        for (long t = from + 1; t <= tick; t++) {
+            clearSlot((int) (t % SLOTS));
+        }
+
+        if (tick > this.currentTick) {
+            this.currentTick = tick;
+        }
+    }
+
+    /**
+     * Removes all the nonces from the cache.
+     */
+    public void clear() {
+        synchronized (this.slots) {
+            for (int i = 0; i < SLOTS; i++) {
+                clearSlot(i);
+            }
+        }
+    }
+
+    /**
+     * Removes the nonces listed in a slot of the time wheel. Must be called
+     * while holding the lock on the slots.
+     * 
+     * @param index
+     *            The index of the slot.
+     */
+    private void clearSlot(int index) {
+        List<String> slot = this.slots.get(index);
+
+        for (String nonce : slot) {
+            Map<String, Entry> stripe = getStripe(nonce);
+
+            synchronized (stripe) {
+                Entry entry = stripe.remove(nonce);
+
+                if (entry != null) {
+                    this.size.decrementAndGet();
+
+                    if (entry.issueTime > this.removedIssueTime) {
+                        this.removedIssueTime = entry.issueTime;
+                    }
+                }
+            }
+        }
+
+        slot.clear();
+    }
+
+    /**
+     * Clears the oldest non empty slot of the time wheel. Must be called while
+     * holding the lock on the slots.
+     */
+    private void evictOldest() {
+        for (int i = 1; i <= SLOTS; i++) {
+            int index = (int) ((this.currentTick + i) % SLOTS);
+
+            if (!this.slots.get(index).isEmpty()) {
+                clearSlot(index);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns the next nonce sent to the client for a given nonce.
+     * 
+     * @param nonce
+     *            The current nonce.
+     * @return The next nonce or null.
+     */
+    public String getNextNonce(String nonce) {
+        Map<String, Entry> stripe = getStripe(nonce);
+
+        synchronized (stripe) {
+            Entry entry = stripe.get(nonce);
+            return (entry == null) ? null : entry.nextNonce;
+        }
+    }
+
+    /**
+     * Returns the lock stripe of a given nonce.
+     * 
+     * @param nonce
+     *            The nonce.
+     * @return The lock stripe.
+     */
+    private Map<String, Entry> getStripe(String nonce) {
+        int hash = nonce.hashCode();
+        return this.stripes.get((hash ^ (hash >>> 16)) & (STRIPES - 1));
+    }
+
+    /**
+     * Records a nonce-count value received in a successfully verified request
+     * for a given nonce. A nonce that isn't cached yet is added, unless it was
+     * issued before one of the nonces removed from the cache, in which case it
+     * may have been used before and its nonce-counts can't be checked.
+     * 
+     * @param nonce
+     *            The nonce.
+     * @param issueTime
+     *            The issue time of the nonce in milliseconds.
+     * @param nonceCount
+     *            The nonce-count value received.
+     * @return True if the nonce-count is new, false if it was already received
+     *         or can't be checked, in which case the nonce should be
+     *         considered stale.
+     */
+    public boolean record(String nonce, long issueTime, long nonceCount) {
+        long now = System.currentTimeMillis();
+
+        if ((now / this.tickDuration) > this.currentTick) {
+            synchronized (this.slots) {
+                advance(now);
+            }
+        }
+
+        Map<String, Entry> stripe = getStripe(nonce);
+
+        synchronized (stripe) {
+            Entry entry = stripe.get(nonce);
+
+            if (entry != null) {
+                return record(entry, nonceCount);
+            }
+        }
+
+        // Unknown nonce, the slots must be locked before the stripe
+        synchronized (this.slots) {
+            if (issueTime <= this.removedIssueTime) {
+                return false;
+            }
+
+            if (this.size.get() >= this.maxSize) {
+                evictOldest();
+            }
+
+            synchronized (stripe) {
+                Entry entry = stripe.get(nonce);
+
+                if (entry == null) {
+                    // Not added concurrently
+                    entry = new Entry(issueTime);
+                    stripe.put(nonce, entry);
+                    this.slots.get((int) (this.currentTick % SLOTS)).add(
+                            nonce);
+                    this.size.incrementAndGet();
+                }
+
+                return record(entry, nonceCount);
+            }
+        }
+    }
+
+    /**
+     * Sets the next nonce sent to the client for a given nonce, unless one was
+     * already set.
+     * 
+     * @param nonce
+     *            The current nonce.
+     * @param nextNonce
+     *            The next nonce.
+     * @return The next nonce actually set.
+     */
+    public String setNextNonce(String nonce, String nextNonce) {
+        Map<String, Entry> stripe = getStripe(nonce);
+
+        synchronized (stripe) {
+            Entry entry = stripe.get(nonce);
+
+            if (entry == null) {
+                return nextNonce;
+            } else if (entry.nextNonce == null) {
+                entry.nextNonce = nextNonce;
+            }
+
+            return entry.nextNonce;
+        }
+    }
+
+    /**
+     * Returns the number of cached nonces.
+     * 
+     * @return The number of cached nonces.
+     */
+    public int size() {
+        return this.size.get();
+    }
+
+}
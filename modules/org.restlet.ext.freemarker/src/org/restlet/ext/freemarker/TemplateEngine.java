@@ -0,0 +1,203 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or or EPL 1.0 (the "Licenses"). You can
+ * select the license that you prefer but you may not use this file except in
+ * compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.ext.freemarker;
+
+import org.restlet.Application;
+import org.restlet.Context;
+import org.restlet.data.Reference;
+import org.restlet.engine.util.RepresentationCache;
+import org.restlet.representation.Representation;
+
+import freemarker.template.Configuration;
+import freemarker.template.Template;
+
+/**
+ * FreeMarker template engine shared by an application. It holds a FreeMarker
+ * configuration and a cache of the templates compiled from representations.
+ * Compiling a template is much more expensive than processing it, and the
+ * resulting FreeMarker templates are thread-safe.<br>
+ * <br>
+ * Template representations are identified by their location reference, so
+ * representations without location reference aren't cached. A cached template
+ * is only reused if the tag and the modification date of the template
+ * representation are unchanged, otherwise the template is compiled again.
+ * Representations that have neither a tag nor a modification date are compiled
+ * each time as their changes can't be detected.<br>
+ * <br>
+ * Templates loaded by name rely on the cache of the FreeMarker configuration
+ * itself.
+ * 
+ * @author Jerome Louvel
+ */
+public class TemplateEngine {
+
+    /** The name of the context attribute holding the application engine. */
+    public static final String ATTRIBUTE_NAME = TemplateEngine.class.getName();
+
+    /** The maximum number of cached templates. */
+    public static final int MAX_ENTRIES = 256;
+
+    /** The engine used outside of any application. */
+    private static final TemplateEngine defaultEngine = new TemplateEngine();
+
+    /**
+     * Returns the engine of the current application, creating it if needed.
+     * The engine is stored in the attributes of the application's context
+     * under the {@link #ATTRIBUTE_NAME} name, so it can also be set up-front by
+     * the application. When no application is available, a default engine
+     * shared by the JVM is returned.
+     * 
+     * @return The engine of the current application.
+     */
+    public static TemplateEngine getCurrent() {
+        Application application = Application.getCurrent();
+        Context context = (application == null) ? null : application
+                .getContext();
+
+        if (context == null) {
+            return defaultEngine;
+        }
+
+        Object result = context.getAttributes().get(ATTRIBUTE_NAME);
+
+        if (!(result instanceof TemplateEngine)) {
+            TemplateEngine engine = new TemplateEngine();
+            result = context.getAttributes().putIfAbsent(ATTRIBUTE_NAME,
+                    engine);
+
+            if (!(result instanceof TemplateEngine)) {
+                context.getAttributes().put(ATTRIBUTE_NAME, engine);
+                result = engine;
+            }
+        }
+
+        return (TemplateEngine) result;
+    }
+
+    /** The FreeMarker configuration. */
+    private final Configuration configuration;
+
+    /** The cached entries, indexed by location reference. */
+    private final RepresentationCache<String, Template> entries;
+
+    /**
+     * Constructor based on a default FreeMarker configuration.
+     */
+    public TemplateEngine() {
+        this(new Configuration());
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param configuration
+     *            The FreeMarker configuration.
+     */
+    public TemplateEngine(Configuration configuration) {
+        this.configuration = configuration;
+        this.entries = new RepresentationCache<String, Template>(MAX_ENTRIES);
+    }
+
+    /**
+     * Removes all the cached templates.
+     */
+    public void clear() {
+        this.entries.clear();
+    }
+
+    /**
+     * Returns the FreeMarker configuration.
+     * 
+     * @return The FreeMarker configuration.
+     */
+    public Configuration getConfiguration() {
+        return this.configuration;
+    }
+
+    /**
+     * Returns the template compiled from a representation, from the cache if
+     * possible.
+     * 
+     * @param templateRepresentation
+     *            The template representation.
+     * @return The compiled template or null if it couldn't be compiled.
+     */
+    public Template getTemplate(Representation templateRepresentation) {
+        if (!RepresentationCache.isCacheable(templateRepresentation)) {
+            return TemplateRepresentation.getTemplate(getConfiguration(),
+                    templateRepresentation);
+        }
+
+        String key = templateRepresentation.getLocationRef().getTargetRef()
+                .toString();
+        Template result = this.entries.get(key, templateRepresentation);
+
+        if (result == null) {
+            result = TemplateRepresentation.getTemplate(getConfiguration(),
+                    templateRepresentation);
+
+            if (result != null) {
+                this.entries.put(key, templateRepresentation, result);
+            }
+        } else {
+            // The content isn't needed anymore
+            templateRepresentation.release();
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns a template loaded by name by the FreeMarker configuration.
+     * 
+     * @param templateName
+     *            The template name.
+     * @return The template or null if it couldn't be loaded.
+     */
+    public Template getTemplate(String templateName) {
+        return TemplateRepresentation.getTemplate(getConfiguration(),
+                templateName);
+    }
+
+    /**
+     * Removes the cached template of a representation.
+     * 
+     * @param locationRef
+     *            The location reference of the template representation.
+     */
+    public void remove(Reference locationRef) {
+        this.entries.remove(locationRef.getTargetRef().toString());
+    }
+
+    /**
+     * Returns the number of cached templates.
+     * 
+     * @return The number of cached templates.
+     */
+    public int size() {
+        return this.entries.size();
+    }
+
+}
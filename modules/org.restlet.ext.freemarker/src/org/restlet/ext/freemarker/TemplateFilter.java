@@ -43,6 +43,10 @@ import freemarker.template.TemplateHashModel;
  * happen, the representations must have the {@link Encoding#FREEMARKER}
  * encoding set.<br>
  * <br>
+ * By default, the templates are compiled and cached by the template engine of
+ * the current application. Setting a specific configuration or engine keeps
+ * the templates of this filter apart.<br>
+ * <br>
  * Concurrency note: instances of this class or its subclasses can be invoked by
  * several threads at the same time and therefore must be thread-safe. You
  * should be especially careful when storing state in member variables.
@@ -51,8 +55,8 @@ import freemarker.template.TemplateHashModel;
  */
 public class TemplateFilter extends Filter {
 
-    /** The FreeMarker configuration. */
-    private volatile Configuration configuration;
+    /** The template engine or null to use the application's engine. */
+    private volatile TemplateEngine engine;
 
     /** The template's data model. */
     private volatile Object dataModel;
@@ -62,7 +66,6 @@ public class TemplateFilter extends Filter {
      */
     public TemplateFilter() {
         super();
-        this.configuration = new Configuration();
     }
 
     /**
@@ -73,7 +76,6 @@ public class TemplateFilter extends Filter {
      */
     public TemplateFilter(Context context) {
         super(context);
-        this.configuration = new Configuration();
     }
 
     /**
@@ -86,7 +88,6 @@ public class TemplateFilter extends Filter {
      */
     public TemplateFilter(Context context, Restlet next) {
         super(context, next);
-        this.configuration = new Configuration();
     }
 
     /**
@@ -126,7 +127,7 @@ public class TemplateFilter extends Filter {
                 && response.getEntity().getEncodings()
                         .contains(Encoding.FREEMARKER)) {
             TemplateRepresentation representation = new TemplateRepresentation(
-                    response.getEntity(), this.configuration, response
+                    getEngine().getTemplate(response.getEntity()), response
                             .getEntity().getMediaType());
             representation.setDataModel(createDataModel(request, response));
             response.setEntity(representation);
@@ -159,12 +160,30 @@ public class TemplateFilter extends Filter {
     }
 
     /**
-     * Returns the FreeMarker configuration.
+     * Returns the FreeMarker configuration of the template engine. Unless a
+     * specific configuration or engine was set, this is the configuration
+     * shared by the whole application, so changing it affects all the
+     * templates of the application. To customize the configuration of this
+     * filter only, set a new configuration with
+     * {@link #setConfiguration(Configuration)} instead.
      * 
      * @return The FreeMarker configuration.
+     * @see TemplateEngine#getCurrent()
      */
     public Configuration getConfiguration() {
-        return this.configuration;
+        return getEngine().getConfiguration();
+    }
+
+    /**
+     * Returns the template engine. If none was set, returns the engine of the
+     * current application.
+     * 
+     * @return The template engine.
+     * @see TemplateEngine#getCurrent()
+     */
+    public TemplateEngine getEngine() {
+        TemplateEngine result = this.engine;
+        return (result == null) ? TemplateEngine.getCurrent() : result;
     }
 
     /**
@@ -184,7 +203,18 @@ public class TemplateFilter extends Filter {
      *            FreeMarker configuration.
      */
     public void setConfiguration(Configuration config) {
-        this.configuration = config;
+        setEngine((config == null) ? null : new TemplateEngine(config));
+    }
+
+    /**
+     * Sets the template engine. If null, the engine of the current application
+     * is used.
+     * 
+     * @param engine
+     *            The template engine.
+     */
+    public void setEngine(TemplateEngine engine) {
+        this.engine = engine;
     }
 
     /**
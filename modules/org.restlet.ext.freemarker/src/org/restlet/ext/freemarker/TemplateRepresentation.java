@@ -140,20 +140,24 @@ public class TemplateRepresentation extends WriterRepresentation {
     }
 
     /**
-     * Constructor.
+     * Constructor. Uses the template engine of the current application, which
+     * caches the compiled template.
      * 
      * @param templateRepresentation
      *            The FreeMarker template provided via a representation.
      * @param mediaType
      *            The representation's media type.
+     * @see TemplateEngine#getCurrent()
      */
     public TemplateRepresentation(Representation templateRepresentation,
             MediaType mediaType) {
-        this(templateRepresentation, new Configuration(), mediaType);
+        this(TemplateEngine.getCurrent().getTemplate(templateRepresentation),
+                mediaType);
     }
 
     /**
-     * Constructor. Uses a default FreeMarker configuration.
+     * Constructor. Uses the template engine of the current application, which
+     * caches the compiled template.
      * 
      * @param templateRepresentation
      *            The FreeMarker template provided via a representation.
@@ -161,10 +165,12 @@ public class TemplateRepresentation extends WriterRepresentation {
      *            The template's data model.
      * @param mediaType
      *            The representation's media type.
+     * @see TemplateEngine#getCurrent()
      */
     public TemplateRepresentation(Representation templateRepresentation,
             Object dataModel, MediaType mediaType) {
-        this(templateRepresentation, new Configuration(), dataModel, mediaType);
+        this(TemplateEngine.getCurrent().getTemplate(templateRepresentation),
+                dataModel, mediaType);
     }
 
     /**
@@ -25,24 +25,112 @@
 package org.restlet.ext.jackson;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+import org.restlet.Application;
+import org.restlet.Context;
+import org.restlet.Restlet;
 import org.restlet.data.MediaType;
 import org.restlet.data.Preference;
 import org.restlet.engine.converter.ConverterHelper;
+import org.restlet.engine.resource.AnnotationInfo;
+import org.restlet.engine.resource.AnnotationUtils;
+import org.restlet.engine.resource.MethodAnnotationInfo;
 import org.restlet.engine.resource.VariantInfo;
 import org.restlet.representation.Representation;
 import org.restlet.representation.Variant;
+import org.restlet.resource.Finder;
 import org.restlet.resource.Resource;
+import org.restlet.routing.Filter;
+import org.restlet.routing.Route;
+import org.restlet.routing.Router;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 
 /**
  * Converter between the JSON, JSON Smile, CBOR, CSV, XML, YAML and Representation
- * classes based on Jackson.
+ * classes based on Jackson.<br>
+ * <br>
+ * The Jackson object mappers are cached by media type and shared by the
+ * representations created by this converter, as well as the object readers
+ * and writers, cached by media type and object class. This preserves the
+ * serializer caches of Jackson across calls. Those caches can be filled at
+ * application start with the {@link #warmUp(MediaType, Restlet)} method. Note
+ * that the mappers of the representations created by this converter must not
+ * be customized as they are shared; override the
+ * {@link #create(MediaType, Object)} and
+ * {@link #create(Representation, Class)} methods instead.
  * 
  * @author Jerome Louvel
  * @author Thierry Boileau
  */
 public class JacksonConverter extends ConverterHelper {
+
+    /** Key of the caches of mappers, readers and writers. */
+    private static final class CacheKey {
+
+        /** The XML parsing flags. */
+        private final int flags;
+
+        /** The media type name. */
+        private final String mediaType;
+
+        /** The object class, or null for mappers. */
+        private final Class<?> objectClass;
+
+        /**
+         * Constructor.
+         * 
+         * @param representation
+         *            The representation to configure.
+         * @param objectClass
+         *            The object class, or null for mappers.
+         */
+        private CacheKey(JacksonRepresentation<?> representation,
+                Class<?> objectClass) {
+            int flags = 0;
+            // [ifndef android]
+            flags |= representation.isExpandingEntityRefs() ? 1 : 0;
+            flags |= representation.isValidatingDtd() ? 2 : 0;
+            // [enddef]
+            this.flags = flags;
+            this.mediaType = (representation.getMediaType() == null) ? null
+                    : representation.getMediaType().getName();
+            this.objectClass = objectClass;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof CacheKey)) {
+                return false;
+            }
+
+            CacheKey other = (CacheKey) obj;
+            return (this.flags == other.flags)
+                    && (this.objectClass == other.objectClass)
+                    && ((this.mediaType == null) ? (other.mediaType == null)
+                            : this.mediaType.equals(other.mediaType));
+        }
+
+        @Override
+        public int hashCode() {
+            int result = (this.mediaType == null) ? 0 : this.mediaType
+                    .hashCode();
+            result = 31 * result
+                    + ((this.objectClass == null) ? 0 : this.objectClass
+                            .hashCode());
+            return 31 * result + this.flags;
+        }
+    }
+
     // [ifndef android] instruction
     /** Variant with media type application/xml. */
     private static final VariantInfo VARIANT_APPLICATION_XML = new VariantInfo(
@@ -77,8 +165,69 @@ public class JacksonConverter extends ConverterHelper {
     private static final VariantInfo VARIANT_TEXT_YAML = new VariantInfo(
             MediaType.TEXT_YAML);
 
+    /** The cached object mappers. */
+    private final ConcurrentMap<CacheKey, ObjectMapper> objectMappers;
+
+    /** The cached object readers. */
+    private final ConcurrentMap<CacheKey, ObjectReader> objectReaders;
+
+    /** The cached object writers. */
+    private final ConcurrentMap<CacheKey, ObjectWriter> objectWriters;
+
+    /**
+     * Constructor.
+     */
+    public JacksonConverter() {
+        this.objectMappers = new ConcurrentHashMap<CacheKey, ObjectMapper>();
+        this.objectReaders = new ConcurrentHashMap<CacheKey, ObjectReader>();
+        this.objectWriters = new ConcurrentHashMap<CacheKey, ObjectWriter>();
+    }
+
     /**
-     * Creates the marshaling {@link JacksonRepresentation}.
+     * Collects the server resource classes reachable from a Restlet, following
+     * applications, filters, routers and finders.
+     * 
+     * @param restlet
+     *            The Restlet to visit.
+     * @param visited
+     *            The Restlets already visited.
+     * @param resourceClasses
+     *            The resource classes found.
+     */
+    private void collectResourceClasses(Restlet restlet, Set<Restlet> visited,
+            List<Class<?>> resourceClasses) {
+        if ((restlet == null) || !visited.add(restlet)) {
+            return;
+        }
+
+        if (restlet instanceof Application) {
+            collectResourceClasses(((Application) restlet).getInboundRoot(),
+                    visited, resourceClasses);
+        } else if (restlet instanceof Filter) {
+            collectResourceClasses(((Filter) restlet).getNext(), visited,
+                    resourceClasses);
+        } else if (restlet instanceof Router) {
+            Router router = (Router) restlet;
+
+            for (Route route : router.getRoutes()) {
+                collectResourceClasses(route, visited, resourceClasses);
+            }
+
+            collectResourceClasses(router.getDefaultRoute(), visited,
+                    resourceClasses);
+        } else if (restlet instanceof Finder) {
+            Class<?> targetClass = ((Finder) restlet).getTargetClass();
+
+            if ((targetClass != null)
+                    && !resourceClasses.contains(targetClass)) {
+                resourceClasses.add(targetClass);
+            }
+        }
+    }
+
+    /**
+     * Creates the marshaling {@link JacksonRepresentation}. By default, the
+     * representation is configured with the cached mapper and writer.
      * 
      * @param <T>
      * @param mediaType
@@ -88,11 +237,20 @@ public class JacksonConverter extends ConverterHelper {
      * @return The marshaling {@link JacksonRepresentation}.
      */
     protected <T> JacksonRepresentation<T> create(MediaType mediaType, T source) {
-        return new JacksonRepresentation<T>(mediaType, source);
+        JacksonRepresentation<T> result = new JacksonRepresentation<T>(
+                mediaType, source);
+        result.setObjectMapper(getObjectMapper(result));
+
+        if (result.getObjectClass() != null) {
+            result.setObjectWriter(getObjectWriter(result));
+        }
+
+        return result;
     }
 
     /**
-     * Creates the unmarshaling {@link JacksonRepresentation}.
+     * Creates the unmarshaling {@link JacksonRepresentation}. By default, the
+     * representation is configured with the cached mapper and reader.
      * 
      * @param <T>
      * @param source
@@ -103,7 +261,16 @@ public class JacksonConverter extends ConverterHelper {
      */
     protected <T> JacksonRepresentation<T> create(Representation source,
             Class<T> objectClass) {
-        return new JacksonRepresentation<T>(source, objectClass);
+        JacksonRepresentation<T> result = new JacksonRepresentation<T>(source,
+                objectClass);
+        result.setObjectMapper(getObjectMapper(result));
+
+        if ((objectClass != null)
+                && !Representation.class.isAssignableFrom(objectClass)) {
+            result.setObjectReader(getObjectReader(result));
+        }
+
+        return result;
     }
 
     @Override
@@ -118,6 +285,82 @@ public class JacksonConverter extends ConverterHelper {
         return result;
     }
 
+    /**
+     * Returns the cached mapper for the media type of a representation,
+     * creating it if needed.
+     * 
+     * @param representation
+     *            The representation to configure.
+     * @return The cached mapper.
+     */
+    private ObjectMapper getObjectMapper(JacksonRepresentation<?> representation) {
+        CacheKey key = new CacheKey(representation, null);
+        ObjectMapper result = this.objectMappers.get(key);
+
+        if (result == null) {
+            result = representation.createObjectMapper();
+            ObjectMapper current = this.objectMappers.putIfAbsent(key, result);
+
+            if (current != null) {
+                result = current;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the cached reader for the media type and object class of a
+     * representation, creating it if needed. The representation must already
+     * use the cached mapper.
+     * 
+     * @param representation
+     *            The representation to configure.
+     * @return The cached reader.
+     */
+    private ObjectReader getObjectReader(JacksonRepresentation<?> representation) {
+        CacheKey key = new CacheKey(representation,
+                representation.getObjectClass());
+        ObjectReader result = this.objectReaders.get(key);
+
+        if (result == null) {
+            result = representation.createObjectReader();
+            ObjectReader current = this.objectReaders.putIfAbsent(key, result);
+
+            if (current != null) {
+                result = current;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the cached writer for the media type and object class of a
+     * representation, creating it if needed. The representation must already
+     * use the cached mapper.
+     * 
+     * @param representation
+     *            The representation to configure.
+     * @return The cached writer.
+     */
+    private ObjectWriter getObjectWriter(JacksonRepresentation<?> representation) {
+        CacheKey key = new CacheKey(representation,
+                representation.getObjectClass());
+        ObjectWriter result = this.objectWriters.get(key);
+
+        if (result == null) {
+            result = representation.createObjectWriter();
+            ObjectWriter current = this.objectWriters.putIfAbsent(key, result);
+
+            if (current != null) {
+                result = current;
+            }
+        }
+
+        return result;
+    }
+
     @Override
     public List<VariantInfo> getVariants(Class<?> source) {
         List<VariantInfo> result = null;
@@ -258,4 +501,83 @@ public class JacksonConverter extends ConverterHelper {
         updatePreferences(preferences, MediaType.TEXT_CSV, 1.0F);
     }
 
+    /**
+     * Pre-resolves the serializers and deserializers of the given classes for
+     * a media type, filling the caches of mappers, readers and writers.
+     * 
+     * @param mediaType
+     *            The media type, typically {@link MediaType#APPLICATION_JSON}.
+     * @param objectClasses
+     *            The object classes.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public void warmUp(MediaType mediaType, Class<?>... objectClasses) {
+        for (Class<?> objectClass : objectClasses) {
+            if ((objectClass == null) || objectClass.isPrimitive()
+                    || (objectClass == Void.class)
+                    || Representation.class.isAssignableFrom(objectClass)) {
+                continue;
+            }
+
+            JacksonRepresentation<?> representation = new JacksonRepresentation(
+                    mediaType, null);
+            representation.setObjectClass((Class) objectClass);
+            representation.setObjectMapper(getObjectMapper(representation));
+
+            // Readers and writers prefetch their root (de)serializers
+            try {
+                getObjectReader(representation);
+                getObjectWriter(representation);
+            } catch (RuntimeException e) {
+                Context.getCurrentLogger().fine(
+                        "Unable to warm up the Jackson converter for "
+                                + objectClass + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Pre-resolves the serializers and deserializers of the entity types of
+     * the annotated methods of the server resources reachable from a Restlet,
+     * typically an application or its inbound root. Can be called at the end
+     * of {@link Application#createInboundRoot()} or in
+     * {@link Application#start()}.
+     * 
+     * @param mediaType
+     *            The media type, typically {@link MediaType#APPLICATION_JSON}.
+     * @param restlet
+     *            The Restlet to visit.
+     */
+    public void warmUp(MediaType mediaType, Restlet restlet) {
+        List<Class<?>> resourceClasses = new ArrayList<Class<?>>();
+        collectResourceClasses(restlet,
+                Collections.newSetFromMap(new IdentityHashMap<Restlet, Boolean>()),
+                resourceClasses);
+        List<Class<?>> objectClasses = new ArrayList<Class<?>>();
+
+        for (Class<?> resourceClass : resourceClasses) {
+            List<AnnotationInfo> annotations = AnnotationUtils.getInstance()
+                    .getAnnotations(resourceClass);
+
+            if (annotations == null) {
+                continue;
+            }
+
+            for (AnnotationInfo annotation : annotations) {
+                if (annotation instanceof MethodAnnotationInfo) {
+                    MethodAnnotationInfo methodAnnotation = (MethodAnnotationInfo) annotation;
+                    objectClasses.add(methodAnnotation.getJavaOutputType());
+
+                    for (Class<?> inputType : methodAnnotation
+                            .getJavaInputTypes()) {
+                        objectClasses.add(inputType);
+                    }
+                }
+            }
+        }
+
+        warmUp(mediaType, objectClasses.toArray(new Class<?>[objectClasses
+                .size()]));
+    }
+
 }
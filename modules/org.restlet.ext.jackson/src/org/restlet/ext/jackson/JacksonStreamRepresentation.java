@@ -0,0 +1,403 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or or EPL 1.0 (the "Licenses"). You can
+ * select the license that you prefer but you may not use this file except in
+ * compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.ext.jackson;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.restlet.data.MediaType;
+import org.restlet.representation.OutputRepresentation;
+import org.restlet.representation.Representation;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonGenerator.Feature;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Representation of a sequence of elements based on the Jackson streaming API.
+ * Unlike {@link JacksonRepresentation}, the whole sequence is never held in
+ * memory. When formatting, the elements are pulled from an iterator and
+ * written one by one, as they are produced. When parsing, the elements are
+ * read one by one, as the returned iterator advances.<br>
+ * <br>
+ * Two media types are supported: {@link MediaType#APPLICATION_JSON}, where the
+ * elements are wrapped in a JSON array, and {@link MediaType#APPLICATION_NDJSON}
+ * , where each element is written on its own line.<br>
+ * <br>
+ * The sequence can only be iterated once, so this representation is
+ * transient. If the source iterator is {@link Closeable}, for example a
+ * database cursor, it is closed after being written.
+ * 
+ * @author Jerome Louvel
+ * @param <T>
+ *            The type of the elements.
+ */
+public class JacksonStreamRepresentation<T> extends OutputRepresentation {
+
+    /** Iterator parsing the elements one by one. */
+    private class ElementIterator implements Iterator<T> {
+
+        /** Indicates if the next token has been read. */
+        private boolean ready;
+
+        /** Indicates if the elements are wrapped in an array. */
+        private final boolean wrapped;
+
+        /**
+         * Constructor.
+         * 
+         * @throws IOException
+         */
+        private ElementIterator() throws IOException {
+            JsonToken token = parser.nextToken();
+            this.wrapped = (token == JsonToken.START_ARRAY)
+                    && !MediaType.APPLICATION_NDJSON
+                            .isCompatible(getMediaType());
+
+            // A single JSON value is a sequence of one element
+            this.ready = !this.wrapped;
+        }
+
+        public boolean hasNext() {
+            try {
+                if (!this.ready) {
+                    parser.nextToken();
+                    this.ready = true;
+                }
+
+                JsonToken token = parser.getCurrentToken();
+                boolean result = (token != null)
+                        && (!this.wrapped || (token != JsonToken.END_ARRAY));
+
+                if (!result) {
+                    release();
+                }
+
+                return result;
+            } catch (IOException e) {
+                throw new IllegalStateException(
+                        "Unable to parse the next element", e);
+            }
+        }
+
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            try {
+                this.ready = false;
+                return getObjectReader().readValue(parser);
+            } catch (IOException e) {
+                throw new IllegalStateException(
+                        "Unable to parse the next element", e);
+            }
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /** The elements to format. */
+    private volatile Iterator<? extends T> elements;
+
+    /** The class of the elements to instantiate. */
+    private volatile Class<T> objectClass;
+
+    /** The modifiable Jackson object mapper. */
+    private volatile ObjectMapper objectMapper;
+
+    /** The modifiable Jackson object reader. */
+    private volatile ObjectReader objectReader;
+
+    /** The modifiable Jackson object writer. */
+    private volatile ObjectWriter objectWriter;
+
+    /** The parser of the representation. */
+    private volatile JsonParser parser;
+
+    /** The representation to parse. */
+    private volatile Representation representation;
+
+    /**
+     * Constructor for the JSON media type.
+     * 
+     * @param elements
+     *            The elements to format.
+     */
+    public JacksonStreamRepresentation(Iterable<? extends T> elements) {
+        this(MediaType.APPLICATION_JSON, elements.iterator());
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param mediaType
+     *            The target media type.
+     * @param elements
+     *            The elements to format.
+     */
+    public JacksonStreamRepresentation(MediaType mediaType,
+            Iterator<? extends T> elements) {
+        super(mediaType);
+        this.elements = elements;
+        this.objectClass = null;
+        this.representation = null;
+        setTransient(true);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param representation
+     *            The representation to parse.
+     * @param objectClass
+     *            The class of the elements to instantiate.
+     */
+    public JacksonStreamRepresentation(Representation representation,
+            Class<T> objectClass) {
+        super(representation.getMediaType());
+        this.elements = null;
+        this.objectClass = objectClass;
+        this.representation = representation;
+        setTransient(true);
+    }
+
+    /**
+     * Creates a Jackson object mapper for JSON content.
+     * 
+     * @return The Jackson object mapper.
+     */
+    protected ObjectMapper createObjectMapper() {
+        JsonFactory jsonFactory = new JsonFactory();
+        jsonFactory.configure(Feature.AUTO_CLOSE_TARGET, false);
+        return new ObjectMapper(jsonFactory);
+    }
+
+    /**
+     * Creates a Jackson object reader of the elements based on the mapper.
+     * 
+     * @return The Jackson object reader.
+     */
+    protected ObjectReader createObjectReader() {
+        return getObjectMapper().reader(getObjectClass());
+    }
+
+    /**
+     * Creates a Jackson object writer of the elements based on the mapper. The
+     * generator isn't flushed after each element.
+     * 
+     * @return The Jackson object writer.
+     */
+    protected ObjectWriter createObjectWriter() {
+        return getObjectMapper().writer().without(
+                SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    /**
+     * Returns an iterator on the elements. When parsing, the elements are read
+     * one by one as the iterator advances, and parsing errors are wrapped in
+     * {@link IllegalStateException} instances. Can only be called once.
+     * 
+     * @return An iterator on the elements.
+     * @throws IOException
+     */
+    @SuppressWarnings("unchecked")
+    public Iterator<T> getIterator() throws IOException {
+        Iterator<T> result = null;
+
+        if (this.elements != null) {
+            result = (Iterator<T>) this.elements;
+            this.elements = null;
+        } else if ((this.representation != null) && (this.parser == null)) {
+            this.parser = getObjectMapper().getFactory().createParser(
+                    this.representation.getStream());
+            result = new ElementIterator();
+        }
+
+        if (result == null) {
+            throw new IllegalStateException(
+                    "The elements can only be iterated once");
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the class of the elements to instantiate.
+     * 
+     * @return The class of the elements to instantiate.
+     */
+    public Class<T> getObjectClass() {
+        return objectClass;
+    }
+
+    /**
+     * Returns the modifiable Jackson object mapper. Useful to customize
+     * mappings.
+     * 
+     * @return The modifiable Jackson object mapper.
+     */
+    public ObjectMapper getObjectMapper() {
+        if (this.objectMapper == null) {
+            this.objectMapper = createObjectMapper();
+        }
+
+        return this.objectMapper;
+    }
+
+    /**
+     * Returns the modifiable Jackson object reader. Useful to customize
+     * deserialization.
+     * 
+     * @return The modifiable Jackson object reader.
+     */
+    public ObjectReader getObjectReader() {
+        if (this.objectReader == null) {
+            this.objectReader = createObjectReader();
+        }
+
+        return this.objectReader;
+    }
+
+    /**
+     * Returns the modifiable Jackson object writer. Useful to customize
+     * serialization.
+     * 
+     * @return The modifiable Jackson object writer.
+     */
+    public ObjectWriter getObjectWriter() {
+        if (this.objectWriter == null) {
+            this.objectWriter = createObjectWriter();
+        }
+
+        return this.objectWriter;
+    }
+
+    /**
+     * Closes the parser and the source iterator, and releases the parsed
+     * representation.
+     */
+    @Override
+    public void release() {
+        try {
+            if (this.parser != null) {
+                this.parser.close();
+            }
+
+            if (this.elements instanceof Closeable) {
+                ((Closeable) this.elements).close();
+            }
+        } catch (IOException e) {
+            // Nothing else to do
+        }
+
+        if (this.representation != null) {
+            this.representation.release();
+        }
+
+        super.release();
+    }
+
+    /**
+     * Sets the Jackson object mapper.
+     * 
+     * @param objectMapper
+     *            The Jackson object mapper.
+     */
+    public void setObjectMapper(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Sets the Jackson object reader.
+     * 
+     * @param objectReader
+     *            The Jackson object reader.
+     */
+    public void setObjectReader(ObjectReader objectReader) {
+        this.objectReader = objectReader;
+    }
+
+    /**
+     * Sets the Jackson object writer.
+     * 
+     * @param objectWriter
+     *            The Jackson object writer.
+     */
+    public void setObjectWriter(ObjectWriter objectWriter) {
+        this.objectWriter = objectWriter;
+    }
+
+    @Override
+    public void write(OutputStream outputStream) throws IOException {
+        if (this.representation != null) {
+            this.representation.write(outputStream);
+            return;
+        }
+
+        Iterator<? extends T> iterator = this.elements;
+        boolean lines = MediaType.APPLICATION_NDJSON
+                .isCompatible(getMediaType());
+        ObjectWriter writer = getObjectWriter();
+        JsonGenerator generator = getObjectMapper().getFactory()
+                .createGenerator(outputStream);
+
+        try {
+            if (lines) {
+                // Each element ends its own line
+                generator.setRootValueSeparator(null);
+            } else {
+                generator.writeStartArray();
+            }
+
+            while ((iterator != null) && iterator.hasNext()) {
+                writer.writeValue(generator, iterator.next());
+
+                if (lines) {
+                    generator.writeRaw('\n');
+                }
+            }
+
+            if (!lines) {
+                generator.writeEndArray();
+            }
+        } finally {
+            generator.close();
+            release();
+        }
+    }
+
+}
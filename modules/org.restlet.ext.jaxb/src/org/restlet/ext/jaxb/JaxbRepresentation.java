@@ -26,8 +26,8 @@ package org.restlet.ext.jaxb;
 
 import java.io.IOException;
 import java.io.Writer;
-import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.logging.Level;
 
 import javax.xml.bind.JAXBContext;
@@ -57,7 +57,7 @@ import com.sun.xml.bind.marshaller.NamespacePrefixMapper;
 public class JaxbRepresentation<T> extends WriterRepresentation {
 
     /** Improves performance by caching contexts which are expensive to create. */
-    private final static Map<String, JAXBContext> contexts = new ConcurrentHashMap<String, JAXBContext>();
+    private final static ConcurrentMap<String, JAXBContext> contexts = new ConcurrentHashMap<String, JAXBContext>();
 
     /**
      * Returns the JAXB context, if possible from the cached contexts.
@@ -68,7 +68,7 @@ public class JaxbRepresentation<T> extends WriterRepresentation {
      * @return The JAXB context.
      * @throws JAXBException
      */
-    public static synchronized JAXBContext getContext(String contextPath)
+    public static JAXBContext getContext(String contextPath)
             throws JAXBException {
         return getContext(contextPath, null);
     }
@@ -85,7 +85,7 @@ public class JaxbRepresentation<T> extends WriterRepresentation {
      * @return The JAXB context.
      * @throws JAXBException
      */
-    public static synchronized JAXBContext getContext(String contextPath,
+    public static JAXBContext getContext(String contextPath,
             ClassLoader classLoader) throws JAXBException {
         // Contexts are thread-safe so reuse those.
         JAXBContext result = contexts.get(contextPath);
@@ -94,7 +94,13 @@ public class JaxbRepresentation<T> extends WriterRepresentation {
             result = (classLoader == null) ? JAXBContext
                     .newInstance(contextPath) : JAXBContext.newInstance(
                     contextPath, classLoader);
-            contexts.put(contextPath, result);
+
+            // Keep the first context created in case of concurrent lookups
+            JAXBContext current = contexts.putIfAbsent(contextPath, result);
+
+            if (current != null) {
+                result = current;
+            }
         }
 
         return result;
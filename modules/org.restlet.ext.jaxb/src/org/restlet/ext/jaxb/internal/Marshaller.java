@@ -27,13 +27,14 @@ package org.restlet.ext.jaxb.internal;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
-import java.util.logging.Level;
 
 import javax.xml.bind.JAXBException;
 
 import org.restlet.Context;
 import org.restlet.ext.jaxb.JaxbRepresentation;
 
+import com.sun.xml.bind.marshaller.NamespacePrefixMapper;
+
 /**
  * This is a utility class to assist in marshaling Java content trees into XML.
  * Each {@code marshal} method takes a different target for the XML.
@@ -46,6 +47,22 @@ import org.restlet.ext.jaxb.JaxbRepresentation;
  */
 public class Marshaller<T> {
 
+    /**
+     * Namespace prefix mapper keeping the suggested prefixes, set back on the
+     * pooled marshallers so that they don't retain the mapper of a
+     * representation. The JAXB implementation doesn't allow to remove it.
+     */
+    private static final NamespacePrefixMapper DEFAULT_PREFIX_MAPPER = new NamespacePrefixMapper() {
+        @Override
+        public String getPreferredPrefix(String namespaceUri,
+                String suggestion, boolean requirePrefix) {
+            return suggestion;
+        }
+    };
+
+    /** The name of the namespace prefix mapper property. */
+    private static final String PREFIX_MAPPER = "com.sun.xml.bind.namespacePrefixMapper";
+
     /** The JAXB classloader. */
     private final ClassLoader classLoader;
 
@@ -55,52 +72,6 @@ public class Marshaller<T> {
     /** The parent JAXB representation. */
     private final JaxbRepresentation<T> jaxbRepresentation;
 
-    /** Use thread identity to preserve safety of access to marshalers. */
-    private final ThreadLocal<javax.xml.bind.Marshaller> marshaller = new ThreadLocal<javax.xml.bind.Marshaller>() {
-
-        @Override
-        protected synchronized javax.xml.bind.Marshaller initialValue() {
-            javax.xml.bind.Marshaller m = null;
-
-            try {
-                m = JaxbRepresentation.getContext(getContextPath(),
-                        getClassLoader()).createMarshaller();
-                m.setProperty("jaxb.formatted.output", getJaxbRepresentation()
-                        .isFormattedOutput());
-
-                if (getJaxbRepresentation().getSchemaLocation() != null) {
-                    m.setProperty("jaxb.schemaLocation",
-                            getJaxbRepresentation().getSchemaLocation());
-                }
-                if (getJaxbRepresentation().getNoNamespaceSchemaLocation() != null) {
-                    m.setProperty("jaxb.noNamespaceSchemaLocation",
-                            getJaxbRepresentation()
-                                    .getNoNamespaceSchemaLocation());
-                }
-
-                if (Marshaller.this.jaxbRepresentation.getCharacterSet() != null) {
-                    m.setProperty("jaxb.encoding",
-                            Marshaller.this.jaxbRepresentation
-                                    .getCharacterSet().getName());
-                }
-
-                if (getJaxbRepresentation().getNamespacePrefixMapper() != null) {
-                    m.setProperty("com.sun.xml.bind.namespacePrefixMapper",
-                            getJaxbRepresentation().getNamespacePrefixMapper());
-                }
-
-                m.setProperty("jaxb.fragment", getJaxbRepresentation()
-                        .isFragment());
-            } catch (Exception e) {
-                Context.getCurrentLogger().log(Level.WARNING,
-                        "Problem creating Marshaller", e);
-                return null;
-            }
-
-            return m;
-        }
-    };
-
     // This is a factory class.
     public Marshaller(JaxbRepresentation<T> jaxbRepresentation) {
         this(jaxbRepresentation, null, null);
@@ -150,21 +121,6 @@ public class Marshaller<T> {
         return jaxbRepresentation;
     }
 
-    /**
-     * Returns the JAXB marshaller.
-     * 
-     * @return The JAXB marshaller.
-     * @throws JAXBException
-     */
-    private javax.xml.bind.Marshaller getMarshaller() throws JAXBException {
-        final javax.xml.bind.Marshaller m = this.marshaller.get();
-        if (m == null) {
-            Context.getCurrentLogger().warning("Unable to locate marshaller.");
-            throw new JAXBException("Unable to locate marshaller.");
-        }
-        return m;
-    }
-
     /**
      * Marshals the content tree rooted at {@code jaxbElement} into an output
      * stream.
@@ -192,9 +148,31 @@ public class Marshaller<T> {
      *             If any unexpected problem occurs during marshaling.
      */
     public void marshal(Object jaxbElement, Writer writer) throws JAXBException {
-        getMarshaller().setEventHandler(
-                getJaxbRepresentation().getValidationEventHandler());
-        getMarshaller().marshal(jaxbElement, writer);
+        MarshallerPool pool = MarshallerPool.getInstance(getContextPath(),
+                getClassLoader(), getJaxbRepresentation());
+        javax.xml.bind.Marshaller m = pool.checkout();
+
+        if (m == null) {
+            Context.getCurrentLogger().warning("Unable to locate marshaller.");
+            throw new JAXBException("Unable to locate marshaller.");
+        }
+
+        NamespacePrefixMapper mapper = getJaxbRepresentation()
+                .getNamespacePrefixMapper();
+
+        if (mapper != null) {
+            m.setProperty(PREFIX_MAPPER, mapper);
+        }
+
+        m.setEventHandler(getJaxbRepresentation().getValidationEventHandler());
+        m.marshal(jaxbElement, writer);
+
+        if (mapper != null) {
+            m.setProperty(PREFIX_MAPPER, DEFAULT_PREFIX_MAPPER);
+        }
+
+        // Only reuse marshallers that completed normally
+        pool.checkin(m);
     }
 
 }
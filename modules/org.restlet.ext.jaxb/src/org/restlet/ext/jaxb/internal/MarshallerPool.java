@@ -0,0 +1,271 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or or EPL 1.0 (the "Licenses"). You can
+ * select the license that you prefer but you may not use this file except in
+ * compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.ext.jaxb.internal;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.WeakHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+
+import org.restlet.Context;
+import org.restlet.engine.util.Pool;
+import org.restlet.engine.util.SystemUtils;
+import org.restlet.ext.jaxb.JaxbRepresentation;
+
+/**
+ * Bounded pool of JAXB marshallers sharing the same context and configuration.
+ * Creating a marshaller is much more expensive than using it, and the JAXB
+ * implementation doesn't allow to reset some of its properties, so a pool is
+ * maintained for each distinct configuration. The pools are grouped by class
+ * loader, which is only weakly referenced. The namespace prefix mapper isn't
+ * part of the configuration as it is set on the marshallers when they are used.
+ * 
+ * @author Jerome Louvel
+ */
+public class MarshallerPool extends Pool<javax.xml.bind.Marshaller> {
+
+    /**
+     * Immutable key identifying a context path and a marshalling
+     * configuration.
+     */
+    private static final class Key {
+        /** The path of the JAXB context. */
+        private final String contextPath;
+
+        /** The output encoding. */
+        private final String encoding;
+
+        /** Indicates if the output is formatted. */
+        private final boolean formattedOutput;
+
+        /** Indicates if the document level events are omitted. */
+        private final boolean fragment;
+
+        /** The location of the XML Schema without target namespace. */
+        private final String noNamespaceSchemaLocation;
+
+        /** The location of the XML Schema. */
+        private final String schemaLocation;
+
+        /**
+         * Constructor.
+         * 
+         * @param contextPath
+         *            The path of the JAXB context.
+         * @param jaxbRep
+         *            The JAXB representation providing the configuration.
+         */
+        private Key(String contextPath, JaxbRepresentation<?> jaxbRep) {
+            this.contextPath = contextPath;
+            this.encoding = (jaxbRep.getCharacterSet() == null) ? null
+                    : jaxbRep.getCharacterSet().getName();
+            this.formattedOutput = jaxbRep.isFormattedOutput();
+            this.fragment = jaxbRep.isFragment();
+            this.noNamespaceSchemaLocation = jaxbRep
+                    .getNoNamespaceSchemaLocation();
+            this.schemaLocation = jaxbRep.getSchemaLocation();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+
+            Key that = (Key) obj;
+            return (this.formattedOutput == that.formattedOutput)
+                    && (this.fragment == that.fragment)
+                    && SystemUtils.equals(this.contextPath, that.contextPath)
+                    && SystemUtils.equals(this.encoding, that.encoding)
+                    && SystemUtils.equals(this.noNamespaceSchemaLocation,
+                            that.noNamespaceSchemaLocation)
+                    && SystemUtils.equals(this.schemaLocation,
+                            that.schemaLocation);
+        }
+
+        @Override
+        public int hashCode() {
+            return SystemUtils.hashCode(this.contextPath, this.encoding,
+                    this.formattedOutput, this.fragment,
+                    this.noNamespaceSchemaLocation, this.schemaLocation);
+        }
+    }
+
+    /** The maximum number of idle marshallers kept by each pool. */
+    public static final int MAX_IDLE_MARSHALLERS = 4 * Runtime.getRuntime()
+            .availableProcessors();
+
+    /** The maximum number of shared pools per class loader. */
+    public static final int MAX_POOLS = 256;
+
+    /** The shared pools, grouped by class loader. */
+    private static final Map<ClassLoader, ConcurrentMap<Key, MarshallerPool>> POOLS = new WeakHashMap<ClassLoader, ConcurrentMap<Key, MarshallerPool>>();
+
+    /**
+     * Returns the shared pools of a class loader, creating them if needed.
+     * 
+     * @param classLoader
+     *            The class loader of the JAXB contexts.
+     * @return The shared pools of the class loader.
+     */
+    private static ConcurrentMap<Key, MarshallerPool> getPools(
+            ClassLoader classLoader) {
+        synchronized (POOLS) {
+            ConcurrentMap<Key, MarshallerPool> result = POOLS.get(classLoader);
+
+            if (result == null) {
+                result = new ConcurrentHashMap<Key, MarshallerPool>();
+                POOLS.put(classLoader, result);
+            }
+
+            return result;
+        }
+    }
+
+    /**
+     * Returns the shared pool for a given context and the marshalling
+     * configuration of a JAXB representation. The lookup only allocates a
+     * small key, the pool being created on the first use of a configuration.
+     * If too many configurations are used, a pool that isn't shared is
+     * returned.
+     * 
+     * @param contextPath
+     *            The path of the JAXB context.
+     * @param classLoader
+     *            The class loader of the JAXB context.
+     * @param jaxbRep
+     *            The JAXB representation providing the configuration.
+     * @return The pool of marshallers.
+     * @throws JAXBException
+     */
+    public static MarshallerPool getInstance(String contextPath,
+            ClassLoader classLoader, JaxbRepresentation<?> jaxbRep)
+            throws JAXBException {
+        ConcurrentMap<Key, MarshallerPool> pools = getPools(classLoader);
+        Key key = new Key(contextPath, jaxbRep);
+        MarshallerPool result = pools.get(key);
+
+        if (result == null) {
+            MarshallerPool pool = new MarshallerPool(
+                    JaxbRepresentation.getContext(contextPath, classLoader),
+                    key);
+
+            if (pools.size() < MAX_POOLS) {
+                result = pools.putIfAbsent(key, pool);
+            }
+
+            if (result == null) {
+                result = pool;
+            }
+        }
+
+        return result;
+    }
+
+    /** The JAXB context. */
+    private final JAXBContext context;
+
+    /** The marshalling configuration. */
+    private final Key key;
+
+    /**
+     * Constructor.
+     * 
+     * @param context
+     *            The JAXB context.
+     * @param key
+     *            The marshalling configuration.
+     */
+    private MarshallerPool(JAXBContext context, Key key) {
+        super();
+        this.context = context;
+        this.key = key;
+    }
+
+    @Override
+    protected void clear(javax.xml.bind.Marshaller marshaller) {
+        try {
+            marshaller.setEventHandler(null);
+        } catch (JAXBException e) {
+            Context.getCurrentLogger().log(Level.FINE,
+                    "Unable to reset the marshaller event handler", e);
+        }
+    }
+
+    /**
+     * Creates a configured marshaller.
+     * 
+     * @return A new marshaller or null if it couldn't be created.
+     */
+    @Override
+    protected javax.xml.bind.Marshaller createObject() {
+        javax.xml.bind.Marshaller result = null;
+
+        try {
+            result = this.context.createMarshaller();
+            result.setProperty("jaxb.formatted.output",
+                    this.key.formattedOutput);
+
+            if (this.key.schemaLocation != null) {
+                result.setProperty("jaxb.schemaLocation",
+                        this.key.schemaLocation);
+            }
+
+            if (this.key.noNamespaceSchemaLocation != null) {
+                result.setProperty("jaxb.noNamespaceSchemaLocation",
+                        this.key.noNamespaceSchemaLocation);
+            }
+
+            if (this.key.encoding != null) {
+                result.setProperty("jaxb.encoding", this.key.encoding);
+            }
+
+            result.setProperty("jaxb.fragment", this.key.fragment);
+        } catch (Exception e) {
+            Context.getCurrentLogger().log(Level.WARNING,
+                    "Problem creating Marshaller", e);
+            return null;
+        }
+
+        return result;
+    }
+
+    @Override
+    protected Queue<javax.xml.bind.Marshaller> createStore() {
+        return new ArrayBlockingQueue<javax.xml.bind.Marshaller>(
+                MAX_IDLE_MARSHALLERS);
+    }
+
+}
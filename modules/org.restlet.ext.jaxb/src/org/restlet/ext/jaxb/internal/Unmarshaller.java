@@ -28,26 +28,24 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
-import java.util.logging.Level;
 
-import javax.xml.XMLConstants;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.ValidationEventHandler;
-import javax.xml.parsers.SAXParserFactory;
+import javax.xml.parsers.SAXParser;
 import javax.xml.transform.sax.SAXSource;
 
 import org.restlet.Context;
+import org.restlet.engine.util.SaxParserPool;
 import org.restlet.ext.jaxb.JaxbRepresentation;
 import org.xml.sax.InputSource;
-import org.xml.sax.XMLReader;
 
 /**
  * This is a utility class to assist in unmarshaling XML into a new Java content
  * tree.
  * 
  * Each {@code unmarshal} method takes a different source for the XML. This
- * class caches information to improve unmarshaling performance across calls
- * using the same schema (package).
+ * class relies on pools of unmarshallers and SAX parsers to improve
+ * unmarshaling performance across calls using the same schema (package).
  * 
  * @author Overstock.com
  */
@@ -59,24 +57,8 @@ public class Unmarshaller<T> {
     /** The JAXB context path. */
     private final String contextPath;
 
-    /**
-     * Use thread identity to preserve safety of access to unmarshallers.
-     */
-    private final ThreadLocal<javax.xml.bind.Unmarshaller> unmarshaller = new ThreadLocal<javax.xml.bind.Unmarshaller>() {
-        @Override
-        protected synchronized javax.xml.bind.Unmarshaller initialValue() {
-            javax.xml.bind.Unmarshaller m = null;
-            try {
-                m = JaxbRepresentation.getContext(getContextPath(),
-                        getClassLoader()).createUnmarshaller();
-            } catch (Exception e) {
-                Context.getCurrentLogger().log(Level.WARNING,
-                        "Problem creating Unmarshaller", e);
-                return null;
-            }
-            return m;
-        }
-    };
+    /** The validation event handler. */
+    private volatile ValidationEventHandler eventHandler;
 
     /**
      * Constructor.
@@ -109,22 +91,6 @@ public class Unmarshaller<T> {
         return this.contextPath;
     }
 
-    /**
-     * Returns the JAXB unmarshaller.
-     * 
-     * @return The JAXB unmarshaller.
-     * @throws JAXBException
-     */
-    private javax.xml.bind.Unmarshaller getUnmarshaller() throws JAXBException {
-        final javax.xml.bind.Unmarshaller m = this.unmarshaller.get();
-        if (m == null) {
-            Context.getCurrentLogger()
-                    .warning("Unable to locate unmarshaller.");
-            throw new JAXBException("Unable to locate unmarshaller.");
-        }
-        return m;
-    }
-
     /**
      * Sets the validation handler for this unmarshaller.
      * 
@@ -135,7 +101,7 @@ public class Unmarshaller<T> {
      */
     public void setEventHandler(ValidationEventHandler handler)
             throws JAXBException {
-        getUnmarshaller().setEventHandler(handler);
+        this.eventHandler = handler;
     }
 
     /**
@@ -186,30 +152,40 @@ public class Unmarshaller<T> {
      */
     public Object unmarshal(JaxbRepresentation<?> jaxbRep, Reader reader)
             throws JAXBException {
+        SaxParserPool parserPool = SaxParserPool.getInstance(true,
+                jaxbRep.isValidatingDtd(), jaxbRep.isXIncludeAware(),
+                jaxbRep.isSecureProcessing(), jaxbRep.isExpandingEntityRefs());
+        SAXParser parser = parserPool.checkout();
+
+        if (parser == null) {
+            throw new JAXBException("Unable to create customized SAX source");
+        }
+
         SAXSource ss = null;
 
         try {
-            SAXParserFactory spf = SAXParserFactory.newInstance();
-
-            // Keep before the external entity preferences
-            spf.setNamespaceAware(true);
-            spf.setValidating(jaxbRep.isValidatingDtd());
-            spf.setXIncludeAware(jaxbRep.isXIncludeAware());
-            spf.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING,
-                    jaxbRep.isSecureProcessing());
-            spf.setFeature(
-                    "http://xml.org/sax/features/external-general-entities",
-                    jaxbRep.isExpandingEntityRefs());
-            spf.setFeature(
-                    "http://xml.org/sax/features/external-parameter-entities",
-                    jaxbRep.isExpandingEntityRefs());
-            XMLReader xmlReader = spf.newSAXParser().getXMLReader();
-            ss = new SAXSource(xmlReader, new InputSource(reader));
+            ss = new SAXSource(parser.getXMLReader(), new InputSource(reader));
         } catch (Exception e) {
             throw new JAXBException("Unable to create customized SAX source", e);
         }
 
-        getUnmarshaller().setEventHandler(jaxbRep.getValidationEventHandler());
-        return getUnmarshaller().unmarshal(ss);
+        UnmarshallerPool pool = UnmarshallerPool.getInstance(JaxbRepresentation
+                .getContext(getContextPath(), getClassLoader()));
+        javax.xml.bind.Unmarshaller u = pool.checkout();
+
+        if (u == null) {
+            Context.getCurrentLogger()
+                    .warning("Unable to locate unmarshaller.");
+            throw new JAXBException("Unable to locate unmarshaller.");
+        }
+
+        ValidationEventHandler handler = jaxbRep.getValidationEventHandler();
+        u.setEventHandler((handler == null) ? this.eventHandler : handler);
+        Object result = u.unmarshal(ss);
+
+        // Only reuse unmarshallers and parsers that completed normally
+        pool.checkin(u);
+        parserPool.checkin(parser);
+        return result;
     }
 }
@@ -0,0 +1,122 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or or EPL 1.0 (the "Licenses"). You can
+ * select the license that you prefer but you may not use this file except in
+ * compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.ext.jaxb.internal;
+
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+
+import org.restlet.Context;
+import org.restlet.engine.util.Pool;
+
+/**
+ * Bounded pool of JAXB unmarshallers sharing the same context. Creating an
+ * unmarshaller is much more expensive than using it.
+ * 
+ * @author Jerome Louvel
+ */
+public class UnmarshallerPool extends Pool<javax.xml.bind.Unmarshaller> {
+
+    /** The maximum number of idle unmarshallers kept by each pool. */
+    public static final int MAX_IDLE_UNMARSHALLERS = 4 * Runtime.getRuntime()
+            .availableProcessors();
+
+    /** The shared pools, indexed by JAXB context. */
+    private static final ConcurrentMap<JAXBContext, UnmarshallerPool> POOLS = new ConcurrentHashMap<JAXBContext, UnmarshallerPool>();
+
+    /**
+     * Returns the shared pool for a given context.
+     * 
+     * @param context
+     *            The JAXB context.
+     * @return The pool of unmarshallers.
+     */
+    public static UnmarshallerPool getInstance(JAXBContext context) {
+        UnmarshallerPool result = POOLS.get(context);
+
+        if (result == null) {
+            result = new UnmarshallerPool(context);
+            UnmarshallerPool current = POOLS.putIfAbsent(context, result);
+
+            if (current != null) {
+                result = current;
+            }
+        }
+
+        return result;
+    }
+
+    /** The JAXB context. */
+    private final JAXBContext context;
+
+    /**
+     * Constructor.
+     * 
+     * @param context
+     *            The JAXB context.
+     */
+    public UnmarshallerPool(JAXBContext context) {
+        super();
+        this.context = context;
+    }
+
+    @Override
+    protected void clear(javax.xml.bind.Unmarshaller unmarshaller) {
+        try {
+            unmarshaller.setEventHandler(null);
+        } catch (JAXBException e) {
+            Context.getCurrentLogger().log(Level.FINE,
+                    "Unable to reset the unmarshaller event handler", e);
+        }
+    }
+
+    /**
+     * Creates an unmarshaller.
+     * 
+     * @return A new unmarshaller or null if it couldn't be created.
+     */
+    @Override
+    protected javax.xml.bind.Unmarshaller createObject() {
+        try {
+            return this.context.createUnmarshaller();
+        } catch (Exception e) {
+            Context.getCurrentLogger().log(Level.WARNING,
+                    "Problem creating Unmarshaller", e);
+            return null;
+        }
+    }
+
+    @Override
+    protected Queue<javax.xml.bind.Unmarshaller> createStore() {
+        return new ArrayBlockingQueue<javax.xml.bind.Unmarshaller>(
+                MAX_IDLE_UNMARSHALLERS);
+    }
+
+}
@@ -0,0 +1,398 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or or EPL 1.0 (the "Licenses"). You can
+ * select the license that you prefer but you may not use this file except in
+ * compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.ext.netty;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioSocketChannel;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+import javax.net.ssl.SSLContext;
+
+import org.restlet.Client;
+import org.restlet.Request;
+import org.restlet.data.Protocol;
+import org.restlet.engine.adapter.ClientCall;
+import org.restlet.engine.log.LoggingThreadFactory;
+import org.restlet.engine.ssl.SslUtils;
+import org.restlet.engine.util.ReferenceUtils;
+import org.restlet.ext.netty.internal.ConnectionPool;
+import org.restlet.ext.netty.internal.NettyClientCall;
+
+/**
+ * Netty HTTP client connector. Connections are established and read by the
+ * non-blocking Netty event loop and kept alive in a pool per remote host, so
+ * that no thread is blocked while waiting for a response to an asynchronous
+ * call, that is to say a call with a {@link Request#getOnResponse()} callback.
+ * This connector isn't registered automatically, it must be explicitly added
+ * to the engine before the Client is created, for example with:
+ * 
+ * <pre>
+ * Engine.getInstance().getRegisteredClients()
+ *         .add(0, new HttpClientHelper(null));
+ * </pre>
+ * 
+ * Here is the list of parameters that are supported. They should be set in the
+ * Client's context before it is started:
+ * <table>
+ * <tr>
+ * <th>Parameter name</th>
+ * <th>Value type</th>
+ * <th>Default value</th>
+ * <th>Description</th>
+ * </tr>
+ * <tr>
+ * <td>idleTimeout</td>
+ * <td>long</td>
+ * <td>60000</td>
+ * <td>The max time in milliseconds a pooled connection can stay idle before
+ * being closed.</td>
+ * </tr>
+ * <tr>
+ * <td>inboundBufferSize</td>
+ * <td>int</td>
+ * <td>65536</td>
+ * <td>Number of response entity bytes that can be buffered for a call before
+ * the connector stops reading from the connection.</td>
+ * </tr>
+ * <tr>
+ * <td>ioThreads</td>
+ * <td>int</td>
+ * <td>0</td>
+ * <td>Number of Netty event loop threads. The value '0' lets Netty use twice
+ * the number of available processors.</td>
+ * </tr>
+ * <tr>
+ * <td>maxConnectionsPerHost</td>
+ * <td>int</td>
+ * <td>10</td>
+ * <td>The max number of connections opened to each remote host and port.</td>
+ * </tr>
+ * <tr>
+ * <td>maxQueuedPerHost</td>
+ * <td>int</td>
+ * <td>1024</td>
+ * <td>The max number of calls waiting for a connection to each remote host
+ * and port. Further calls fail immediately.</td>
+ * </tr>
+ * <tr>
+ * <td>maxThreads</td>
+ * <td>int</td>
+ * <td>10</td>
+ * <td>The max number of worker threads invoking the response callbacks of
+ * asynchronous calls and writing their request entities.</td>
+ * </tr>
+ * <tr>
+ * <td>responseTimeout</td>
+ * <td>long</td>
+ * <td>60000</td>
+ * <td>The max time in milliseconds to wait for the response to a call,
+ * including the time spent waiting for a connection.</td>
+ * </tr>
+ * <tr>
+ * <td>socketConnectTimeoutMs</td>
+ * <td>int</td>
+ * <td>15000</td>
+ * <td>The max time in milliseconds a connection can take to connect.</td>
+ * </tr>
+ * <tr>
+ * <td>tcpNoDelay</td>
+ * <td>boolean</td>
+ * <td>true</td>
+ * <td>Indicates if the Nagle algorithm should be disabled.</td>
+ * </tr>
+ * </table>
+ * <br>
+ * For HTTPS, the SSL context is created by the {@link SslUtils}, based on the
+ * "sslContextFactory" parameter and its related parameters.
+ * 
+ * @see <a href="http://netty.io/">Netty home page</a>
+ * @author Jerome Louvel
+ */
+public class HttpClientHelper extends
+        org.restlet.engine.adapter.HttpClientHelper {
+
+    /** The template of the bootstraps of each connection pool. */
+    private volatile Bootstrap bootstrap;
+
+    /** The worker service invoking the callbacks of asynchronous calls. */
+    private volatile ExecutorService executor;
+
+    /** The connection pools, one per remote host and port. */
+    private final ConcurrentMap<String, ConnectionPool> pools;
+
+    /** The SSL context used for HTTPS connections. */
+    private volatile SSLContext sslContext;
+
+    /** The Netty event loop group. */
+    private volatile NioEventLoopGroup workerGroup;
+
+    /**
+     * Constructor.
+     * 
+     * @param client
+     *            The client to help.
+     */
+    public HttpClientHelper(Client client) {
+        super(client);
+        this.pools = new ConcurrentHashMap<String, ConnectionPool>();
+        getProtocols().add(Protocol.HTTP);
+        getProtocols().add(Protocol.HTTPS);
+    }
+
+    @Override
+    public ClientCall create(Request request) {
+        ClientCall result = null;
+
+        try {
+            result = new NettyClientCall(this, request.getMethod().toString(),
+                    ReferenceUtils.update(request.getResourceRef(), request)
+                            .toString());
+        } catch (Exception e) {
+            getLogger().log(Level.WARNING,
+                    "Unable to create the Netty HTTP/HTTPS client call", e);
+        }
+
+        return result;
+    }
+
+    /**
+     * Creates the worker service invoking the callbacks of asynchronous calls.
+     * Subclasses can override this method to plug another kind of executor.
+     * 
+     * @return The worker service.
+     */
+    protected ExecutorService createExecutor() {
+        ThreadPoolExecutor result = new ThreadPoolExecutor(getMaxThreads(),
+                getMaxThreads(), 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new LoggingThreadFactory(
+                        getLogger(), true));
+        result.allowCoreThreadTimeOut(true);
+        return result;
+    }
+
+    /**
+     * Returns the worker service invoking the callbacks of asynchronous calls.
+     * 
+     * @return The worker service.
+     */
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Returns the max time in milliseconds a pooled connection can stay idle
+     * before being closed. Defaults to 60000.
+     * 
+     * @return The idle timeout.
+     */
+    public long getIdleTimeout() {
+        return Long.parseLong(getHelpedParameters().getFirstValue(
+                "idleTimeout", "60000"));
+    }
+
+    /**
+     * Returns the number of response entity bytes that can be buffered for a
+     * call before the connector stops reading from the connection. Defaults
+     * to 65536.
+     * 
+     * @return The response entity buffer size in bytes.
+     */
+    public int getInboundBufferSize() {
+        return Integer.parseInt(getHelpedParameters().getFirstValue(
+                "inboundBufferSize", "65536"));
+    }
+
+    /**
+     * Returns the number of Netty event loop threads. Defaults to 0, letting
+     * Netty decide.
+     * 
+     * @return The number of Netty event loop threads.
+     */
+    public int getIoThreads() {
+        return Integer.parseInt(getHelpedParameters().getFirstValue(
+                "ioThreads", "0"));
+    }
+
+    /**
+     * Returns the max number of connections opened to each remote host and
+     * port. Defaults to 10.
+     * 
+     * @return The max number of connections per host.
+     */
+    public int getMaxConnectionsPerHost() {
+        return Integer.parseInt(getHelpedParameters().getFirstValue(
+                "maxConnectionsPerHost", "10"));
+    }
+
+    /**
+     * Returns the max number of calls waiting for a connection to each remote
+     * host and port. Defaults to 1024.
+     * 
+     * @return The max number of calls waiting for a connection per host.
+     */
+    public int getMaxQueuedPerHost() {
+        return Integer.parseInt(getHelpedParameters().getFirstValue(
+                "maxQueuedPerHost", "1024"));
+    }
+
+    /**
+     * Returns the max number of worker threads invoking the callbacks of
+     * asynchronous calls. Defaults to 10.
+     * 
+     * @return The max number of worker threads.
+     */
+    public int getMaxThreads() {
+        return Integer.parseInt(getHelpedParameters().getFirstValue(
+                "maxThreads", "10"));
+    }
+
+    /**
+     * Returns the connection pool of a remote host and port, creating it if
+     * needed.
+     * 
+     * @param host
+     *            The remote host.
+     * @param port
+     *            The remote port.
+     * @param secure
+     *            Indicates if the connections are secured by SSL/TLS.
+     * @return The connection pool.
+     */
+    public ConnectionPool getPool(String host, int port, boolean secure) {
+        String key = (secure ? "https://" : "http://") + host + ":" + port;
+        ConnectionPool result = this.pools.get(key);
+
+        if (result == null) {
+            if (this.bootstrap == null) {
+                throw new IllegalStateException(
+                        "The Netty HTTP client isn't started");
+            } else if (secure && (this.sslContext == null)) {
+                throw new IllegalStateException(
+                        "No SSL context is available for HTTPS calls");
+            }
+
+            ConnectionPool pool = new ConnectionPool(this,
+                    this.bootstrap.clone(), host, port,
+                    secure ? this.sslContext : null);
+            result = this.pools.putIfAbsent(key, pool);
+
+            if (result == null) {
+                result = pool;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the max time in milliseconds to wait for the response to a call.
+     * Defaults to 60000.
+     * 
+     * @return The response timeout.
+     */
+    public long getResponseTimeout() {
+        return Long.parseLong(getHelpedParameters().getFirstValue(
+                "responseTimeout", "60000"));
+    }
+
+    /**
+     * Returns the Netty event loop group.
+     * 
+     * @return The Netty event loop group.
+     */
+    public NioEventLoopGroup getWorkerGroup() {
+        return workerGroup;
+    }
+
+    /**
+     * Indicates if the Nagle algorithm should be disabled. Defaults to true.
+     * 
+     * @return True if the Nagle algorithm should be disabled.
+     */
+    public boolean isTcpNoDelay() {
+        return Boolean.parseBoolean(getHelpedParameters().getFirstValue(
+                "tcpNoDelay", "true"));
+    }
+
+    @Override
+    public synchronized void start() throws Exception {
+        super.start();
+
+        try {
+            this.sslContext = SslUtils.getSslContextFactory(this)
+                    .createSslContext();
+        } catch (Exception e) {
+            getLogger().log(Level.WARNING,
+                    "Unable to create the SSL context, HTTPS is disabled", e);
+        }
+
+        this.executor = createExecutor();
+        this.workerGroup = new NioEventLoopGroup(getIoThreads(),
+                new LoggingThreadFactory(getLogger(), true));
+        this.bootstrap = new Bootstrap().group(this.workerGroup)
+                .channel(NioSocketChannel.class)
+                .option(ChannelOption.TCP_NODELAY, isTcpNoDelay())
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS,
+                        (getSocketConnectTimeoutMs() > 0) ? getSocketConnectTimeoutMs()
+                                : 15000);
+
+        getLogger().info("Starting the Netty " + getProtocols() + " client");
+    }
+
+    @Override
+    public synchronized void stop() throws Exception {
+        getLogger().info("Stopping the Netty " + getProtocols() + " client");
+
+        for (ConnectionPool pool : this.pools.values()) {
+            pool.close();
+        }
+
+        this.pools.clear();
+        this.bootstrap = null;
+
+        if (this.workerGroup != null) {
+            this.workerGroup.shutdownGracefully();
+            this.workerGroup = null;
+        }
+
+        if (this.executor != null) {
+            this.executor.shutdown();
+            this.executor = null;
+        }
+
+        super.stop();
+    }
+
+}
@@ -25,6 +25,13 @@
 package org.restlet.ext.netty;
 
 import java.net.InetSocketAddress;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.Channel;
@@ -35,9 +42,75 @@ import io.netty.handler.logging.LogLevel;
 import io.netty.handler.logging.LoggingHandler;
 
 import org.restlet.Server;
+import org.restlet.engine.log.LoggingThreadFactory;
 import org.restlet.ext.netty.internal.HttpServerInitializer;
 
 /**
+ * Abstract Netty server connector. Here is the list of parameters that are
+ * supported. They should be set in the Server's context before it is started:
+ * <table>
+ * <tr>
+ * <th>Parameter name</th>
+ * <th>Value type</th>
+ * <th>Default value</th>
+ * <th>Description</th>
+ * </tr>
+ * <tr>
+ * <td>dispatchMode</td>
+ * <td>String</td>
+ * <td>executor</td>
+ * <td>Indicates where the Restlet chain handles the calls. With "executor",
+ * calls are handed over to a worker thread pool as soon as the request head is
+ * received, leaving the Netty event loop free to read and write other
+ * connections. With "eventLoop", calls are handled directly on the Netty I/O
+ * thread once the request entity is fully received, which is only suitable for
+ * fast and non-blocking resources.</td>
+ * </tr>
+ * <tr>
+ * <td>minThreads</td>
+ * <td>int</td>
+ * <td>1</td>
+ * <td>Minimum number of worker threads waiting to service calls, even if they
+ * are idle. Technically speaking, this is a core number of threads that are
+ * pre-started. Only used in "executor" dispatch mode.</td>
+ * </tr>
+ * <tr>
+ * <td>maxThreads</td>
+ * <td>int</td>
+ * <td>200</td>
+ * <td>Maximum number of worker threads that can service calls. If this number
+ * is reached then additional calls are queued if the "maxQueued" value hasn't
+ * been reached. Only used in "executor" dispatch mode.</td>
+ * </tr>
+ * <tr>
+ * <td>maxQueued</td>
+ * <td>int</td>
+ * <td>0</td>
+ * <td>Maximum number of calls that can be queued if there aren't any worker
+ * thread available to service them. If the value is '0', then no queue is used
+ * and calls are rejected if no worker thread is immediately available. If the
+ * value is '-1', then an unbounded queue is used and calls are never rejected.
+ * Only used in "executor" dispatch mode.</td>
+ * </tr>
+ * <tr>
+ * <td>maxThreadIdleTimeMs</td>
+ * <td>int</td>
+ * <td>60 000</td>
+ * <td>Time for an idle thread to wait for an operation before being collected.
+ * </td>
+ * </tr>
+ * <tr>
+ * <td>inboundBufferSize</td>
+ * <td>int</td>
+ * <td>65 536</td>
+ * <td>Number of request entity bytes that can be buffered for a call before
+ * the connector stops reading from the connection. Reading resumes once the
+ * worker thread has consumed half of the buffered content. In "eventLoop"
+ * dispatch mode, where the entity is fully buffered before the call is
+ * handled, this is the maximum size of a request entity. Larger entities are
+ * discarded and reading them fails.</td>
+ * </tr>
+ * </table>
  * 
  * @author Jerome Louvel
  */
@@ -58,6 +131,129 @@ public abstract class NettyServerHelper extends
 
     private Channel channel;
 
+    /** The worker service handling the calls outside the event loop. */
+    private volatile ExecutorService executor;
+
+    /**
+     * Creates the worker service that handles the calls outside the Netty
+     * event loop. Subclasses can override this method to plug another kind of
+     * executor.
+     * 
+     * @return The worker service.
+     */
+    protected ExecutorService createExecutor() {
+        BlockingQueue<Runnable> queue = null;
+
+        if (getMaxQueued() == 0) {
+            queue = new SynchronousQueue<Runnable>();
+        } else if (getMaxQueued() < 0) {
+            queue = new LinkedBlockingQueue<Runnable>();
+        } else {
+            queue = new ArrayBlockingQueue<Runnable>(getMaxQueued());
+        }
+
+        ThreadPoolExecutor result = new ThreadPoolExecutor(getMinThreads(),
+                getMaxThreads(), getMaxThreadIdleTimeMs(),
+                TimeUnit.MILLISECONDS, queue, new LoggingThreadFactory(
+                        getLogger(), true));
+
+        // Ensure that core threads act like a minimum number of threads
+        result.prestartAllCoreThreads();
+        return result;
+    }
+
+    /**
+     * Returns the dispatch mode, either "executor" or "eventLoop".
+     * 
+     * @return The dispatch mode.
+     */
+    public String getDispatchMode() {
+        return getHelpedParameters().getFirstValue("dispatchMode", "executor");
+    }
+
+    /**
+     * Returns the worker service handling the calls outside the event loop.
+     * 
+     * @return The worker service or null in "eventLoop" dispatch mode.
+     */
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Returns the number of request entity bytes that can be buffered for a
+     * call before the connector stops reading from the connection.
+     * 
+     * @return The request entity buffer size in bytes.
+     */
+    public int getInboundBufferSize() {
+        return Integer.parseInt(getHelpedParameters().getFirstValue(
+                "inboundBufferSize", "65536"));
+    }
+
+    /**
+     * Returns the maximum number of calls that can be queued if there aren't
+     * any worker thread available to service them.
+     * 
+     * @return The maximum number of calls that can be queued.
+     */
+    public int getMaxQueued() {
+        return Integer.parseInt(getHelpedParameters().getFirstValue(
+                "maxQueued", "0"));
+    }
+
+    /**
+     * Returns the time for an idle thread to wait for an operation before being
+     * collected.
+     * 
+     * @return The time for an idle thread to wait for an operation before being
+     *         collected.
+     */
+    public int getMaxThreadIdleTimeMs() {
+        return Integer.parseInt(getHelpedParameters().getFirstValue(
+                "maxThreadIdleTimeMs", "60000"));
+    }
+
+    /**
+     * Returns the maximum threads that will service requests.
+     * 
+     * @return The maximum threads that will service requests.
+     */
+    public int getMaxThreads() {
+        return Integer.parseInt(getHelpedParameters().getFirstValue(
+                "maxThreads", "200"));
+    }
+
+    /**
+     * Returns the minimum threads waiting to service requests.
+     * 
+     * @return The minimum threads waiting to service requests.
+     */
+    public int getMinThreads() {
+        return Integer.parseInt(getHelpedParameters().getFirstValue(
+                "minThreads", "1"));
+    }
+
+    /**
+     * Indicates if the calls are handled by a worker service instead of the
+     * Netty event loop.
+     * 
+     * @return True if the calls are handled by a worker service.
+     */
+    public boolean isExecutorDispatch() {
+        return !"eventLoop".equalsIgnoreCase(getDispatchMode());
+    }
+
+    /**
+     * Sets the worker service handling the calls outside the event loop.
+     * 
+     * @param executor
+     *            The worker service.
+     */
+    protected void setExecutor(ExecutorService executor) {
+        this.executor = executor;
+    }
+
     protected Channel getChannel() {
         return channel;
     }
@@ -97,6 +293,11 @@ public abstract class NettyServerHelper extends
     @Override
     public void start() throws Exception {
         super.start();
+
+        if (isExecutorDispatch()) {
+            setExecutor(createExecutor());
+        }
+
         setBossGroup(new NioEventLoopGroup(1));
         setWorkerGroup(new NioEventLoopGroup());
         setServerBootstrap(new ServerBootstrap());
@@ -121,6 +322,12 @@ public abstract class NettyServerHelper extends
         getChannel().close().sync();
         getBossGroup().shutdownGracefully();
         getWorkerGroup().shutdownGracefully();
+
+        if (getExecutor() != null) {
+            getExecutor().shutdown();
+            setExecutor(null);
+        }
+
         super.stop();
     }
 
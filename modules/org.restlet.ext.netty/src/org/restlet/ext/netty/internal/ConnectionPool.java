@@ -0,0 +1,308 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or or EPL 1.0 (the "Licenses"). You can
+ * select the license that you prefer but you may not use this file except in
+ * compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.ext.netty.internal;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.Promise;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import javax.net.ssl.SSLContext;
+
+import org.restlet.ext.netty.HttpClientHelper;
+
+/**
+ * Pool of keep-alive connections to a remote host and port. Idle connections
+ * are reused in LIFO order and closed by the event loop once the idle timeout
+ * is reached. When the maximum number of connections is reached, acquisition
+ * requests are queued until a connection is released or closed.
+ * 
+ * @author Jerome Louvel
+ */
+public class ConnectionPool {
+
+    /** The remote host and port. */
+    private final String address;
+
+    /** The bootstrap of the connections, bound to the remote address. */
+    private final Bootstrap bootstrap;
+
+    /** Listener updating the pool when a connection is closed. */
+    private final ChannelFutureListener closeListener;
+
+    /** The number of opened or opening connections. */
+    private int connections;
+
+    /** The parent client helper. */
+    private final HttpClientHelper helper;
+
+    /** The idle connections, most recently released first. */
+    private final Deque<Channel> idleChannels;
+
+    /** The max number of opened or opening connections. */
+    private final int maxConnections;
+
+    /** The max number of queued acquisition requests. */
+    private final int maxQueued;
+
+    /** The queued acquisition requests. */
+    private final Deque<Promise<Channel>> waiters;
+
+    /**
+     * Constructor.
+     * 
+     * @param helper
+     *            The parent client helper.
+     * @param bootstrap
+     *            The bootstrap to configure for this pool.
+     * @param host
+     *            The remote host.
+     * @param port
+     *            The remote port.
+     * @param sslContext
+     *            The SSL context or null for plain connections.
+     */
+    public ConnectionPool(HttpClientHelper helper, Bootstrap bootstrap,
+            String host, int port, SSLContext sslContext) {
+        this.helper = helper;
+        this.address = host + ":" + port;
+        this.bootstrap = bootstrap.remoteAddress(host, port).handler(
+                new HttpClientInitializer(helper, this, host, port, sslContext));
+        this.maxConnections = helper.getMaxConnectionsPerHost();
+        this.maxQueued = helper.getMaxQueuedPerHost();
+        this.connections = 0;
+        this.idleChannels = new ArrayDeque<Channel>();
+        this.waiters = new ArrayDeque<Promise<Channel>>();
+        this.closeListener = new ChannelFutureListener() {
+            public void operationComplete(ChannelFuture future) {
+                onClosed(future.channel());
+            }
+        };
+    }
+
+    /**
+     * Acquires a connection, either an idle one or a new one. The returned
+     * future is completed by the event loop when no connection is immediately
+     * available.
+     * 
+     * @return The future connection.
+     */
+    public Future<Channel> acquire() {
+        Promise<Channel> result = this.bootstrap.group().next().newPromise();
+        Channel idleChannel = null;
+        boolean connect = false;
+        boolean rejected = false;
+
+        synchronized (this) {
+            while ((idleChannel = this.idleChannels.pollFirst()) != null
+                    && !idleChannel.isActive()) {
+                // Skip the connections being closed
+            }
+
+            if (idleChannel == null) {
+                if (this.connections < this.maxConnections) {
+                    this.connections++;
+                    connect = true;
+                } else if (this.waiters.size() < this.maxQueued) {
+                    this.waiters.addLast(result);
+                } else {
+                    rejected = true;
+                }
+            }
+        }
+
+        if (idleChannel != null) {
+            result.setSuccess(idleChannel);
+        } else if (connect) {
+            connect(result);
+        } else if (rejected) {
+            result.setFailure(new IOException(
+                    "Too many calls waiting for a connection to "
+                            + this.address));
+        }
+
+        return result;
+    }
+
+    /**
+     * Closes the idle connections and fails the queued acquisition requests.
+     */
+    public void close() {
+        List<Channel> channels;
+        List<Promise<Channel>> promises;
+
+        synchronized (this) {
+            channels = new ArrayList<Channel>(this.idleChannels);
+            promises = new ArrayList<Promise<Channel>>(this.waiters);
+            this.idleChannels.clear();
+            this.waiters.clear();
+        }
+
+        for (Channel channel : channels) {
+            channel.close();
+        }
+
+        for (Promise<Channel> promise : promises) {
+            promise.tryFailure(new IOException("The client was stopped"));
+        }
+    }
+
+    /**
+     * Opens a new connection, the count of connections being already
+     * incremented.
+     * 
+     * @param promise
+     *            The acquisition request to complete.
+     */
+    private void connect(final Promise<Channel> promise) {
+        this.bootstrap.connect().addListener(new ChannelFutureListener() {
+            public void operationComplete(ChannelFuture future) {
+                if (future.isSuccess()) {
+                    Channel channel = future.channel();
+                    channel.closeFuture().addListener(closeListener);
+
+                    if (!promise.trySuccess(channel)) {
+                        release(channel, true);
+                    }
+                } else {
+                    promise.tryFailure(future.cause());
+                    onClosed(null);
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns the parent client helper.
+     * 
+     * @return The parent client helper.
+     */
+    public HttpClientHelper getHelper() {
+        return helper;
+    }
+
+    /**
+     * Returns the number of opened or opening connections.
+     * 
+     * @return The number of opened or opening connections.
+     */
+    public synchronized int getConnections() {
+        return this.connections;
+    }
+
+    /**
+     * Returns the number of idle connections.
+     * 
+     * @return The number of idle connections.
+     */
+    public synchronized int getIdleConnections() {
+        return this.idleChannels.size();
+    }
+
+    /**
+     * Updates the pool when a connection is closed or couldn't be opened, and
+     * opens a new connection for the next queued acquisition request if any.
+     * 
+     * @param channel
+     *            The closed channel or null if it couldn't be opened.
+     */
+    private void onClosed(Channel channel) {
+        Promise<Channel> waiter = null;
+
+        synchronized (this) {
+            if (channel != null) {
+                this.idleChannels.remove(channel);
+            }
+
+            this.connections--;
+
+            if ((this.connections < this.maxConnections)
+                    && !this.waiters.isEmpty()) {
+                waiter = this.waiters.pollFirst();
+                this.connections++;
+            }
+        }
+
+        if (waiter != null) {
+            connect(waiter);
+        }
+    }
+
+    /**
+     * Releases a connection after a call. Reusable connections are handed to
+     * the next queued acquisition request, if any, or kept idle. Other
+     * connections are closed.
+     * 
+     * @param channel
+     *            The connection to release.
+     * @param reusable
+     *            Indicates if the connection can be reused.
+     */
+    public void release(Channel channel, boolean reusable) {
+        if (!reusable || !channel.isActive()) {
+            channel.close();
+        } else {
+            Promise<Channel> waiter;
+
+            synchronized (this) {
+                waiter = this.waiters.pollFirst();
+
+                if (waiter == null) {
+                    this.idleChannels.addFirst(channel);
+                }
+            }
+
+            if ((waiter != null) && !waiter.trySuccess(channel)) {
+                // The request was cancelled, try the next one
+                release(channel, true);
+            }
+        }
+    }
+
+    /**
+     * Removes an idle connection from the pool, before closing it.
+     * 
+     * @param channel
+     *            The connection to remove.
+     * @return True if the connection was idle and is now removed.
+     */
+    public synchronized boolean removeIdle(Channel channel) {
+        return this.idleChannels.remove(channel);
+    }
+
+    @Override
+    public String toString() {
+        return this.address;
+    }
+
+}
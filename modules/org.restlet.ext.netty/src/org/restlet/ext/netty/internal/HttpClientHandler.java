@@ -0,0 +1,154 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or or EPL 1.0 (the "Licenses"). You can
+ * select the license that you prefer but you may not use this file except in
+ * compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.ext.netty.internal;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpObject;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.timeout.IdleStateEvent;
+
+import java.io.IOException;
+
+/**
+ * Handler of the responses received by a client connection. It feeds the call
+ * currently using the connection then releases the connection to its pool once
+ * the response is fully received.
+ * 
+ * @author Jerome Louvel
+ */
+public class HttpClientHandler extends SimpleChannelInboundHandler<HttpObject> {
+
+    /** The call currently using the connection. */
+    private volatile NettyClientCall call;
+
+    /** Indicates if an interim response is being skipped. */
+    private boolean interimResponse;
+
+    /** The pool of the connection. */
+    private final ConnectionPool pool;
+
+    /**
+     * Constructor.
+     * 
+     * @param pool
+     *            The pool of the connection.
+     */
+    public HttpClientHandler(ConnectionPool pool) {
+        this.pool = pool;
+        this.interimResponse = false;
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        NettyClientCall current = this.call;
+
+        if (current != null) {
+            this.call = null;
+            current.onFailure(new IOException(
+                    "The connection was closed by the server"));
+        }
+
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    protected void channelRead0(ChannelHandlerContext ctx, HttpObject msg)
+            throws Exception {
+        NettyClientCall current = this.call;
+
+        if (current == null) {
+            // Unsolicited response, the connection can't be trusted anymore
+            ctx.close();
+            return;
+        }
+
+        if (msg instanceof HttpResponse) {
+            HttpResponse response = (HttpResponse) msg;
+            this.interimResponse = (response.status().code() == HttpResponseStatus.CONTINUE
+                    .code());
+
+            if (!this.interimResponse) {
+                current.onResponse(ctx, response);
+            }
+        }
+
+        if (msg instanceof HttpContent) {
+            boolean last = (msg instanceof LastHttpContent);
+
+            if (this.interimResponse) {
+                this.interimResponse = !last;
+            } else {
+                if (last) {
+                    // Release the connection before the consumer sees the end
+                    // of the entity, so that its next call can reuse it
+                    this.call = null;
+                    current.onEnd();
+                    this.pool.release(ctx.channel(), current.isReusable());
+                }
+
+                current.onContent(((HttpContent) msg).content(), last);
+            }
+        }
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+        NettyClientCall current = this.call;
+
+        if (current != null) {
+            this.call = null;
+            current.onFailure(cause);
+        }
+
+        ctx.close();
+    }
+
+    /**
+     * Sets the call about to use the connection.
+     * 
+     * @param call
+     *            The call about to use the connection.
+     */
+    public void setCall(NettyClientCall call) {
+        this.call = call;
+    }
+
+    @Override
+    public void userEventTriggered(ChannelHandlerContext ctx, Object evt)
+            throws Exception {
+        if (evt instanceof IdleStateEvent) {
+            if ((this.call == null) && this.pool.removeIdle(ctx.channel())) {
+                ctx.close();
+            }
+        } else {
+            super.userEventTriggered(ctx, evt);
+        }
+    }
+
+}
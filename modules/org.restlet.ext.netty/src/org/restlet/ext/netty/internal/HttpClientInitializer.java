@@ -0,0 +1,98 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or or EPL 1.0 (the "Licenses"). You can
+ * select the license that you prefer but you may not use this file except in
+ * compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.ext.netty.internal;
+
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.handler.codec.http.HttpClientCodec;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.timeout.IdleStateHandler;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+
+import org.restlet.ext.netty.HttpClientHelper;
+
+/**
+ * Initializes the pipeline of the client connections.
+ * 
+ * @author Jerome Louvel
+ */
+public class HttpClientInitializer extends ChannelInitializer<SocketChannel> {
+
+    private final HttpClientHelper clientHelper;
+
+    private final String host;
+
+    private final ConnectionPool pool;
+
+    private final int port;
+
+    private final SSLContext sslContext;
+
+    /**
+     * Constructor.
+     * 
+     * @param clientHelper
+     *            The parent client helper.
+     * @param pool
+     *            The pool of the connections.
+     * @param host
+     *            The remote host.
+     * @param port
+     *            The remote port.
+     * @param sslContext
+     *            The SSL context or null for plain connections.
+     */
+    public HttpClientInitializer(HttpClientHelper clientHelper,
+            ConnectionPool pool, String host, int port, SSLContext sslContext) {
+        this.clientHelper = clientHelper;
+        this.pool = pool;
+        this.host = host;
+        this.port = port;
+        this.sslContext = sslContext;
+    }
+
+    @Override
+    public void initChannel(SocketChannel ch) {
+        ChannelPipeline p = ch.pipeline();
+
+        if (this.sslContext != null) {
+            SSLEngine engine = this.sslContext.createSSLEngine(this.host,
+                    this.port);
+            engine.setUseClientMode(true);
+            p.addLast(new SslHandler(engine));
+        }
+
+        p.addLast(new IdleStateHandler(0, 0, clientHelper.getIdleTimeout(),
+                TimeUnit.MILLISECONDS));
+        p.addLast(new HttpClientCodec());
+        p.addLast(new HttpClientHandler(this.pool));
+    }
+
+}
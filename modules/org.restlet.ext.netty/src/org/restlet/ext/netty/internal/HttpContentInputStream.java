@@ -25,113 +25,309 @@
 package org.restlet.ext.netty.internal;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandlerContext;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.concurrent.BrokenBarrierException;
-import java.util.concurrent.CyclicBarrier;
+import java.io.InterruptedIOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.restlet.engine.io.IoUtils;
 
 /**
+ * Input stream fed by the Netty event loop with the request entity content.
+ * Content chunks are retained and queued by the I/O thread without ever
+ * blocking it. When flow control is enabled and the number of buffered bytes
+ * reaches the buffer capacity, the channel stops reading until the consumer
+ * thread has drained half of it. Otherwise, as the content can't be consumed
+ * before being fully received, an entity larger than the buffer capacity is
+ * discarded and reading it fails.
  * 
  * @author Jerome Louvel
  */
 public class HttpContentInputStream extends InputStream {
 
-    private final CyclicBarrier barrier;
+    /** Marker queued after the last content chunk. */
+    private static final ByteBuf END = Unpooled.EMPTY_BUFFER;
 
+    /** The number of buffered bytes above which reading is suspended. */
+    private final int capacity;
+
+    /** The content chunk currently consumed. */
     private volatile ByteBuf content;
 
+    /** Indicates if the end of the entity was reached by the consumer. */
+    private volatile boolean endReached;
+
+    /** The cause of the abnormal end of the entity, if any. */
+    private volatile Throwable failure;
+
+    /** Indicates if reading is suspended when the buffer is full. */
+    private final boolean flowControlled;
+
+    /** Indicates if the last content chunk was received. */
     private volatile boolean lastContent;
 
     private final ChannelHandlerContext nettyContext;
 
-    public HttpContentInputStream(ChannelHandlerContext nettyContext) {
+    /** The number of buffered bytes not yet consumed. */
+    private final AtomicInteger pendingBytes;
+
+    /** Indicates if the stream was released and ignores further content. */
+    private volatile boolean released;
+
+    /** The queue of received content chunks. */
+    private final BlockingQueue<ByteBuf> queue;
+
+    /** Task resuming the reading of the channel from the event loop. */
+    private final Runnable resumeTask;
+
+    /**
+     * Constructor.
+     * 
+     * @param nettyContext
+     *            The Netty channel handler context.
+     * @param capacity
+     *            The number of buffered bytes above which reading is
+     *            suspended.
+     * @param flowControlled
+     *            Indicates if reading is suspended when the buffer is full.
+     */
+    public HttpContentInputStream(ChannelHandlerContext nettyContext,
+            int capacity, boolean flowControlled) {
         this.nettyContext = nettyContext;
+        this.capacity = capacity;
+        this.flowControlled = flowControlled;
         this.lastContent = false;
+        this.endReached = false;
+        this.failure = null;
+        this.released = false;
         this.content = null;
-        this.barrier = new CyclicBarrier(2);
+        this.pendingBytes = new AtomicInteger();
+        this.queue = new LinkedBlockingQueue<ByteBuf>();
+        this.resumeTask = new Runnable() {
+            public void run() {
+                if (!isLastContent()
+                        && (pendingBytes.get() <= (getCapacity() / 2))) {
+                    getNettyContext().channel().config().setAutoRead(true);
+                }
+            }
+        };
     }
 
     @Override
     public int available() throws IOException {
-        return (content == null) ? 0 : content.readableBytes();
+        ByteBuf current = this.content;
+        return (current == null) ? 0 : current.readableBytes();
+    }
+
+    @Override
+    public void close() throws IOException {
+        release();
     }
 
-    protected void getMoreContent() {
-        try {
-            // Ask to read more content
-            nettyContext.channel().config().setAutoRead(true);
-
-            // Block until new content is available
-            barrier.await(IoUtils.TIMEOUT_MS, TimeUnit.MILLISECONDS);
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        } catch (BrokenBarrierException e) {
-            e.printStackTrace();
-        } catch (TimeoutException e) {
-            e.printStackTrace();
+    /**
+     * Returns the number of buffered bytes above which reading is suspended.
+     * 
+     * @return The buffer capacity in bytes.
+     */
+    protected int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the content chunk to read from, waiting for the event loop to
+     * deliver one if needed.
+     * 
+     * @return The content chunk to read from or null if the end of the entity
+     *         was reached.
+     * @throws IOException
+     */
+    protected ByteBuf getMoreContent() throws IOException {
+        while ((this.content == null) || !this.content.isReadable()) {
+            if (this.content != null) {
+                this.content.release();
+                this.content = null;
+            }
+
+            if (this.endReached) {
+                if (this.failure != null) {
+                    throw new IOException("The entity was not fully received",
+                            this.failure);
+                }
+
+                return null;
+            }
+
+            ByteBuf next = this.queue.poll();
+
+            if (next == null) {
+                // Make sure the event loop reads before waiting
+                if (this.flowControlled) {
+                    resume();
+                }
+
+                try {
+                    next = this.queue.poll(IoUtils.TIMEOUT_MS,
+                            TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException(
+                            "Interrupted while waiting for request content");
+                }
+
+                if (next == null) {
+                    throw new IOException(
+                            "Timeout while waiting for request content");
+                }
+            }
+
+            if (next == END) {
+                this.endReached = true;
+            } else {
+                this.content = next;
+
+                if ((this.pendingBytes.addAndGet(-next.readableBytes()) <= (getCapacity() / 2))
+                        && this.flowControlled) {
+                    resume();
+                }
+            }
         }
+
+        return this.content;
+    }
+
+    protected ChannelHandlerContext getNettyContext() {
+        return nettyContext;
     }
 
     protected boolean isLastContent() {
         return lastContent;
     }
 
-    public void onContent(ByteBuf content, boolean lastContent)
-            throws IOException {
-        try {
-            // Set the new content
-            this.content = content;
-            this.lastContent = lastContent;
-
-            // Unblock waiting consumer thread
-            barrier.await(IoUtils.TIMEOUT_MS, TimeUnit.MILLISECONDS);
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        } catch (BrokenBarrierException e) {
-            e.printStackTrace();
-        } catch (TimeoutException e) {
-            e.printStackTrace();
+    /**
+     * Callback invoked by the event loop when new content is received. The
+     * content is retained until consumed and this method never blocks.
+     * 
+     * @param content
+     *            The content received.
+     * @param lastContent
+     *            Indicates if this is the last content chunk.
+     */
+    public void onContent(ByteBuf content, boolean lastContent) {
+        if (content.isReadable()) {
+            int pending = -1;
+
+            // Checked and queued atomically so that a concurrent release
+            // can't miss the retained chunk
+            synchronized (this.queue) {
+                if (!this.released) {
+                    pending = this.pendingBytes.addAndGet(content
+                            .readableBytes());
+
+                    if (this.flowControlled || (pending <= getCapacity())) {
+                        this.queue.add(content.retain());
+                    }
+                }
+            }
+
+            if (pending >= getCapacity()) {
+                if (this.flowControlled) {
+                    if (!lastContent) {
+                        // Suspend reading until the consumer catches up
+                        getNettyContext().channel().config()
+                                .setAutoRead(false);
+                    }
+                } else if (pending > getCapacity()) {
+                    // The entity is only consumed once fully received
+                    this.failure = new IOException(
+                            "The entity exceeds the inbound buffer size of "
+                                    + getCapacity() + " bytes");
+                    release();
+                }
+            }
+        }
+
+        if (lastContent) {
+            this.lastContent = true;
+            this.queue.add(END);
+        }
+    }
+
+    /**
+     * Callback invoked by the event loop when the entity can't be fully
+     * received, for example when the connection is closed. The consumer
+     * receives an exception once the buffered content is read.
+     * 
+     * @param cause
+     *            The cause of the failure.
+     */
+    public void onFailure(Throwable cause) {
+        if (!this.lastContent) {
+            this.failure = cause;
+            this.lastContent = true;
+            this.queue.add(END);
         }
     }
 
     @Override
     public int read() throws IOException {
-        int available = available();
+        ByteBuf current = getMoreContent();
+        return (current == null) ? -1 : (current.readByte() & 0xff);
+    }
 
-        if (available == 0) {
-            if (isLastContent()) {
-                return -1;
-            } else {
-                getMoreContent();
-                available = available();
-            }
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+
+        ByteBuf current = getMoreContent();
+
+        if (current == null) {
+            return -1;
         }
 
-        return content.readByte() & 0xff;
+        len = Math.min(current.readableBytes(), len);
+        current.readBytes(b, off, len);
+        return len;
     }
 
-    @Override
-    public int read(byte[] b, int off, int len) throws IOException {
-        int available = available();
+    /**
+     * Releases the content chunks that were not consumed.
+     */
+    public void release() {
+        synchronized (this.queue) {
+            this.released = true;
+        }
+
+        if (this.content != null) {
+            this.content.release();
+            this.content = null;
+        }
+
+        ByteBuf next;
 
-        if (available == 0) {
-            if (isLastContent()) {
-                return -1;
+        while ((next = this.queue.poll()) != null) {
+            if (next != END) {
+                next.release();
             } else {
-                getMoreContent();
-                available = available();
+                this.endReached = true;
             }
         }
+    }
 
-        len = Math.min(available, len);
-        content.readBytes(b, off, len);
-        return len;
+    /**
+     * Asks the event loop to resume reading the channel if needed.
+     */
+    protected void resume() {
+        if (!getNettyContext().channel().config().isAutoRead()) {
+            getNettyContext().executor().execute(this.resumeTask);
+        }
     }
 
 }
@@ -0,0 +1,158 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or or EPL 1.0 (the "Licenses"). You can
+ * select the license that you prefer but you may not use this file except in
+ * compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.ext.netty.internal;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.DefaultHttpContent;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.restlet.engine.io.IoUtils;
+
+/**
+ * Output stream writing the response entity content directly to the Netty
+ * channel. Bytes are accumulated into a buffer allocated by the channel, which
+ * is sent when full or when the stream is flushed. When the channel isn't
+ * writable anymore, the writing thread waits until the last chunk is written,
+ * so this stream must not be used from the event loop.
+ * 
+ * @author Jerome Louvel
+ */
+public class HttpContentOutputStream extends OutputStream {
+
+    /** The current buffer. */
+    private ByteBuf buffer;
+
+    /** Indicates if the stream was closed. */
+    private boolean closed;
+
+    private final ChannelHandlerContext nettyContext;
+
+    /**
+     * Constructor.
+     * 
+     * @param nettyContext
+     *            The Netty context.
+     */
+    public HttpContentOutputStream(ChannelHandlerContext nettyContext) {
+        this.nettyContext = nettyContext;
+        this.buffer = null;
+        this.closed = false;
+    }
+
+    /**
+     * Sends and flushes the current buffer, if any.
+     * 
+     * @param flush
+     *            True if the channel should be flushed even if there is no
+     *            buffered content.
+     * @throws IOException
+     */
+    private void send(boolean flush) throws IOException {
+        if ((this.buffer != null) && this.buffer.isReadable()) {
+            ByteBuf content = this.buffer;
+            this.buffer = null;
+            ChannelFuture future = this.nettyContext
+                    .writeAndFlush(new DefaultHttpContent(content));
+
+            if (!this.nettyContext.channel().isWritable()) {
+                // Slow client, wait until the pending chunks are written
+                try {
+                    if (!future.await(IoUtils.TIMEOUT_MS,
+                            TimeUnit.MILLISECONDS)) {
+                        throw new IOException(
+                                "Timeout while writing the response entity");
+                    }
+                } catch (InterruptedException e) {
+                    throw new InterruptedIOException(
+                            "Interrupted while writing the response entity");
+                }
+
+                if (!future.isSuccess()) {
+                    throw new IOException(
+                            "Unable to write the response entity",
+                            future.cause());
+                }
+            }
+        } else if (flush) {
+            this.nettyContext.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!this.closed) {
+            this.closed = true;
+
+            try {
+                send(true);
+            } finally {
+                if (this.buffer != null) {
+                    this.buffer.release();
+                    this.buffer = null;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        send(true);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (this.closed) {
+            throw new IOException("The response entity stream is closed");
+        }
+
+        while (len > 0) {
+            if (this.buffer == null) {
+                this.buffer = this.nettyContext.alloc().buffer(
+                        IoUtils.BUFFER_SIZE);
+            }
+
+            int count = Math.min(len, this.buffer.writableBytes());
+            this.buffer.writeBytes(b, off, count);
+            off += count;
+            len -= count;
+
+            if (!this.buffer.isWritable()) {
+                send(false);
+            }
+        }
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] { (byte) b }, 0, 1);
+    }
+
+}
@@ -28,6 +28,8 @@ import static io.netty.handler.codec.http.HttpResponseStatus.CONTINUE;
 import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
 
 import java.io.IOException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.logging.Level;
 
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
@@ -74,8 +76,6 @@ public class HttpServerHandler extends SimpleChannelInboundHandler<Object> {
 
     @Override
     protected void channelRead0(ChannelHandlerContext ctx, Object msg) {
-        System.out.println("Message received: " + msg);
-
         try {
             if (msg instanceof HttpRequest) {
                 HttpRequest request = (HttpRequest) msg;
@@ -84,13 +84,16 @@ public class HttpServerHandler extends SimpleChannelInboundHandler<Object> {
                     send100Continue(ctx);
                 }
 
-                call = new NettyServerCall(getServerHelper().getHelped(), ctx,
-                        request);
-                serverHelper.handle(call);
+                call = new NettyServerCall(getServerHelper(), ctx, request);
                 appendDecoderResult(request);
-            } else if (msg instanceof HttpContent) {
+
+                if (getServerHelper().isExecutorDispatch()) {
+                    dispatch(ctx, call);
+                }
+            }
+
+            if (msg instanceof HttpContent) {
                 HttpContent httpContent = (HttpContent) msg;
-                ctx.channel().config().setAutoRead(false);
 
                 if (call != null) {
                     call.onContent(httpContent);
@@ -105,6 +108,16 @@ public class HttpServerHandler extends SimpleChannelInboundHandler<Object> {
                     if (!trailer.trailingHeaders().isEmpty()) {
                         // TODO
                     }
+
+                    if (!getServerHelper().isExecutorDispatch()) {
+                        // Handle the fully received call on the event loop
+                        getServerHelper().handle(call);
+                        call.onHandled();
+                    } else if (!call.isHandled()) {
+                        // Don't read the next request before the current call
+                        // is handled in order to keep responses ordered
+                        ctx.channel().config().setAutoRead(false);
+                    }
                 }
             }
         } catch (Throwable e) {
@@ -118,6 +131,47 @@ public class HttpServerHandler extends SimpleChannelInboundHandler<Object> {
         ctx.flush();
     }
 
+    /**
+     * Hands the call over to the worker service of the server helper. Once the
+     * call is handled, the event loop is asked to resume reading the channel.
+     * 
+     * @param ctx
+     *            The Netty channel handler context.
+     * @param nettyCall
+     *            The call to handle.
+     */
+    private void dispatch(final ChannelHandlerContext ctx,
+            final NettyServerCall nettyCall) {
+        final Runnable resumeTask = new Runnable() {
+            public void run() {
+                ctx.channel().config().setAutoRead(true);
+            }
+        };
+
+        try {
+            getServerHelper().getExecutor().execute(new Runnable() {
+                public void run() {
+                    try {
+                        getServerHelper().handle(nettyCall);
+                    } finally {
+                        nettyCall.onHandled();
+                        ctx.executor().execute(resumeTask);
+                    }
+                }
+
+                @Override
+                public String toString() {
+                    return "Netty call handler for " + nettyCall.getRequestUri();
+                }
+            });
+        } catch (RejectedExecutionException ree) {
+            getServerHelper().getLogger().log(Level.WARNING,
+                    "Unable to handle the call, closing the connection", ree);
+            nettyCall.onHandled();
+            ctx.close();
+        }
+    }
+
     @Override
     public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
         cause.printStackTrace();
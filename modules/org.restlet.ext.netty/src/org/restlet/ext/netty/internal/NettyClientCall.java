@@ -0,0 +1,606 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or or EPL 1.0 (the "Licenses"). You can
+ * select the license that you prefer but you may not use this file except in
+ * compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.ext.netty.internal;
+
+import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.HttpHeaderUtil;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.FutureListener;
+import io.netty.util.concurrent.ScheduledFuture;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Uniform;
+import org.restlet.data.Header;
+import org.restlet.data.Protocol;
+import org.restlet.data.Reference;
+import org.restlet.data.Status;
+import org.restlet.engine.adapter.ClientCall;
+import org.restlet.engine.connector.ConnectorHelper;
+import org.restlet.engine.header.HeaderUtils;
+import org.restlet.ext.netty.HttpClientHelper;
+import org.restlet.representation.Representation;
+import org.restlet.service.ConnectorService;
+import org.restlet.util.Series;
+
+/**
+ * HTTP client call based on a pooled Netty connection. The response is read
+ * by the Netty event loop, so no thread is blocked while waiting for it when
+ * the call is asynchronous.
+ * 
+ * @author Jerome Louvel
+ */
+public class NettyClientCall extends ClientCall {
+
+    /** The parent client helper. */
+    private final HttpClientHelper clientHelper;
+
+    /** The connection used by the call. */
+    private volatile Channel channel;
+
+    /** The callback of an asynchronous call. */
+    private volatile Uniform callback;
+
+    /** The request passed to the callback. */
+    private volatile Request callbackRequest;
+
+    /** The response passed to the callback. */
+    private volatile Response callbackResponse;
+
+    /** Indicates if a response or a failure was received. */
+    private volatile boolean completed;
+
+    /** The failure preventing the response reception, if any. */
+    private volatile Throwable failure;
+
+    /** The remote host. */
+    private final String host;
+
+    /** The response entity stream. */
+    private volatile HttpContentInputStream nettyEntityStream;
+
+    /** The response head. */
+    private volatile HttpResponse nettyResponse;
+
+    /** The remote port. */
+    private final int port;
+
+    /** Indicates if the request was fully written. */
+    private volatile boolean requestWritten;
+
+    /** The target of the request line. */
+    private final String requestTarget;
+
+    /** Indicates if the response was fully received. */
+    private volatile boolean responseEnded;
+
+    /** Indicates if the response headers were added. */
+    private volatile boolean responseHeadersAdded;
+
+    /** Latch released when a response or a failure is received. */
+    private final CountDownLatch responseLatch;
+
+    /** The task failing the call when no response is received in time. */
+    private volatile ScheduledFuture<?> timeoutFuture;
+
+    /**
+     * Constructor.
+     * 
+     * @param helper
+     *            The parent HTTP client helper.
+     * @param method
+     *            The method name.
+     * @param requestUri
+     *            The request URI.
+     */
+    public NettyClientCall(HttpClientHelper helper, String method,
+            String requestUri) {
+        super(helper, method, requestUri);
+        this.clientHelper = helper;
+        Reference reference = new Reference(requestUri);
+        String scheme = reference.getScheme();
+
+        if (Protocol.HTTPS.getSchemeName().equalsIgnoreCase(scheme)) {
+            setConfidential(true);
+        } else if (!Protocol.HTTP.getSchemeName().equalsIgnoreCase(scheme)) {
+            throw new IllegalArgumentException(
+                    "Only HTTP or HTTPS resource URIs are allowed here");
+        }
+
+        String hostDomain = reference.getHostDomain();
+
+        if ((hostDomain != null) && hostDomain.startsWith("[")
+                && hostDomain.endsWith("]")) {
+            // IPv6 literal address
+            hostDomain = hostDomain.substring(1, hostDomain.length() - 1);
+        }
+
+        this.host = hostDomain;
+        this.port = (reference.getHostPort() != -1) ? reference.getHostPort()
+                : (isConfidential() ? Protocol.HTTPS.getDefaultPort()
+                        : Protocol.HTTP.getDefaultPort());
+
+        String path = reference.getPath();
+        StringBuilder target = new StringBuilder(
+                ((path == null) || path.isEmpty()) ? "/" : path);
+
+        if (reference.hasQuery()) {
+            target.append('?').append(reference.getQuery());
+        }
+
+        this.requestTarget = target.toString();
+        this.completed = false;
+        this.requestWritten = false;
+        this.responseEnded = false;
+        this.responseHeadersAdded = false;
+        this.responseLatch = new CountDownLatch(1);
+    }
+
+    /**
+     * Completes the call once a response or a failure is received. The
+     * callback of asynchronous calls is invoked by a worker thread.
+     */
+    private void complete() {
+        ScheduledFuture<?> timeout = this.timeoutFuture;
+
+        if (timeout != null) {
+            timeout.cancel(false);
+        }
+
+        this.responseLatch.countDown();
+
+        if (this.callback != null) {
+            Runnable task = new Runnable() {
+                public void run() {
+                    callback.handle(callbackRequest, callbackResponse);
+                }
+
+                @Override
+                public String toString() {
+                    return "Netty response callback for " + getRequestUri();
+                }
+            };
+
+            ExecutorService executor = getHelper().getExecutor();
+
+            if (executor == null) {
+                // The client was stopped
+                task.run();
+            } else {
+                try {
+                    executor.execute(task);
+                } catch (RejectedExecutionException ree) {
+                    getHelper().getLogger().log(Level.FINE,
+                            "Unable to dispatch the response callback", ree);
+                    task.run();
+                }
+            }
+        }
+    }
+
+    @Override
+    public HttpClientHelper getHelper() {
+        return this.clientHelper;
+    }
+
+    /**
+     * Returns the connection pool of the remote host.
+     * 
+     * @return The connection pool.
+     */
+    private ConnectionPool getPool() {
+        return getHelper().getPool(this.host, this.port, isConfidential());
+    }
+
+    @Override
+    public String getReasonPhrase() {
+        HttpResponse response = this.nettyResponse;
+
+        if (response != null) {
+            return response.status().reasonPhrase();
+        }
+
+        Throwable cause = this.failure;
+        return (cause == null) ? null : cause.getMessage();
+    }
+
+    @Override
+    public WritableByteChannel getRequestEntityChannel() {
+        return null;
+    }
+
+    @Override
+    public OutputStream getRequestEntityStream() {
+        return null;
+    }
+
+    @Override
+    public OutputStream getRequestHeadStream() {
+        return null;
+    }
+
+    @Override
+    public ReadableByteChannel getResponseEntityChannel(long size) {
+        return null;
+    }
+
+    @Override
+    public InputStream getResponseEntityStream(long size) {
+        final HttpContentInputStream stream = this.nettyEntityStream;
+
+        if (stream == null) {
+            return null;
+        }
+
+        return new FilterInputStream(stream) {
+            @Override
+            public void close() throws IOException {
+                super.close();
+
+                // The remaining content can't be skipped without reading it
+                Channel current = channel;
+
+                if (!responseEnded && (current != null)) {
+                    current.close();
+                }
+            }
+        };
+    }
+
+    @Override
+    public Series<Header> getResponseHeaders() {
+        Series<Header> result = super.getResponseHeaders();
+
+        if (!this.responseHeadersAdded) {
+            HttpResponse response = this.nettyResponse;
+
+            if (response != null) {
+                for (Map.Entry<String, String> header : response.headers()) {
+                    result.add(header.getKey(), header.getValue());
+                }
+
+                this.responseHeadersAdded = true;
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public int getStatusCode() {
+        HttpResponse response = this.nettyResponse;
+
+        if (response != null) {
+            return response.status().code();
+        }
+
+        return Status.CONNECTOR_ERROR_COMMUNICATION.getCode();
+    }
+
+    /**
+     * Indicates if the connection can be reused by another call once the
+     * response is fully received.
+     * 
+     * @return True if the connection can be reused.
+     */
+    public boolean isReusable() {
+        HttpResponse response = this.nettyResponse;
+        return this.requestWritten && (response != null)
+                && HttpHeaderUtil.isKeepAlive(response)
+                && !HeaderUtils.isConnectionClose(super.getRequestHeaders());
+    }
+
+    /**
+     * Callback invoked by the event loop when response content is received.
+     * 
+     * @param content
+     *            The content received.
+     * @param lastContent
+     *            Indicates if this is the last content chunk.
+     */
+    public void onContent(ByteBuf content, boolean lastContent) {
+        HttpContentInputStream stream = this.nettyEntityStream;
+
+        if (stream != null) {
+            stream.onContent(content, lastContent);
+        }
+    }
+
+    /**
+     * Callback invoked by the event loop when the response is fully received,
+     * before the last content chunk is delivered to the consumer.
+     */
+    public void onEnd() {
+        this.responseEnded = true;
+    }
+
+    /**
+     * Callback invoked when the call fails, either before or during the
+     * reception of the response.
+     * 
+     * @param cause
+     *            The cause of the failure.
+     */
+    public void onFailure(Throwable cause) {
+        boolean completing = false;
+        HttpContentInputStream stream;
+
+        synchronized (this) {
+            stream = this.nettyEntityStream;
+
+            if (!this.completed) {
+                this.failure = cause;
+                this.completed = true;
+                completing = true;
+            }
+        }
+
+        if (stream != null) {
+            stream.onFailure(cause);
+        }
+
+        if (completing) {
+            getHelper().getLogger().log(Level.FINE,
+                    "Unable to complete the Netty HTTP client call", cause);
+            complete();
+        }
+    }
+
+    /**
+     * Callback invoked by the event loop when the response head is received.
+     * 
+     * @param nettyContext
+     *            The Netty channel handler context.
+     * @param response
+     *            The response head.
+     */
+    public void onResponse(ChannelHandlerContext nettyContext,
+            HttpResponse response) {
+        synchronized (this) {
+            if (this.completed) {
+                // The call already failed, probably timed out
+                nettyContext.close();
+                return;
+            }
+
+            this.nettyResponse = response;
+            this.nettyEntityStream = new HttpContentInputStream(nettyContext,
+                    getHelper().getInboundBufferSize(), true);
+            this.completed = true;
+        }
+
+        complete();
+    }
+
+    /**
+     * Schedules the failure of the call if no response is received in time.
+     */
+    private void scheduleTimeout() {
+        this.timeoutFuture = getHelper().getWorkerGroup().schedule(
+                new Runnable() {
+                    public void run() {
+                        onFailure(new IOException(
+                                "No response received in time from "
+                                        + getRequestUri()));
+                        Channel current = channel;
+
+                        if (current != null) {
+                            current.close();
+                        }
+                    }
+                }, getHelper().getResponseTimeout(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Status sendRequest(Request request) {
+        Status result = null;
+
+        try {
+            scheduleTimeout();
+            Future<Channel> future = getPool().acquire();
+
+            if (future.await(getHelper().getResponseTimeout())
+                    && future.isSuccess()) {
+                writeRequest(future.getNow(), request);
+            } else if (future.cause() != null) {
+                onFailure(future.cause());
+            } else {
+                future.cancel(false);
+            }
+
+            this.responseLatch.await();
+
+            if (this.failure != null) {
+                result = new Status(Status.CONNECTOR_ERROR_COMMUNICATION,
+                        this.failure);
+            } else {
+                result = new Status(getStatusCode(), getReasonPhrase());
+            }
+        } catch (IOException ioe) {
+            onFailure(ioe);
+            result = new Status(Status.CONNECTOR_ERROR_COMMUNICATION, ioe);
+        } catch (InterruptedException ie) {
+            onFailure(ie);
+            result = new Status(Status.CONNECTOR_ERROR_COMMUNICATION, ie);
+        } catch (RuntimeException re) {
+            onFailure(re);
+            result = new Status(Status.CONNECTOR_ERROR_INTERNAL, re);
+        }
+
+        return result;
+    }
+
+    @Override
+    public void sendRequest(final Request request, final Response response,
+            Uniform callback) throws Exception {
+        this.callbackRequest = request;
+        this.callbackResponse = response;
+        this.callback = callback;
+        scheduleTimeout();
+
+        getPool().acquire().addListener(new FutureListener<Channel>() {
+            public void operationComplete(Future<Channel> future) {
+                if (!future.isSuccess()) {
+                    onFailure(future.cause());
+                    return;
+                }
+
+                final Channel acquired = future.getNow();
+                Runnable task = new Runnable() {
+                    public void run() {
+                        try {
+                            writeRequest(acquired, request);
+                            Uniform onSent = request.getOnSent();
+
+                            if (onSent != null) {
+                                onSent.handle(request, response);
+                            }
+                        } catch (Throwable t) {
+                            onFailure(t);
+                            acquired.close();
+                        }
+                    }
+                };
+
+                if (request.isEntityAvailable()) {
+                    // Writing the entity may block
+                    try {
+                        getHelper().getExecutor().execute(task);
+                    } catch (RuntimeException re) {
+                        onFailure(re);
+                        getPool().release(acquired, true);
+                    }
+                } else {
+                    task.run();
+                }
+            }
+        });
+    }
+
+    /**
+     * Writes the request on an acquired connection.
+     * 
+     * @param acquired
+     *            The acquired connection.
+     * @param request
+     *            The high-level request.
+     * @throws IOException
+     */
+    private void writeRequest(Channel acquired, Request request)
+            throws IOException {
+        this.channel = acquired;
+        InetSocketAddress remoteAddress = (InetSocketAddress) acquired
+                .remoteAddress();
+
+        if ((remoteAddress != null) && (remoteAddress.getAddress() != null)) {
+            setServerAddress(remoteAddress.getAddress().getHostAddress());
+        }
+
+        setServerPort(this.port);
+
+        if (this.completed) {
+            // The call already failed, probably timed out
+            getPool().release(acquired, true);
+            return;
+        }
+
+        Representation entity = request.isEntityAvailable() ? request
+                .getEntity() : null;
+        HttpRequest nettyRequest = new DefaultHttpRequest(HTTP_1_1,
+                HttpMethod.valueOf(getMethod()), this.requestTarget);
+
+        for (Header header : getRequestHeaders()) {
+            nettyRequest.headers().add(header.getName(), header.getValue());
+        }
+
+        if ((entity != null) && !HttpHeaderUtil.isContentLengthSet(nettyRequest)) {
+            HttpHeaderUtil.setTransferEncodingChunked(nettyRequest, true);
+        }
+
+        HttpClientHandler handler = acquired.pipeline().get(
+                HttpClientHandler.class);
+        ChannelHandlerContext ctx = acquired.pipeline().context(handler);
+        handler.setCall(this);
+
+        // Get the connector service to callback
+        ConnectorService connectorService = ConnectorHelper
+                .getConnectorService();
+
+        if (connectorService != null) {
+            connectorService.beforeSend(entity);
+        }
+
+        try {
+            ctx.write(nettyRequest);
+
+            if (entity != null) {
+                OutputStream os = new HttpContentOutputStream(ctx);
+                entity.write(os);
+                os.close();
+            }
+
+            ctx.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT).addListener(
+                    new ChannelFutureListener() {
+                        public void operationComplete(ChannelFuture future) {
+                            requestWritten = future.isSuccess();
+                        }
+                    });
+        } finally {
+            if (entity != null) {
+                entity.release();
+            }
+
+            // Call-back after writing
+            if (connectorService != null) {
+                connectorService.afterSend(entity);
+            }
+        }
+    }
+
+}
@@ -29,8 +29,8 @@ import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.DefaultFileRegion;
 import io.netty.handler.codec.http.DefaultHttpResponse;
-import io.netty.handler.codec.http.HttpChunkedInput;
 import io.netty.handler.codec.http.HttpContent;
 import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpHeaderValues;
@@ -39,12 +39,17 @@ import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpResponse;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.stream.ChunkedNioFile;
 import io.netty.handler.stream.ChunkedStream;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.RandomAccessFile;
 import java.net.InetSocketAddress;
+import java.nio.channels.FileChannel;
 import java.util.Map;
 import java.util.logging.Level;
 
@@ -53,7 +58,13 @@ import javax.net.ssl.SSLEngine;
 import org.restlet.Response;
 import org.restlet.Server;
 import org.restlet.data.Header;
+import org.restlet.data.Range;
 import org.restlet.engine.adapter.ServerCall;
+import org.restlet.engine.application.RangeRepresentation;
+import org.restlet.engine.io.IoUtils;
+import org.restlet.ext.netty.NettyServerHelper;
+import org.restlet.representation.ByteArrayRepresentation;
+import org.restlet.representation.FileRepresentation;
 import org.restlet.representation.Representation;
 import org.restlet.util.Series;
 
@@ -65,22 +76,44 @@ public class NettyServerCall extends ServerCall {
 
     private final ChannelHandlerContext nettyContext;
 
-    private volatile HttpContentInputStream nettyEntityStream;
+    private final HttpContentInputStream nettyEntityStream;
 
     private final HttpRequest nettyRequest;
 
     private volatile HttpResponse nettyResponse;
 
+    /** Indicates if the call is handled outside of the event loop. */
+    private final boolean executorDispatch;
+
+    /** Indicates if the call was handled by the Restlet chain. */
+    private volatile boolean handled;
+
     /** Indicates if the request headers were parsed and added. */
     private volatile boolean requestHeadersAdded;
 
     public NettyServerCall(Server server, ChannelHandlerContext nettyContext,
             HttpRequest httpRequest) {
+        this(server, nettyContext, httpRequest, 65536, false);
+    }
+
+    public NettyServerCall(NettyServerHelper serverHelper,
+            ChannelHandlerContext nettyContext, HttpRequest httpRequest) {
+        this(serverHelper.getHelped(), nettyContext, httpRequest, serverHelper
+                .getInboundBufferSize(), serverHelper.isExecutorDispatch());
+    }
+
+    private NettyServerCall(Server server, ChannelHandlerContext nettyContext,
+            HttpRequest httpRequest, int inboundBufferSize,
+            boolean executorDispatch) {
         super(server);
+        this.executorDispatch = executorDispatch;
         this.nettyContext = nettyContext;
         this.nettyRequest = httpRequest;
         this.nettyResponse = null;
+        this.handled = false;
         this.requestHeadersAdded = false;
+        this.nettyEntityStream = new HttpContentInputStream(nettyContext,
+                inboundBufferSize, executorDispatch);
     }
 
     @Override
@@ -128,11 +161,6 @@ public class NettyServerCall extends ServerCall {
     }
 
     protected HttpContentInputStream getNettyEntityStream() {
-        if (this.nettyEntityStream == null) {
-            this.nettyEntityStream = new HttpContentInputStream(
-                    getNettyContext());
-        }
-
         return this.nettyEntityStream;
     }
 
@@ -202,27 +230,154 @@ public class NettyServerCall extends ServerCall {
         return result;
     }
 
+    /**
+     * Indicates if the call is handled outside of the event loop, in which
+     * case blocking writes are allowed.
+     * 
+     * @return True if the call is handled outside of the event loop.
+     */
+    public boolean isExecutorDispatch() {
+        return executorDispatch;
+    }
+
+    /**
+     * Indicates if the call was handled by the Restlet chain.
+     * 
+     * @return True if the call was handled by the Restlet chain.
+     */
+    public boolean isHandled() {
+        return handled;
+    }
+
     public void onContent(HttpContent httpContent) throws IOException {
         ByteBuf content = httpContent.content();
+        getNettyEntityStream().onContent(content,
+                httpContent instanceof LastHttpContent);
+    }
 
-        if (content.isReadable()) {
-            getNettyEntityStream().onContent(content,
-                    httpContent instanceof LastHttpContent);
-        }
+    /**
+     * Marks the call as handled and releases the request content that wasn't
+     * consumed.
+     */
+    public void onHandled() {
+        this.handled = true;
+        getNettyEntityStream().release();
     }
 
     protected void setNettyResponse(HttpResponse nettyResponse) {
         this.nettyResponse = nettyResponse;
     }
 
+    /**
+     * Returns the file whose content, or part of it, is exposed by the given
+     * representation, if any. Ranges set by the RangeFilter on top of a
+     * complete file representation are supported.
+     * 
+     * @param entity
+     *            The representation to analyze.
+     * @return The file or null.
+     */
+    private File getFile(Representation entity) {
+        Representation fileEntity = entity;
+
+        if ((entity instanceof RangeRepresentation)
+                && (((RangeRepresentation) entity).getWrappedRepresentation()
+                        .getRange() == null)) {
+            fileEntity = ((RangeRepresentation) entity)
+                    .getWrappedRepresentation();
+        } else if (entity.getRange() != null) {
+            return null;
+        }
+
+        return (fileEntity instanceof FileRepresentation) ? ((FileRepresentation) fileEntity)
+                .getFile() : null;
+    }
+
+    /**
+     * Returns the index of the first byte to send from a file representation,
+     * taking its range into account.
+     * 
+     * @param entity
+     *            The file representation, possibly ranged.
+     * @param fileSize
+     *            The size of the file.
+     * @return The index of the first byte to send.
+     */
+    private long getFileIndex(Representation entity, long fileSize) {
+        Range range = entity.getRange();
+        long result = 0;
+
+        if (range != null) {
+            if (range.getIndex() != Range.INDEX_LAST) {
+                result = range.getIndex();
+            } else if (range.getSize() != Range.SIZE_MAX) {
+                result = Math.max(0, fileSize - range.getSize());
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Indicates if the connection is secured by SSL/TLS, in which case the
+     * content can't be transferred without going through the user space.
+     * 
+     * @return True if the connection is secured by SSL/TLS.
+     */
+    private boolean isSecure() {
+        return getNettyContext().pipeline().get(SslHandler.class) != null;
+    }
+
     @Override
     protected void writeResponseBody(Representation responseEntity)
             throws IOException {
         try {
-            // Send the entity to the client
-            InputStream is = responseEntity.getStream();
-            getNettyContext()
-                    .write(new HttpChunkedInput(new ChunkedStream(is)));
+            File file = getFile(responseEntity);
+
+            if ((file != null) && file.isFile()) {
+                // Open the channel right away as the representation may delete
+                // its file when released, before the asynchronous write ends
+                FileChannel fileChannel = new RandomAccessFile(file, "r")
+                        .getChannel();
+                long index = getFileIndex(responseEntity, fileChannel.size());
+                long count = (responseEntity.getRange() == null) ? fileChannel
+                        .size() : IoUtils.getAvailableSize(responseEntity);
+
+                if (isSecure()) {
+                    getNettyContext().write(
+                            new ChunkedNioFile(fileChannel, index, count, 8192));
+                } else {
+                    // Let the kernel transfer the file (sendfile)
+                    getNettyContext().write(
+                            new DefaultFileRegion(fileChannel, index, count));
+                }
+            } else if ((responseEntity instanceof ByteArrayRepresentation)
+                    && ((ByteArrayRepresentation) responseEntity)
+                            .isByteArrayAvailable()
+                    && (responseEntity.getRange() == null)) {
+                // Wrap the byte array without copying it
+                ByteArrayRepresentation bar = (ByteArrayRepresentation) responseEntity;
+                getNettyContext().write(
+                        Unpooled.wrappedBuffer(bar.getByteArray(),
+                                bar.getOffset(), bar.getLength()));
+            } else if (isExecutorDispatch()) {
+                // Write the entity on the current worker thread, without
+                // converting it into a stream
+                OutputStream os = new HttpContentOutputStream(
+                        getNettyContext());
+
+                try {
+                    responseEntity.write(os);
+                } finally {
+                    // Releases the pooled buffer
+                    os.close();
+                }
+            } else {
+                // Send the entity to the client
+                InputStream is = responseEntity.getStream();
+                getNettyContext().write(new ChunkedStream(is));
+            }
+
             getNettyContext().writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT);
         } catch (IOException ioe) {
             // The stream was probably already closed by the
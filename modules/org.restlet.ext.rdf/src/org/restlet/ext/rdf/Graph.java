@@ -24,26 +24,58 @@
 
 package org.restlet.ext.rdf;
 
-import java.util.concurrent.CopyOnWriteArraySet;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
 
 import org.restlet.data.MediaType;
 import org.restlet.data.Reference;
+import org.restlet.ext.rdf.internal.TermDictionary;
+import org.restlet.ext.rdf.internal.TripleStore;
 import org.restlet.representation.Representation;
 
 /**
  * Graph composed of links. This also called a set of RDF statements or a RDF
- * model.
+ * model.<br>
+ * <br>
+ * The links are stored in an in-memory triple store. Their source, type and
+ * target are encoded as integer identifiers, references and literals being
+ * identified by value, and indexed so that links can be efficiently looked up
+ * via the {@link #getLinks(Object, Reference, Object)} method. As a
+ * consequence, a graph can't contain two links with the same source, type and
+ * target, and links must not be modified once added to a graph. Note that the
+ * encoded terms are kept when links are removed, until the graph is cleared,
+ * so a graph whose links are often replaced should be cleared or recreated
+ * from time to time.<br>
+ * <br>
+ * Concurrency note: this class is thread-safe. Iterators work on a snapshot of
+ * the links taken when they are created.
  * 
  * @author Jerome Louvel
  */
-public class Graph extends CopyOnWriteArraySet<Link> {
+public class Graph extends AbstractSet<Link> implements Serializable {
 
     /** The serialization unique identifier. */
-    private static final long serialVersionUID = 1L;
+    private static final long serialVersionUID = 2L;
+
+    /** The pattern identifier of terms unknown to the graph. */
+    private static final int UNKNOWN = -2;
 
     /** The default link that is used to complete new links. */
     private Link defaultLink;
 
+    /** The dictionary of terms. */
+    private transient TermDictionary dictionary;
+
+    /** The store of links, indexed by term identifiers. */
+    private transient TripleStore<Link> store;
+
     /**
      * Default constructor.
      */
@@ -59,6 +91,23 @@ public class Graph extends CopyOnWriteArraySet<Link> {
      */
     public Graph(Link defaultLink) {
         this.defaultLink = defaultLink;
+        this.dictionary = new TermDictionary();
+        this.store = new TripleStore<Link>();
+    }
+
+    /**
+     * Adds a link if the graph doesn't already contain a link with the same
+     * source, type and target.
+     * 
+     * @param link
+     *            The link to add.
+     * @return True if the link was added.
+     */
+    @Override
+    public synchronized boolean add(Link link) {
+        return this.store.add(this.dictionary.intern(link.getSource()),
+                this.dictionary.intern(link.getTypeRef()),
+                this.dictionary.intern(link.getTarget()), link);
     }
 
     /**
@@ -300,6 +349,48 @@ public class Graph extends CopyOnWriteArraySet<Link> {
                 new Reference(targetRef));
     }
 
+    /**
+     * Adds a collection of links, reserving the required capacity up-front.
+     * This is the preferred way to bulk load links.
+     * 
+     * @param links
+     *            The links to add.
+     * @return True if the graph was modified.
+     */
+    @Override
+    public synchronized boolean addAll(Collection<? extends Link> links) {
+        boolean result = false;
+        this.store.ensureCapacity(this.store.size() + links.size());
+
+        for (Link link : links) {
+            result |= add(link);
+        }
+
+        return result;
+    }
+
+    @Override
+    public synchronized void clear() {
+        this.store.clear();
+        this.dictionary.clear();
+    }
+
+    @Override
+    public synchronized boolean contains(Object object) {
+        return (object instanceof Link) && (getStored((Link) object) != null);
+    }
+
+    /**
+     * Ensures that a given number of links can be added without growing the
+     * internal structures. Useful before bulk loading links.
+     * 
+     * @param capacity
+     *            The number of links.
+     */
+    public synchronized void ensureCapacity(int capacity) {
+        this.store.ensureCapacity(capacity);
+    }
+
     /**
      * Returns the default link that is used to complete new links.
      * 
@@ -309,6 +400,48 @@ public class Graph extends CopyOnWriteArraySet<Link> {
         return defaultLink;
     }
 
+    /**
+     * Returns the links matching a given pattern, in insertion order. Each
+     * null parameter matches any value.
+     * 
+     * @param source
+     *            The source reference or graph to match or null.
+     * @param typeRef
+     *            The type reference to match or null.
+     * @param target
+     *            The target reference, literal or graph to match or null.
+     * @return The list of matching links.
+     */
+    public synchronized List<Link> getLinks(Object source, Reference typeRef,
+            Object target) {
+        int s = getPatternId(source);
+        int p = getPatternId(typeRef);
+        int o = getPatternId(target);
+
+        if ((s == UNKNOWN) || (p == UNKNOWN) || (o == UNKNOWN)) {
+            return Collections.emptyList();
+        }
+
+        return this.store.lookup(s, p, o);
+    }
+
+    /**
+     * Returns the identifier of a pattern term.
+     * 
+     * @param term
+     *            The term or null to match any value.
+     * @return The term identifier, the store wildcard or {@link #UNKNOWN} if
+     *         no link can match.
+     */
+    private int getPatternId(Object term) {
+        if (term == null) {
+            return TripleStore.WILDCARD;
+        }
+
+        int result = this.dictionary.getId(term);
+        return (result == TermDictionary.UNKNOWN_ID) ? UNKNOWN : result;
+    }
+
     /**
      * Returns a representation in the RDF/n3 format.
      * 
@@ -381,6 +514,27 @@ public class Graph extends CopyOnWriteArraySet<Link> {
         return result;
     }
 
+    /**
+     * Returns the stored link with the same source, type and target as a
+     * given link.
+     * 
+     * @param link
+     *            The link to look up.
+     * @return The stored link or null.
+     */
+    private Link getStored(Link link) {
+        int s = this.dictionary.getId(link.getSource());
+        int p = this.dictionary.getId(link.getTypeRef());
+        int o = this.dictionary.getId(link.getTarget());
+
+        if ((s == TermDictionary.UNKNOWN_ID) || (p == TermDictionary.UNKNOWN_ID)
+                || (o == TermDictionary.UNKNOWN_ID)) {
+            return null;
+        }
+
+        return this.store.get(s, p, o);
+    }
+
     /**
      * Returns the target literal, either the one given in the targetLit
      * parameter or if it is null, the target literal of the default link.
@@ -435,6 +589,99 @@ public class Graph extends CopyOnWriteArraySet<Link> {
         return result;
     }
 
+    /**
+     * Returns a hash code consistent with {@link #equals(Object)}, links being
+     * compared by source, type and target like in {@link #contains(Object)}.
+     * 
+     * @return The hash code.
+     */
+    @Override
+    public synchronized int hashCode() {
+        int result = 0;
+
+        for (Link link : this.store.values()) {
+            result += (31 * ((31 * TermDictionary.hashCode(link.getSource())) + TermDictionary
+                    .hashCode(link.getTypeRef())))
+                    + TermDictionary.hashCode(link.getTarget());
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns an iterator over a snapshot of the links, in insertion order.
+     * Removing links via the iterator removes them from the graph.
+     * 
+     * @return An iterator over a snapshot of the links.
+     */
+    @Override
+    public Iterator<Link> iterator() {
+        final Iterator<Link> snapshot;
+
+        synchronized (this) {
+            snapshot = this.store.values().iterator();
+        }
+
+        return new Iterator<Link>() {
+            private Link current;
+
+            public boolean hasNext() {
+                return snapshot.hasNext();
+            }
+
+            public Link next() {
+                this.current = snapshot.next();
+                return this.current;
+            }
+
+            public void remove() {
+                if (this.current == null) {
+                    throw new IllegalStateException();
+                }
+
+                Graph.this.remove(this.current);
+                this.current = null;
+            }
+        };
+    }
+
+    /**
+     * Reads the links of a serialized graph.
+     * 
+     * @param in
+     *            The object input stream.
+     * @throws IOException
+     * @throws ClassNotFoundException
+     */
+    private void readObject(ObjectInputStream in) throws IOException,
+            ClassNotFoundException {
+        in.defaultReadObject();
+        this.dictionary = new TermDictionary();
+        this.store = new TripleStore<Link>();
+        int size = in.readInt();
+        this.store.ensureCapacity(size);
+
+        for (int i = 0; i < size; i++) {
+            add((Link) in.readObject());
+        }
+    }
+
+    @Override
+    public synchronized boolean remove(Object object) {
+        if (!(object instanceof Link)) {
+            return false;
+        }
+
+        Link link = (Link) object;
+        int s = this.dictionary.getId(link.getSource());
+        int p = this.dictionary.getId(link.getTypeRef());
+        int o = this.dictionary.getId(link.getTarget());
+        return (s != TermDictionary.UNKNOWN_ID)
+                && (p != TermDictionary.UNKNOWN_ID)
+                && (o != TermDictionary.UNKNOWN_ID)
+                && (this.store.remove(s, p, o) != null);
+    }
+
     /**
      * Sets the default link that is used to complete new links.
      * 
@@ -445,4 +692,27 @@ public class Graph extends CopyOnWriteArraySet<Link> {
         this.defaultLink = defaultLink;
     }
 
+    @Override
+    public synchronized int size() {
+        return this.store.size();
+    }
+
+    /**
+     * Writes the links of the graph.
+     * 
+     * @param out
+     *            The object output stream.
+     * @throws IOException
+     */
+    private synchronized void writeObject(ObjectOutputStream out)
+            throws IOException {
+        out.defaultWriteObject();
+        List<Link> links = this.store.values();
+        out.writeInt(links.size());
+
+        for (Link link : links) {
+            out.writeObject(link);
+        }
+    }
+
 }
@@ -101,6 +101,23 @@ public class RdfRepresentation extends WriterRepresentation {
         this.rdfRepresentation = rdfRepresentation;
     }
 
+    /**
+     * Constructor that transcodes a given RDF representation into another RDF
+     * media type. Unless the graph is explicitly requested, the links are
+     * streamed from the parser to the writer, so the memory used doesn't
+     * depend on the size of the RDF representation.
+     * 
+     * @param rdfRepresentation
+     *            The RDF representation to transcode.
+     * @param mediaType
+     *            The target RDF media type.
+     */
+    public RdfRepresentation(Representation rdfRepresentation,
+            MediaType mediaType) {
+        super(mediaType);
+        this.rdfRepresentation = rdfRepresentation;
+    }
+
     /**
      * Returns an instance of a graph handler used when parsing the inner RDF
      * representation.
@@ -111,7 +128,7 @@ public class RdfRepresentation extends WriterRepresentation {
      *         representation.
      */
     public GraphHandler createBuilder(Graph graph) {
-        return new GraphBuilder(this.graph);
+        return new GraphBuilder(graph);
     }
 
     /**
@@ -128,17 +145,17 @@ public class RdfRepresentation extends WriterRepresentation {
      */
     public GraphHandler createWriter(MediaType mediaType, Writer writer)
             throws IOException {
-        if (MediaType.TEXT_RDF_N3.equals(getMediaType())) {
+        if (MediaType.TEXT_RDF_N3.equals(mediaType)) {
             return new RdfN3Writer(writer);
-        } else if (MediaType.TEXT_XML.equals(getMediaType())) {
+        } else if (MediaType.TEXT_XML.equals(mediaType)) {
             return new RdfXmlWriter(writer);
-        } else if (MediaType.APPLICATION_ALL_XML.includes(getMediaType())) {
+        } else if (MediaType.APPLICATION_ALL_XML.includes(mediaType)) {
             return new RdfXmlWriter(writer);
-        } else if (MediaType.TEXT_PLAIN.equals(getMediaType())) {
+        } else if (MediaType.TEXT_PLAIN.equals(mediaType)) {
             return new RdfNTriplesWriter(writer);
-        } else if (MediaType.TEXT_RDF_NTRIPLES.equals(getMediaType())) {
+        } else if (MediaType.TEXT_RDF_NTRIPLES.equals(mediaType)) {
             return new RdfNTriplesWriter(writer);
-        } else if (MediaType.TEXT_TURTLE.equals(getMediaType())) {
+        } else if (MediaType.TEXT_TURTLE.equals(mediaType)) {
             return new RdfTurtleWriter(writer);
         }
 
@@ -217,7 +234,8 @@ public class RdfRepresentation extends WriterRepresentation {
 
     /**
      * Parses the inner RDF representation. The given graph handler is invoked
-     * each time a link is detected.
+     * each time a link is detected, so links can be processed as they are
+     * read, without building a graph.
      * 
      * @param graphHandler
      *            The graph handler.
@@ -262,9 +280,12 @@ public class RdfRepresentation extends WriterRepresentation {
     }
 
     /**
-     * Writes the
+     * Writes the links to a graph handler. If no graph was set or parsed, the
+     * links of the inner RDF representation are streamed to the graph handler
+     * as they are parsed, without building a graph.
      * 
      * @param graphHandler
+     *            The graph handler, either a writer or a user callback.
      * @throws IOException
      */
     public void write(GraphHandler graphHandler) throws IOException {
@@ -313,6 +334,10 @@ public class RdfRepresentation extends WriterRepresentation {
                     }
                 }
 
+                graphHandler.endGraph();
+            } else if (rdfRepresentation != null) {
+                graphHandler.startGraph();
+                parse(graphHandler);
                 graphHandler.endGraph();
             }
         } catch (Exception e) {
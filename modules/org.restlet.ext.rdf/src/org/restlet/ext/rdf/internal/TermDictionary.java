@@ -0,0 +1,209 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or or EPL 1.0 (the "Licenses"). You can
+ * select the license that you prefer but you may not use this file except in
+ * compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.ext.rdf.internal;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.restlet.data.Reference;
+import org.restlet.ext.rdf.Literal;
+
+/**
+ * Dictionary encoding the terms of a graph as integer identifiers. References
+ * and literals are identified by value, other terms such as graphs and links
+ * are identified by identity. The null term always has the identifier 0.<br>
+ * <br>
+ * Note that identifiers aren't reclaimed until the dictionary is cleared, so
+ * the terms of the links removed from a graph are kept, even after its triple
+ * store is compacted. This class isn't thread-safe.
+ * 
+ * @author Jerome Louvel
+ */
+public class TermDictionary {
+
+    /** The identifier of the null term. */
+    public static final int NULL_ID = 0;
+
+    /** The identifier returned for unknown terms. */
+    public static final int UNKNOWN_ID = -1;
+
+    /**
+     * Returns the key identifying a term by value, or null if the term is
+     * identified by identity.
+     * 
+     * @param term
+     *            The term.
+     * @return The value key or null.
+     */
+    private static String getValueKey(Object term) {
+        String result = null;
+
+        if (term instanceof Reference) {
+            result = "R" + term.toString();
+        } else if (term instanceof Literal) {
+            Literal literal = (Literal) term;
+            StringBuilder sb = new StringBuilder("L");
+            sb.append(literal.getValue()).append('\u0000');
+
+            if (literal.getLanguage() != null) {
+                sb.append(literal.getLanguage().getName());
+            }
+
+            sb.append('\u0000');
+
+            if (literal.getDatatypeRef() != null) {
+                sb.append(literal.getDatatypeRef().toString());
+            }
+
+            result = sb.toString();
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns a hash code consistent with the identification of terms, by
+     * value for references and literals and by identity otherwise.
+     * 
+     * @param term
+     *            The term.
+     * @return The hash code.
+     */
+    public static int hashCode(Object term) {
+        if (term == null) {
+            return 0;
+        }
+
+        String key = getValueKey(term);
+        return (key == null) ? System.identityHashCode(term) : key.hashCode();
+    }
+
+    /** The identifiers of the terms identified by identity. */
+    private final Map<Object, Integer> identityIds;
+
+    /** The number of identifiers allocated, including the null term. */
+    private int size;
+
+    /** The terms, indexed by identifier. */
+    private Object[] terms;
+
+    /** The identifiers of the terms identified by value. */
+    private final Map<String, Integer> valueIds;
+
+    /**
+     * Constructor.
+     */
+    public TermDictionary() {
+        this.identityIds = new IdentityHashMap<Object, Integer>();
+        this.valueIds = new HashMap<String, Integer>();
+        this.terms = new Object[64];
+        this.size = 1;
+    }
+
+    /**
+     * Removes all the terms.
+     */
+    public void clear() {
+        this.identityIds.clear();
+        this.valueIds.clear();
+        Arrays.fill(this.terms, null);
+        this.size = 1;
+    }
+
+    /**
+     * Returns the identifier of a term.
+     * 
+     * @param term
+     *            The term.
+     * @return The identifier or {@link #UNKNOWN_ID} if the term is unknown.
+     */
+    public int getId(Object term) {
+        if (term == null) {
+            return NULL_ID;
+        }
+
+        String key = getValueKey(term);
+        Integer result = (key == null) ? this.identityIds.get(term)
+                : this.valueIds.get(key);
+        return (result == null) ? UNKNOWN_ID : result.intValue();
+    }
+
+    /**
+     * Returns the term of an identifier.
+     * 
+     * @param id
+     *            The identifier.
+     * @return The term.
+     */
+    public Object getTerm(int id) {
+        return this.terms[id];
+    }
+
+    /**
+     * Returns the identifier of a term, allocating one if the term is unknown.
+     * 
+     * @param term
+     *            The term.
+     * @return The identifier.
+     */
+    public int intern(Object term) {
+        if (term == null) {
+            return NULL_ID;
+        }
+
+        String key = getValueKey(term);
+        Integer result = (key == null) ? this.identityIds.get(term)
+                : this.valueIds.get(key);
+
+        if (result == null) {
+            if (this.size == this.terms.length) {
+                this.terms = Arrays.copyOf(this.terms, this.size * 2);
+            }
+
+            result = Integer.valueOf(this.size);
+            this.terms[this.size++] = term;
+
+            if (key == null) {
+                this.identityIds.put(term, result);
+            } else {
+                this.valueIds.put(key, result);
+            }
+        }
+
+        return result.intValue();
+    }
+
+    /**
+     * Returns the number of identifiers allocated, including the null term.
+     * 
+     * @return The number of identifiers allocated.
+     */
+    public int size() {
+        return this.size;
+    }
+
+}
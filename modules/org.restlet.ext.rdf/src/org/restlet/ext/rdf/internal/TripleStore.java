@@ -0,0 +1,590 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or or EPL 1.0 (the "Licenses"). You can
+ * select the license that you prefer but you may not use this file except in
+ * compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.ext.rdf.internal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Store of triples of term identifiers, each triple being associated to a
+ * value. Triples are kept in insertion order in parallel arrays of primitive
+ * integers and are unique, which is checked via an open addressing hash table.
+ * Pattern lookups rely on three sorted indexes, respectively in the
+ * subject-predicate-object, predicate-object-subject and
+ * object-subject-predicate orders. These indexes are lazily built on the first
+ * lookup following a modification, so that loading a large number of triples
+ * has a linear cost.<br>
+ * <br>
+ * This class isn't thread-safe.
+ * 
+ * @author Jerome Louvel
+ * @param <V>
+ *            The type of values associated to the triples.
+ */
+public class TripleStore<V> {
+
+    /** The subject-predicate-object order. */
+    private static final int SPO = 0;
+
+    /** The predicate-object-subject order. */
+    private static final int POS = 1;
+
+    /** The object-subject-predicate order. */
+    private static final int OSP = 2;
+
+    /** The identifier matching any term in lookups. */
+    public static final int WILDCARD = -1;
+
+    /** The marker of removed entries in the hash table. */
+    private static final int REMOVED = -1;
+
+    /**
+     * Returns the hash of a triple.
+     * 
+     * @param s
+     *            The subject identifier.
+     * @param p
+     *            The predicate identifier.
+     * @param o
+     *            The object identifier.
+     * @return The hash of the triple.
+     */
+    private static int hash(int s, int p, int o) {
+        int h = ((s * 31) + p) * 31 + o;
+        return h ^ (h >>> 16);
+    }
+
+    /** The number of slots used, including the removed ones. */
+    private int count;
+
+    /** The sorted indexes of slots, null when they need to be rebuilt. */
+    private final int[][] indexes;
+
+    /** The object identifiers, indexed by slot. */
+    private int[] objects;
+
+    /** The predicate identifiers, indexed by slot. */
+    private int[] predicates;
+
+    /** The number of live triples. */
+    private int size;
+
+    /** The subject identifiers, indexed by slot. */
+    private int[] subjects;
+
+    /**
+     * The hash table of slots plus one, 0 marking free entries and
+     * {@link #REMOVED} the removed ones.
+     */
+    private int[] table;
+
+    /** The number of used entries in the hash table, including removed ones. */
+    private int tableUsed;
+
+    /** The values, indexed by slot, null for removed triples. */
+    private Object[] values;
+
+    /**
+     * Constructor.
+     */
+    public TripleStore() {
+        this.indexes = new int[3][];
+        clear();
+    }
+
+    /**
+     * Adds a triple if it isn't already present.
+     * 
+     * @param s
+     *            The subject identifier.
+     * @param p
+     *            The predicate identifier.
+     * @param o
+     *            The object identifier.
+     * @param value
+     *            The value associated to the triple.
+     * @return True if the triple was added.
+     */
+    public boolean add(int s, int p, int o, V value) {
+        if (find(s, p, o) != -1) {
+            return false;
+        }
+
+        ensureCapacity(this.size + 1);
+        int slot = this.count++;
+        this.subjects[slot] = s;
+        this.predicates[slot] = p;
+        this.objects[slot] = o;
+        this.values[slot] = value;
+        this.size++;
+        insert(slot);
+        invalidate();
+        return true;
+    }
+
+    /**
+     * Removes all the triples.
+     */
+    public void clear() {
+        this.count = 0;
+        this.size = 0;
+        this.subjects = new int[16];
+        this.predicates = new int[16];
+        this.objects = new int[16];
+        this.values = new Object[16];
+        this.table = new int[32];
+        this.tableUsed = 0;
+        invalidate();
+    }
+
+    /**
+     * Compares two slots in a given order.
+     * 
+     * @param order
+     *            The index order.
+     * @param slot1
+     *            The first slot.
+     * @param slot2
+     *            The second slot.
+     * @return The comparison result.
+     */
+    private int compare(int order, int slot1, int slot2) {
+        for (int level = 0; level < 3; level++) {
+            int id1 = getId(order, level, slot1);
+            int id2 = getId(order, level, slot2);
+
+            if (id1 != id2) {
+                return (id1 < id2) ? -1 : 1;
+            }
+        }
+
+        return 0;
+    }
+
+    /**
+     * Removes the removed slots, keeping the insertion order.
+     */
+    private void compact() {
+        int j = 0;
+
+        for (int i = 0; i < this.count; i++) {
+            if (this.values[i] != null) {
+                this.subjects[j] = this.subjects[i];
+                this.predicates[j] = this.predicates[i];
+                this.objects[j] = this.objects[i];
+                this.values[j++] = this.values[i];
+            }
+        }
+
+        Arrays.fill(this.values, j, this.count, null);
+        this.count = j;
+        rehash(this.table.length);
+
+        // The sorted indexes refer to the former slots
+        invalidate();
+    }
+
+    /**
+     * Ensures that a given number of triples can be stored without growing the
+     * internal arrays.
+     * 
+     * @param capacity
+     *            The number of triples.
+     */
+    public void ensureCapacity(int capacity) {
+        if (this.count + (capacity - this.size) > this.subjects.length) {
+            if (this.count > this.size) {
+                compact();
+            }
+
+            if (capacity > this.subjects.length) {
+                int length = Math.max(capacity, this.subjects.length * 2);
+                this.subjects = Arrays.copyOf(this.subjects, length);
+                this.predicates = Arrays.copyOf(this.predicates, length);
+                this.objects = Arrays.copyOf(this.objects, length);
+                this.values = Arrays.copyOf(this.values, length);
+            }
+        }
+
+        if ((this.tableUsed + (capacity - this.size)) * 2 > this.table.length) {
+            int length = this.table.length;
+
+            while (capacity * 2 > length) {
+                length *= 2;
+            }
+
+            // Also purges the removed entries
+            rehash(length);
+        }
+    }
+
+    /**
+     * Returns the slot of a triple.
+     * 
+     * @param s
+     *            The subject identifier.
+     * @param p
+     *            The predicate identifier.
+     * @param o
+     *            The object identifier.
+     * @return The slot or -1 if the triple isn't present.
+     */
+    private int find(int s, int p, int o) {
+        int mask = this.table.length - 1;
+
+        for (int i = hash(s, p, o) & mask;; i = (i + 1) & mask) {
+            int entry = this.table[i];
+
+            if (entry == 0) {
+                return -1;
+            } else if (entry != REMOVED) {
+                int slot = entry - 1;
+
+                if ((this.subjects[slot] == s) && (this.predicates[slot] == p)
+                        && (this.objects[slot] == o)) {
+                    return slot;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the value of a triple.
+     * 
+     * @param s
+     *            The subject identifier.
+     * @param p
+     *            The predicate identifier.
+     * @param o
+     *            The object identifier.
+     * @return The value or null if the triple isn't present.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int s, int p, int o) {
+        int slot = find(s, p, o);
+        return (slot == -1) ? null : (V) this.values[slot];
+    }
+
+    /**
+     * Returns the identifier at a given level of an index order.
+     * 
+     * @param order
+     *            The index order.
+     * @param level
+     *            The level, from 0 to 2.
+     * @param slot
+     *            The slot.
+     * @return The identifier.
+     */
+    private int getId(int order, int level, int slot) {
+        switch ((order + level) % 3) {
+        case 0:
+            return this.subjects[slot];
+        case 1:
+            return this.predicates[slot];
+        default:
+            return this.objects[slot];
+        }
+    }
+
+    /**
+     * Returns the sorted index of a given order, building it if needed.
+     * 
+     * @param order
+     *            The index order.
+     * @return The sorted index of slots.
+     */
+    private int[] getIndex(int order) {
+        int[] result = this.indexes[order];
+
+        if (result == null) {
+            result = new int[this.size];
+            int j = 0;
+
+            for (int i = 0; i < this.count; i++) {
+                if (this.values[i] != null) {
+                    result[j++] = i;
+                }
+            }
+
+            sort(order, result, new int[result.length], 0, result.length);
+            this.indexes[order] = result;
+        }
+
+        return result;
+    }
+
+    /**
+     * Inserts a slot in the hash table.
+     * 
+     * @param slot
+     *            The slot.
+     */
+    private void insert(int slot) {
+        int mask = this.table.length - 1;
+        int i = hash(this.subjects[slot], this.predicates[slot],
+                this.objects[slot])
+                & mask;
+
+        while (this.table[i] != 0) {
+            i = (i + 1) & mask;
+        }
+
+        this.table[i] = slot + 1;
+        this.tableUsed++;
+    }
+
+    /**
+     * Invalidates the sorted indexes.
+     */
+    private void invalidate() {
+        Arrays.fill(this.indexes, null);
+    }
+
+    /**
+     * Returns the values of the triples matching a pattern, in insertion
+     * order.
+     * 
+     * @param s
+     *            The subject identifier or {@link #WILDCARD}.
+     * @param p
+     *            The predicate identifier or {@link #WILDCARD}.
+     * @param o
+     *            The object identifier or {@link #WILDCARD}.
+     * @return The matching values.
+     */
+    public List<V> lookup(int s, int p, int o) {
+        int order;
+        int first;
+        int second;
+
+        if ((s != WILDCARD) && (p != WILDCARD) && (o != WILDCARD)) {
+            V value = get(s, p, o);
+            return (value == null) ? Collections.<V> emptyList()
+                    : Collections.singletonList(value);
+        } else if (s != WILDCARD) {
+            order = (p == WILDCARD) && (o != WILDCARD) ? OSP : SPO;
+            first = (order == OSP) ? o : s;
+            second = (order == OSP) ? s : p;
+        } else if (p != WILDCARD) {
+            order = POS;
+            first = p;
+            second = o;
+        } else if (o != WILDCARD) {
+            order = OSP;
+            first = o;
+            second = WILDCARD;
+        } else {
+            return values();
+        }
+
+        int[] index = getIndex(order);
+
+        // Find the first matching position
+        int low = 0;
+        int high = index.length;
+
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int slot = index[middle];
+            int id = getId(order, 0, slot);
+
+            if ((id < first)
+                    || ((id == first) && (second != WILDCARD) && (getId(
+                            order, 1, slot) < second))) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        // Collect the matching slots
+        int[] slots = new int[8];
+        int found = 0;
+
+        for (int i = low; i < index.length; i++) {
+            int slot = index[i];
+
+            if ((getId(order, 0, slot) != first)
+                    || ((second != WILDCARD) && (getId(order, 1, slot) != second))) {
+                break;
+            }
+
+            if (found == slots.length) {
+                slots = Arrays.copyOf(slots, found * 2);
+            }
+
+            slots[found++] = slot;
+        }
+
+        // Restore the insertion order
+        Arrays.sort(slots, 0, found);
+        List<V> result = new ArrayList<V>(found);
+
+        for (int i = 0; i < found; i++) {
+            result.add(this.<V> valueAt(slots[i]));
+        }
+
+        return result;
+    }
+
+    /**
+     * Rebuilds the hash table.
+     * 
+     * @param length
+     *            The new length of the hash table, a power of two.
+     */
+    private void rehash(int length) {
+        this.table = new int[length];
+        this.tableUsed = 0;
+
+        for (int i = 0; i < this.count; i++) {
+            if (this.values[i] != null) {
+                insert(i);
+            }
+        }
+    }
+
+    /**
+     * Removes a triple.
+     * 
+     * @param s
+     *            The subject identifier.
+     * @param p
+     *            The predicate identifier.
+     * @param o
+     *            The object identifier.
+     * @return The value of the removed triple or null if it wasn't present.
+     */
+    public V remove(int s, int p, int o) {
+        int mask = this.table.length - 1;
+
+        for (int i = hash(s, p, o) & mask;; i = (i + 1) & mask) {
+            int entry = this.table[i];
+
+            if (entry == 0) {
+                return null;
+            } else if (entry != REMOVED) {
+                int slot = entry - 1;
+
+                if ((this.subjects[slot] == s) && (this.predicates[slot] == p)
+                        && (this.objects[slot] == o)) {
+                    V result = valueAt(slot);
+                    this.table[i] = REMOVED;
+                    this.values[slot] = null;
+                    this.size--;
+                    invalidate();
+
+                    if (this.count > (this.size * 2) + 16) {
+                        compact();
+                    }
+
+                    return result;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of triples.
+     * 
+     * @return The number of triples.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Sorts a range of slots in a given order, using a stable merge sort.
+     * 
+     * @param order
+     *            The index order.
+     * @param slots
+     *            The slots to sort.
+     * @param buffer
+     *            The work buffer, at least as long as the slots.
+     * @param from
+     *            The start of the range, inclusive.
+     * @param to
+     *            The end of the range, exclusive.
+     */
+    private void sort(int order, int[] slots, int[] buffer, int from, int to) {
+        if (to - from < 2) {
+            return;
+        }
+
+        int middle = (from + to) >>> 1;
+        sort(order, slots, buffer, from, middle);
+        sort(order, slots, buffer, middle, to);
+
+        if (compare(order, slots[middle - 1], slots[middle]) <= 0) {
+            // Already in order
+            return;
+        }
+
+        System.arraycopy(slots, from, buffer, from, to - from);
+
+        for (int i = from, l = from, r = middle; i < to; i++) {
+            if ((r >= to)
+                    || ((l < middle) && (compare(order, buffer[l], buffer[r]) <= 0))) {
+                slots[i] = buffer[l++];
+            } else {
+                slots[i] = buffer[r++];
+            }
+        }
+    }
+
+    /**
+     * Returns the value of a slot.
+     * 
+     * @param slot
+     *            The slot.
+     * @return The value.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T valueAt(int slot) {
+        return (T) this.values[slot];
+    }
+
+    /**
+     * Returns the values of all the triples, in insertion order.
+     * 
+     * @return The values of all the triples.
+     */
+    public List<V> values() {
+        List<V> result = new ArrayList<V>(this.size);
+
+        for (int i = 0; i < this.count; i++) {
+            if (this.values[i] != null) {
+                result.add(this.<V> valueAt(i));
+            }
+        }
+
+        return result;
+    }
+
+}
@@ -24,9 +24,10 @@
 
 package org.restlet.ext.rdf.internal.ntriples;
 
-import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.Reader;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.restlet.data.Reference;
@@ -38,24 +39,32 @@ import org.restlet.ext.rdf.internal.RdfReader;
 import org.restlet.representation.Representation;
 
 /**
- * Handler of RDF content according to the N-Triples notation.
+ * Handler of RDF content according to the N-Triples notation. The source is
+ * read by blocks into a growable buffer, which keeps the current token. The
+ * Turtle and N3 readers share this buffered lexing as subclasses.
  * 
  * @author Thierry Boileau
  */
 public class RdfNTriplesReader extends RdfReader {
 
-    /** Internal buffered reader. */
-    private BufferedReader br;
+    /** The number of characters that can always be stepped back. */
+    private static final int MAX_STEP_BACK = 8;
 
-    /** The reading buffer. */
-    private final char[] buffer;
+    /** The reading buffer, only growing for tokens longer than its size. */
+    private char[] buffer;
 
-    /** Size of the reading buffer. */
-    private final int BUFFER_SIZE = 4096;
+    /** Indicates if the end of the stream was reached. */
+    private boolean endReached;
 
     /** End of reading buffer marker. */
     public final int EOF = 0;
 
+    /** The number of characters available in the reading buffer. */
+    private int limit;
+
+    /** The character stream to read. */
+    private final Reader reader;
+
     /**
      * Index that discovers the end of the current token and the beginning of
      * the futur one.
@@ -77,16 +86,12 @@ public class RdfNTriplesReader extends RdfReader {
     public RdfNTriplesReader(Representation rdfRepresentation,
             GraphHandler graphHandler) throws IOException {
         super(rdfRepresentation, graphHandler);
-
-        // Initialize the buffer in two parts
-        this.buffer = new char[(BUFFER_SIZE + 1) * 2];
-        // Mark the upper index of each part.
-        this.buffer[BUFFER_SIZE] = this.buffer[2 * BUFFER_SIZE + 1] = EOF;
-        this.scoutIndex = 2 * BUFFER_SIZE;
+        this.buffer = new char[IoUtils.BUFFER_SIZE];
+        this.endReached = false;
+        this.limit = 0;
+        this.reader = getRdfRepresentation().getReader();
+        this.scoutIndex = -1;
         this.startTokenIndex = 0;
-
-        this.br = new BufferedReader(getRdfRepresentation().getReader(),
-                IoUtils.BUFFER_SIZE);
     }
 
     /**
@@ -128,13 +133,49 @@ public class RdfNTriplesReader extends RdfReader {
         startTokenIndex = scoutIndex;
     }
 
+    /**
+     * Reads the next block of characters into the reading buffer.
+     * 
+     * @throws IOException
+     */
+    private void fill() throws IOException {
+        // Keep the current token and a few characters to step back
+        int keep = Math.max(0, Math.min(this.startTokenIndex, this.scoutIndex
+                - MAX_STEP_BACK));
+
+        if (keep > 0) {
+            System.arraycopy(this.buffer, keep, this.buffer, 0, this.limit
+                    - keep);
+            this.limit -= keep;
+            this.scoutIndex -= keep;
+            this.startTokenIndex -= keep;
+        }
+
+        if (this.limit == this.buffer.length) {
+            this.buffer = Arrays.copyOf(this.buffer, this.buffer.length * 2);
+        }
+
+        int len = (this.reader == null) ? -1 : this.reader.read(this.buffer,
+                this.limit, this.buffer.length - this.limit);
+
+        if (len == -1) {
+            this.endReached = true;
+        } else {
+            this.limit += len;
+        }
+    }
+
     /**
      * Returns the current parsed character.
      * 
      * @return The current parsed character.
      */
     protected char getChar() {
-        return buffer[scoutIndex];
+        if ((this.scoutIndex < 0) || (this.scoutIndex >= this.limit)) {
+            return (char) EOF;
+        }
+
+        return this.buffer[this.scoutIndex];
     }
 
     /**
@@ -143,43 +184,12 @@ public class RdfNTriplesReader extends RdfReader {
      * @return The current token.
      */
     protected String getCurrentToken() {
-        StringBuilder builder = new StringBuilder();
-        if (startTokenIndex <= scoutIndex) {
-            if (scoutIndex <= BUFFER_SIZE) {
-                for (int i = startTokenIndex; i < scoutIndex; i++) {
-                    builder.append(buffer[i]);
-                }
-            } else {
-                for (int i = startTokenIndex; i < BUFFER_SIZE; i++) {
-                    builder.append(buffer[i]);
-                }
-                for (int i = BUFFER_SIZE + 1; i < scoutIndex; i++) {
-                    builder.append(buffer[i]);
-                }
-            }
-        } else {
-            if (startTokenIndex <= BUFFER_SIZE) {
-                for (int i = startTokenIndex; i < BUFFER_SIZE; i++) {
-                    builder.append(buffer[i]);
-                }
-                for (int i = BUFFER_SIZE + 1; i < (2 * BUFFER_SIZE + 1); i++) {
-                    builder.append(buffer[i]);
-                }
-                for (int i = 0; i < scoutIndex; i++) {
-                    builder.append(buffer[i]);
-                }
-            } else {
-                for (int i = startTokenIndex; i < (2 * BUFFER_SIZE + 1); i++) {
-                    builder.append(buffer[i]);
-                }
-                for (int i = 0; i < scoutIndex; i++) {
-                    builder.append(buffer[i]);
-                }
-            }
-        }
+        String result = (this.startTokenIndex < this.scoutIndex) ? new String(
+                this.buffer, this.startTokenIndex, this.scoutIndex
+                        - this.startTokenIndex) : "";
         // the current token is consumed.
-        startTokenIndex = scoutIndex;
-        return builder.toString();
+        this.startTokenIndex = this.scoutIndex;
+        return result;
     }
 
     /**
@@ -192,15 +202,15 @@ public class RdfNTriplesReader extends RdfReader {
     }
 
     /**
-     * Returns a message describing the current state of the parsing process.
+     * Returns the message used to report parsing errors.
      * 
      * @param buffer
-     *            The current buffer.
+     *            The reading buffer.
      * @param startTokenIndex
-     *            The start index of parsing.
+     *            The start index of the current token.
      * @param scoutIndex
-     *            The index of the probable future token.
-     * @return
+     *            The index of the current character.
+     * @return The message.
      */
     protected String getParsingMessage(char[] buffer, int startTokenIndex,
             int scoutIndex) {
@@ -209,19 +219,14 @@ public class RdfNTriplesReader extends RdfReader {
         sb.append(",");
         sb.append(scoutIndex);
         sb.append("] near ");
+        int from = Math.max(0, startTokenIndex - 25);
+        int to = Math.min(Math.min(this.limit, buffer.length), from + 50);
 
-        if (startTokenIndex < 25) {
-            sb.append(buffer, buffer.length - 30, 28);
-            sb.append(buffer, 0, 25);
-        } else if (startTokenIndex > (buffer.length - 25)) {
-            sb.append(buffer, buffer.length - 30, 28);
-            sb.append(buffer, 0, 20);
-        } else {
-            sb.append(buffer, startTokenIndex - 25, 50);
+        if (from < to) {
+            sb.append(buffer, from, to - from);
         }
 
         return sb.toString();
-
     }
 
     /**
@@ -398,42 +403,26 @@ public class RdfNTriplesReader extends RdfReader {
     }
 
     /**
-     * Read a new character.
+     * Read a new character. The reading buffer is refilled from the character
+     * stream in blocks, keeping the current token and the last few characters
+     * so that the parsing can step back.
      * 
      * @return The new read character.
      * @throws IOException
      */
     protected int step() throws IOException {
-        scoutIndex++;
-        if (buffer[scoutIndex] == EOF) {
-            if (scoutIndex == BUFFER_SIZE) {
-                // Reached the end of the first part of the buffer, read into
-                // the second one.
-                scoutIndex++;
-                int len = this.br.read(buffer, 0, BUFFER_SIZE);
-                if (len == -1) {
-                    // End of the stream reached
-                    buffer[scoutIndex] = EOF;
-                } else {
-                    buffer[BUFFER_SIZE + len + 1] = EOF;
-                }
-            } else if (scoutIndex == (2 * BUFFER_SIZE + 1)) {
-                scoutIndex = 0;
-                // Reached the end of the second part of the buffer, read into
-                // the first one.
-                int len = this.br.read(buffer, 0, BUFFER_SIZE);
-                if (len == -1) {
-                    // End of the stream reached
-                    buffer[scoutIndex] = EOF;
-                } else {
-                    buffer[len] = EOF;
-                }
-            } else {
-                // Reached the end of the stream.
-            }
+        this.scoutIndex++;
+
+        while ((this.scoutIndex >= this.limit) && !this.endReached) {
+            fill();
         }
 
-        return buffer[scoutIndex];
+        if (this.scoutIndex > this.limit) {
+            // Stay on the end of the stream.
+            this.scoutIndex = this.limit;
+        }
+
+        return getChar();
     }
 
     /**
@@ -464,10 +453,7 @@ public class RdfNTriplesReader extends RdfReader {
      *            The number of steps to go back.
      */
     protected void stepBack(int n) {
-        scoutIndex -= n;
-        if (scoutIndex < 0) {
-            scoutIndex = BUFFER_SIZE * 2 + 1 - scoutIndex;
-        }
+        this.scoutIndex = Math.max(0, this.scoutIndex - n);
     }
 
 }
@@ -69,6 +69,7 @@ public class RdfXmlReader extends RdfReader {
                     .getLocationRef());
         }
 
+        saxRepresentation.setNamespaceAware(true);
         saxRepresentation.parse(new ContentReader(saxRepresentation,
                 getGraphHandler()));
     }
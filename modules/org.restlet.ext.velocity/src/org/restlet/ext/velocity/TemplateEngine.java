@@ -0,0 +1,262 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or or EPL 1.0 (the "Licenses"). You can
+ * select the license that you prefer but you may not use this file except in
+ * compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.ext.velocity;
+
+import java.util.Date;
+
+import org.apache.velocity.Template;
+import org.apache.velocity.exception.ParseErrorException;
+import org.apache.velocity.exception.ResourceNotFoundException;
+import org.apache.velocity.runtime.RuntimeInstance;
+import org.apache.velocity.runtime.RuntimeSingleton;
+import org.restlet.Application;
+import org.restlet.Context;
+import org.restlet.data.CharacterSet;
+import org.restlet.data.Reference;
+import org.restlet.engine.util.RepresentationCache;
+import org.restlet.representation.Representation;
+
+/**
+ * Velocity template engine shared by an application. It holds a Velocity
+ * runtime and a cache of the templates compiled from representations. Parsing a template is much more expensive than merging it,
+ * and the resulting Velocity templates can be merged concurrently.<br>
+ * <br>
+ * Template representations are identified by their location reference, so
+ * representations without location reference aren't cached. A cached template
+ * is only reused if the tag and the modification date of the template
+ * representation are unchanged, otherwise the template is parsed again.
+ * Representations that have neither a tag nor a modification date are parsed
+ * each time as their changes can't be detected.<br>
+ * <br>
+ * Templates compiled from representations and templates loaded by name are
+ * both handled by the Velocity runtime of the engine, so its configuration
+ * applies to both. Templates loaded by name rely on the resource loaders and
+ * cache settings of the runtime itself.<br>
+ * <br>
+ * By default, the engine relies on the Velocity singleton runtime, so the
+ * configuration set via the {@link org.apache.velocity.app.Velocity} class
+ * applies. Another runtime can be given to the constructor, for example to
+ * isolate the configuration of an application, and the resulting engine set
+ * in the attributes of the application's context under the
+ * {@link #ATTRIBUTE_NAME} name.
+ * 
+ * @author Jerome Louvel
+ */
+public class TemplateEngine {
+
+    /** The name of the context attribute holding the application engine. */
+    public static final String ATTRIBUTE_NAME = TemplateEngine.class.getName();
+
+    /** The maximum number of cached templates. */
+    public static final int MAX_ENTRIES = 256;
+
+    /** The engine used outside of any application. */
+    private static final TemplateEngine defaultEngine = new TemplateEngine();
+
+    /**
+     * Returns the engine of the current application, creating it if needed.
+     * The engine is stored in the attributes of the application's context
+     * under the {@link #ATTRIBUTE_NAME} name, so it can also be set up-front by
+     * the application. When no application is available, a default engine
+     * shared by the JVM is returned.
+     * 
+     * @return The engine of the current application.
+     */
+    public static TemplateEngine getCurrent() {
+        Application application = Application.getCurrent();
+        Context context = (application == null) ? null : application
+                .getContext();
+
+        if (context == null) {
+            return defaultEngine;
+        }
+
+        Object result = context.getAttributes().get(ATTRIBUTE_NAME);
+
+        if (!(result instanceof TemplateEngine)) {
+            TemplateEngine engine = new TemplateEngine();
+            result = context.getAttributes().putIfAbsent(ATTRIBUTE_NAME,
+                    engine);
+
+            if (!(result instanceof TemplateEngine)) {
+                context.getAttributes().put(ATTRIBUTE_NAME, engine);
+                result = engine;
+            }
+        }
+
+        return (TemplateEngine) result;
+    }
+
+    /** The cached entries, indexed by location reference. */
+    private final RepresentationCache<String, Template> entries;
+
+    /** The Velocity runtime. */
+    private final RuntimeInstance runtime;
+
+    /**
+     * Constructor based on the Velocity singleton runtime.
+     */
+    public TemplateEngine() {
+        this(RuntimeSingleton.getRuntimeInstance());
+    }
+
+    /**
+     * Constructor. The Velocity runtime is initialized the first time a
+     * template is compiled or loaded by name, unless it already is, so it can
+     * still be configured until then.
+     * 
+     * @param runtime
+     *            The Velocity runtime.
+     */
+    public TemplateEngine(RuntimeInstance runtime) {
+        this.entries = new RepresentationCache<String, Template>(MAX_ENTRIES);
+        this.runtime = runtime;
+    }
+
+    /**
+     * Removes all the cached templates.
+     */
+    public void clear() {
+        this.entries.clear();
+    }
+
+    /**
+     * Compiles a template provided via a representation, with the Velocity
+     * runtime of this engine.
+     * 
+     * @param templateRepresentation
+     *            The template representation.
+     * @return The compiled template.
+     * @throws ResourceNotFoundException
+     * @throws ParseErrorException
+     */
+    public Template compile(Representation templateRepresentation)
+            throws ResourceNotFoundException, ParseErrorException {
+        Template result = new Template();
+        CharacterSet charSet = (templateRepresentation.getCharacterSet() != null) ? templateRepresentation
+                .getCharacterSet() : CharacterSet.DEFAULT;
+        result.setEncoding(charSet.getName());
+        result.setLastModified((templateRepresentation.getModificationDate() == null) ? new Date()
+                .getTime() : templateRepresentation.getModificationDate()
+                .getTime());
+        result.setName("org.restlet.resource.representation");
+        result.setRuntimeServices(getRuntime(true));
+        result.setResourceLoader(new RepresentationResourceLoader(
+                templateRepresentation));
+        result.process();
+        return result;
+    }
+
+    /**
+     * Returns the Velocity runtime, which might not be initialized yet.
+     * 
+     * @return The Velocity runtime.
+     */
+    public RuntimeInstance getRuntime() {
+        return getRuntime(false);
+    }
+
+    /**
+     * Returns the Velocity runtime.
+     * 
+     * @param init
+     *            Indicates if the runtime must be initialized.
+     * @return The Velocity runtime.
+     */
+    private RuntimeInstance getRuntime(boolean init) {
+        if (init && !this.runtime.isInitialized()) {
+            // Synchronized by the runtime itself
+            this.runtime.init();
+        }
+
+        return this.runtime;
+    }
+
+    /**
+     * Returns the template compiled from a representation, from the cache if
+     * possible.
+     * 
+     * @param templateRepresentation
+     *            The template representation.
+     * @return The compiled template.
+     * @throws ResourceNotFoundException
+     * @throws ParseErrorException
+     */
+    public Template getTemplate(Representation templateRepresentation)
+            throws ResourceNotFoundException, ParseErrorException {
+        if (!RepresentationCache.isCacheable(templateRepresentation)) {
+            return compile(templateRepresentation);
+        }
+
+        String key = templateRepresentation.getLocationRef().getTargetRef()
+                .toString();
+        Template result = this.entries.get(key, templateRepresentation);
+
+        if (result == null) {
+            result = compile(templateRepresentation);
+            this.entries.put(key, templateRepresentation, result);
+        } else {
+            // The content isn't needed anymore
+            templateRepresentation.release();
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns a template loaded by name by the Velocity runtime, initializing
+     * the runtime if needed.
+     * 
+     * @param templateName
+     *            The template name.
+     * @return The template.
+     * @throws ResourceNotFoundException
+     * @throws ParseErrorException
+     */
+    public Template getTemplate(String templateName)
+            throws ResourceNotFoundException, ParseErrorException {
+        return getRuntime(true).getTemplate(templateName);
+    }
+
+    /**
+     * Removes the cached template of a representation.
+     * 
+     * @param locationRef
+     *            The location reference of the template representation.
+     */
+    public void remove(Reference locationRef) {
+        this.entries.remove(locationRef.getTargetRef().toString());
+    }
+
+    /**
+     * Returns the number of cached templates.
+     * 
+     * @return The number of cached templates.
+     */
+    public int size() {
+        return this.entries.size();
+    }
+
+}
@@ -45,6 +45,9 @@ import org.restlet.util.Resolver;
  * happen, the representations must have the {@link Encoding#VELOCITY} encoding
  * set.<br>
  * <br>
+ * The templates are compiled and cached by the template engine of the current
+ * application, see {@link TemplateEngine#getCurrent()}.<br>
+ * <br>
  * Concurrency note: instances of this class or its subclasses can be invoked by
  * several threads at the same time and therefore must be thread-safe. You
  * should be especially careful when storing state in member variables.
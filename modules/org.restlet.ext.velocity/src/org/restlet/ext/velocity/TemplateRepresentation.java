@@ -26,7 +26,6 @@ package org.restlet.ext.velocity;
 
 import java.io.IOException;
 import java.io.Writer;
-import java.util.Date;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
@@ -36,11 +35,9 @@ import org.apache.velocity.VelocityContext;
 import org.apache.velocity.app.VelocityEngine;
 import org.apache.velocity.exception.ParseErrorException;
 import org.apache.velocity.exception.ResourceNotFoundException;
-import org.apache.velocity.runtime.RuntimeSingleton;
 import org.restlet.Context;
 import org.restlet.Request;
 import org.restlet.Response;
-import org.restlet.data.CharacterSet;
 import org.restlet.data.MediaType;
 import org.restlet.representation.Representation;
 import org.restlet.representation.WriterRepresentation;
@@ -145,7 +142,9 @@ public class TemplateRepresentation extends WriterRepresentation {
     private volatile String templateName;
 
     /**
-     * Constructor based on a Velocity 'encoded' representation.
+     * Constructor based on a Velocity 'encoded' representation. The template
+     * is compiled and cached by the template engine of the current
+     * application.
      * 
      * @param templateRepresentation
      *            The representation to 'decode'.
@@ -156,34 +155,19 @@ public class TemplateRepresentation extends WriterRepresentation {
      * @throws IOException
      * @throws ParseErrorException
      * @throws ResourceNotFoundException
+     * @see TemplateEngine#getCurrent()
      */
     public TemplateRepresentation(Representation templateRepresentation,
             Map<String, Object> dataModel, MediaType mediaType)
             throws ResourceNotFoundException, ParseErrorException, IOException {
-        super(mediaType);
-        setDataModel(dataModel);
-        this.engine = null;
-        this.template = new Template();
-
-        CharacterSet charSet = (templateRepresentation.getCharacterSet() != null) ? templateRepresentation
-                .getCharacterSet() : CharacterSet.DEFAULT;
-        this.template.setEncoding(charSet.getName());
-
-        if (templateRepresentation.getModificationDate() != null) {
-            this.template.setLastModified(templateRepresentation
-                    .getModificationDate().getTime());
-        }
-
-        this.template.setName("org.restlet.resource.representation");
-        this.template.setRuntimeServices(RuntimeSingleton.getRuntimeServices());
-        this.template.setResourceLoader(new RepresentationResourceLoader(
-                templateRepresentation));
-        this.template.process();
-        this.templateName = null;
+        this(TemplateEngine.getCurrent().getTemplate(templateRepresentation),
+                dataModel, mediaType);
     }
 
     /**
-     * Constructor based on a Velocity 'encoded' representation.
+     * Constructor based on a Velocity 'encoded' representation. The template
+     * is compiled and cached by the template engine of the current
+     * application.
      * 
      * @param templateRepresentation
      *            The representation to 'decode'.
@@ -192,26 +176,13 @@ public class TemplateRepresentation extends WriterRepresentation {
      * @throws IOException
      * @throws ParseErrorException
      * @throws ResourceNotFoundException
+     * @see TemplateEngine#getCurrent()
      */
     public TemplateRepresentation(Representation templateRepresentation,
             MediaType mediaType) throws ResourceNotFoundException,
             ParseErrorException, IOException {
-        super(mediaType);
-        this.engine = null;
-        this.template = new Template();
-
-        CharacterSet charSet = (templateRepresentation.getCharacterSet() != null) ? templateRepresentation
-                .getCharacterSet() : CharacterSet.DEFAULT;
-        this.template.setEncoding(charSet.getName());
-        this.template.setLastModified((templateRepresentation
-                .getModificationDate() == null) ? new Date().getTime()
-                : templateRepresentation.getModificationDate().getTime());
-        this.template.setName("org.restlet.resource.representation");
-        this.template.setRuntimeServices(RuntimeSingleton.getRuntimeServices());
-        this.template.setResourceLoader(new RepresentationResourceLoader(
-                templateRepresentation));
-        this.template.process();
-        this.templateName = null;
+        this(TemplateEngine.getCurrent().getTemplate(templateRepresentation),
+                mediaType);
     }
 
     /**
@@ -28,6 +28,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.Writer;
 
+import javax.xml.parsers.DocumentBuilder;
+
 import org.restlet.data.CharacterSet;
 import org.restlet.data.MediaType;
 import org.restlet.engine.Edition;
@@ -50,6 +52,10 @@ public class DomRepresentation extends XmlRepresentation {
     /** Indicates if the XML serialization should be indented. */
     private volatile boolean indenting;
 
+    // [ifndef android] member
+    /** The transformer checked out from the shared pool, if any. */
+    private volatile javax.xml.transform.Transformer pooledTransformer;
+
     /** The source XML representation. */
     private volatile Representation xmlRepresentation;
 
@@ -68,7 +74,13 @@ public class DomRepresentation extends XmlRepresentation {
      */
     public DomRepresentation(MediaType mediaType) throws IOException {
         super(mediaType);
-        this.document = getDocumentBuilder().newDocument();
+        DocumentBuilder builder = getDocumentBuilder();
+
+        try {
+            this.document = builder.newDocument();
+        } finally {
+            releaseDocumentBuilder(builder);
+        }
     }
 
     /**
@@ -108,8 +120,16 @@ public class DomRepresentation extends XmlRepresentation {
     protected javax.xml.transform.Transformer createTransformer()
             throws IOException {
         try {
-            javax.xml.transform.Transformer transformer = javax.xml.transform.TransformerFactory
-                    .newInstance().newTransformer();
+            javax.xml.transform.Transformer transformer = org.restlet.ext.xml.internal.TransformerPool
+                    .getInstance().checkout();
+
+            if (transformer == null) {
+                transformer = javax.xml.transform.TransformerFactory
+                        .newInstance().newTransformer();
+            } else {
+                this.pooledTransformer = transformer;
+            }
+
             transformer.setOutputProperty(
                     javax.xml.transform.OutputKeys.METHOD, "xml");
             transformer.setOutputProperty(
@@ -159,17 +179,19 @@ public class DomRepresentation extends XmlRepresentation {
     @Override
     public Document getDocument() throws IOException {
         if (this.document == null) {
-            if (this.xmlRepresentation != null) {
-                try {
-                    this.document = getDocumentBuilder()
-                            .parse(getInputSource());
-                } catch (SAXException se) {
-                    throw new IOException(
-                            "Couldn't read the XML representation. "
-                                    + se.getMessage());
+            DocumentBuilder builder = getDocumentBuilder();
+
+            try {
+                if (this.xmlRepresentation != null) {
+                    this.document = builder.parse(getInputSource());
+                } else {
+                    this.document = builder.newDocument();
                 }
-            } else {
-                this.document = getDocumentBuilder().newDocument();
+            } catch (SAXException se) {
+                throw new IOException("Couldn't read the XML representation. "
+                        + se.getMessage());
+            } finally {
+                releaseDocumentBuilder(builder);
             }
         }
 
@@ -252,6 +274,13 @@ public class DomRepresentation extends XmlRepresentation {
                 transformer.transform(new javax.xml.transform.dom.DOMSource(
                         getDocument()),
                         new javax.xml.transform.stream.StreamResult(writer));
+
+                // Only reuse the transformers obtained from the pool
+                if (transformer == this.pooledTransformer) {
+                    this.pooledTransformer = null;
+                    org.restlet.ext.xml.internal.TransformerPool.getInstance()
+                            .checkin(transformer);
+                }
             }
         } catch (javax.xml.transform.TransformerConfigurationException tce) {
             throw new IOException("Couldn't write the XML representation: "
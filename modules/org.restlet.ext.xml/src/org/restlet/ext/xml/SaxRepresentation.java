@@ -28,6 +28,7 @@ import java.io.IOException;
 import java.io.Writer;
 
 import javax.xml.XMLConstants;
+import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
 import javax.xml.transform.Result;
 import javax.xml.transform.TransformerConfigurationException;
@@ -39,6 +40,8 @@ import javax.xml.transform.sax.SAXResult;
 import javax.xml.transform.sax.SAXSource;
 
 import org.restlet.data.MediaType;
+import org.restlet.engine.util.SaxParserPool;
+import org.restlet.ext.xml.internal.TransformerPool;
 import org.restlet.representation.Representation;
 import org.w3c.dom.Document;
 import org.xml.sax.ContentHandler;
@@ -74,6 +77,12 @@ public class SaxRepresentation extends XmlRepresentation {
             .getProperty("org.restlet.ext.xml.secureProcessing") == null) ? true
             : Boolean.getBoolean("org.restlet.ext.xml.secureProcessing");
 
+    /** The pool of the SAX parser checked out, if any. */
+    private volatile SaxParserPool parserPool;
+
+    /** The SAX parser checked out from the shared pool, if any. */
+    private volatile SAXParser pooledParser;
+
     /** Limits potential XML overflow attacks. */
     private boolean secureProcessing;
 
@@ -175,28 +184,27 @@ public class SaxRepresentation extends XmlRepresentation {
                         .getSaxSource();
             } else {
                 try {
-                    SAXParserFactory spf = SAXParserFactory.newInstance();
-                    spf.setNamespaceAware(isNamespaceAware());
+                    SAXParser parser = null;
+                    javax.xml.validation.Schema xsd = getSchema();
 
-                    // Keep before the external entity preferences
-                    spf.setValidating(isValidatingDtd());
+                    if (xsd == null) {
+                        SaxParserPool pool = SaxParserPool.getInstance(
+                                isNamespaceAware(), isValidatingDtd(),
+                                isXIncludeAware(), isSecureProcessing(),
+                                isExpandingEntityRefs());
+                        parser = pool.checkout();
 
-                    javax.xml.validation.Schema xsd = getSchema();
+                        if (parser != null) {
+                            this.parserPool = pool;
+                            this.pooledParser = parser;
+                        }
+                    }
 
-                    if (xsd != null) {
-                        spf.setSchema(xsd);
+                    if (parser == null) {
+                        parser = newSaxParser(xsd);
                     }
 
-                    spf.setXIncludeAware(isXIncludeAware());
-                    spf.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING,
-                            isSecureProcessing());
-                    spf.setFeature(
-                            "http://xml.org/sax/features/external-general-entities",
-                            isExpandingEntityRefs());
-                    spf.setFeature(
-                            "http://xml.org/sax/features/external-parameter-entities",
-                            isExpandingEntityRefs());
-                    XMLReader xmlReader = spf.newSAXParser().getXMLReader();
+                    XMLReader xmlReader = parser.getXMLReader();
                     this.source = new SAXSource(xmlReader, new InputSource(
                             xmlRepresentation.getReader()));
                 } catch (Exception e) {
@@ -223,6 +231,38 @@ public class SaxRepresentation extends XmlRepresentation {
         return secureProcessing;
     }
 
+    /**
+     * Creates a new SAX parser, configured with the options of this
+     * representation.
+     * 
+     * @param xsd
+     *            The optional XML schema to validate against.
+     * @return A new SAX parser.
+     * @throws Exception
+     */
+    private SAXParser newSaxParser(javax.xml.validation.Schema xsd)
+            throws Exception {
+        SAXParserFactory spf = SAXParserFactory.newInstance();
+        spf.setNamespaceAware(isNamespaceAware());
+
+        // Keep before the external entity preferences
+        spf.setValidating(isValidatingDtd());
+
+        if (xsd != null) {
+            spf.setSchema(xsd);
+        }
+
+        spf.setXIncludeAware(isXIncludeAware());
+        spf.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING,
+                isSecureProcessing());
+        spf.setFeature("http://xml.org/sax/features/external-general-entities",
+                isExpandingEntityRefs());
+        spf.setFeature(
+                "http://xml.org/sax/features/external-parameter-entities",
+                isExpandingEntityRefs());
+        return spf.newSAXParser();
+    }
+
     /**
      * Parses the source and sends SAX events to a content handler.
      * 
@@ -233,8 +273,16 @@ public class SaxRepresentation extends XmlRepresentation {
         if (contentHandler != null) {
             try {
                 Result result = new SAXResult(contentHandler);
-                TransformerFactory.newInstance().newTransformer()
-                        .transform(getSaxSource(), result);
+                TransformerPool pool = TransformerPool.getInstance();
+                javax.xml.transform.Transformer transformer = pool.checkout();
+
+                if (transformer == null) {
+                    transformer = TransformerFactory.newInstance()
+                            .newTransformer();
+                }
+
+                transformer.transform(getSaxSource(), result);
+                pool.checkin(transformer);
             } catch (TransformerConfigurationException tce) {
                 throw new IOException(
                         "Couldn't parse the source representation: "
@@ -262,6 +310,13 @@ public class SaxRepresentation extends XmlRepresentation {
         if (this.source != null) {
             this.source = null;
         }
+
+        if ((this.pooledParser != null) && (this.parserPool != null)) {
+            this.parserPool.checkin(this.pooledParser);
+            this.pooledParser = null;
+            this.parserPool = null;
+        }
+
         if (this.xmlRepresentation != null) {
             this.xmlRepresentation.release();
         }
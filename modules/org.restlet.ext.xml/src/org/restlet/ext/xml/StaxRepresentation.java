@@ -0,0 +1,357 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or or EPL 1.0 (the "Licenses"). You can
+ * select the license that you prefer but you may not use this file except in
+ * compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.ext.xml;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.restlet.data.MediaType;
+import org.restlet.representation.Representation;
+import org.xml.sax.InputSource;
+
+// [excludes android]
+/**
+ * XML representation based on the StAX streaming API. Contrary to the
+ * {@link DomRepresentation}, the document is never fully loaded in memory,
+ * which makes it suitable for large documents. The source document can be
+ * pulled via the {@link #getXmlStreamReader()} method, and subclasses can
+ * generate their content by overriding the {@link #write(XMLStreamWriter)}
+ * method, which copies the source document by default.<br>
+ * <br>
+ * By default, DTDs and external entities are neither supported nor expanded,
+ * unless the {@link #isExpandingEntityRefs()} property is set.
+ * 
+ * @author Jerome Louvel
+ */
+public class StaxRepresentation extends XmlRepresentation {
+
+    /** The shared input factories, indexed by parsing options. */
+    private static final AtomicReferenceArray<XMLInputFactory> INPUT_FACTORIES = new AtomicReferenceArray<XMLInputFactory>(
+            8);
+
+    /** The shared output factory. */
+    private static volatile XMLOutputFactory outputFactory;
+
+    /**
+     * Copies the events of a stream reader to a stream writer, until the end
+     * of the document.
+     * 
+     * @param reader
+     *            The source stream reader.
+     * @param writer
+     *            The target stream writer.
+     * @throws XMLStreamException
+     */
+    public static void copy(XMLStreamReader reader, XMLStreamWriter writer)
+            throws XMLStreamException {
+        int event = reader.getEventType();
+
+        for (;;) {
+            switch (event) {
+            case XMLStreamConstants.START_DOCUMENT:
+                if (reader.getVersion() == null) {
+                    writer.writeStartDocument();
+                } else {
+                    writer.writeStartDocument(reader.getVersion());
+                }
+                break;
+            case XMLStreamConstants.START_ELEMENT:
+                writeStartElement(reader, writer);
+                break;
+            case XMLStreamConstants.END_ELEMENT:
+                writer.writeEndElement();
+                break;
+            case XMLStreamConstants.CHARACTERS:
+            case XMLStreamConstants.SPACE:
+                writer.writeCharacters(reader.getTextCharacters(),
+                        reader.getTextStart(), reader.getTextLength());
+                break;
+            case XMLStreamConstants.CDATA:
+                writer.writeCData(reader.getText());
+                break;
+            case XMLStreamConstants.COMMENT:
+                writer.writeComment(reader.getText());
+                break;
+            case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                writer.writeProcessingInstruction(reader.getPITarget(),
+                        reader.getPIData());
+                break;
+            case XMLStreamConstants.ENTITY_REFERENCE:
+                writer.writeEntityRef(reader.getLocalName());
+                break;
+            case XMLStreamConstants.DTD:
+                writer.writeDTD(reader.getText());
+                break;
+            case XMLStreamConstants.END_DOCUMENT:
+                writer.writeEndDocument();
+                return;
+            default:
+                break;
+            }
+
+            if (!reader.hasNext()) {
+                writer.writeEndDocument();
+                return;
+            }
+
+            event = reader.next();
+        }
+    }
+
+    /**
+     * Returns the shared output factory.
+     * 
+     * @return The shared output factory.
+     */
+    private static XMLOutputFactory getOutputFactory() {
+        XMLOutputFactory result = outputFactory;
+
+        if (result == null) {
+            outputFactory = result = XMLOutputFactory.newInstance();
+        }
+
+        return result;
+    }
+
+    /**
+     * Writes the start of the current element, including its namespace
+     * declarations and its attributes.
+     * 
+     * @param reader
+     *            The source stream reader.
+     * @param writer
+     *            The target stream writer.
+     * @throws XMLStreamException
+     */
+    private static void writeStartElement(XMLStreamReader reader,
+            XMLStreamWriter writer) throws XMLStreamException {
+        String prefix = reader.getPrefix();
+        String namespaceUri = reader.getNamespaceURI();
+
+        if (namespaceUri == null) {
+            writer.writeStartElement(reader.getLocalName());
+        } else {
+            writer.writeStartElement((prefix == null) ? "" : prefix,
+                    reader.getLocalName(), namespaceUri);
+        }
+
+        for (int i = 0; i < reader.getNamespaceCount(); i++) {
+            String nsPrefix = reader.getNamespacePrefix(i);
+
+            if ((nsPrefix == null) || nsPrefix.isEmpty()) {
+                writer.writeDefaultNamespace(reader.getNamespaceURI(i));
+            } else {
+                writer.writeNamespace(nsPrefix, reader.getNamespaceURI(i));
+            }
+        }
+
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            String attrNamespaceUri = reader.getAttributeNamespace(i);
+
+            if ((attrNamespaceUri == null) || attrNamespaceUri.isEmpty()) {
+                writer.writeAttribute(reader.getAttributeLocalName(i),
+                        reader.getAttributeValue(i));
+            } else {
+                String attrPrefix = reader.getAttributePrefix(i);
+                writer.writeAttribute((attrPrefix == null) ? "" : attrPrefix,
+                        attrNamespaceUri, reader.getAttributeLocalName(i),
+                        reader.getAttributeValue(i));
+            }
+        }
+    }
+
+    /** The current stream reader. */
+    private volatile XMLStreamReader xmlStreamReader;
+
+    /** The source XML representation. */
+    private volatile Representation xmlRepresentation;
+
+    /**
+     * Constructor. Subclasses should override the
+     * {@link #write(XMLStreamWriter)} method to generate the content.
+     * 
+     * @param mediaType
+     *            The representation's media type.
+     */
+    public StaxRepresentation(MediaType mediaType) {
+        super(mediaType);
+        this.xmlRepresentation = null;
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param xmlRepresentation
+     *            A source XML representation to stream.
+     */
+    public StaxRepresentation(Representation xmlRepresentation) {
+        super((xmlRepresentation == null) ? null : xmlRepresentation
+                .getMediaType());
+        this.xmlRepresentation = xmlRepresentation;
+    }
+
+    /**
+     * Returns the shared input factory matching the parsing options.
+     * 
+     * @return The shared input factory.
+     */
+    private XMLInputFactory getInputFactory() {
+        int index = (isNamespaceAware() ? 1 : 0) | (isCoalescing() ? 2 : 0)
+                | (isExpandingEntityRefs() ? 4 : 0);
+        XMLInputFactory result = INPUT_FACTORIES.get(index);
+
+        if (result == null) {
+            result = XMLInputFactory.newInstance();
+            result.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE,
+                    isNamespaceAware());
+            result.setProperty(XMLInputFactory.IS_COALESCING, isCoalescing());
+            result.setProperty(XMLInputFactory.SUPPORT_DTD,
+                    isExpandingEntityRefs());
+            result.setProperty(
+                    XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES,
+                    isExpandingEntityRefs());
+            result.setProperty(
+                    XMLInputFactory.IS_REPLACING_ENTITY_REFERENCES,
+                    isExpandingEntityRefs());
+            INPUT_FACTORIES.compareAndSet(index, null, result);
+            result = INPUT_FACTORIES.get(index);
+        }
+
+        return result;
+    }
+
+    @Override
+    public InputSource getInputSource() throws IOException {
+        return (this.xmlRepresentation == null) ? null : new InputSource(
+                this.xmlRepresentation.getReader());
+    }
+
+    /**
+     * Returns the stream reader of the source XML representation, creating it
+     * on first call. Note that the source can only be read once.
+     * 
+     * @return The stream reader or null if there is no source representation.
+     * @throws IOException
+     */
+    public XMLStreamReader getXmlStreamReader() throws IOException {
+        if ((this.xmlStreamReader == null) && (this.xmlRepresentation != null)) {
+            XMLInputFactory factory = getInputFactory();
+
+            try {
+                // Factories aren't required to be thread-safe
+                synchronized (factory) {
+                    this.xmlStreamReader = factory
+                            .createXMLStreamReader(this.xmlRepresentation
+                                    .getReader());
+                }
+            } catch (XMLStreamException e) {
+                throw new IOException("Unable to create the XML stream reader",
+                        e);
+            }
+        }
+
+        return this.xmlStreamReader;
+    }
+
+    /**
+     * Closes the stream reader and releases the source XML representation.
+     */
+    @Override
+    public void release() {
+        if (this.xmlStreamReader != null) {
+            try {
+                this.xmlStreamReader.close();
+            } catch (XMLStreamException e) {
+                // Ignore
+            }
+
+            this.xmlStreamReader = null;
+        }
+
+        if (this.xmlRepresentation != null) {
+            this.xmlRepresentation.release();
+        }
+
+        super.release();
+    }
+
+    @Override
+    public void write(Writer writer) throws IOException {
+        XMLStreamWriter xmlWriter = null;
+
+        try {
+            XMLOutputFactory factory = getOutputFactory();
+
+            // Factories aren't required to be thread-safe
+            synchronized (factory) {
+                xmlWriter = factory.createXMLStreamWriter(writer);
+            }
+
+            write(xmlWriter);
+            xmlWriter.flush();
+        } catch (XMLStreamException e) {
+            throw new IOException("Unable to write the XML stream", e);
+        } finally {
+            if (xmlWriter != null) {
+                try {
+                    // Doesn't close the underlying writer
+                    xmlWriter.close();
+                } catch (XMLStreamException e) {
+                    // Ignore
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the representation to an XML stream writer. By default, it copies
+     * the events of the {@link #getXmlStreamReader()} stream reader if
+     * available. This behavior is intended to be overridden.
+     * 
+     * @param writer
+     *            The XML stream writer to write to.
+     * @throws IOException
+     */
+    public void write(XMLStreamWriter writer) throws IOException {
+        XMLStreamReader reader = getXmlStreamReader();
+
+        if (reader != null) {
+            try {
+                copy(reader, writer);
+            } catch (XMLStreamException e) {
+                throw new IOException("Unable to copy the XML stream", e);
+            }
+        }
+    }
+
+}
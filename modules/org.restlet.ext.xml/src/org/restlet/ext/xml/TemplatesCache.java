@@ -0,0 +1,224 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or or EPL 1.0 (the "Licenses"). You can
+ * select the license that you prefer but you may not use this file except in
+ * compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.ext.xml;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+import javax.xml.transform.Templates;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.URIResolver;
+import javax.xml.transform.stream.StreamSource;
+
+import org.restlet.data.Reference;
+import org.restlet.engine.util.RepresentationCache;
+import org.restlet.engine.util.SystemUtils;
+import org.restlet.representation.Representation;
+
+/**
+ * Shared cache of compiled XSLT transform sheets. Compiling a transform sheet
+ * is much more expensive than applying it, and the resulting JAXP templates are
+ * thread-safe.<br>
+ * <br>
+ * Transform sheets are identified by their location reference and by the URI
+ * resolver used to compile them, so sheets without location reference aren't
+ * cached. A cached entry is only reused if the tag and the modification date
+ * of the transform sheet are unchanged, otherwise the sheet is compiled again.
+ * Sheets that have neither a tag nor a modification date are compiled each
+ * time as their changes can't be detected. Note that relative references
+ * included by a sheet are assumed to always resolve to the same documents for
+ * equal URI resolvers.
+ * 
+ * @author Jerome Louvel
+ */
+public class TemplatesCache {
+
+    /** Cache key. */
+    private static class Key {
+        /** The location reference of the transform sheet. */
+        private final String location;
+
+        /** The URI resolver used when compiling. */
+        private final URIResolver uriResolver;
+
+        /**
+         * Constructor.
+         * 
+         * @param location
+         *            The location reference of the transform sheet.
+         * @param uriResolver
+         *            The URI resolver used when compiling.
+         */
+        private Key(String location, URIResolver uriResolver) {
+            this.location = location;
+            this.uriResolver = uriResolver;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            if (!(object instanceof Key)) {
+                return false;
+            }
+
+            Key key = (Key) object;
+            return this.location.equals(key.location)
+                    && SystemUtils.equals(this.uriResolver, key.uriResolver);
+        }
+
+        @Override
+        public int hashCode() {
+            return SystemUtils.hashCode(this.location, this.uriResolver);
+        }
+    }
+
+    /** The maximum number of cached transform sheets. */
+    public static final int MAX_ENTRIES = 256;
+
+    /** The shared instance. */
+    private static final TemplatesCache instance = new TemplatesCache();
+
+    /**
+     * Compiles a transform sheet.
+     * 
+     * @param transformSheet
+     *            The XSLT transform sheet to compile.
+     * @param uriResolver
+     *            The optional JAXP URI resolver.
+     * @return The compiled templates.
+     * @throws IOException
+     */
+    public static Templates compile(Representation transformSheet,
+            URIResolver uriResolver) throws IOException {
+        try {
+            // Prepare the XSLT transformer documents
+            StreamSource transformSource = new StreamSource(
+                    transformSheet.getStream());
+
+            if (transformSheet.getLocationRef() != null) {
+                transformSource.setSystemId(transformSheet.getLocationRef()
+                        .getTargetRef().toString());
+            }
+
+            // Create the transformer factory
+            TransformerFactory transformerFactory = TransformerFactory
+                    .newInstance();
+
+            // Set the URI resolver
+            if (uriResolver != null) {
+                transformerFactory.setURIResolver(uriResolver);
+            }
+
+            // Create a new transformer
+            return transformerFactory.newTemplates(transformSource);
+        } catch (TransformerConfigurationException tce) {
+            throw new IOException("Transformer configuration exception. "
+                    + tce.getMessage());
+        }
+    }
+
+    /**
+     * Returns the shared instance.
+     * 
+     * @return The shared instance.
+     */
+    public static TemplatesCache getInstance() {
+        return instance;
+    }
+
+    /** The cached entries, indexed by location reference and URI resolver. */
+    private final RepresentationCache<Key, Templates> entries;
+
+    /**
+     * Constructor.
+     */
+    public TemplatesCache() {
+        this.entries = new RepresentationCache<Key, Templates>(MAX_ENTRIES);
+    }
+
+    /**
+     * Removes all the cached entries.
+     */
+    public void clear() {
+        this.entries.clear();
+    }
+
+    /**
+     * Returns the compiled templates of a transform sheet, from the cache if
+     * possible.
+     * 
+     * @param transformSheet
+     *            The XSLT transform sheet.
+     * @param uriResolver
+     *            The optional JAXP URI resolver used when compiling.
+     * @return The compiled templates.
+     * @throws IOException
+     */
+    public Templates getTemplates(Representation transformSheet,
+            URIResolver uriResolver) throws IOException {
+        if (!RepresentationCache.isCacheable(transformSheet)) {
+            return compile(transformSheet, uriResolver);
+        }
+
+        Key key = new Key(transformSheet.getLocationRef().getTargetRef()
+                .toString(), uriResolver);
+        Templates result = this.entries.get(key, transformSheet);
+
+        if (result == null) {
+            result = compile(transformSheet, uriResolver);
+            this.entries.put(key, transformSheet, result);
+        }
+
+        return result;
+    }
+
+    /**
+     * Removes the cached entries of a transform sheet, whatever the URI
+     * resolver used to compile them.
+     * 
+     * @param locationRef
+     *            The location reference of the transform sheet.
+     */
+    public void remove(Reference locationRef) {
+        String location = locationRef.getTargetRef().toString();
+
+        for (Iterator<Key> iter = this.entries.keySet().iterator(); iter
+                .hasNext();) {
+            if (iter.next().location.equals(location)) {
+                iter.remove();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of cached entries.
+     * 
+     * @return The number of cached entries.
+     */
+    public int size() {
+        return this.entries.size();
+    }
+
+}
@@ -44,7 +44,6 @@ import javax.xml.transform.sax.SAXSource;
 import javax.xml.transform.sax.SAXTransformerFactory;
 import javax.xml.transform.sax.TransformerHandler;
 import javax.xml.transform.stream.StreamResult;
-import javax.xml.transform.stream.StreamSource;
 
 import org.restlet.Context;
 import org.restlet.ext.xml.internal.AbstractXmlReader;
@@ -300,41 +299,15 @@ public class TransformRepresentation extends WriterRepresentation {
     /**
      * Returns the templates to be used and reused. If no one exists, it creates
      * a new one based on the transformSheet representation and on the URI
-     * resolver.
+     * resolver, reusing the ones shared by the {@link TemplatesCache} when
+     * the transform sheet has a location reference.
      * 
      * @return The templates to be used and reused.
      */
     public Templates getTemplates() throws IOException {
-        if (this.templates == null) {
-            if (getTransformSheet() != null) {
-                try {
-                    // Prepare the XSLT transformer documents
-                    final StreamSource transformSource = new StreamSource(
-                            getTransformSheet().getStream());
-
-                    if (getTransformSheet().getLocationRef() != null) {
-                        transformSource.setSystemId(getTransformSheet()
-                                .getLocationRef().getTargetRef().toString());
-                    }
-
-                    // Create the transformer factory
-                    final TransformerFactory transformerFactory = TransformerFactory
-                            .newInstance();
-
-                    // Set the URI resolver
-                    if (getUriResolver() != null) {
-                        transformerFactory.setURIResolver(getUriResolver());
-                    }
-
-                    // Create a new transformer
-                    this.templates = transformerFactory
-                            .newTemplates(transformSource);
-                } catch (TransformerConfigurationException tce) {
-                    throw new IOException(
-                            "Transformer configuration exception. "
-                                    + tce.getMessage());
-                }
-            }
+        if ((this.templates == null) && (getTransformSheet() != null)) {
+            this.templates = TemplatesCache.getInstance().getTemplates(
+                    getTransformSheet(), getUriResolver());
         }
 
         return this.templates;
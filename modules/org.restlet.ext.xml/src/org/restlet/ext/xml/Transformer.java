@@ -24,8 +24,12 @@
 
 package org.restlet.ext.xml;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
+
+import javax.xml.transform.Templates;
 
 import org.restlet.Request;
 import org.restlet.Response;
@@ -33,6 +37,8 @@ import org.restlet.data.CharacterSet;
 import org.restlet.data.Encoding;
 import org.restlet.data.Language;
 import org.restlet.data.MediaType;
+import org.restlet.engine.util.RepresentationCache;
+import org.restlet.ext.xml.internal.ContextResolver;
 import org.restlet.representation.Representation;
 import org.restlet.routing.Filter;
 
@@ -83,6 +89,9 @@ public class Transformer extends Filter {
      */
     private volatile MediaType resultMediaType;
 
+    /** The compiled XSLT transform sheet. */
+    private volatile Templates templates;
+
     /** The XSLT transform sheet to apply to message entities. */
     private volatile Representation transformSheet;
 
@@ -196,6 +205,34 @@ public class Transformer extends Filter {
         return this.resultMediaType;
     }
 
+    /**
+     * Returns the compiled XSLT transform sheet. It is shared by the
+     * {@link TemplatesCache} when the transform sheet is cacheable, so that a
+     * changed tag or modification date triggers a new compilation. Otherwise,
+     * it is compiled once on first use and kept until the transform sheet is
+     * changed.
+     * 
+     * @return The compiled XSLT transform sheet or null.
+     * @throws IOException
+     */
+    public Templates getTemplates() throws IOException {
+        Templates result = this.templates;
+        Representation sheet = getTransformSheet();
+
+        if (sheet == null) {
+            result = null;
+        } else if (RepresentationCache.isCacheable(sheet)) {
+            result = TemplatesCache.getInstance().getTemplates(sheet,
+                    new ContextResolver(getContext()));
+        } else if (result == null) {
+            result = TemplatesCache.compile(sheet, new ContextResolver(
+                    getContext()));
+            this.templates = result;
+        }
+
+        return result;
+    }
+
     /**
      * Returns the XSLT transform sheet to apply to message entities.
      * 
@@ -263,6 +300,7 @@ public class Transformer extends Filter {
      */
     public void setTransformSheet(Representation transformSheet) {
         this.transformSheet = transformSheet;
+        this.templates = null;
     }
 
     /**
@@ -274,8 +312,17 @@ public class Transformer extends Filter {
      * @return The generated result representation.
      */
     public Representation transform(Representation source) {
-        final Representation result = new TransformRepresentation(getContext(),
-                source, getTransformSheet());
+        Representation result = null;
+
+        try {
+            result = new TransformRepresentation(new ContextResolver(
+                    getContext()), source, getTemplates());
+        } catch (IOException e) {
+            getLogger().log(Level.WARNING,
+                    "Unable to compile the XSLT transform sheet", e);
+            result = new TransformRepresentation(getContext(), source,
+                    getTransformSheet());
+        }
 
         if (this.resultLanguages != null) {
             result.getLanguages().addAll(getResultLanguages());
@@ -42,6 +42,7 @@ import javax.xml.xpath.XPathFactory;
 
 import org.restlet.Context;
 import org.restlet.data.MediaType;
+import org.restlet.ext.xml.internal.DocumentBuilderPool;
 import org.restlet.representation.Representation;
 import org.restlet.representation.WriterRepresentation;
 import org.w3c.dom.Document;
@@ -235,6 +236,9 @@ public abstract class XmlRepresentation extends WriterRepresentation
      */
     private volatile boolean coalescing;
 
+    /** The pool of the document builder checked out, if any. */
+    private volatile DocumentBuilderPool documentBuilderPool;
+
     /**
      * A SAX {@link EntityResolver} to use when resolving external entity
      * references while parsing this type of XML representations.
@@ -275,6 +279,9 @@ public abstract class XmlRepresentation extends WriterRepresentation
     /** Internal map of namespaces. */
     private volatile Map<String, String> namespaces;
 
+    /** The document builder checked out from the shared pool, if any. */
+    private volatile DocumentBuilder pooledDocumentBuilder;
+
     // [ifndef android] member
     /**
      * A (compiled) {@link javax.xml.validation.Schema} to use when validating
@@ -354,16 +361,43 @@ public abstract class XmlRepresentation extends WriterRepresentation
      * @return The DOM document.
      */
     protected Document getDocument() throws Exception {
-        return getDocumentBuilder().parse(getInputSource());
+        DocumentBuilder builder = getDocumentBuilder();
+
+        try {
+            return builder.parse(getInputSource());
+        } finally {
+            releaseDocumentBuilder(builder);
+        }
     }
 
     /**
-     * Returns a document builder properly configured.
+     * Returns a document builder properly configured. Unless an XML schema is
+     * set, the builder is checked out from a shared pool and should be given
+     * back with {@link #releaseDocumentBuilder(DocumentBuilder)} once the
+     * parsing is done.
      * 
      * @return A document builder properly configured.
      */
     protected DocumentBuilder getDocumentBuilder() throws IOException {
         DocumentBuilder result = null;
+        boolean pooled = true;
+
+        // [ifndef android]
+        pooled = (getSchema() == null);
+        // [enddef]
+
+        if (pooled) {
+            DocumentBuilderPool pool = DocumentBuilderPool.getInstance(this);
+            result = pool.checkout();
+
+            if (result != null) {
+                this.documentBuilderPool = pool;
+                this.pooledDocumentBuilder = result;
+                result.setEntityResolver(getEntityResolver());
+                result.setErrorHandler(getErrorHandler());
+                return result;
+            }
+        }
 
         try {
             DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
@@ -410,12 +444,15 @@ public abstract class XmlRepresentation extends WriterRepresentation
     public javax.xml.transform.dom.DOMSource getDomSource() throws IOException {
         javax.xml.transform.dom.DOMSource result = null;
         Node document = null;
+        DocumentBuilder builder = getDocumentBuilder();
 
         try {
-            document = getDocumentBuilder().parse(getInputSource());
+            document = builder.parse(getInputSource());
         } catch (SAXException se) {
             throw new IOException("Couldn't read the XML representation. "
                     + se.getMessage());
+        } finally {
+            releaseDocumentBuilder(builder);
         }
 
         if (document != null) {
@@ -710,6 +747,25 @@ public abstract class XmlRepresentation extends WriterRepresentation
         return xIncludeAware;
     }
 
+    /**
+     * Gives back a document builder obtained via {@link #getDocumentBuilder()}
+     * to the shared pool, if it was checked out from it.
+     * 
+     * @param documentBuilder
+     *            The document builder to release.
+     */
+    protected void releaseDocumentBuilder(DocumentBuilder documentBuilder) {
+        DocumentBuilderPool pool = this.documentBuilderPool;
+
+        if ((documentBuilder != null)
+                && (documentBuilder == this.pooledDocumentBuilder)
+                && (pool != null)) {
+            this.pooledDocumentBuilder = null;
+            this.documentBuilderPool = null;
+            pool.checkin(documentBuilder);
+        }
+    }
+
     /**
      * Releases the namespaces map.
      */
@@ -869,6 +869,7 @@ public final class XmlWriter extends XMLFilterImpl {
         }
         writeNSDecls();
         write("/>");
+        this.nsSupport.popContext();
         super.startElement(uri, localName, qName, atts);
         super.endElement(uri, localName, qName);
     }
@@ -57,6 +57,26 @@ public class ContextResolver implements URIResolver {
         this.context = context;
     }
 
+    /**
+     * Indicates if the given object is a resolver based on the same context,
+     * which resolves references to the same documents.
+     * 
+     * @param object
+     *            The object to compare.
+     * @return True if the given object is a resolver based on the same
+     *         context.
+     */
+    @Override
+    public boolean equals(Object object) {
+        return (object instanceof ContextResolver)
+                && (((ContextResolver) object).context == this.context);
+    }
+
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(this.context);
+    }
+
     /**
      * Resolves a target reference into a Source document.
      * 
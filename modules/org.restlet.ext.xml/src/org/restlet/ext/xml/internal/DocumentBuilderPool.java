@@ -0,0 +1,148 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or or EPL 1.0 (the "Licenses"). You can
+ * select the license that you prefer but you may not use this file except in
+ * compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.ext.xml.internal;
+
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.logging.Level;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.restlet.Context;
+import org.restlet.engine.util.Pool;
+import org.restlet.ext.xml.XmlRepresentation;
+
+/**
+ * Bounded pool of DOM document builders sharing the same parsing options.
+ * Builders are reset when checked in, which restores the options set by their
+ * factory. Builders validating against an XML schema aren't pooled.
+ * 
+ * @author Jerome Louvel
+ */
+public class DocumentBuilderPool extends Pool<DocumentBuilder> {
+
+    /** The maximum number of idle builders kept by each pool. */
+    public static final int MAX_IDLE_BUILDERS = 4 * Runtime.getRuntime()
+            .availableProcessors();
+
+    /** The shared pools, indexed by parsing options. */
+    private static final AtomicReferenceArray<DocumentBuilderPool> POOLS = new AtomicReferenceArray<DocumentBuilderPool>(
+            128);
+
+    /**
+     * Returns the shared pool for the parsing options of an XML
+     * representation.
+     * 
+     * @param xmlRep
+     *            The XML representation providing the parsing options.
+     * @return The pool of builders.
+     */
+    public static DocumentBuilderPool getInstance(XmlRepresentation xmlRep) {
+        int index = (xmlRep.isNamespaceAware() ? 1 : 0)
+                | (xmlRep.isValidatingDtd() ? 2 : 0)
+                | (xmlRep.isCoalescing() ? 4 : 0)
+                | (xmlRep.isExpandingEntityRefs() ? 8 : 0)
+                | (xmlRep.isIgnoringComments() ? 16 : 0)
+                | (xmlRep.isIgnoringExtraWhitespaces() ? 32 : 0)
+                | (xmlRep.isXIncludeAware() ? 64 : 0);
+        DocumentBuilderPool result = POOLS.get(index);
+
+        if (result == null) {
+            POOLS.compareAndSet(index, null, new DocumentBuilderPool(index));
+            result = POOLS.get(index);
+        }
+
+        return result;
+    }
+
+    /** The parsing options, as a bit mask. */
+    private final int options;
+
+    /**
+     * Constructor.
+     * 
+     * @param options
+     *            The parsing options, as a bit mask.
+     */
+    private DocumentBuilderPool(int options) {
+        super();
+        this.options = options;
+    }
+
+    @Override
+    protected void clear(DocumentBuilder builder) {
+        builder.reset();
+    }
+
+    /**
+     * Creates a configured builder.
+     * 
+     * @return A new builder or null if it couldn't be created.
+     */
+    @Override
+    protected DocumentBuilder createObject() {
+        try {
+            DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
+            dbf.setNamespaceAware(isOption(1));
+            dbf.setValidating(isOption(2));
+            dbf.setCoalescing(isOption(4));
+            dbf.setExpandEntityReferences(isOption(8));
+            dbf.setIgnoringComments(isOption(16));
+            dbf.setIgnoringElementContentWhitespace(isOption(32));
+
+            try {
+                dbf.setXIncludeAware(isOption(64));
+            } catch (UnsupportedOperationException uoe) {
+                Context.getCurrentLogger().log(Level.FINE,
+                        "The JAXP parser doesn't support XInclude.", uoe);
+            }
+
+            return dbf.newDocumentBuilder();
+        } catch (Exception e) {
+            Context.getCurrentLogger().log(Level.WARNING,
+                    "Problem creating DocumentBuilder", e);
+            return null;
+        }
+    }
+
+    @Override
+    protected Queue<DocumentBuilder> createStore() {
+        return new ArrayBlockingQueue<DocumentBuilder>(MAX_IDLE_BUILDERS);
+    }
+
+    /**
+     * Indicates if a parsing option is enabled.
+     * 
+     * @param option
+     *            The option bit.
+     * @return True if the option is enabled.
+     */
+    private boolean isOption(int option) {
+        return (this.options & option) != 0;
+    }
+
+}
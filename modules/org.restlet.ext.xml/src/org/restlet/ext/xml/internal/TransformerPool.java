@@ -0,0 +1,100 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or or EPL 1.0 (the "Licenses"). You can
+ * select the license that you prefer but you may not use this file except in
+ * compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.ext.xml.internal;
+
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.logging.Level;
+
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+
+import org.restlet.Context;
+import org.restlet.engine.util.Pool;
+
+/**
+ * Bounded pool of JAXP identity transformers, used to copy XML sources to
+ * results. Transformers are reset when checked in, which restores their
+ * default output properties.
+ * 
+ * @author Jerome Louvel
+ */
+public class TransformerPool extends Pool<Transformer> {
+
+    /** The maximum number of idle transformers kept by the pool. */
+    public static final int MAX_IDLE_TRANSFORMERS = 4 * Runtime.getRuntime()
+            .availableProcessors();
+
+    /** The shared instance. */
+    private static final TransformerPool instance = new TransformerPool();
+
+    /**
+     * Returns the shared instance.
+     * 
+     * @return The shared instance.
+     */
+    public static TransformerPool getInstance() {
+        return instance;
+    }
+
+    /** The transformer factory, lazily created. */
+    private volatile TransformerFactory factory;
+
+    @Override
+    protected void clear(Transformer transformer) {
+        transformer.reset();
+    }
+
+    /**
+     * Creates an identity transformer.
+     * 
+     * @return A new transformer or null if it couldn't be created.
+     */
+    @Override
+    protected Transformer createObject() {
+        try {
+            TransformerFactory tf = this.factory;
+
+            if (tf == null) {
+                this.factory = tf = TransformerFactory.newInstance();
+            }
+
+            // Factories aren't required to be thread-safe
+            synchronized (tf) {
+                return tf.newTransformer();
+            }
+        } catch (Exception e) {
+            Context.getCurrentLogger().log(Level.WARNING,
+                    "Problem creating Transformer", e);
+            return null;
+        }
+    }
+
+    @Override
+    protected Queue<Transformer> createStore() {
+        return new ArrayBlockingQueue<Transformer>(MAX_IDLE_TRANSFORMERS);
+    }
+
+}
@@ -0,0 +1,249 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or or EPL 1.0 (the "Licenses"). You can
+ * select the license that you prefer but you may not use this file except in
+ * compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.bench;
+
+/**
+ * Micro-benchmark measured by the {@link BenchmarkRunner}. Each call to
+ * {@link #run()} is one operation. Results are consumed by the harness so that
+ * the JIT compiler can't eliminate the measured code.<br>
+ * <br>
+ * Measurement follows the usual pattern of JMH's throughput mode: a few warmup
+ * iterations are run and discarded, then each measured iteration runs
+ * operations during a fixed amount of time and reports its throughput.
+ * 
+ * @author Jerome Louvel
+ */
+public abstract class Benchmark {
+
+    /** Throughput result of a benchmark. */
+    public static class Result {
+
+        /** The benchmark name. */
+        private final String name;
+
+        /** The throughput of each measured iteration, in operations/s. */
+        private final double[] scores;
+
+        /**
+         * Constructor.
+         * 
+         * @param name
+         *            The benchmark name.
+         * @param scores
+         *            The throughput of each measured iteration.
+         */
+        public Result(String name, double[] scores) {
+            this.name = name;
+            this.scores = scores;
+        }
+
+        /**
+         * Returns the half-width of the 99.9% confidence interval of the
+         * score, computed with the normal approximation.
+         * 
+         * @return The score error.
+         */
+        public double getError() {
+            if (this.scores.length < 2) {
+                return Double.NaN;
+            }
+
+            double mean = getScore();
+            double sum = 0D;
+
+            for (double score : this.scores) {
+                sum += (score - mean) * (score - mean);
+            }
+
+            double deviation = Math.sqrt(sum / (this.scores.length - 1));
+            return 3.29D * deviation / Math.sqrt(this.scores.length);
+        }
+
+        /**
+         * Returns the benchmark name.
+         * 
+         * @return The benchmark name.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Returns the mean throughput, in operations/s.
+         * 
+         * @return The mean throughput.
+         */
+        public double getScore() {
+            double sum = 0D;
+
+            for (double score : this.scores) {
+                sum += score;
+            }
+
+            return (this.scores.length == 0) ? Double.NaN : sum
+                    / this.scores.length;
+        }
+
+        /**
+         * Returns the number of measured iterations.
+         * 
+         * @return The number of measured iterations.
+         */
+        public int getCount() {
+            return this.scores.length;
+        }
+    }
+
+    /** The benchmark name. */
+    private final String name;
+
+    /** Accumulates the operation results, defeating dead code elimination. */
+    private int sink;
+
+    /**
+     * Constructor.
+     * 
+     * @param name
+     *            The benchmark name.
+     */
+    public Benchmark(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Consumes the result of an operation.
+     * 
+     * @param result
+     *            The operation result.
+     */
+    private void consume(Object result) {
+        this.sink += System.identityHashCode(result);
+    }
+
+    /**
+     * Returns the benchmark name, used to select benchmarks.
+     * 
+     * @return The benchmark name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Runs operations during the given time.
+     * 
+     * @param time
+     *            The iteration time in milliseconds.
+     * @return The throughput, in operations/s.
+     * @throws Exception
+     */
+    private double iterate(long time) throws Exception {
+        long operations = 0L;
+        long start = System.nanoTime();
+        long end = start + (time * 1000000L);
+        long now;
+
+        // Check the time once per batch to keep the clock out of the loop
+        do {
+            for (int i = 0; i < 16; i++) {
+                consume(run());
+            }
+
+            operations += 16;
+            now = System.nanoTime();
+        } while (now < end);
+
+        return operations * 1.0E9D / (now - start);
+    }
+
+    /**
+     * Measures the throughput of the benchmark. Calls {@link #setUp()} and
+     * {@link #tearDown()} around the iterations.
+     * 
+     * @param warmupIterations
+     *            The number of warmup iterations.
+     * @param iterations
+     *            The number of measured iterations.
+     * @param time
+     *            The duration of each iteration in milliseconds.
+     * @return The measurement result.
+     * @throws Exception
+     */
+    public Result measure(int warmupIterations, int iterations, long time)
+            throws Exception {
+        double[] scores = new double[iterations];
+        setUp();
+
+        try {
+            for (int i = 0; i < warmupIterations; i++) {
+                iterate(time);
+            }
+
+            for (int i = 0; i < iterations; i++) {
+                scores[i] = iterate(time);
+            }
+        } finally {
+            tearDown();
+        }
+
+        if (this.sink == 42) {
+            // Practically never happens, but the JIT can't know
+            System.out.print("");
+        }
+
+        return new Result(getName(), scores);
+    }
+
+    /**
+     * Runs one operation.
+     * 
+     * @return The operation result, consumed by the harness.
+     * @throws Exception
+     */
+    protected abstract Object run() throws Exception;
+
+    /**
+     * Prepares the benchmark state, before any iteration. Does nothing by
+     * default.
+     * 
+     * @throws Exception
+     */
+    protected void setUp() throws Exception {
+    }
+
+    /**
+     * Releases the benchmark state, after the last iteration. Does nothing by
+     * default.
+     * 
+     * @throws Exception
+     */
+    protected void tearDown() throws Exception {
+    }
+
+    @Override
+    public String toString() {
+        return getName();
+    }
+}
@@ -0,0 +1,142 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or or EPL 1.0 (the "Licenses"). You can
+ * select the license that you prefer but you may not use this file except in
+ * compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.bench;
+
+import java.io.FileWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.logging.Level;
+import java.util.regex.Pattern;
+
+import org.restlet.engine.Engine;
+
+/**
+ * Runs the benchmarks of the core request pipeline and prints their throughput
+ * in a JMH-like table. Runs offline and in-process, so that results can be
+ * compared from one build to another on the same machine.<br>
+ * <br>
+ * Usage: BenchmarkRunner [-wi warmupIterations] [-i iterations] [-t
+ * iterationMillis] [-csv file] [regex]<br>
+ * <br>
+ * The optional regular expression selects the benchmarks to run by name, for
+ * example "connector\..*" or "header|reference". By default, 5 warmup and 5
+ * measured iterations of one second each are run. The CSV file, if set,
+ * receives one line per benchmark, convenient to track regressions.
+ * 
+ * @author Jerome Louvel
+ */
+public class BenchmarkRunner {
+
+    /**
+     * Returns all the known benchmarks.
+     * 
+     * @return All the known benchmarks.
+     */
+    public static List<Benchmark> getBenchmarks() {
+        List<Benchmark> result = new ArrayList<Benchmark>();
+        result.add(new ReferenceBenchmark("reference.parse"));
+        result.add(new ReferenceBenchmark("reference.resolve"));
+        result.add(new HeaderBenchmark("header.read.accept"));
+        result.add(new HeaderBenchmark("header.read.line"));
+        result.add(new HeaderBenchmark("header.write.request"));
+        result.add(new HeaderBenchmark("header.write.response"));
+        result.add(new RoutingBenchmark("template.parse"));
+        result.add(new RoutingBenchmark("router.first"));
+        result.add(new RoutingBenchmark("router.best"));
+        result.add(new ConverterBenchmark("converter.toObject"));
+        result.add(new ConverterBenchmark("converter.toRepresentation"));
+        result.add(new ResourceBenchmark("resource.get"));
+        result.add(new ConnectorBenchmark("connector.riap"));
+        result.add(new ConnectorBenchmark("connector.internal"));
+        result.add(new ConnectorBenchmark("connector.jetty"));
+        result.add(new ConnectorBenchmark("connector.netty"));
+        return result;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int warmupIterations = 5;
+        int iterations = 5;
+        long time = 1000L;
+        String csv = null;
+        Pattern filter = null;
+
+        for (int i = 0; i < args.length; i++) {
+            if ("-wi".equals(args[i])) {
+                warmupIterations = Integer.parseInt(args[++i]);
+            } else if ("-i".equals(args[i])) {
+                iterations = Integer.parseInt(args[++i]);
+            } else if ("-t".equals(args[i])) {
+                time = Long.parseLong(args[++i]);
+            } else if ("-csv".equals(args[i])) {
+                csv = args[++i];
+            } else {
+                filter = Pattern.compile(args[i]);
+            }
+        }
+
+        // Logging would dominate the measures of the connectors
+        Engine.setLogLevel(Level.WARNING);
+        List<Benchmark.Result> results = new ArrayList<Benchmark.Result>();
+
+        for (Benchmark benchmark : getBenchmarks()) {
+            if ((filter == null)
+                    || filter.matcher(benchmark.getName()).find()) {
+                System.out.println("# Running " + benchmark.getName());
+                results.add(benchmark.measure(warmupIterations, iterations,
+                        time));
+            }
+        }
+
+        System.out.println();
+        System.out.println(String.format(Locale.ROOT, "%-30s %5s %14s %12s  %s",
+                "Benchmark", "Cnt", "Score", "Error", "Units"));
+
+        for (Benchmark.Result result : results) {
+            System.out.println(String.format(Locale.ROOT,
+                    "%-30s %5d %14.3f +- %9.3f  ops/s", result.getName(),
+                    result.getCount(), result.getScore(), result.getError()));
+        }
+
+        if (csv != null) {
+            PrintWriter writer = new PrintWriter(new FileWriter(csv));
+
+            try {
+                writer.println("\"Benchmark\",\"Cnt\",\"Score\",\"Error\",\"Unit\"");
+
+                for (Benchmark.Result result : results) {
+                    writer.println(String.format(Locale.ROOT,
+                            "\"%s\",%d,%f,%f,\"ops/s\"", result.getName(),
+                            result.getCount(), result.getScore(),
+                            result.getError()));
+                }
+            } finally {
+                writer.close();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,147 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or or EPL 1.0 (the "Licenses"). You can
+ * select the license that you prefer but you may not use this file except in
+ * compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.bench;
+
+import org.restlet.Client;
+import org.restlet.Component;
+import org.restlet.Context;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.Server;
+import org.restlet.data.Method;
+import org.restlet.data.Protocol;
+import org.restlet.engine.Engine;
+import org.restlet.engine.connector.ClientHelper;
+import org.restlet.engine.connector.ServerHelper;
+
+/**
+ * Benchmarks end-to-end loopback calls to a {@link HelloServerResource},
+ * either via the RIAP pseudo-protocol or via HTTP connectors on an ephemeral
+ * port.
+ * 
+ * @author Jerome Louvel
+ */
+public class ConnectorBenchmark extends Benchmark {
+
+    /** The client helper of the benchmarked connector. */
+    private ClientHelper clientHelper;
+
+    /** The client connector or dispatcher. */
+    private Restlet client;
+
+    /** The component hosting the resource. */
+    private Component component;
+
+    /** The server helper of the benchmarked connector. */
+    private ServerHelper serverHelper;
+
+    /** The target resource URI. */
+    private String uri;
+
+    /**
+     * Constructor.
+     * 
+     * @param name
+     *            The benchmark name, either "connector.riap",
+     *            "connector.internal", "connector.jetty" or "connector.netty".
+     */
+    public ConnectorBenchmark(String name) {
+        super(name);
+    }
+
+    @Override
+    protected Object run() throws Exception {
+        Response response = this.client.handle(new Request(Method.GET,
+                this.uri));
+
+        if (response.isEntityAvailable()) {
+            response.getEntity().exhaust();
+        }
+
+        response.release();
+        return response.getStatus();
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        if ("connector.jetty".equals(getName())) {
+            this.serverHelper = new org.restlet.ext.jetty.HttpServerHelper(null);
+            this.clientHelper = new org.restlet.ext.jetty.HttpClientHelper(null);
+        } else if ("connector.netty".equals(getName())) {
+            this.serverHelper = new org.restlet.ext.netty.HttpServerHelper(null);
+            this.clientHelper = new org.restlet.ext.netty.HttpClientHelper(null);
+        } else if ("connector.internal".equals(getName())) {
+            this.serverHelper = new org.restlet.engine.connector.HttpServerHelper(
+                    null);
+            this.clientHelper = new org.restlet.engine.connector.HttpClientHelper(
+                    null);
+        }
+
+        // The first registered helpers supporting HTTP are selected
+        if (this.serverHelper != null) {
+            Engine.getInstance().getRegisteredServers()
+                    .add(0, this.serverHelper);
+            Engine.getInstance().getRegisteredClients()
+                    .add(0, this.clientHelper);
+        }
+
+        this.component = new Component();
+        this.component.getDefaultHost().attach("/hello",
+                HelloServerResource.class);
+        this.component.getInternalRouter().attach("/hello",
+                HelloServerResource.class);
+
+        if (this.serverHelper == null) {
+            this.component.start();
+            this.client = this.component.getContext().createChildContext()
+                    .getClientDispatcher();
+            this.uri = "riap://component/hello";
+        } else {
+            Server server = this.component.getServers().add(Protocol.HTTP, 0);
+            this.component.start();
+            this.client = new Client(new Context(), Protocol.HTTP);
+            this.client.start();
+            this.uri = "http://localhost:" + server.getActualPort() + "/hello";
+        }
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        if (this.client instanceof Client) {
+            this.client.stop();
+        }
+
+        this.component.stop();
+
+        if (this.serverHelper != null) {
+            Engine.getInstance().getRegisteredServers()
+                    .remove(this.serverHelper);
+            Engine.getInstance().getRegisteredClients()
+                    .remove(this.clientHelper);
+        }
+    }
+
+}
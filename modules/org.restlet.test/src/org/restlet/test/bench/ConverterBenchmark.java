@@ -0,0 +1,82 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or or EPL 1.0 (the "Licenses"). You can
+ * select the license that you prefer but you may not use this file except in
+ * compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.bench;
+
+import org.restlet.data.Form;
+import org.restlet.data.MediaType;
+import org.restlet.representation.Representation;
+import org.restlet.representation.StringRepresentation;
+import org.restlet.representation.Variant;
+import org.restlet.service.ConverterService;
+
+/**
+ * Benchmarks the conversion between objects and representations, using the
+ * converters registered with the engine.
+ * 
+ * @author Jerome Louvel
+ */
+public class ConverterBenchmark extends Benchmark {
+
+    /** The converter service. */
+    private ConverterService converterService;
+
+    /** The form to convert. */
+    private Form form;
+
+    /** The target variant. */
+    private Variant variant;
+
+    /**
+     * Constructor.
+     * 
+     * @param name
+     *            The benchmark name, either "converter.toObject" or
+     *            "converter.toRepresentation".
+     */
+    public ConverterBenchmark(String name) {
+        super(name);
+    }
+
+    @Override
+    protected Object run() throws Exception {
+        if ("converter.toObject".equals(getName())) {
+            Representation source = new StringRepresentation(
+                    "name=Scott&city=Paris&lang=en&page=2",
+                    MediaType.APPLICATION_WWW_FORM);
+            return this.converterService.toObject(source, Form.class, null);
+        }
+
+        return this.converterService.toRepresentation(this.form, this.variant,
+                null);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        this.converterService = new ConverterService();
+        this.form = new Form("name=Scott&city=Paris&lang=en&page=2");
+        this.variant = new Variant(MediaType.APPLICATION_WWW_FORM);
+    }
+
+}
@@ -0,0 +1,127 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or or EPL 1.0 (the "Licenses"). You can
+ * select the license that you prefer but you may not use this file except in
+ * compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.bench;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.data.CacheDirective;
+import org.restlet.data.ChallengeResponse;
+import org.restlet.data.ChallengeScheme;
+import org.restlet.data.Header;
+import org.restlet.data.Language;
+import org.restlet.data.MediaType;
+import org.restlet.data.Method;
+import org.restlet.data.Preference;
+import org.restlet.data.Status;
+import org.restlet.data.Tag;
+import org.restlet.engine.header.HeaderReader;
+import org.restlet.engine.header.HeaderUtils;
+import org.restlet.engine.header.PreferenceReader;
+import org.restlet.representation.StringRepresentation;
+import org.restlet.util.Series;
+
+/**
+ * Benchmarks the parsing and formatting of HTTP headers.
+ * 
+ * @author Jerome Louvel
+ */
+public class HeaderBenchmark extends Benchmark {
+
+    /** A typical browser Accept header. */
+    private static final String ACCEPT = "text/html,application/xhtml+xml,application/xml;q=0.9,image/webp,*/*;q=0.8";
+
+    /** A raw header line. */
+    private static final String LINE = "Content-Type: text/html; charset=UTF-8";
+
+    /** The request whose headers are formatted. */
+    private Request request;
+
+    /** The response whose headers are formatted. */
+    private Response response;
+
+    /**
+     * Constructor.
+     * 
+     * @param name
+     *            The benchmark name, either "header.read.accept",
+     *            "header.read.line", "header.write.request" or
+     *            "header.write.response".
+     */
+    public HeaderBenchmark(String name) {
+        super(name);
+    }
+
+    @Override
+    protected Object run() throws Exception {
+        if ("header.read.accept".equals(getName())) {
+            List<Preference<MediaType>> result = new PreferenceReader<MediaType>(
+                    PreferenceReader.TYPE_MEDIA_TYPE, ACCEPT).readValues();
+            return result;
+        } else if ("header.read.line".equals(getName())) {
+            return HeaderReader.readHeader(LINE);
+        }
+
+        Series<Header> headers = new Series<Header>(Header.class);
+
+        if ("header.write.request".equals(getName())) {
+            HeaderUtils.addRequestHeaders(this.request, headers);
+        } else {
+            HeaderUtils.addResponseHeaders(this.response, headers);
+            HeaderUtils.addEntityHeaders(this.response.getEntity(), headers);
+        }
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream(512);
+
+        for (Header header : headers) {
+            HeaderUtils.writeHeaderLine(header, os);
+        }
+
+        return os;
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        this.request = new Request(Method.GET,
+                "http://www.example.com/app/users/123");
+        this.request.getClientInfo().setAgent("Restlet-Framework/2.3");
+        this.request.getClientInfo().accept(MediaType.APPLICATION_JSON);
+        this.request.getClientInfo().accept(MediaType.APPLICATION_XML, 0.9F);
+        this.request.getClientInfo().accept(Language.ENGLISH_US);
+        this.request.getConditions().getNoneMatch().add(new Tag("xyzzy"));
+        this.request.setChallengeResponse(new ChallengeResponse(
+                ChallengeScheme.HTTP_BASIC, "scott", "tiger"));
+
+        this.response = new Response(this.request);
+        this.response.setStatus(Status.SUCCESS_OK);
+        this.response.setEntity(new StringRepresentation(
+                "{\"id\":123,\"name\":\"Scott\"}", MediaType.APPLICATION_JSON));
+        this.response.getEntity().setTag(new Tag("xyzzy"));
+        this.response.getCacheDirectives().add(CacheDirective.maxAge(3600));
+    }
+
+}
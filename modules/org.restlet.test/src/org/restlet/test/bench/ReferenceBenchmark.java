@@ -0,0 +1,69 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or or EPL 1.0 (the "Licenses"). You can
+ * select the license that you prefer but you may not use this file except in
+ * compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.bench;
+
+import org.restlet.data.Reference;
+
+/**
+ * Benchmarks the parsing and resolution of references.
+ * 
+ * @author Jerome Louvel
+ */
+public class ReferenceBenchmark extends Benchmark {
+
+    /** The base reference used for resolution. */
+    private static final Reference BASE = new Reference(
+            "http://www.example.com:8182/app/v1/");
+
+    /** The absolute URI to parse. */
+    private static final String URI = "http://user@www.example.com:8182/app/v1/users/123/orders?sort=date&limit=20#top";
+
+    /**
+     * Constructor.
+     * 
+     * @param name
+     *            The benchmark name, either "reference.parse" or
+     *            "reference.resolve".
+     */
+    public ReferenceBenchmark(String name) {
+        super(name);
+    }
+
+    @Override
+    protected Object run() throws Exception {
+        if ("reference.parse".equals(getName())) {
+            Reference ref = new Reference(URI);
+            ref.getSchemeProtocol();
+            ref.getHostDomain();
+            ref.getHostPort();
+            ref.getQuery();
+            return ref.getPath();
+        }
+
+        return new Reference(BASE, "../v2/users/123?sort=date").getTargetRef()
+                .toString();
+    }
+
+}
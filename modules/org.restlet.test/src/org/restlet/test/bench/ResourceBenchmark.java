@@ -0,0 +1,70 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or or EPL 1.0 (the "Licenses"). You can
+ * select the license that you prefer but you may not use this file except in
+ * compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.bench;
+
+import org.restlet.Context;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.data.MediaType;
+import org.restlet.data.Method;
+import org.restlet.resource.Finder;
+
+/**
+ * Benchmarks the dispatch of calls to annotated methods of server resources,
+ * including their instantiation by a {@link Finder} and the content
+ * negotiation.
+ * 
+ * @author Jerome Louvel
+ */
+public class ResourceBenchmark extends Benchmark {
+
+    /** The finder of {@link HelloServerResource} instances. */
+    private Finder finder;
+
+    /**
+     * Constructor.
+     * 
+     * @param name
+     *            The benchmark name.
+     */
+    public ResourceBenchmark(String name) {
+        super(name);
+    }
+
+    @Override
+    protected Object run() throws Exception {
+        Request request = new Request(Method.GET, "http://localhost/hello");
+        request.getClientInfo().accept(MediaType.TEXT_PLAIN);
+        Response response = new Response(request);
+        this.finder.handle(request, response);
+        return response.getEntity();
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        this.finder = new Finder(new Context(), HelloServerResource.class);
+    }
+
+}
@@ -0,0 +1,111 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or or EPL 1.0 (the "Licenses"). You can
+ * select the license that you prefer but you may not use this file except in
+ * compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.bench;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.restlet.Context;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.data.Method;
+import org.restlet.data.Reference;
+import org.restlet.routing.Router;
+import org.restlet.routing.Template;
+
+/**
+ * Benchmarks the matching of URI templates and the selection of routes.
+ * 
+ * @author Jerome Louvel
+ */
+public class RoutingBenchmark extends Benchmark {
+
+    /** The resource collections attached to the router. */
+    private static final String[] COLLECTIONS = { "accounts", "addresses",
+            "carts", "categories", "comments", "customers", "invoices",
+            "orders", "payments", "products", "reviews", "users" };
+
+    /** The request to route. */
+    private Request request;
+
+    /** The response to route. */
+    private Response response;
+
+    /** The router. */
+    private Router router;
+
+    /** The template to match. */
+    private Template template;
+
+    /**
+     * Constructor.
+     * 
+     * @param name
+     *            The benchmark name, either "template.parse",
+     *            "router.first" or "router.best".
+     */
+    public RoutingBenchmark(String name) {
+        super(name);
+    }
+
+    @Override
+    protected Object run() throws Exception {
+        if ("template.parse".equals(getName())) {
+            Map<String, Object> variables = new HashMap<String, Object>();
+            this.template.parse("/users/scott/orders/1234", variables);
+            return variables;
+        }
+
+        return this.router.getNext(this.request, this.response);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        this.template = new Template("/users/{user}/orders/{order}");
+
+        Restlet target = new Restlet() {
+        };
+        this.router = new Router(new Context());
+
+        if ("router.best".equals(getName())) {
+            this.router.setRoutingMode(Router.MODE_BEST_MATCH);
+        }
+
+        // Typical REST API: collections, items and nested collections
+        for (String collection : COLLECTIONS) {
+            this.router.attach("/" + collection, target);
+            this.router.attach("/" + collection + "/{id}", target);
+            this.router.attach("/" + collection + "/{id}/comments", target);
+            this.router.attach("/" + collection + "/{id}/comments/{cid}",
+                    target);
+        }
+
+        this.request = new Request(Method.GET, new Reference(new Reference(
+                "http://localhost/api"), "/api/users/123/comments/456"));
+        this.response = new Response(this.request);
+    }
+
+}
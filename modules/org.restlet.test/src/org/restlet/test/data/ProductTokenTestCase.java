@@ -32,6 +32,7 @@ import org.restlet.data.ClientInfo;
 import org.restlet.data.Product;
 import org.restlet.engine.header.ProductReader;
 import org.restlet.engine.header.ProductWriter;
+import org.restlet.engine.util.UserAgentClassifier;
 import org.restlet.test.RestletTestCase;
 
 /**
@@ -215,4 +216,41 @@ public class ProductTokenTestCase extends RestletTestCase {
 
     }
 
+    public void testAgentAttributesCache() {
+        final String userAgent = "Mozilla/5.0 (X11; U; Linux i686; en-US; rv:1.8.1) Gecko/20061024 Iceweasel/2.0 (Debian-2.0+dfsg-1)";
+
+        ClientInfo clientInfo1 = new ClientInfo();
+        clientInfo1.setAgent(userAgent);
+        ClientInfo clientInfo2 = new ClientInfo();
+        clientInfo2.setAgent(userAgent);
+        assertEquals("Iceweasel", clientInfo1.getAgentAttributes().get("agentName"));
+        assertEquals(clientInfo1.getAgentAttributes(),
+                clientInfo2.getAgentAttributes());
+
+        // Each client info has its own modifiable copy
+        clientInfo1.getAgentAttributes().put("custom", "value");
+        assertFalse(clientInfo2.getAgentAttributes().containsKey("custom"));
+
+        // Unknown and null agents have no attributes
+        clientInfo1 = new ClientInfo();
+        clientInfo1.setAgent("");
+        assertTrue(clientInfo1.getAgentAttributes().isEmpty());
+        assertTrue(new ClientInfo().getAgentAttributes().isEmpty());
+
+        // The cache is bounded
+        List<String> patterns = new ArrayList<String>();
+        patterns.add("{agentName}/{agentVersion}");
+        UserAgentClassifier classifier = new UserAgentClassifier(patterns, 2);
+
+        for (int i = 0; i < 10; i++) {
+            Map<String, String> attributes = classifier.getAttributes("Agent"
+                    + i + "/1." + i);
+            assertEquals("Agent" + i, attributes.get("agentName"));
+            assertEquals("1." + i, attributes.get("agentVersion"));
+        }
+
+        assertSame(classifier.getAttributes("Agent9/1.9"),
+                classifier.getAttributes("Agent9/1.9"));
+    }
+
 }
@@ -25,6 +25,7 @@
 package org.restlet.test.engine;
 
 import java.util.List;
+import java.util.Map;
 
 import org.junit.Assert;
 import org.restlet.data.Method;
@@ -102,4 +103,57 @@ public class AnnotationUtilsTestCase extends RestletTestCase {
                 "Didn't find a method with IChild as the declaring class.",
                 true, found);
     }
+
+    public void testGetMethodAnnotations() {
+        List<AnnotationInfo> infos = AnnotationUtils.getInstance()
+                .getAnnotations(IChild.class);
+        Map<Method, List<MethodAnnotationInfo>> index = AnnotationUtils
+                .getInstance().getMethodAnnotations(IChild.class);
+        Assert.assertEquals(2, index.size());
+        Assert.assertNull(index.get(Method.POST));
+        int count = 0;
+
+        for (Map.Entry<Method, List<MethodAnnotationInfo>> entry : index
+                .entrySet()) {
+            for (MethodAnnotationInfo mai : entry.getValue()) {
+                Assert.assertEquals(entry.getKey(), mai.getRestletMethod());
+                Assert.assertTrue(infos.contains(mai));
+                count++;
+            }
+        }
+
+        Assert.assertEquals(infos.size(), count);
+        Assert.assertSame(index, AnnotationUtils.getInstance()
+                .getMethodAnnotations(IChild.class));
+    }
+
+    public void testInvoke() throws Exception {
+        final StringBuilder updates = new StringBuilder();
+        IChild child = new IChild() {
+            public String getType() {
+                return "myType";
+            }
+
+            public void update(String generic) {
+                updates.append(generic);
+            }
+        };
+
+        Map<Method, List<MethodAnnotationInfo>> index = AnnotationUtils
+                .getInstance().getMethodAnnotations(IChild.class);
+        MethodAnnotationInfo get = index.get(Method.GET).get(0);
+        MethodAnnotationInfo put = index.get(Method.PUT).get(0);
+
+        // Invoked twice to exercise the cached invoker
+        for (int i = 0; i < 2; i++) {
+            Assert.assertEquals("myType", get.invoke(child));
+            Assert.assertNull(put.invoke(child, "myUpdate"));
+        }
+
+        Assert.assertEquals("myUpdatemyUpdate", updates.toString());
+
+        // The resolved input types are protected against changes
+        put.getJavaInputTypes()[0] = Object.class;
+        Assert.assertEquals(String.class, put.getJavaInputTypes()[0]);
+    }
 }
@@ -24,9 +24,14 @@
 
 package org.restlet.test.engine;
 
+import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
 
 import org.restlet.engine.util.DateUtils;
+import org.restlet.engine.util.HttpDateCodec;
 import org.restlet.test.RestletTestCase;
 
 /**
@@ -54,6 +59,62 @@ public class DateTestCase extends RestletTestCase {
 
     private String DATE_RFC822_1 = "Fri, 12 Apr 85 23:20:50 GMT";
 
+    /**
+     * Tests the HTTP date codec against {@link SimpleDateFormat}.
+     */
+    public void testHttpDateCodec() throws Exception {
+        String[] formats = { DateUtils.FORMAT_RFC_1123.get(0),
+                DateUtils.FORMAT_RFC_1036.get(0),
+                DateUtils.FORMAT_ASC_TIME.get(0) };
+        Random random = new Random(42);
+
+        for (String format : formats) {
+            SimpleDateFormat sdf = new SimpleDateFormat(format, Locale.US);
+            sdf.setTimeZone(TimeZone.getTimeZone("GMT"));
+
+            for (int i = 0; i < 2000; i++) {
+                // Dates between 1900 and 2100, without milliseconds
+                long time = (long) (random.nextDouble() * 6311390400L - 2208988800L) * 1000L;
+
+                if (format.indexOf("yy ") != -1) {
+                    // Stay within the two-digit year window
+                    time = Math.abs(time) % 1500000000000L;
+                }
+
+                String expected = sdf.format(new Date(time));
+                assertEquals(expected, HttpDateCodec.format(time, format));
+                assertEquals(new Date(time),
+                        HttpDateCodec.parse(expected, format));
+            }
+        }
+
+        // Recent seconds are cached
+        long now = System.currentTimeMillis();
+        assertSame(HttpDateCodec.format(now, formats[0]),
+                HttpDateCodec.format(now, formats[0]));
+        assertEquals(DateUtils.format(new Date()).length(), HttpDateCodec
+                .formatCurrentDate().length());
+
+        // Variants and unsupported inputs
+        assertEquals(DateUtils.parse(DATE_RFC1036_1, DateUtils.FORMAT_RFC_1036),
+                HttpDateCodec.parse("Fri, 12-Apr-1985 23:20:50 GMT",
+                        formats[1]));
+        assertEquals(DateUtils.parse(DATE_ASC_1, DateUtils.FORMAT_ASC_TIME),
+                HttpDateCodec.parse("fri apr 12 23:20:50 1985", formats[2]));
+        assertEquals(new Date(784111777000L), HttpDateCodec.parse(
+                "Sun Nov  6 08:49:37 1994", formats[2]));
+        assertNull(HttpDateCodec.parse("Fri, 30 Feb 1985 23:20:50 GMT",
+                formats[0]));
+        assertNull(HttpDateCodec.parse("Fri, 12 Apr 1985 23:20:50 PST",
+                formats[0]));
+        assertNull(HttpDateCodec.parse("Fri, 12 Apr 1985 23:20:50 GMT",
+                DateUtils.FORMAT_RFC_3339.get(0)));
+        assertNull(HttpDateCodec.format(now, DateUtils.FORMAT_RFC_3339.get(0)));
+
+        // Left to SimpleDateFormat
+        assertNotNull(DateUtils.parse("Fri, 12 Apr 1985 23:20:50 PST"));
+    }
+
     /**
      * Tests for dates in the RFC 822 format.
      */
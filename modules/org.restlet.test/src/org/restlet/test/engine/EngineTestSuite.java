@@ -30,7 +30,10 @@ import junit.framework.TestSuite;
 import org.restlet.test.engine.connector.ConnectorsTestSuite;
 import org.restlet.test.engine.io.BioUtilsTestCase;
 import org.restlet.test.engine.io.ReaderInputStreamTestCase;
+import org.restlet.test.engine.io.RingBufferPipeTestCase;
+import org.restlet.test.engine.log.AccessLogWriterTestCase;
 import org.restlet.test.engine.util.Base64TestCase;
+import org.restlet.test.engine.util.HeaderSeriesTestCase;
 
 /**
  * Suite of unit tests for the Restlet Framework.
@@ -51,6 +54,7 @@ public class EngineTestSuite extends TestSuite {
     /** Constructor. */
     public EngineTestSuite() {
         super("Engine package");
+        addTestSuite(AccessLogWriterTestCase.class);
         addTestSuite(AlphaNumericComparatorTestCase.class);
         addTestSuite(AnnotationUtilsTestCase.class);
         addTestSuite(Base64TestCase.class);
@@ -58,12 +62,14 @@ public class EngineTestSuite extends TestSuite {
         addTestSuite(CookiesTestCase.class);
         addTestSuite(ContentTypeTestCase.class);
         addTestSuite(HeaderTestCase.class);
+        addTestSuite(HeaderSeriesTestCase.class);
         addTestSuite(HttpCallTestCase.class);
         addTestSuite(ImmutableDateTestCase.class);
         addTestSuite(UnclosableInputStreamTestCase.class);
         addTestSuite(UnclosableOutputStreamTestCase.class);
         addTestSuite(PreferencesTestCase.class);
         addTestSuite(ReaderInputStreamTestCase.class);
+        addTestSuite(RingBufferPipeTestCase.class);
 
         // Tests based on HTTP client connectors are not supported by the GAE
         // edition.
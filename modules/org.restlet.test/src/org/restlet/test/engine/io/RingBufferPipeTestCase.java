@@ -0,0 +1,153 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or or EPL 1.0 (the "Licenses"). You can
+ * select the license that you prefer but you may not use this file except in
+ * compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.engine.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.Arrays;
+
+import org.restlet.data.MediaType;
+import org.restlet.engine.io.IoUtils;
+import org.restlet.engine.io.RingBufferPipe;
+import org.restlet.representation.OutputRepresentation;
+import org.restlet.representation.Representation;
+import org.restlet.representation.WriterRepresentation;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Test the {@link RingBufferPipe} and the conversions from writer
+ * representations to streams that rely on it.
+ * 
+ * @author Jerome Louvel
+ */
+public class RingBufferPipeTestCase extends RestletTestCase {
+
+    /** The exception thrown by the writer thread of the transfer test. */
+    private volatile IOException writerException;
+
+    public void testCapacity() {
+        assertEquals(16, new RingBufferPipe(10, 0).getCapacity());
+        assertEquals(1024, new RingBufferPipe(1024, 0).getCapacity());
+    }
+
+    public void testClosedReader() throws Exception {
+        RingBufferPipe pipe = new RingBufferPipe(16, 5000);
+        pipe.getInputStream().close();
+
+        try {
+            pipe.getOutputStream().write(new byte[32]);
+            fail("An IOException should have been thrown");
+        } catch (IOException e) {
+            // Expected
+        }
+    }
+
+    public void testOutputRepresentation() throws IOException {
+        final byte[] content = new byte[1000];
+
+        Representation rep = new OutputRepresentation(
+                MediaType.APPLICATION_OCTET_STREAM) {
+            @Override
+            public void write(OutputStream outputStream) throws IOException {
+                for (int i = 0; i < 500; i++) {
+                    Arrays.fill(content, (byte) i);
+                    outputStream.write(content);
+                }
+            }
+        };
+
+        InputStream is = IoUtils.getStream(rep, 64);
+        byte[] buffer = new byte[777];
+        long count = 0;
+        int read;
+
+        while ((read = is.read(buffer)) != -1) {
+            for (int i = 0; i < read; i++) {
+                assertEquals((byte) ((count + i) / 1000), buffer[i]);
+            }
+
+            count += read;
+        }
+
+        is.close();
+        assertEquals(500000, count);
+    }
+
+    public void testTransfer() throws Exception {
+        final RingBufferPipe pipe = new RingBufferPipe(100, 5000);
+        final int size = 1000000;
+
+        Thread writer = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    OutputStream os = pipe.getOutputStream();
+
+                    for (int i = 0; i < size; i++) {
+                        os.write(i);
+                    }
+
+                    os.close();
+                } catch (IOException e) {
+                    writerException = e;
+                }
+            }
+        };
+        writer.start();
+
+        InputStream is = pipe.getInputStream();
+        int count = 0;
+        int b;
+
+        while ((b = is.read()) != -1) {
+            assertEquals(count & 0xff, b);
+            count++;
+        }
+
+        writer.join();
+        assertNull(this.writerException);
+        assertEquals(size, count);
+    }
+
+    public void testWriterRepresentation() throws IOException {
+        final StringBuilder expected = new StringBuilder();
+
+        for (int i = 0; i < 20000; i++) {
+            expected.append(i).append('\n');
+        }
+
+        Representation rep = new WriterRepresentation(MediaType.TEXT_PLAIN) {
+            @Override
+            public void write(Writer writer) throws IOException {
+                writer.write(expected.toString());
+            }
+        };
+
+        assertEquals(expected.toString(), rep.getText());
+    }
+
+}
@@ -0,0 +1,246 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or or EPL 1.0 (the "Licenses"). You can
+ * select the license that you prefer but you may not use this file except in
+ * compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.engine.log;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.data.Method;
+import org.restlet.data.Status;
+import org.restlet.engine.io.IoUtils;
+import org.restlet.engine.log.AccessLogWriter;
+import org.restlet.representation.StringRepresentation;
+import org.restlet.service.LogService;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Test the {@link AccessLogWriter} and its use by the {@link LogService}.
+ * 
+ * @author Jerome Louvel
+ */
+public class AccessLogWriterTestCase extends RestletTestCase {
+
+    /** Exposes the default log message. */
+    private static class TestLogService extends LogService {
+        public String getDefaultMessage(Response response, int duration) {
+            return getDefaultResponseLogMessage(response, duration);
+        }
+    }
+
+    private File directory;
+
+    private List<String> readLines(File file) throws IOException {
+        return Files.readAllLines(file.toPath(), Charset.forName("UTF-8"));
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        this.directory = new File(System.getProperty("java.io.tmpdir"),
+                "restlet-accesslog-" + System.nanoTime());
+        this.directory.mkdirs();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        IoUtils.delete(this.directory, true);
+        super.tearDown();
+    }
+
+    public void testConcurrentWrites() throws Exception {
+        final AccessLogWriter writer = new AccessLogWriter(new File(
+                this.directory, "access.log"), 16);
+        writer.setBlocking(true);
+        writer.start();
+
+        Thread[] threads = new Thread[4];
+
+        for (int i = 0; i < threads.length; i++) {
+            final int id = i;
+            threads[i] = new Thread() {
+                public void run() {
+                    for (int j = 0; j < 1000; j++) {
+                        writer.write("entry " + id + " " + j);
+                    }
+                }
+            };
+            threads[i].start();
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        writer.stop();
+        assertFalse(writer.isRunning());
+        assertEquals(0, writer.getDroppedCount());
+        assertEquals(4000, readLines(writer.getFile()).size());
+    }
+
+    public void testDefaultFormat() throws Exception {
+        File file = new File(this.directory, "access.log");
+        TestLogService logService = new TestLogService();
+        logService.setAccessLogWriter(new AccessLogWriter(file));
+        logService.start();
+
+        Request request = new Request(Method.POST,
+                "http://localhost:8182/path/resource?a=b");
+        request.getClientInfo().setAgent("TestAgent/1.0");
+        request.setEntity(new StringRepresentation("request"));
+        Response response = new Response(request);
+        response.setStatus(Status.SUCCESS_CREATED);
+        response.setEntity(new StringRepresentation("response"));
+
+        assertTrue(logService.writeResponseLog(response, 12));
+        String expected = logService.getDefaultMessage(response, 12);
+        logService.stop();
+
+        List<String> lines = readLines(file);
+        assertEquals(1, lines.size());
+
+        // Skip the date and time which may differ
+        String[] actualFields = lines.get(0).split("\t");
+        String[] expectedFields = expected.split("\t");
+        assertEquals(16, actualFields.length);
+        assertEquals(expectedFields.length, actualFields.length);
+
+        for (int i = 2; i < actualFields.length; i++) {
+            assertEquals(expectedFields[i], actualFields[i]);
+        }
+
+        assertEquals("POST", actualFields[6]);
+        assertEquals("/path/resource", actualFields[7]);
+        assertEquals("a=b", actualFields[8]);
+        assertEquals("201", actualFields[9]);
+        assertEquals("8", actualFields[10]);
+        assertEquals("7", actualFields[11]);
+        assertEquals("12", actualFields[12]);
+        assertEquals("TestAgent/1.0", actualFields[14]);
+        assertTrue(actualFields[0].matches("\\d{4}-\\d{2}-\\d{2}"));
+        assertTrue(actualFields[1].matches("\\d{2}:\\d{2}:\\d{2}"));
+    }
+
+    public void testDrop() throws Exception {
+        AccessLogWriter writer = new AccessLogWriter(new File(this.directory,
+                "access.log"), 4);
+
+        // Entries are dropped when the writer isn't running
+        assertFalse(writer.write("entry"));
+        assertEquals(1, writer.getDroppedCount());
+
+        writer.start();
+        assertTrue(writer.write("entry"));
+        writer.stop();
+        writer.stop();
+        assertFalse(writer.write("entry"));
+        assertEquals(2, writer.getDroppedCount());
+        assertEquals(1, readLines(writer.getFile()).size());
+    }
+
+    public void testDropWhileStopping() throws Exception {
+        final AccessLogWriter writer = new AccessLogWriter(new File(
+                this.directory, "access.log"), 1024);
+        writer.start();
+
+        final AtomicInteger accepted = new AtomicInteger();
+        Thread[] threads = new Thread[4];
+
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+                public void run() {
+                    for (int j = 0; j < 10000; j++) {
+                        if (writer.write("entry")) {
+                            accepted.incrementAndGet();
+                        }
+                    }
+                }
+            };
+            threads[i].start();
+        }
+
+        writer.stop();
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // Each entry is either written or counted as dropped
+        assertEquals(40000, accepted.get() + writer.getDroppedCount());
+        assertEquals(accepted.get(), readLines(writer.getFile()).size());
+    }
+
+    public void testRotation() throws Exception {
+        File file = new File(this.directory, "access.log");
+        AccessLogWriter writer = new AccessLogWriter(file);
+        writer.setLimit(100);
+        writer.setCount(3);
+
+        for (int i = 0; i < 10; i++) {
+            writer.start();
+            writer.write("entry " + i + " of the access log file");
+            writer.stop();
+        }
+
+        assertTrue(file.exists());
+        assertTrue(new File(this.directory, "access.log.1").exists());
+        assertTrue(new File(this.directory, "access.log.2").exists());
+        assertFalse(new File(this.directory, "access.log.3").exists());
+
+        // The most recent entries are in the current file
+        List<String> lines = readLines(file);
+        assertEquals("entry 9 of the access log file",
+                lines.get(lines.size() - 1));
+        assertTrue(file.length() <= 100);
+    }
+
+    public void testSetWriterAfterStart() throws Exception {
+        LogService logService = new LogService();
+        logService.start();
+
+        AccessLogWriter first = new AccessLogWriter(new File(this.directory,
+                "first.log"));
+        logService.setAccessLogWriter(first);
+        assertTrue(first.isRunning());
+        assertTrue(first.write("entry"));
+
+        AccessLogWriter second = new AccessLogWriter(new File(
+                this.directory, "second.log"));
+        logService.setAccessLogWriter(second);
+        assertFalse(first.isRunning());
+        assertTrue(second.isRunning());
+
+        logService.stop();
+        assertFalse(second.isRunning());
+        assertEquals(0, first.getDroppedCount());
+        assertEquals(1, readLines(first.getFile()).size());
+    }
+
+}
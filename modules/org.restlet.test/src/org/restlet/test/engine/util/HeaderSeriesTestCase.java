@@ -0,0 +1,164 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or or EPL 1.0 (the "Licenses"). You can
+ * select the license that you prefer but you may not use this file except in
+ * compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.engine.util;
+
+import java.util.Iterator;
+import java.util.List;
+
+import org.restlet.data.Header;
+import org.restlet.engine.header.HeaderConstants;
+import org.restlet.engine.util.HeaderSeries;
+import org.restlet.test.RestletTestCase;
+import org.restlet.util.Series;
+
+/**
+ * Unit tests for the {@link HeaderSeries} class.
+ * 
+ * @author Jerome Louvel
+ */
+public class HeaderSeriesTestCase extends RestletTestCase {
+
+    private HeaderSeries headers;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        this.headers = new HeaderSeries();
+        this.headers.add("Host", "localhost");
+        this.headers.add("accept", "text/html");
+        this.headers.add("X-Custom", "1");
+        this.headers.add("Accept", "application/json");
+        this.headers.add("x-custom", "2");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        this.headers = null;
+        super.tearDown();
+    }
+
+    public void testAppends() {
+        HeaderSeries series = new HeaderSeries();
+        Series<Header> expected = new Series<Header>(Header.class);
+
+        // Lookups interleaved with appends, growing the index
+        for (int i = 0; i < 200; i++) {
+            String name = "X-Header-" + (i % 53);
+            series.add(name, Integer.toString(i));
+            expected.add(name, Integer.toString(i));
+            assertEquals(expected.getValues(name),
+                    series.getValues(name.toLowerCase()));
+        }
+
+        for (int i = 0; i < 53; i++) {
+            String name = "X-HEADER-" + i;
+            assertEquals(expected.getValues(name, ",", true),
+                    series.getValues(name, ",", true));
+        }
+
+        series.addAll(this.headers);
+        assertEquals("text/html,application/json",
+                series.getValues(HeaderConstants.HEADER_ACCEPT, ",", true));
+
+        // Other modifications followed by an append
+        series.remove(0);
+        series.add("X-Header-0", "last");
+        assertEquals("53,106,159,last", series.getValues("X-Header-0"));
+    }
+
+    public void testGetFirst() {
+        assertEquals("text/html",
+                this.headers.getFirstValue(HeaderConstants.HEADER_ACCEPT, true));
+        assertEquals("application/json",
+                this.headers.getFirstValue(HeaderConstants.HEADER_ACCEPT));
+        assertEquals("2", this.headers.getFirstValue("x-custom"));
+        assertEquals("1", this.headers.getFirstValue("X-CUSTOM", true));
+        assertNull(this.headers.getFirst("X-CUSTOM"));
+        assertNull(this.headers.getFirst("Missing", true));
+    }
+
+    public void testGetValues() {
+        assertEquals("text/html,application/json",
+                this.headers.getValues(HeaderConstants.HEADER_ACCEPT));
+        assertEquals("1", this.headers.getValues("X-Custom", ",", false));
+        assertNull(this.headers.getValues("Missing"));
+    }
+
+    public void testManyHeaders() {
+        HeaderSeries series = new HeaderSeries();
+        Series<Header> expected = new Series<Header>(Header.class);
+
+        for (int i = 0; i < 200; i++) {
+            String name = "X-Header-" + (i % 37);
+            series.add(name, Integer.toString(i));
+            expected.add(name, Integer.toString(i));
+        }
+
+        for (int i = 0; i < 37; i++) {
+            String name = "x-header-" + i;
+            assertEquals(expected.getValues(name), series.getValues(name));
+            assertEquals(expected.subList(name, true),
+                    series.subList(name, true));
+        }
+    }
+
+    public void testModifications() {
+        assertEquals("localhost", this.headers.getFirstValue("host", true));
+
+        this.headers.set(0, new Header("Host", "example.com"));
+        assertEquals("example.com", this.headers.getFirstValue("host", true));
+
+        this.headers.removeAll(HeaderConstants.HEADER_ACCEPT, true);
+        assertNull(this.headers.getFirst("accept", true));
+        assertEquals("1", this.headers.getFirstValue("x-custom", true));
+
+        for (Iterator<Header> iter = this.headers.iterator(); iter.hasNext();) {
+            if ("1".equals(iter.next().getValue())) {
+                iter.remove();
+            }
+        }
+
+        assertEquals("2", this.headers.getFirstValue("X-Custom", true));
+
+        List<Header> view = this.headers.subList(0, 1);
+        view.set(0, new Header("Via", "proxy"));
+        assertNull(this.headers.getFirst("host", true));
+        assertEquals("proxy", this.headers.getFirstValue("via", true));
+
+        this.headers.clear();
+        assertNull(this.headers.getFirst("via", true));
+        this.headers.add(0, new Header("VIA", "other"));
+        assertEquals("other", this.headers.getFirstValue("via", true));
+    }
+
+    public void testSubList() {
+        Series<Header> accept = this.headers.subList("ACCEPT", true);
+        assertEquals(2, accept.size());
+        assertEquals("text/html", accept.get(0).getValue());
+        assertEquals("application/json", accept.get(1).getValue());
+        assertEquals(1, this.headers.subList("accept").size());
+    }
+
+}
@@ -0,0 +1,116 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or or EPL 1.0 (the "Licenses"). You can
+ * select the license that you prefer but you may not use this file except in
+ * compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.ext.apispark;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.restlet.ext.apispark.internal.firewall.rule.counter.Counter;
+import org.restlet.ext.apispark.internal.firewall.rule.counter.PeriodicCounter;
+import org.restlet.ext.apispark.internal.firewall.rule.counter.SlidingWindowCounter;
+import org.restlet.ext.apispark.internal.firewall.rule.counter.TokenBucketCounter;
+
+/**
+ * Measures the throughput of the firewall counters when a single counted
+ * value is incremented by several threads at the same time. Usage: java
+ * FirewallCounterBenchmark [threads] [seconds].
+ * 
+ * @author Guillaume Blondeau
+ */
+public class FirewallCounterBenchmark {
+
+    /**
+     * Increments a counter from several threads during a given duration.
+     * 
+     * @param counter
+     *            The counter to increment.
+     * @param threads
+     *            The number of threads.
+     * @param duration
+     *            The duration in milliseconds.
+     * @return The number of increments per second.
+     */
+    private static long measure(final Counter counter, int threads,
+            long duration) throws InterruptedException {
+        final AtomicLong operations = new AtomicLong();
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(threads);
+        final long end = System.nanoTime()
+                + TimeUnit.MILLISECONDS.toNanos(duration);
+
+        for (int i = 0; i < threads; i++) {
+            new Thread() {
+                @Override
+                public void run() {
+                    long count = 0;
+
+                    try {
+                        start.await();
+
+                        while (System.nanoTime() - end < 0) {
+                            for (int j = 0; j < 1000; j++) {
+                                counter.increment();
+                            }
+
+                            count += 1000;
+                        }
+                    } catch (InterruptedException e) {
+                        // Stop measuring
+                    } finally {
+                        operations.addAndGet(count);
+                        done.countDown();
+                    }
+                }
+            }.start();
+        }
+
+        start.countDown();
+        done.await();
+        return operations.get() * 1000L / duration;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int threads = (args.length > 0) ? Integer.parseInt(args[0]) : Runtime
+                .getRuntime().availableProcessors();
+        long duration = TimeUnit.SECONDS.toMillis((args.length > 1) ? Long
+                .parseLong(args[1]) : 5L);
+
+        for (int round = 0; round < 2; round++) {
+            // The first round warms up the JIT compiler
+            System.out.println((round == 0) ? "Warm-up" : "Measurement");
+            System.out.println("PeriodicCounter: "
+                    + measure(new PeriodicCounter(3600), threads, duration)
+                    + " ops/s");
+            System.out.println("SlidingWindowCounter: "
+                    + measure(new SlidingWindowCounter(3600), threads,
+                            duration) + " ops/s");
+            System.out.println("TokenBucketCounter: "
+                    + measure(new TokenBucketCounter(3600, Integer.MAX_VALUE),
+                            threads, duration) + " ops/s");
+        }
+    }
+
+}
@@ -0,0 +1,157 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or or EPL 1.0 (the "Licenses"). You can
+ * select the license that you prefer but you may not use this file except in
+ * compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.ext.apispark;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.data.Method;
+import org.restlet.ext.apispark.internal.firewall.handler.BlockingHandler;
+import org.restlet.ext.apispark.internal.firewall.handler.policy.UniqueLimitPolicy;
+import org.restlet.ext.apispark.internal.firewall.rule.CounterResult;
+import org.restlet.ext.apispark.internal.firewall.rule.FirewallCounterRule;
+import org.restlet.ext.apispark.internal.firewall.rule.SlidingWindowFirewallCounterRule;
+import org.restlet.ext.apispark.internal.firewall.rule.TokenBucketFirewallCounterRule;
+import org.restlet.ext.apispark.internal.firewall.rule.counter.Counter;
+import org.restlet.ext.apispark.internal.firewall.rule.counter.SlidingWindowCounter;
+import org.restlet.ext.apispark.internal.firewall.rule.counter.TokenBucketCounter;
+import org.restlet.ext.apispark.internal.firewall.rule.policy.IpAddressCountingPolicy;
+import org.restlet.routing.Filter;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Test case for the firewall counters.
+ * 
+ * @author Guillaume Blondeau
+ */
+public class FirewallCounterTestCase extends RestletTestCase {
+
+    /**
+     * Increments a counter from several threads at the same time.
+     * 
+     * @param counter
+     *            The counter to increment.
+     * @param threads
+     *            The number of threads.
+     * @param increments
+     *            The number of increments per thread.
+     * @param limit
+     *            The limit under which an increment is accepted.
+     * @return The number of accepted increments.
+     */
+    private int increment(final Counter counter, int threads,
+            final int increments, final int limit) throws Exception {
+        final AtomicInteger accepted = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(threads);
+
+        for (int i = 0; i < threads; i++) {
+            new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+
+                        for (int j = 0; j < increments; j++) {
+                            if (counter.increment().getConsumed() <= limit) {
+                                accepted.incrementAndGet();
+                            }
+                        }
+                    } catch (InterruptedException e) {
+                        // Stop counting
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }.start();
+        }
+
+        start.countDown();
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        return accepted.get();
+    }
+
+    public void testSlidingWindowCounter() throws Exception {
+        Counter counter = new SlidingWindowCounter(3600);
+        CounterResult result = counter.increment();
+        assertEquals(1, result.getConsumed());
+        assertTrue(result.getReset() > System.currentTimeMillis() / 1000L);
+
+        increment(counter, 8, 1000, Integer.MAX_VALUE);
+        result = counter.increment();
+
+        // Unless the test runs across the end of the period
+        assertTrue(result.getConsumed() > 8000);
+    }
+
+    public void testTokenBucketCounter() throws Exception {
+        Counter counter = new TokenBucketCounter(3600, 100);
+
+        for (int i = 1; i <= 100; i++) {
+            assertEquals(i, counter.increment().getConsumed());
+        }
+
+        // Empty bucket, rejected requests don't consume tokens
+        assertEquals(101, counter.increment().getConsumed());
+        assertEquals(101, counter.increment().getConsumed());
+
+        // Concurrent requests can't consume more than the capacity
+        counter = new TokenBucketCounter(3600, 1000);
+        int accepted = increment(counter, 8, 500, 1000);
+        assertTrue(accepted >= 1000);
+        assertTrue(accepted <= 1001);
+    }
+
+    public void testTokenBucketRule() {
+        FirewallCounterRule rule = new TokenBucketFirewallCounterRule(1,
+                TimeUnit.HOURS, 2, new IpAddressCountingPolicy());
+        rule.addHandler(new BlockingHandler(new UniqueLimitPolicy(2)));
+
+        assertEquals(Filter.CONTINUE, handle(rule, "1.2.3.4"));
+        assertEquals(Filter.CONTINUE, handle(rule, "1.2.3.4"));
+        assertEquals(Filter.SKIP, handle(rule, "1.2.3.4"));
+        assertEquals(Filter.CONTINUE, handle(rule, "5.6.7.8"));
+    }
+
+    public void testSlidingWindowRule() {
+        FirewallCounterRule rule = new SlidingWindowFirewallCounterRule(1,
+                TimeUnit.HOURS, new IpAddressCountingPolicy());
+        rule.addHandler(new BlockingHandler(new UniqueLimitPolicy(1)));
+
+        assertEquals(Filter.CONTINUE, handle(rule, "1.2.3.4"));
+        assertEquals(Filter.SKIP, handle(rule, "1.2.3.4"));
+        assertEquals(Filter.CONTINUE, handle(rule, "5.6.7.8"));
+    }
+
+    private int handle(FirewallCounterRule rule, String address) {
+        Request request = new Request(Method.GET, "http://localhost/");
+        request.getClientInfo().setAddress(address);
+        return rule.beforeHandle(request, new Response(request));
+    }
+
+}
@@ -24,11 +24,14 @@
 
 package org.restlet.test.ext.crypto;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.restlet.Application;
 import org.restlet.Component;
 import org.restlet.Request;
 import org.restlet.Response;
 import org.restlet.Restlet;
+import org.restlet.data.ChallengeResponse;
 import org.restlet.data.CookieSetting;
 import org.restlet.data.Form;
 import org.restlet.data.MediaType;
@@ -48,10 +51,21 @@ public class CookieAuthenticatorTestCase extends RestletTestCase {
 
     public class CookieGuardedApplication extends Application {
 
+        private volatile CookieAuthenticator authenticator;
+
+        private final AtomicInteger parsedCount = new AtomicInteger();
+
         @Override
         public Restlet createInboundRoot() {
             CookieAuthenticator co = new CookieAuthenticator(getContext(),
-                    false, "My cookie realm", "MyExtraSecretKey".getBytes());
+                    false, "My cookie realm", "MyExtraSecretKey".getBytes()) {
+                @Override
+                protected ChallengeResponse parseCredentials(String cookieValue) {
+                    parsedCount.incrementAndGet();
+                    return super.parseCredentials(cookieValue);
+                }
+            };
+            this.authenticator = co;
 
             MapVerifier mapVerifier = new MapVerifier();
             mapVerifier.getLocalSecrets().put("scott", "tiger".toCharArray());
@@ -118,4 +132,52 @@ public class CookieAuthenticatorTestCase extends RestletTestCase {
         cs = logoutCr.getCookieSettings().getFirst("Credentials");
         assertEquals(0, cs.getMaxAge());
     }
+
+    public void testCredentialsCache() {
+        CookieGuardedApplication cga = new CookieGuardedApplication();
+        Component c = new Component();
+        c.getDefaultHost().attachDefault(cga);
+        ClientResource cr = new ClientResource("http://toto.com/");
+        cr.setNext(c);
+
+        ClientResource loginCr = cr.getChild("/login");
+        Form loginForm = new Form();
+        loginForm.add("login", "scott");
+        loginForm.add("password", "tiger");
+        loginCr.post(loginForm);
+        CookieSetting cs = loginCr.getCookieSettings().getFirst("Credentials");
+        cr.getCookies().add(cs.getName(), cs.getValue());
+
+        // The second call reuses the decrypted credentials
+        assertEquals("Hello, world!", cr.get(String.class));
+        assertEquals(1, cga.parsedCount.get());
+        assertEquals("Hello, world!", cr.get(String.class));
+        assertEquals(1, cga.parsedCount.get());
+
+        // Changing the secret key invalidates the cached credentials
+        cga.authenticator.setEncryptSecretKey("MyOtherSecretKey".getBytes());
+
+        try {
+            cr.get();
+            fail("A resource exception should have been thrown");
+        } catch (ResourceException re) {
+            assertEquals(Status.CLIENT_ERROR_UNAUTHORIZED, re.getStatus());
+        }
+
+        assertEquals(2, cga.parsedCount.get());
+
+        // The verifier is still invoked for cached credentials
+        cga.authenticator.setEncryptSecretKey("MyExtraSecretKey".getBytes());
+        assertEquals("Hello, world!", cr.get(String.class));
+        assertEquals(3, cga.parsedCount.get());
+        ((MapVerifier) cga.authenticator.getVerifier()).getLocalSecrets()
+                .remove("scott");
+
+        try {
+            cr.get();
+            fail("A resource exception should have been thrown");
+        } catch (ResourceException re) {
+            assertEquals(Status.CLIENT_ERROR_UNAUTHORIZED, re.getStatus());
+        }
+    }
 }
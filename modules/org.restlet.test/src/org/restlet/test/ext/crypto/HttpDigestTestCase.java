@@ -57,6 +57,8 @@ public class HttpDigestTestCase extends RestletTestCase {
     private int port;
 
     private static class MyApplication extends Application {
+        private static volatile DigestAuthenticator authenticator;
+
         @Override
         public Restlet createInboundRoot() {
             Router router = new Router(getContext());
@@ -66,6 +68,7 @@ public class HttpDigestTestCase extends RestletTestCase {
             MapVerifier mapVerifier = new MapVerifier();
             mapVerifier.getLocalSecrets().put("scott", "tiger".toCharArray());
             da.setWrappedVerifier(mapVerifier);
+            authenticator = da;
 
             Restlet restlet = new Restlet(getContext()) {
                 @Override
@@ -134,4 +137,39 @@ public class HttpDigestTestCase extends RestletTestCase {
             assertTrue(cr.getStatus().isSuccess());
         }
     }
+
+    @Test
+    public void testNextNonce() throws Exception {
+        MyApplication.authenticator.setMaxServerNonceAge(2000);
+        ClientResource cr = new ClientResource("http://localhost:" + port + "/");
+
+        try {
+            cr.get();
+            fail("A resource exception should have been thrown");
+        } catch (ResourceException re) {
+            assertEquals(Status.CLIENT_ERROR_UNAUTHORIZED, cr.getStatus());
+        }
+
+        ChallengeRequest c1 = cr.getChallengeRequests().get(0);
+        cr.setChallengeResponse(new ChallengeResponse(c1, cr.getResponse(),
+                "scott", "tiger".toCharArray()));
+        cr.get();
+        assertTrue(cr.getStatus().isSuccess());
+        assertNull(cr.getResponse().getAuthenticationInfo());
+
+        // Past half of its lifespan, the nonce is rolled over
+        Thread.sleep(1100);
+        cr.get();
+        assertTrue(cr.getStatus().isSuccess());
+        String nextNonce = cr.getResponse().getAuthenticationInfo()
+                .getNextServerNonce();
+        assertNotNull(nextNonce);
+        assertFalse(nextNonce.equals(c1.getServerNonce()));
+
+        // The next nonce is accepted without a new challenge
+        cr.getChallengeResponse().setServerNonce(nextNonce);
+        cr.get();
+        assertTrue(cr.getStatus().isSuccess());
+        assertNull(cr.getResponse().getAuthenticationInfo());
+    }
 }
@@ -0,0 +1,106 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or or EPL 1.0 (the "Licenses"). You can
+ * select the license that you prefer but you may not use this file except in
+ * compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.ext.crypto;
+
+import org.restlet.ext.crypto.internal.NonceCache;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Unit test for the {@link NonceCache} class.
+ * 
+ * @author Jerome Louvel
+ */
+public class NonceCacheTestCase extends RestletTestCase {
+
+    public void testExpiration() throws Exception {
+        NonceCache cache = new NonceCache(100, NonceCache.DEFAULT_MAX_SIZE);
+        long time = System.currentTimeMillis();
+        assertTrue(cache.record("a", time, 1));
+        assertEquals(1, cache.size());
+        Thread.sleep(250);
+
+        // Recording a nonce turns the wheel
+        assertTrue(cache.record("b", time + 1, 1));
+        assertEquals(1, cache.size());
+
+        // Expired nonces aren't accepted again with a fresh window
+        assertFalse(cache.record("a", time, 2));
+        assertEquals(1, cache.size());
+    }
+
+    public void testMaxSize() {
+        NonceCache cache = new NonceCache(60000, 100);
+        long time = System.currentTimeMillis();
+
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(cache.record("nonce" + i, time + i, 1));
+        }
+
+        assertTrue(cache.size() <= 100);
+
+        // Evicted nonces are stale, recent ones are still tracked
+        assertFalse(cache.record("nonce0", time, 2));
+        assertFalse(cache.record("nonce999", time + 999, 1));
+        assertTrue(cache.record("nonce999", time + 999, 2));
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+
+    public void testNextNonce() {
+        NonceCache cache = new NonceCache(60000, NonceCache.DEFAULT_MAX_SIZE);
+        long time = System.currentTimeMillis();
+
+        // Unknown nonces have no next nonce
+        assertEquals("b", cache.setNextNonce("a", "b"));
+        assertNull(cache.getNextNonce("a"));
+
+        assertTrue(cache.record("a", time, 1));
+        assertNull(cache.getNextNonce("a"));
+        assertEquals("b", cache.setNextNonce("a", "b"));
+        assertEquals("b", cache.setNextNonce("a", "c"));
+        assertEquals("b", cache.getNextNonce("a"));
+    }
+
+    public void testRecord() {
+        NonceCache cache = new NonceCache(60000, NonceCache.DEFAULT_MAX_SIZE);
+        long time = System.currentTimeMillis();
+        assertTrue(cache.record("a", time, 1));
+        assertFalse(cache.record("a", time, 1));
+        assertTrue(cache.record("a", time, 3));
+
+        // Out of order counts are accepted once
+        assertTrue(cache.record("a", time, 2));
+        assertFalse(cache.record("a", time, 2));
+        assertTrue(cache.record("a", time, 100));
+        assertFalse(cache.record("a", time, 3));
+        assertTrue(cache.record("a", time, 99));
+
+        // Unknown nonces are added on first use
+        assertTrue(cache.record("b", time, 1));
+        assertFalse(cache.record("b", time, 1));
+        assertEquals(2, cache.size());
+    }
+
+}
@@ -29,12 +29,17 @@ import java.io.FileWriter;
 import java.util.Map;
 import java.util.TreeMap;
 
+import org.restlet.data.LocalReference;
 import org.restlet.data.MediaType;
+import org.restlet.data.Reference;
 import org.restlet.engine.io.IoUtils;
+import org.restlet.ext.freemarker.TemplateEngine;
 import org.restlet.ext.freemarker.TemplateRepresentation;
+import org.restlet.resource.ClientResource;
 import org.restlet.test.RestletTestCase;
 
 import freemarker.template.Configuration;
+import freemarker.template.Template;
 
 /**
  * Unit test for the FreeMarker extension.
@@ -69,4 +74,48 @@ public class FreeMarkerTestCase extends RestletTestCase {
         IoUtils.delete(testDir, true);
     }
 
+    public void testTemplateCache() throws Exception {
+        // Create a temporary directory for the tests
+        File testDir = new File(System.getProperty("java.io.tmpdir"),
+                "FreeMarkerTestCase");
+        testDir.mkdir();
+
+        // Create a temporary template file
+        File testFile = File.createTempFile("test", ".ftl", testDir);
+        FileWriter fw = new FileWriter(testFile);
+        fw.write("Value=${value}");
+        fw.close();
+
+        Reference ref = LocalReference.createFileReference(testFile);
+        TemplateEngine engine = new TemplateEngine();
+        Template template = engine.getTemplate(new ClientResource(ref).get());
+        assertNotNull(template);
+        assertEquals(1, engine.size());
+
+        // Unchanged template files are only compiled once
+        assertSame(template, engine.getTemplate(new ClientResource(ref).get()));
+
+        Map<String, Object> map = new TreeMap<String, Object>();
+        map.put("value", "myValue");
+        assertEquals("Value=myValue", new TemplateRepresentation(template,
+                map, MediaType.TEXT_PLAIN).getText());
+
+        // Modified template files are compiled again
+        fw = new FileWriter(testFile);
+        fw.write("Other=${value}");
+        fw.close();
+        testFile.setLastModified(testFile.lastModified() + 10000L);
+        Template modified = engine.getTemplate(new ClientResource(ref).get());
+        assertNotSame(template, modified);
+        assertEquals(1, engine.size());
+        assertEquals("Other=myValue", new TemplateRepresentation(modified,
+                map, MediaType.TEXT_PLAIN).getText());
+
+        engine.clear();
+        assertEquals(0, engine.size());
+
+        // Clean-up
+        IoUtils.delete(testFile);
+        IoUtils.delete(testDir, true);
+    }
 }
@@ -24,14 +24,25 @@
 
 package org.restlet.test.ext.jackson;
 
+import java.io.Closeable;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.Iterator;
 
+import org.restlet.Context;
 import org.restlet.data.MediaType;
+import org.restlet.ext.jackson.JacksonConverter;
 import org.restlet.ext.jackson.JacksonRepresentation;
+import org.restlet.ext.jackson.JacksonStreamRepresentation;
 import org.restlet.representation.Representation;
 import org.restlet.representation.StringRepresentation;
+import org.restlet.representation.Variant;
 import org.restlet.resource.ClientResource;
+import org.restlet.resource.Get;
+import org.restlet.resource.Put;
+import org.restlet.resource.ServerResource;
+import org.restlet.routing.Router;
 import org.restlet.test.RestletTestCase;
 
 /**
@@ -41,6 +52,17 @@ import org.restlet.test.RestletTestCase;
  */
 public class JacksonTestCase extends RestletTestCase {
 
+    public static class CustomerServerResource extends ServerResource {
+        @Get
+        public Customer retrieve() {
+            return null;
+        }
+
+        @Put
+        public void store(Customer customer) {
+        }
+    }
+
     protected Customer createCustomer() {
         Date date = new Date(1356533333882L);
 
@@ -80,6 +102,36 @@ public class JacksonTestCase extends RestletTestCase {
         verify(customer, rep.getObject());
     }
 
+    @SuppressWarnings("unchecked")
+    public void testConverterCache() throws Exception {
+        JacksonConverter converter = new JacksonConverter();
+        Customer customer = createCustomer();
+        JacksonRepresentation<Customer> rep1 = (JacksonRepresentation<Customer>) converter
+                .toRepresentation(customer, new Variant(
+                        MediaType.APPLICATION_JSON), null);
+        JacksonRepresentation<Customer> rep2 = (JacksonRepresentation<Customer>) converter
+                .toRepresentation(createCustomer(), new Variant(
+                        MediaType.APPLICATION_JSON), null);
+        assertSame(rep1.getObjectMapper(), rep2.getObjectMapper());
+        assertSame(rep1.getObjectWriter(), rep2.getObjectWriter());
+        assertEquals(rep1.getText(), rep2.getText());
+
+        // Other media types have their own mapper
+        JacksonRepresentation<Customer> rep3 = (JacksonRepresentation<Customer>) converter
+                .toRepresentation(customer, new Variant(
+                        MediaType.APPLICATION_YAML), null);
+        assertNotSame(rep1.getObjectMapper(), rep3.getObjectMapper());
+
+        // Readers are shared as well, along with the mapper
+        String text = rep1.getText();
+        JacksonRepresentation<Customer> rep4 = converter.toObject(
+                new StringRepresentation(text, MediaType.APPLICATION_JSON),
+                JacksonRepresentation.class, null);
+        assertSame(rep1.getObjectMapper(), rep4.getObjectMapper());
+        verify(customer, converter.toObject(new StringRepresentation(text,
+                MediaType.APPLICATION_JSON), Customer.class, null));
+    }
+
     public void testCsv() throws Exception {
         Invoice invoice = createInvoice();
         JacksonRepresentation<Invoice> rep = new JacksonRepresentation<Invoice>(
@@ -131,6 +183,98 @@ public class JacksonTestCase extends RestletTestCase {
         verify(customer, rep.getObject());
     }
 
+    public void testWarmUp() throws Exception {
+        JacksonConverter converter = new JacksonConverter();
+        Router router = new Router(new Context());
+        router.attach("/customers/{id}", CustomerServerResource.class);
+        converter.warmUp(MediaType.APPLICATION_JSON, router);
+        converter.warmUp(MediaType.TEXT_CSV, Invoice.class, int.class);
+
+        Invoice invoice = createInvoice();
+        Representation rep = converter.toRepresentation(invoice, new Variant(
+                MediaType.TEXT_CSV), null);
+        assertEquals("12456,1356533333882,false\n", rep.getText());
+        verify(createCustomer(), converter.toObject(converter
+                .toRepresentation(createCustomer(), new Variant(
+                        MediaType.APPLICATION_JSON), null), Customer.class,
+                null));
+    }
+
+    public void testStreamJson() throws Exception {
+        Invoice invoice = createInvoice();
+        JacksonStreamRepresentation<Invoice> rep = new JacksonStreamRepresentation<Invoice>(
+                Arrays.asList(invoice, invoice));
+        String text = rep.getText();
+        assertEquals(
+                "[{\"date\":1356533333882,\"amount\":12456,\"paid\":false},{\"date\":1356533333882,\"amount\":12456,\"paid\":false}]",
+                text);
+
+        rep = new JacksonStreamRepresentation<Invoice>(new StringRepresentation(
+                text, MediaType.APPLICATION_JSON), Invoice.class);
+        Iterator<Invoice> iterator = rep.getIterator();
+        verify(invoice, iterator.next());
+        verify(invoice, iterator.next());
+        assertFalse(iterator.hasNext());
+
+        // Empty arrays and single values
+        rep = new JacksonStreamRepresentation<Invoice>(new StringRepresentation(
+                "[]", MediaType.APPLICATION_JSON), Invoice.class);
+        assertFalse(rep.getIterator().hasNext());
+        rep = new JacksonStreamRepresentation<Invoice>(new StringRepresentation(
+                "{\"amount\":12}", MediaType.APPLICATION_JSON), Invoice.class);
+        iterator = rep.getIterator();
+        assertEquals(12, iterator.next().getAmount().intValue());
+        assertFalse(iterator.hasNext());
+    }
+
+    public void testStreamNdjson() throws Exception {
+        final int count = 1000;
+        final boolean[] closed = new boolean[1];
+
+        // Produces the elements lazily, like a database cursor
+        abstract class Cursor implements Iterator<Invoice>, Closeable {
+        }
+
+        Iterator<Invoice> cursor = new Cursor() {
+            private int index;
+
+            public void close() {
+                closed[0] = true;
+            }
+
+            public boolean hasNext() {
+                return this.index < count;
+            }
+
+            public Invoice next() {
+                Invoice result = createInvoice();
+                result.setAmount(this.index++);
+                return result;
+            }
+
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+
+        JacksonStreamRepresentation<Invoice> rep = new JacksonStreamRepresentation<Invoice>(
+                MediaType.APPLICATION_NDJSON, cursor);
+        String text = rep.getText();
+        assertTrue(closed[0]);
+        assertTrue(text.startsWith("{\"date\":1356533333882,\"amount\":0,\"paid\":false}\n{"));
+        assertEquals(count, text.split("\n").length);
+
+        rep = new JacksonStreamRepresentation<Invoice>(new StringRepresentation(
+                text, MediaType.APPLICATION_NDJSON), Invoice.class);
+        Iterator<Invoice> iterator = rep.getIterator();
+
+        for (int i = 0; i < count; i++) {
+            assertEquals(i, iterator.next().getAmount().intValue());
+        }
+
+        assertFalse(iterator.hasNext());
+    }
+
     public void testXml() throws Exception {
         Customer customer = createCustomer();
         JacksonRepresentation<Customer> rep = new JacksonRepresentation<Customer>(
@@ -25,16 +25,20 @@
 package org.restlet.test.ext.jaxb;
 
 import java.io.IOException;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.xml.bind.JAXBException;
 
 import org.restlet.data.MediaType;
 import org.restlet.ext.jaxb.JaxbRepresentation;
 import org.restlet.representation.Representation;
+import org.restlet.representation.StringRepresentation;
 import org.restlet.representation.Variant;
 import org.restlet.service.ConverterService;
 import org.restlet.test.RestletTestCase;
 
+import com.sun.xml.bind.marshaller.NamespacePrefixMapper;
+
 /**
  * Tests basic Conversion using the JaxbConverter
  * 
@@ -56,4 +60,80 @@ public class JaxbBasicConverterTestCase extends RestletTestCase {
         Object rep = cs.toObject(sampleRep, Sample.class, null);
         assertTrue(rep instanceof Sample);
     }
+
+    public void testConcurrentRoundTrips() throws Exception {
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        Thread[] threads = new Thread[4];
+
+        for (int i = 0; i < threads.length; i++) {
+            final String prefix = "thread" + i;
+            threads[i] = new Thread() {
+                public void run() {
+                    try {
+                        for (int j = 0; j < 50; j++) {
+                            String value = prefix + "-" + j;
+                            String xml = new JaxbRepresentation<Sample>(
+                                    new Sample(value)).getText();
+                            JaxbRepresentation<Sample> rep = new JaxbRepresentation<Sample>(
+                                    new StringRepresentation(xml,
+                                            MediaType.APPLICATION_XML),
+                                    Sample.class);
+                            assertEquals(value, rep.getObject().getVal());
+                        }
+                    } catch (Throwable t) {
+                        failure.compareAndSet(null, t);
+                    }
+                }
+            };
+            threads[i].start();
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        if (failure.get() != null) {
+            throw new Exception(failure.get());
+        }
+    }
+
+    public void testFormattedRoundTrip() throws IOException {
+        // Marshallers with distinct configurations must not be mixed
+        JaxbRepresentation<Sample> formatted = new JaxbRepresentation<Sample>(
+                new Sample("formatted"));
+        formatted.setFormattedOutput(true);
+        String formattedXml = formatted.getText();
+        String compactXml = new JaxbRepresentation<Sample>(new Sample(
+                "formatted")).getText();
+        assertTrue(formattedXml.contains("\n"));
+        assertFalse(compactXml.contains("\n"));
+
+        JaxbRepresentation<Sample> rep = new JaxbRepresentation<Sample>(
+                new StringRepresentation(formattedXml,
+                        MediaType.APPLICATION_XML), Sample.class);
+        assertEquals("formatted", rep.getObject().getVal());
+    }
+
+    public void testNamespacePrefixMapper() throws IOException {
+        JaxbRepresentation<Sample> mapped = new JaxbRepresentation<Sample>(
+                new Sample("mapped"));
+        mapped.setSchemaLocation("urn:sample sample.xsd");
+        mapped.setNamespacePrefixMapper(new NamespacePrefixMapper() {
+            @Override
+            public String getPreferredPrefix(String namespaceUri,
+                    String suggestion, boolean requirePrefix) {
+                return "custom";
+            }
+        });
+        assertTrue(mapped.getText().contains("xmlns:custom="));
+
+        // The pooled marshallers don't keep the mapper of a representation
+        JaxbRepresentation<Sample> unmapped = new JaxbRepresentation<Sample>(
+                new Sample("unmapped"));
+        unmapped.setSchemaLocation("urn:sample sample.xsd");
+        String xml = unmapped.getText();
+        assertTrue(xml.contains("xmlns:xsi="));
+        assertFalse(xml.contains("custom"));
+    }
+
 }
@@ -0,0 +1,179 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or or EPL 1.0 (the "Licenses"). You can
+ * select the license that you prefer but you may not use this file except in
+ * compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.ext.netty;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.restlet.Client;
+import org.restlet.Component;
+import org.restlet.Context;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.Server;
+import org.restlet.Uniform;
+import org.restlet.data.MediaType;
+import org.restlet.data.Method;
+import org.restlet.data.Protocol;
+import org.restlet.data.Status;
+import org.restlet.engine.Engine;
+import org.restlet.ext.netty.HttpClientHelper;
+import org.restlet.representation.WriterRepresentation;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Unit tests for the Netty HTTP client connector.
+ * 
+ * @author Jerome Louvel
+ */
+public class HttpClientHelperTestCase extends RestletTestCase {
+
+    /** The client ports seen by the server. */
+    private final Set<Integer> clientPorts = Collections
+            .synchronizedSet(new HashSet<Integer>());
+
+    private Client client;
+
+    private Component component;
+
+    private String uri;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        Engine engine = Engine.register(false);
+        engine.getRegisteredServers().add(
+                new org.restlet.engine.connector.HttpServerHelper(null));
+        engine.getRegisteredClients().add(new HttpClientHelper(null));
+
+        this.component = new Component();
+        Server server = this.component.getServers().add(Protocol.HTTP, 0);
+        this.component.getDefaultHost().attachDefault(new Restlet() {
+            @Override
+            public void handle(Request request, Response response) {
+                clientPorts.add(request.getClientInfo().getPort());
+                String text = request.getResourceRef().getQuery();
+
+                if (request.isEntityAvailable()) {
+                    text = Integer.toString(request.getEntityAsText()
+                            .length());
+                }
+
+                response.setEntity(text, MediaType.TEXT_PLAIN);
+            }
+        });
+        this.component.start();
+        this.uri = "http://localhost:" + server.getEphemeralPort() + "/test";
+
+        this.client = new Client(new Context(), Protocol.HTTP);
+        this.client.getContext().getParameters()
+                .add("maxConnectionsPerHost", "2");
+        this.client.start();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        this.client.stop();
+        this.component.stop();
+        this.client = null;
+        this.component = null;
+        Engine.register();
+        super.tearDown();
+    }
+
+    public void testAsynchronousCalls() throws Exception {
+        final int count = 20;
+        final CountDownLatch latch = new CountDownLatch(count);
+        final AtomicInteger successes = new AtomicInteger();
+
+        for (int i = 0; i < count; i++) {
+            Request request = new Request(Method.GET, this.uri + "?" + i);
+            request.setOnResponse(new Uniform() {
+                public void handle(Request request, Response response) {
+                    try {
+                        if (Status.SUCCESS_OK.equals(response.getStatus())
+                                && request.getResourceRef().getQuery()
+                                        .equals(response.getEntityAsText())) {
+                            successes.incrementAndGet();
+                        }
+                    } finally {
+                        latch.countDown();
+                    }
+                }
+            });
+            this.client.handle(request, new Response(request));
+        }
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertEquals(count, successes.get());
+        assertTrue(this.clientPorts.size() <= 2);
+    }
+
+    public void testChunkedPost() throws Exception {
+        final StringBuilder content = new StringBuilder();
+
+        for (int i = 0; i < 10000; i++) {
+            content.append("line ").append(i).append('\n');
+        }
+
+        Request request = new Request(Method.POST, this.uri,
+                new WriterRepresentation(MediaType.TEXT_PLAIN) {
+                    @Override
+                    public void write(Writer writer) throws IOException {
+                        writer.write(content.toString());
+                    }
+                });
+        Response response = this.client.handle(request);
+        assertEquals(Status.SUCCESS_OK, response.getStatus());
+        assertEquals(Integer.toString(content.length()),
+                response.getEntityAsText());
+    }
+
+    public void testConnectionRefused() throws Exception {
+        Response response = this.client.handle(new Request(Method.GET,
+                "http://localhost:1/test"));
+        assertEquals(Status.CONNECTOR_ERROR_COMMUNICATION,
+                response.getStatus());
+    }
+
+    public void testKeepAlive() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            Response response = this.client.handle(new Request(Method.GET,
+                    this.uri + "?" + i));
+            assertEquals(Status.SUCCESS_OK, response.getStatus());
+            assertEquals(Integer.toString(i), response.getEntityAsText());
+        }
+
+        assertEquals(1, this.clientPorts.size());
+    }
+
+}
@@ -24,7 +24,17 @@
 
 package org.restlet.test.ext.rdf;
 
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
 import org.restlet.data.MediaType;
+import org.restlet.data.Reference;
+import org.restlet.ext.rdf.Graph;
+import org.restlet.ext.rdf.GraphBuilder;
+import org.restlet.ext.rdf.GraphHandler;
+import org.restlet.ext.rdf.Link;
+import org.restlet.ext.rdf.Literal;
 import org.restlet.ext.rdf.RdfRepresentation;
 import org.restlet.representation.Representation;
 import org.restlet.representation.StringRepresentation;
@@ -35,6 +45,194 @@ import org.restlet.test.RestletTestCase;
  */
 public class RdfTestCase extends RestletTestCase {
 
+    public void testGraph() throws Exception {
+        Graph graph = new Graph();
+        Reference alice = new Reference("http://example.com/alice");
+        Reference bob = new Reference("http://example.com/bob");
+        Reference knows = new Reference("http://xmlns.com/foaf/0.1/knows");
+        Reference name = new Reference("http://xmlns.com/foaf/0.1/name");
+
+        Link aliceKnowsBob = graph.add(alice, knows, bob);
+        graph.add(alice, name, new Literal("Alice"));
+        graph.add(bob, name, new Literal("Bob"));
+        graph.add(bob, knows, alice);
+        assertEquals(4, graph.size());
+
+        // Links are unique by value
+        assertFalse(graph.add(new Link(new Reference(alice.toString()),
+                knows, new Reference(bob.toString()))));
+        assertFalse(graph.add(new Link(bob, name, new Literal("Bob"))));
+        assertEquals(4, graph.size());
+        assertTrue(graph.contains(new Link(alice, knows, bob)));
+        assertFalse(graph.contains(new Link(bob, knows, bob)));
+
+        // Pattern lookups
+        List<Link> links = graph.getLinks(alice, null, null);
+        assertEquals(2, links.size());
+        assertSame(aliceKnowsBob, links.get(0));
+        assertEquals(2, graph.getLinks(null, knows, null).size());
+        assertEquals(1, graph.getLinks(null, null, alice).size());
+        assertEquals(1, graph.getLinks(bob, null, alice).size());
+        assertEquals(1, graph.getLinks(null, name, new Literal("Bob")).size());
+        assertEquals(1, graph.getLinks(alice, knows, bob).size());
+        assertEquals(0, graph.getLinks(alice, knows, alice).size());
+        assertEquals(0,
+                graph.getLinks(new Reference("http://example.com/carol"),
+                        null, null).size());
+        assertEquals(4, graph.getLinks(null, null, null).size());
+
+        // Removals, also via iterators
+        assertTrue(graph.remove(new Link(alice, knows, bob)));
+        assertEquals(1, graph.getLinks(alice, null, null).size());
+
+        for (Iterator<Link> iter = graph.iterator(); iter.hasNext();) {
+            if (name.equals(iter.next().getTypeRef())) {
+                iter.remove();
+            }
+        }
+
+        assertEquals(1, graph.size());
+        assertEquals(bob, graph.iterator().next().getSourceAsReference());
+        assertEquals(0, graph.getLinks(null, name, null).size());
+        graph.clear();
+        assertTrue(graph.isEmpty());
+    }
+
+    public void testGraphCompaction() throws Exception {
+        Graph graph = new Graph();
+        Reference alice = new Reference("http://example.com/alice");
+        Reference bob = new Reference("http://example.com/bob");
+        Reference knows = new Reference("http://xmlns.com/foaf/0.1/knows");
+        graph.add(alice, knows, bob);
+        Link bobKnowsAlice = graph.add(bob, knows, alice);
+        graph.remove(new Link(alice, knows, bob));
+        assertEquals(1, graph.getLinks(null, null, null).size());
+        assertEquals(1, graph.getLinks(null, knows, null).size());
+
+        // Growing the store compacts the removed links
+        graph.ensureCapacity(16);
+        assertEquals(Arrays.asList(bobKnowsAlice),
+                graph.getLinks(null, null, null));
+        assertEquals(Arrays.asList(bobKnowsAlice),
+                graph.getLinks(null, knows, null));
+        assertEquals(Arrays.asList(bobKnowsAlice),
+                graph.getLinks(null, null, alice));
+
+        // Adding only duplicates also compacts the removed links
+        graph.add(alice, knows, alice);
+        graph.remove(new Link(alice, knows, alice));
+        graph.getLinks(bob, null, null);
+        assertFalse(graph.addAll(Arrays.asList(new Link(bob, knows, alice))));
+        assertEquals(Arrays.asList(bobKnowsAlice),
+                graph.getLinks(bob, null, null));
+    }
+
+    public void testGraphEquality() throws Exception {
+        Graph graph1 = new Graph();
+        graph1.add("http://example.com/alice", "http://xmlns.com/foaf/0.1/name",
+                new Literal("Alice"));
+        graph1.addReference("http://example.com/alice",
+                "http://xmlns.com/foaf/0.1/knows", "http://example.com/bob");
+
+        // Same links by value, added in another order
+        Graph graph2 = new Graph();
+        graph2.addReference("http://example.com/alice",
+                "http://xmlns.com/foaf/0.1/knows", "http://example.com/bob");
+        graph2.add("http://example.com/alice", "http://xmlns.com/foaf/0.1/name",
+                new Literal("Alice"));
+
+        assertEquals(graph1, graph2);
+        assertEquals(graph1.hashCode(), graph2.hashCode());
+
+        graph2.addLiteral("http://example.com/bob",
+                "http://xmlns.com/foaf/0.1/name", "Bob");
+        assertFalse(graph1.equals(graph2));
+    }
+
+    public void testLargeGraph() throws Exception {
+        int count = 200000;
+        Graph graph = new Graph();
+        GraphBuilder builder = new GraphBuilder(graph);
+
+        // Feed the graph as the readers do
+        for (int i = 0; i < count; i++) {
+            builder.link(new Reference("http://example.com/s" + (i % 1000)),
+                    new Reference("http://example.com/p" + (i % 10)),
+                    new Literal(Integer.toString(i)));
+        }
+
+        assertEquals(count, graph.size());
+        assertEquals(200,
+                graph.getLinks(new Reference("http://example.com/s7"), null,
+                        null).size());
+        assertEquals(count / 10,
+                graph.getLinks(null, new Reference("http://example.com/p3"),
+                        null).size());
+        assertEquals(1,
+                graph.getLinks(null, null, new Literal("4242")).size());
+    }
+
+    public void testStreaming() throws Exception {
+        int count = 50000;
+        StringBuilder sb = new StringBuilder();
+        char[] longValue = new char[20000];
+        Arrays.fill(longValue, 'x');
+        sb.append("<http://example.com/long> <http://example.com/p> \"")
+                .append(longValue).append("\" .\n");
+
+        for (int i = 0; i < count; i++) {
+            sb.append("<http://example.com/s").append(i)
+                    .append("> <http://example.com/p").append(i % 10)
+                    .append("> <http://example.com/o").append(i)
+                    .append("> .\n");
+        }
+
+        // Push the links to a user callback
+        final int[] counts = new int[2];
+        new RdfRepresentation(new StringRepresentation(sb,
+                MediaType.TEXT_RDF_NTRIPLES)).parse(new GraphHandler() {
+            public void link(Graph source, Reference typeRef, Literal target) {
+            }
+
+            public void link(Graph source, Reference typeRef, Reference target) {
+            }
+
+            public void link(Reference source, Reference typeRef,
+                    Literal target) {
+                counts[0] += target.getValue().length();
+            }
+
+            public void link(Reference source, Reference typeRef,
+                    Reference target) {
+                counts[1]++;
+            }
+        });
+        assertEquals(longValue.length, counts[0]);
+        assertEquals(count, counts[1]);
+
+        // Transcode without building a graph
+        String text = new RdfRepresentation(new StringRepresentation(sb,
+                MediaType.TEXT_RDF_NTRIPLES), MediaType.TEXT_PLAIN).getText();
+        assertEquals(sb.toString().replace(" .\n", ".\n"), text);
+        Graph graph = new RdfRepresentation(new StringRepresentation(text,
+                MediaType.TEXT_RDF_NTRIPLES)).getGraph();
+        assertEquals(count + 1, graph.size());
+        assertEquals(1,
+                graph.getLinks(new Reference("http://example.com/s4242"),
+                        null, new Reference("http://example.com/o4242"))
+                        .size());
+
+        // Transcode to RDF/XML, with namespaces discovered on the fly
+        String nt = "<http://example.com/a> <http://xmlns.com/foaf/0.1/knows> <http://example.com/b> .\n"
+                + "<http://example.com/a> <http://xmlns.com/foaf/0.1/name> \"A\" .\n";
+        text = new RdfRepresentation(new StringRepresentation(nt,
+                MediaType.TEXT_RDF_NTRIPLES), MediaType.APPLICATION_RDF_XML)
+                .getText();
+        graph = new RdfRepresentation(new StringRepresentation(text,
+                MediaType.APPLICATION_RDF_XML)).getGraph();
+        assertEquals(2, graph.size());
+    }
+
     public void testN3() throws Exception {
         Representation rep = new StringRepresentation(
                 "@prefix rdf: <http://www.w3.org/1999/02/22-rdf-syntax-ns#> ."
@@ -26,15 +26,23 @@ package org.restlet.test.ext.velocity;
 
 import java.io.File;
 import java.io.FileWriter;
+import java.io.StringWriter;
 import java.util.Map;
 import java.util.TreeMap;
 
+import org.apache.velocity.Template;
+import org.apache.velocity.VelocityContext;
+import org.apache.velocity.exception.MethodInvocationException;
+import org.apache.velocity.runtime.RuntimeInstance;
+import org.apache.velocity.runtime.RuntimeSingleton;
 import org.restlet.data.LocalReference;
 import org.restlet.data.MediaType;
 import org.restlet.data.Reference;
 import org.restlet.engine.io.IoUtils;
+import org.restlet.ext.velocity.TemplateEngine;
 import org.restlet.ext.velocity.TemplateRepresentation;
 import org.restlet.representation.Representation;
+import org.restlet.representation.StringRepresentation;
 import org.restlet.resource.ClientResource;
 import org.restlet.test.RestletTestCase;
 
@@ -101,4 +109,71 @@ public class VelocityTestCase extends RestletTestCase {
         IoUtils.delete(testFile);
         IoUtils.delete(testDir, true);
     }
+
+    public void testRuntimeConfiguration() throws Exception {
+        Representation templateRepresentation = new StringRepresentation(
+                "Value=$missing");
+
+        // The Velocity singleton runtime is used by default
+        assertSame(RuntimeSingleton.getRuntimeInstance(),
+                new TemplateEngine().getRuntime());
+
+        // The runtime of the engine compiles the representation templates
+        TemplateEngine engine = new TemplateEngine(new RuntimeInstance());
+        engine.getRuntime().setProperty("runtime.references.strict",
+                Boolean.TRUE);
+        Template template = engine.getTemplate(templateRepresentation);
+
+        try {
+            template.merge(new VelocityContext(), new StringWriter());
+            fail("Strict references should be enforced");
+        } catch (MethodInvocationException e) {
+            // Expected
+        }
+    }
+
+    public void testTemplateCache() throws Exception {
+        // Create a temporary directory for the tests
+        File testDir = new File(System.getProperty("java.io.tmpdir"),
+                "VelocityTestCase");
+        testDir.mkdir();
+
+        // Create a temporary template file
+        File testFile = File.createTempFile("test", ".vm", testDir);
+        FileWriter fw = new FileWriter(testFile);
+        fw.write("Value=$value");
+        fw.close();
+
+        Reference ref = LocalReference.createFileReference(testFile);
+        TemplateEngine engine = new TemplateEngine();
+        Template template = engine.getTemplate(new ClientResource(ref).get());
+        assertNotNull(template);
+        assertEquals(1, engine.size());
+
+        // Unchanged template files are only compiled once
+        assertSame(template, engine.getTemplate(new ClientResource(ref).get()));
+
+        Map<String, Object> map = new TreeMap<String, Object>();
+        map.put("value", "myValue");
+        assertEquals("Value=myValue", new TemplateRepresentation(template,
+                map, MediaType.TEXT_PLAIN).getText());
+
+        // Modified template files are compiled again
+        fw = new FileWriter(testFile);
+        fw.write("Other=$value");
+        fw.close();
+        testFile.setLastModified(testFile.lastModified() + 10000L);
+        Template modified = engine.getTemplate(new ClientResource(ref).get());
+        assertNotSame(template, modified);
+        assertEquals(1, engine.size());
+        assertEquals("Other=myValue", new TemplateRepresentation(modified,
+                map, MediaType.TEXT_PLAIN).getText());
+
+        engine.clear();
+        assertEquals(0, engine.size());
+
+        // Clean-up
+        IoUtils.delete(testFile);
+        IoUtils.delete(testDir, true);
+    }
 }
@@ -0,0 +1,143 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or or EPL 1.0 (the "Licenses"). You can
+ * select the license that you prefer but you may not use this file except in
+ * compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.ext.xml;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.restlet.data.MediaType;
+import org.restlet.ext.xml.DomRepresentation;
+import org.restlet.ext.xml.SaxRepresentation;
+import org.restlet.ext.xml.StaxRepresentation;
+import org.restlet.ext.xml.XmlWriter;
+import org.restlet.representation.StringRepresentation;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Test case for the {@link StaxRepresentation} class and for the reuse of the
+ * pooled XML parsers by the other XML representations.
+ * 
+ * @author Jerome Louvel
+ */
+public class StaxRepresentationTestCase extends RestletTestCase {
+
+    private static final String XML = "<?xml version=\"1.0\"?>"
+            + "<p:purchase xmlns:p=\"http://example.com/p\" id=\"p001\">"
+            + "<customer db=\"cust123\"/><!-- comment -->"
+            + "<amount>23.45</amount></p:purchase>";
+
+    public void testCopy() throws IOException {
+        StaxRepresentation rep = new StaxRepresentation(new StringRepresentation(
+                XML, MediaType.TEXT_XML));
+        rep.setNamespaceAware(true);
+        String result = rep.getText();
+
+        // The copy must be parsed again into the same document
+        DomRepresentation dom = new DomRepresentation(new StringRepresentation(
+                result, MediaType.TEXT_XML));
+        dom.setNamespaceAware(true);
+        assertEquals("purchase", dom.getDocument().getDocumentElement()
+                .getLocalName());
+        assertEquals("http://example.com/p", dom.getDocument()
+                .getDocumentElement().getNamespaceURI());
+        assertTrue(result.contains("id=\"p001\""));
+        assertTrue(result.contains("<customer db=\"cust123\"/>")
+                || result.contains("<customer db=\"cust123\"></customer>"));
+        assertTrue(result.contains("<!-- comment -->"));
+        assertTrue(result.contains("<amount>23.45</amount>"));
+    }
+
+    public void testExternalEntities() throws Exception {
+        String xml = "<?xml version=\"1.0\"?><!DOCTYPE a ["
+                + "<!ENTITY e SYSTEM \"file:///etc/hostname\">]><a>&e;</a>";
+        StaxRepresentation rep = new StaxRepresentation(new StringRepresentation(
+                xml, MediaType.TEXT_XML));
+        XMLStreamReader reader = rep.getXmlStreamReader();
+        StringBuilder text = new StringBuilder();
+
+        try {
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamReader.CHARACTERS) {
+                    text.append(reader.getText());
+                }
+            }
+        } catch (XMLStreamException e) {
+            // Rejecting the DTD is fine as well
+        }
+
+        // The external entity must never be expanded
+        assertEquals("", text.toString().trim());
+        rep.release();
+    }
+
+    public void testGeneratedContent() throws IOException {
+        StaxRepresentation rep = new StaxRepresentation(MediaType.TEXT_XML) {
+            @Override
+            public void write(XMLStreamWriter writer) throws IOException {
+                try {
+                    writer.writeStartDocument();
+                    writer.writeStartElement("items");
+
+                    for (int i = 0; i < 3; i++) {
+                        writer.writeStartElement("item");
+                        writer.writeCharacters(Integer.toString(i));
+                        writer.writeEndElement();
+                    }
+
+                    writer.writeEndElement();
+                    writer.writeEndDocument();
+                } catch (XMLStreamException e) {
+                    throw new IOException(e);
+                }
+            }
+        };
+
+        String result = rep.getText();
+        assertTrue(result.endsWith("<items><item>0</item><item>1</item>"
+                + "<item>2</item></items>"));
+    }
+
+    public void testPooledParsers() throws IOException {
+        for (int i = 0; i < 3; i++) {
+            DomRepresentation dom = new DomRepresentation(
+                    new StringRepresentation(XML, MediaType.TEXT_XML));
+            assertEquals("23.45", dom.getText("//amount"));
+            assertTrue(dom.getText().contains("cust123"));
+
+            SaxRepresentation sax = new SaxRepresentation(
+                    new StringRepresentation(XML, MediaType.TEXT_XML));
+            sax.setNamespaceAware(true);
+            StringWriter sw = new StringWriter();
+            sax.parse(new XmlWriter(sw));
+            sax.release();
+            assertTrue(sw.toString().contains("<amount>23.45</amount>"));
+        }
+    }
+
+}
@@ -25,11 +25,19 @@
 package org.restlet.test.ext.xml;
 
 import java.io.ByteArrayOutputStream;
+import java.util.Date;
+
+import javax.xml.transform.Templates;
 
 import org.restlet.Component;
+import org.restlet.Context;
 import org.restlet.data.MediaType;
+import org.restlet.data.Reference;
+import org.restlet.data.Tag;
+import org.restlet.ext.xml.TemplatesCache;
 import org.restlet.ext.xml.TransformRepresentation;
 import org.restlet.ext.xml.Transformer;
+import org.restlet.ext.xml.internal.ContextResolver;
 import org.restlet.representation.Representation;
 import org.restlet.representation.StringRepresentation;
 import org.restlet.test.RestletTestCase;
@@ -133,12 +141,77 @@ public class TransformerTestCase extends RestletTestCase {
         tracker.report();
     }
 
+    public void testTemplatesCache() throws Exception {
+        Reference ref = new Reference("http://localhost/cached.xsl");
+        TemplatesCache cache = TemplatesCache.getInstance();
+        cache.remove(ref);
+
+        Representation sheet = new StringRepresentation(this.xslt.getText(),
+                MediaType.TEXT_XML);
+        sheet.setLocationRef(ref);
+        sheet.setTag(new Tag("v1"));
+        sheet.setModificationDate(new Date(1000L));
+        Templates templates = cache.getTemplates(sheet, null);
+        assertNotNull(templates);
+
+        // Same version of the transform sheet
+        Representation same = new StringRepresentation(this.xslt.getText(),
+                MediaType.TEXT_XML);
+        same.setLocationRef(ref);
+        same.setTag(new Tag("v1"));
+        same.setModificationDate(new Date(1000L));
+        assertSame(templates, cache.getTemplates(same, null));
+        assertSame(templates, new TransformRepresentation(this.source, same)
+                .getTemplates());
+
+        // Changed version of the transform sheet
+        Representation changed = new StringRepresentation(this.xslt.getText(),
+                MediaType.TEXT_XML);
+        changed.setLocationRef(ref);
+        changed.setTag(new Tag("v2"));
+        changed.setModificationDate(new Date(1000L));
+        Templates recompiled = cache.getTemplates(changed, null);
+        assertNotSame(templates, recompiled);
+        assertSame(recompiled, cache.getTemplates(changed, null));
+
+        // Sheets compiled with another URI resolver aren't shared
+        Context context = new Context();
+        Templates resolved = cache.getTemplates(changed, new ContextResolver(
+                context));
+        assertNotSame(recompiled, resolved);
+        assertSame(resolved,
+                cache.getTemplates(changed, new ContextResolver(context)));
+
+        // Sheets whose changes can't be detected aren't cached
+        Representation unversioned = new StringRepresentation(
+                this.xslt.getText(), MediaType.TEXT_XML);
+        unversioned.setLocationRef(ref);
+        int size = cache.size();
+        assertNotSame(cache.getTemplates(unversioned, null),
+                cache.getTemplates(unversioned, null));
+        assertEquals(size, cache.size());
+
+        // But they are still compiled once by a given transformer
+        Transformer transformer = new Transformer(Transformer.MODE_REQUEST,
+                unversioned);
+        Templates once = transformer.getTemplates();
+        assertSame(once, transformer.getTemplates());
+        assertEquals(size, cache.size());
+
+        cache.remove(ref);
+    }
+
     public void testTransform() throws Exception {
         final Transformer transformer = new Transformer(
                 Transformer.MODE_REQUEST, this.xslt);
         final String result = transformer.transform(this.source).getText();
 
         assertEquals(this.output, result);
+
+        // The compiled sheet is reused by the next transformations
+        Templates templates = transformer.getTemplates();
+        assertSame(templates, transformer.getTemplates());
+        assertEquals(this.output, transformer.transform(this.source).getText());
     }
 
 }
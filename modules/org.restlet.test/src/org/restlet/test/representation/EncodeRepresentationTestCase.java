@@ -0,0 +1,208 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or or EPL 1.0 (the "Licenses"). You can
+ * select the license that you prefer but you may not use this file except in
+ * compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.representation;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import org.restlet.data.Encoding;
+import org.restlet.data.MediaType;
+import org.restlet.engine.application.DeflaterPool;
+import org.restlet.engine.application.EncodeOutputStream;
+import org.restlet.engine.application.EncodeRepresentation;
+import org.restlet.engine.io.IoUtils;
+import org.restlet.representation.ByteArrayRepresentation;
+import org.restlet.representation.InputRepresentation;
+import org.restlet.representation.Representation;
+import org.restlet.service.EncoderService;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Test {@link EncodeRepresentation}.
+ * 
+ * @author Jerome Louvel
+ */
+public class EncodeRepresentationTestCase extends RestletTestCase {
+
+    private static byte[] createContent() {
+        byte[] result = new byte[200000];
+        Random random = new Random(42);
+
+        // Compressible text followed by random bytes
+        for (int i = 0; i < result.length / 2; i++) {
+            result[i] = (byte) ('a' + (i % 7));
+        }
+
+        byte[] noise = new byte[result.length / 2];
+        random.nextBytes(noise);
+        System.arraycopy(noise, 0, result, result.length / 2, noise.length);
+        return result;
+    }
+
+    private static byte[] decode(Encoding encoding, byte[] encoded)
+            throws IOException {
+        InputStream in = new ByteArrayInputStream(encoded);
+
+        if (Encoding.GZIP.equals(encoding)) {
+            in = new GZIPInputStream(in);
+        } else if (Encoding.DEFLATE.equals(encoding)) {
+            in = new InflaterInputStream(in);
+        } else if (Encoding.DEFLATE_NOWRAP.equals(encoding)) {
+            in = new InflaterInputStream(in, new Inflater(true));
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        IoUtils.copy(in, out);
+        return out.toByteArray();
+    }
+
+    private static byte[] read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[777];
+        int count;
+
+        while ((count = in.read(buffer)) != -1) {
+            out.write(buffer, 0, count);
+        }
+
+        in.close();
+        return out.toByteArray();
+    }
+
+    private void testEncoding(Encoding encoding) throws IOException {
+        byte[] content = createContent();
+
+        // Pull-based encoding
+        Representation source = new InputRepresentation(
+                new ByteArrayInputStream(content));
+        byte[] pulled = read(new EncodeRepresentation(encoding, source)
+                .getStream());
+        assertTrue(Arrays.equals(content, decode(encoding, pulled)));
+
+        // Push-based encoding, reusing the pooled deflater
+        ByteArrayOutputStream pushed = new ByteArrayOutputStream();
+        new EncodeRepresentation(encoding, new ByteArrayRepresentation(
+                content)).write(pushed);
+        assertTrue(Arrays.equals(content,
+                decode(encoding, pushed.toByteArray())));
+
+        // Empty content
+        byte[] empty = read(new EncodeRepresentation(encoding,
+                new ByteArrayRepresentation(new byte[0])).getStream());
+        assertEquals(0, decode(encoding, empty).length);
+    }
+
+    public void testCompressionLevel() throws IOException {
+        EncoderService encoderService = new EncoderService();
+        encoderService.getCompressionLevels().put(MediaType.TEXT_ALL,
+                Deflater.BEST_SPEED);
+        encoderService.getCompressionLevels().put(MediaType.TEXT_HTML,
+                Deflater.BEST_COMPRESSION);
+
+        assertEquals(Deflater.BEST_COMPRESSION,
+                encoderService.getCompressionLevel(MediaType.TEXT_HTML));
+        assertEquals(Deflater.BEST_SPEED,
+                encoderService.getCompressionLevel(MediaType.TEXT_PLAIN));
+        assertEquals(Deflater.DEFAULT_COMPRESSION,
+                encoderService.getCompressionLevel(MediaType.APPLICATION_JSON));
+
+        byte[] content = createContent();
+        EncodeRepresentation stored = new EncodeRepresentation(Encoding.GZIP,
+                new ByteArrayRepresentation(content), Deflater.NO_COMPRESSION);
+        byte[] encoded = read(stored.getStream());
+        assertTrue(encoded.length > content.length);
+        assertTrue(Arrays.equals(content, decode(Encoding.GZIP, encoded)));
+    }
+
+    public void testDeflate() throws IOException {
+        testEncoding(Encoding.DEFLATE);
+    }
+
+    public void testDeflateNoWrap() throws IOException {
+        testEncoding(Encoding.DEFLATE_NOWRAP);
+    }
+
+    public void testGzip() throws IOException {
+        testEncoding(Encoding.GZIP);
+    }
+
+    public void testWriteFailure() throws IOException {
+        Representation failing = new InputRepresentation(null) {
+            @Override
+            public void write(OutputStream outputStream) throws IOException {
+                outputStream.write(1);
+                throw new IOException("Failure");
+            }
+        };
+
+        try {
+            new EncodeRepresentation(Encoding.GZIP, failing)
+                    .write(new ByteArrayOutputStream());
+            fail("The failure should have been propagated");
+        } catch (IOException e) {
+            assertEquals("Failure", e.getMessage());
+        }
+
+        // The deflater is checked in if the GZIP header can't be written
+        OutputStream closed = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Closed");
+            }
+        };
+
+        try {
+            new EncodeOutputStream(closed, true, DeflaterPool.getInstance(
+                    Deflater.DEFAULT_COMPRESSION, true));
+            fail("The failure should have been propagated");
+        } catch (IOException e) {
+            assertEquals("Closed", e.getMessage());
+        }
+
+        // The deflater is checked in once finished
+        EncodeOutputStream eos = new EncodeOutputStream(
+                new ByteArrayOutputStream(), false, DeflaterPool.getInstance(
+                        Deflater.DEFAULT_COMPRESSION, false));
+        eos.write(1);
+        eos.finish();
+
+        try {
+            eos.write(2);
+            fail("Writing after the end of the stream should fail");
+        } catch (IOException e) {
+            // Expected
+        }
+    }
+
+}
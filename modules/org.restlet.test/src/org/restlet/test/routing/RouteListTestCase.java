@@ -66,6 +66,28 @@ public class RouteListTestCase extends RestletTestCase {
         assertNull(list.getLast(null, null, 6f));
     }
 
+    public void testGetModificationCount() {
+        final RouteList list = new RouteList();
+        int count = list.getModificationCount();
+
+        final Route route = new MockScoringRoute(5);
+        list.add(route);
+        assertTrue(list.getModificationCount() > count);
+        count = list.getModificationCount();
+
+        list.set(0, new MockScoringRoute(6));
+        assertTrue(list.getModificationCount() > count);
+        count = list.getModificationCount();
+
+        list.remove(0);
+        assertTrue(list.getModificationCount() > count);
+        count = list.getModificationCount();
+
+        list.isEmpty();
+        list.contains(route);
+        assertEquals(count, list.getModificationCount());
+    }
+
     public void testGetNext() {
         final RouteList list = new RouteList();
 
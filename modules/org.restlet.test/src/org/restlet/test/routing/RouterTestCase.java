@@ -0,0 +1,130 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or or EPL 1.0 (the "Licenses"). You can
+ * select the license that you prefer but you may not use this file except in
+ * compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.routing;
+
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.data.Method;
+import org.restlet.routing.Route;
+import org.restlet.routing.Router;
+import org.restlet.routing.Template;
+import org.restlet.routing.TemplateRoute;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Test case for the routes indexing of the Router class.
+ * 
+ * @author Jerome Louvel
+ */
+public class RouterTestCase extends RestletTestCase {
+
+    private static final String[] PATTERNS = { "/users", "/users/{id}",
+            "/users/{id}/orders", "/users/{id}/orders/{orderId}",
+            "/users/me", "/orders/{orderId}", "/{any}", "/files/",
+            "/files/{path}.{ext}", "/search?q={query}", "" };
+
+    private static final String[] PATHS = { "/", "/users", "/users/",
+            "/users/12", "/users/me", "/users/12/orders",
+            "/users/12/orders/7", "/users/12/orders/7/items", "/orders/7",
+            "/orders", "/files/", "/files/a.txt", "/files/a/b.txt",
+            "/search?q=restlet", "/search", "/other", "" };
+
+    private Router createRouter(int routingMode, int matchingMode,
+            boolean indexing) {
+        Router router = new Router();
+        router.setRoutingMode(routingMode);
+        router.setDefaultMatchingMode(matchingMode);
+        router.setDefaultMatchingQuery(true);
+        router.setIndexingRoutes(indexing);
+
+        for (String pattern : PATTERNS) {
+            router.attach(pattern, new Restlet() {
+            });
+        }
+
+        return router;
+    }
+
+    private Restlet route(Router router, String path) {
+        Request request = new Request(Method.GET, "http://localhost" + path);
+        request.getResourceRef().setBaseRef("http://localhost");
+        return router.getNext(request, new Response(request));
+    }
+
+    private void testSameRoutes(int routingMode, int matchingMode) {
+        Router linear = createRouter(routingMode, matchingMode, false);
+        Router indexed = createRouter(routingMode, matchingMode, true);
+
+        for (String path : PATHS) {
+            Restlet expected = route(linear, path);
+            Restlet actual = route(indexed, path);
+            int expectedIndex = (expected == null) ? -1 : indexOf(linear,
+                    expected);
+            int actualIndex = (actual == null) ? -1 : indexOf(indexed, actual);
+            assertEquals("Route selected for " + path, expectedIndex,
+                    actualIndex);
+        }
+    }
+
+    private int indexOf(Router router, Restlet route) {
+        for (int i = 0; i < router.getRoutes().size(); i++) {
+            if (router.getRoutes().get(i) == route) {
+                return i;
+            }
+        }
+
+        return -2;
+    }
+
+    public void testBestMatch() {
+        testSameRoutes(Router.MODE_BEST_MATCH, Template.MODE_EQUALS);
+        testSameRoutes(Router.MODE_BEST_MATCH, Template.MODE_STARTS_WITH);
+    }
+
+    public void testFirstMatch() {
+        testSameRoutes(Router.MODE_FIRST_MATCH, Template.MODE_EQUALS);
+        testSameRoutes(Router.MODE_FIRST_MATCH, Template.MODE_STARTS_WITH);
+    }
+
+    public void testRoutesModified() {
+        Router router = createRouter(Router.MODE_FIRST_MATCH,
+                Template.MODE_EQUALS, true);
+        assertEquals(1, indexOf(router, route(router, "/users/12")));
+
+        Restlet target = new Restlet() {
+        };
+        router.getRoutes().add(0,
+                new TemplateRoute(router, "/users/12", target));
+        assertSame(target, ((Route) route(router, "/users/12")).getNext());
+
+        router.getRoutes().remove(0);
+        assertEquals(1, indexOf(router, route(router, "/users/12")));
+
+        router.getRoutes().clear();
+        assertNull(route(router, "/users/12"));
+    }
+
+}
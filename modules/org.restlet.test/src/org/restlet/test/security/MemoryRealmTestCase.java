@@ -0,0 +1,175 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or or EPL 1.0 (the "Licenses"). You can
+ * select the license that you prefer but you may not use this file except in
+ * compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.security;
+
+import org.restlet.Application;
+import org.restlet.data.ClientInfo;
+import org.restlet.security.Group;
+import org.restlet.security.MemoryRealm;
+import org.restlet.security.Role;
+import org.restlet.security.User;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Suite of unit tests for the {@link MemoryRealm} class.
+ * 
+ * @author Jerome Louvel
+ */
+public class MemoryRealmTestCase extends RestletTestCase {
+
+    private ClientInfo enrole(MemoryRealm realm, String identifier) {
+        ClientInfo clientInfo = new ClientInfo();
+        clientInfo.setUser(new User(identifier));
+        realm.getEnroler().enrole(clientInfo);
+        return clientInfo;
+    }
+
+    public void testEnrole() {
+        Application app = new Application();
+        Role admin = new Role(app, "admin");
+        Role user = new Role(app, "user");
+
+        MemoryRealm realm = new MemoryRealm();
+        User stiger = new User("stiger", "pwd");
+        realm.getUsers().add(stiger);
+        Group managers = new Group("managers", null);
+        Group directors = new Group("directors", null);
+        managers.getMemberGroups().add(directors);
+        realm.getRootGroups().add(managers);
+        realm.map(managers, admin);
+        realm.map(stiger, user);
+
+        assertEquals(1, enrole(realm, "stiger").getRoles().size());
+        assertTrue(realm.findGroups(stiger).isEmpty());
+
+        // Group memberships are tracked
+        directors.getMemberUsers().add(stiger);
+        assertEquals(2, enrole(realm, "stiger").getRoles().size());
+        assertEquals(2, realm.findGroups(stiger).size());
+
+        // Role inheritance is tracked
+        directors.setInheritingRoles(false);
+        assertEquals(1, realm.findGroups(stiger).size());
+        assertEquals(2, realm.findGroups(stiger, false).size());
+        assertEquals(1, enrole(realm, "stiger").getRoles().size());
+
+        // Role mappings are tracked
+        directors.setInheritingRoles(true);
+        realm.unmap(managers, admin);
+        assertEquals(1, enrole(realm, "stiger").getRoles().size());
+        assertTrue(realm.findRoles(managers).isEmpty());
+        assertEquals(user, realm.findRoles(app, stiger).iterator().next());
+        assertTrue(realm.findRoles(new Application(), stiger).isEmpty());
+    }
+
+    public void testFindUser() {
+        MemoryRealm realm = new MemoryRealm();
+
+        for (int i = 0; i < 50000; i++) {
+            realm.getUsers().add(new User("user" + i, "pwd" + i));
+        }
+
+        assertEquals("user4242", realm.findUser("user4242").getIdentifier());
+        assertNull(realm.findUser("unknown"));
+        assertNull(realm.findUser(null));
+
+        // Users list and identifiers are tracked
+        User user = realm.findUser("user42");
+        realm.getUsers().remove(user);
+        assertNull(realm.findUser("user42"));
+        realm.getUsers().add(user);
+        user.setIdentifier("renamed");
+        assertNull(realm.findUser("user42"));
+        assertSame(user, realm.findUser("renamed"));
+        realm.getUsers().subList(0, 10).clear();
+        assertNull(realm.findUser("user0"));
+    }
+
+    public void testPartialChanges() {
+        Application app = new Application();
+        Role admin = new Role(app, "admin");
+        Role user = new Role(app, "user");
+
+        MemoryRealm realm = new MemoryRealm();
+        User stiger = new User("stiger", "pwd");
+        realm.getUsers().add(stiger);
+        Group managers = new Group("managers", null);
+        managers.getMemberUsers().add(stiger);
+        realm.getRootGroups().add(managers);
+        realm.map(managers, admin);
+        assertEquals(1, enrole(realm, "stiger").getRoles().size());
+
+        // Users added after the groups were indexed
+        User jdoe = new User("jdoe", "pwd");
+        realm.getUsers().add(jdoe);
+        assertSame(jdoe, realm.findUser("jdoe"));
+        assertTrue(enrole(realm, "jdoe").getRoles().isEmpty());
+        assertEquals(1, enrole(realm, "stiger").getRoles().size());
+
+        // Roles mapped after the groups were indexed
+        realm.map(jdoe, user);
+        realm.map(stiger, user);
+        assertEquals(1, enrole(realm, "jdoe").getRoles().size());
+        assertEquals(2, enrole(realm, "stiger").getRoles().size());
+
+        // Structural changes after the roles were mapped
+        managers.getMemberUsers().add(jdoe);
+        assertEquals(2, enrole(realm, "jdoe").getRoles().size());
+        assertEquals(1, realm.findGroups(jdoe).size());
+
+        realm.unmap(managers, admin);
+        assertEquals(1, enrole(realm, "jdoe").getRoles().size());
+        assertEquals(1, enrole(realm, "stiger").getRoles().size());
+    }
+
+    public void testSharedGroup() {
+        Application app = new Application();
+        Role admin = new Role(app, "admin");
+        User stiger = new User("stiger", "pwd");
+        Group managers = new Group("managers", null);
+
+        MemoryRealm realm1 = new MemoryRealm();
+        realm1.getUsers().add(stiger);
+        realm1.getRootGroups().add(managers);
+        realm1.map(managers, admin);
+
+        MemoryRealm realm2 = new MemoryRealm();
+        realm2.getUsers().add(stiger);
+        realm2.getRootGroups().add(managers);
+        assertTrue(enrole(realm1, "stiger").getRoles().isEmpty());
+        assertTrue(realm2.findGroups(stiger).isEmpty());
+
+        // Each realm tracks the modifications of the groups it indexes
+        managers.getMemberUsers().add(stiger);
+        assertEquals(1, enrole(realm1, "stiger").getRoles().size());
+        assertEquals(1, realm2.findGroups(stiger).size());
+
+        // Modifications of other realms don't affect the lookups
+        realm2.getUsers().clear();
+        assertNull(realm2.findUser("stiger"));
+        assertSame(stiger, realm1.findUser("stiger"));
+    }
+
+}
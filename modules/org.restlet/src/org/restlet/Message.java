@@ -38,6 +38,8 @@ import org.restlet.data.MediaType;
 import org.restlet.data.RecipientInfo;
 import org.restlet.data.Warning;
 import org.restlet.engine.header.HeaderConstants;
+// [ifndef gwt] line
+import org.restlet.engine.util.HeaderSeries;
 import org.restlet.representation.Representation;
 import org.restlet.representation.StringRepresentation;
 import org.restlet.resource.ClientResource;
@@ -267,7 +269,7 @@ public abstract class Message {
                 HeaderConstants.ATTRIBUTE_HEADERS);
         if (headers == null) {
             // [ifndef gwt] instruction
-            headers = new Series<Header>(Header.class);
+            headers = new HeaderSeries();
             // [ifdef gwt] instruction uncomment
             // headers = new org.restlet.engine.util.HeaderSeries();
             getAttributes().put(HeaderConstants.ATTRIBUTE_HEADERS, headers);
@@ -24,18 +24,11 @@
 
 package org.restlet.data;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStreamReader;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 
-import org.restlet.Context;
-import org.restlet.engine.Engine;
-import org.restlet.engine.io.IoUtils;
-
 /**
  * Client specific data related to a call. When extracted from a request, most
  * of these data are directly taken from the underlying headers. There are some
@@ -123,14 +116,6 @@ import org.restlet.engine.io.IoUtils;
  */
 public final class ClientInfo {
 
-    // [ifndef gwt] member
-    /**
-     * List of user-agent templates defined in "agent.properties" file.<br>
-     * 
-     * @see The {@link ClientInfo#getAgentAttributes()} method.
-     */
-    private static volatile List<String> userAgentTemplates = null;
-
     // [ifndef gwt] method
     /**
      * Returns the preferred metadata taking into account both metadata
@@ -162,63 +147,6 @@ public final class ClientInfo {
         return result;
     }
 
-    // [ifndef gwt] method
-    /**
-     * Returns the list of user-agent templates defined in "agent.properties"
-     * file.
-     * 
-     * @return The list of user-agent templates defined in "agent.properties"
-     *         file.
-     * @see The {@link ClientInfo#getAgentAttributes()} method.
-     */
-    private static List<String> getUserAgentTemplates() {
-        // Lazy initialization with double-check.
-        List<String> u = ClientInfo.userAgentTemplates;
-        if (u == null) {
-            synchronized (ClientInfo.class) {
-                u = ClientInfo.userAgentTemplates;
-                if (u == null) {
-                    // Load from the "agent.properties" file
-                    java.net.URL userAgentPropertiesUrl = Engine
-                            .getResource("org/restlet/data/agent.properties");
-                    if (userAgentPropertiesUrl != null) {
-                        BufferedReader reader;
-                        try {
-                            reader = new BufferedReader(new InputStreamReader(
-                                    userAgentPropertiesUrl.openStream(),
-                                    CharacterSet.UTF_8.getName()),
-                                    IoUtils.BUFFER_SIZE);
-                            String line = reader.readLine();
-                            for (; line != null; line = reader.readLine()) {
-                                if ((line.trim().length() > 0)
-                                        && !line.trim().startsWith("#")) {
-                                    if (u == null) {
-                                        u = new CopyOnWriteArrayList<String>();
-                                    }
-                                    u.add(line);
-                                }
-                            }
-                            reader.close();
-                        } catch (IOException e) {
-                            if (Context.getCurrent() != null) {
-                                Context.getCurrent()
-                                        .getLogger()
-                                        .warning(
-                                                "Cannot read '"
-                                                        + userAgentPropertiesUrl
-                                                                .toString()
-                                                        + "' due to: "
-                                                        + e.getMessage());
-                            }
-                        }
-                    }
-                    ClientInfo.userAgentTemplates = u;
-                }
-            }
-        }
-        return u;
-    }
-
     /** The character set preferences. */
     private volatile List<Preference<CharacterSet>> acceptedCharacterSets;
 
@@ -532,56 +460,13 @@ public final class ClientInfo {
      */
     public Map<String, String> getAgentAttributes() {
         if (this.agentAttributes == null) {
-            this.agentAttributes = new ConcurrentHashMap<String, String>();
-            Map<String, Object> map = new ConcurrentHashMap<String, Object>();
-
-            // Loop on a list of user-agent templates until a template match
-            // the current user-agent string. The list of templates is
-            // located in a file named "agent.properties" available on
-            // the classpath.
-            // Some defined variables are used in order to catch the name,
-            // version and optional comment. Respectively, these
-            // variables are called "agentName", "agentVersion" and
-            // "agentComment".
-            org.restlet.routing.Template template = null;
-            // Predefined variables.
-            org.restlet.routing.Variable agentName = new org.restlet.routing.Variable(
-                    org.restlet.routing.Variable.TYPE_TOKEN);
-            org.restlet.routing.Variable agentVersion = new org.restlet.routing.Variable(
-                    org.restlet.routing.Variable.TYPE_TOKEN);
-            org.restlet.routing.Variable agentComment = new org.restlet.routing.Variable(
-                    org.restlet.routing.Variable.TYPE_COMMENT);
-            org.restlet.routing.Variable agentCommentAttribute = new org.restlet.routing.Variable(
-                    org.restlet.routing.Variable.TYPE_COMMENT_ATTRIBUTE);
-            org.restlet.routing.Variable facultativeData = new org.restlet.routing.Variable(
-                    org.restlet.routing.Variable.TYPE_ALL, null, false, false);
-
-            if (ClientInfo.getUserAgentTemplates() != null) {
-                for (String string : ClientInfo.getUserAgentTemplates()) {
-                    template = new org.restlet.routing.Template(string,
-                            org.restlet.routing.Template.MODE_EQUALS);
-
-                    // Update the predefined variables.
-                    template.getVariables().put("agentName", agentName);
-                    template.getVariables().put("agentVersion", agentVersion);
-                    template.getVariables().put("agentComment", agentComment);
-                    template.getVariables().put("agentOs",
-                            agentCommentAttribute);
-                    template.getVariables().put("commentAttribute",
-                            agentCommentAttribute);
-                    template.getVariables().put("facultativeData",
-                            facultativeData);
-
-                    // Parse the template
-                    if (template.parse(getAgent(), map) > -1) {
-                        for (String key : map.keySet()) {
-                            this.agentAttributes
-                                    .put(key, (String) map.get(key));
-                        }
-                        break;
-                    }
-                }
-            }
+            // The user-agent templates are located in a file named
+            // "agent.properties" available on the classpath. They are
+            // compiled once and the attributes of the most recent agent
+            // names are cached.
+            this.agentAttributes = new ConcurrentHashMap<String, String>(
+                    org.restlet.engine.util.UserAgentClassifier.getInstance()
+                            .getAttributes(getAgent()));
         }
 
         return this.agentAttributes;
@@ -288,6 +288,10 @@ public final class MediaType extends Metadata {
             "application/vnd.openxmlformats-officedocument.spreadsheetml.template",
             "Office Excel 2007 template");
 
+    // [ifndef gwt] member
+    public static final MediaType APPLICATION_NDJSON = register(
+            "application/x-ndjson", "Newline delimited JSON document");
+
     // [ifndef gwt] member
     public static final MediaType APPLICATION_OCTET_STREAM = register(
             "application/octet-stream", "Raw octet stream");
@@ -32,6 +32,8 @@ import org.restlet.Context;
 import org.restlet.data.Header;
 import org.restlet.data.Protocol;
 import org.restlet.engine.header.HeaderUtils;
+// [ifndef gwt] line
+import org.restlet.engine.util.HeaderSeries;
 import org.restlet.representation.InputRepresentation;
 import org.restlet.representation.Representation;
 import org.restlet.util.Series;
@@ -138,12 +140,12 @@ public abstract class Call {
         this.protocol = null;
         this.reasonPhrase = "";
         // [ifndef gwt] instruction
-        this.requestHeaders = new Series<Header>(Header.class);
+        this.requestHeaders = new HeaderSeries();
         // [ifdef gwt] instruction uncomment
         // this.requestHeaders = new org.restlet.engine.util.HeaderSeries();
         this.requestUri = null;
         // [ifndef gwt] instruction
-        this.responseHeaders = new Series<Header>(Header.class);
+        this.responseHeaders = new HeaderSeries();
         // [ifdef gwt] instruction uncomment
         // this.responseHeaders = new org.restlet.engine.util.HeaderSeries();
         this.serverAddress = null;
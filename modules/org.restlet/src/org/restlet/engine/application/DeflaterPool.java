@@ -0,0 +1,167 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or or EPL 1.0 (the "Licenses"). You can
+ * select the license that you prefer but you may not use this file except in
+ * compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.application;
+
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.zip.Deflater;
+
+import org.restlet.engine.util.Pool;
+
+// [excludes gwt]
+/**
+ * Bounded pool of {@link Deflater} instances sharing the same compression level
+ * and wrapping mode. Creating a deflater allocates native memory that is only
+ * released when the instance is ended, so reusing them significantly reduces
+ * the cost of compressing many small entities. Deflaters checked in while the
+ * pool is full are immediately ended.
+ * 
+ * @author Jerome Louvel
+ */
+public class DeflaterPool extends Pool<Deflater> {
+
+    /** The maximum number of idle deflaters kept by each pool. */
+    public static final int MAX_IDLE_DEFLATERS = 4 * Runtime.getRuntime()
+            .availableProcessors();
+
+    /** The shared pools, indexed by compression level and wrapping mode. */
+    private static final AtomicReferenceArray<DeflaterPool> POOLS = new AtomicReferenceArray<DeflaterPool>(
+            22);
+
+    /**
+     * Returns the shared pool for a given compression level and wrapping mode.
+     * 
+     * @param level
+     *            The compression level, between -1 (default compression) and
+     *            9 (best compression).
+     * @param nowrap
+     *            True if the ZLIB header and checksum fields shouldn't be
+     *            written, as in the GZIP format.
+     * @return The shared pool.
+     */
+    public static DeflaterPool getInstance(int level, boolean nowrap) {
+        if ((level < Deflater.DEFAULT_COMPRESSION)
+                || (level > Deflater.BEST_COMPRESSION)) {
+            throw new IllegalArgumentException("Invalid compression level: "
+                    + level);
+        }
+
+        int index = 2 * (level + 1) + (nowrap ? 1 : 0);
+        DeflaterPool result = POOLS.get(index);
+
+        if (result == null) {
+            POOLS.compareAndSet(index, null, new DeflaterPool(level, nowrap));
+            result = POOLS.get(index);
+        }
+
+        return result;
+    }
+
+    /** The compression level of the pooled deflaters. */
+    private final int level;
+
+    /** Indicates if the ZLIB header and checksum fields are omitted. */
+    private final boolean nowrap;
+
+    /**
+     * Constructor.
+     * 
+     * @param level
+     *            The compression level of the pooled deflaters.
+     * @param nowrap
+     *            True if the ZLIB header and checksum fields shouldn't be
+     *            written.
+     */
+    public DeflaterPool(int level, boolean nowrap) {
+        super();
+        this.level = level;
+        this.nowrap = nowrap;
+    }
+
+    /**
+     * Checks in a deflater into the pool. The deflater is ended if the pool is
+     * full.
+     * 
+     * @param deflater
+     *            The deflater to check in.
+     */
+    @Override
+    public void checkin(Deflater deflater) {
+        if (deflater != null) {
+            clear(deflater);
+
+            if (!getStore().offer(deflater)) {
+                deflater.end();
+            }
+        }
+    }
+
+    @Override
+    protected void clear(Deflater deflater) {
+        deflater.reset();
+    }
+
+    /**
+     * Ends and removes all the idle deflaters.
+     */
+    @Override
+    public void clear() {
+        Deflater deflater;
+
+        while ((deflater = getStore().poll()) != null) {
+            deflater.end();
+        }
+    }
+
+    @Override
+    protected Deflater createObject() {
+        return new Deflater(getLevel(), isNowrap());
+    }
+
+    @Override
+    protected Queue<Deflater> createStore() {
+        return new ArrayBlockingQueue<Deflater>(MAX_IDLE_DEFLATERS);
+    }
+
+    /**
+     * Returns the compression level of the pooled deflaters.
+     * 
+     * @return The compression level of the pooled deflaters.
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * Indicates if the ZLIB header and checksum fields are omitted.
+     * 
+     * @return True if the ZLIB header and checksum fields are omitted.
+     */
+    public boolean isNowrap() {
+        return nowrap;
+    }
+
+}
@@ -0,0 +1,202 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or or EPL 1.0 (the "Licenses"). You can
+ * select the license that you prefer but you may not use this file except in
+ * compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.application;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import org.restlet.engine.io.IoUtils;
+
+// [excludes gwt]
+/**
+ * Input stream compressing a source stream as it is read, in the GZIP or
+ * DEFLATE formats. Compressed bytes are directly produced into the buffer of
+ * the reader, without relying on a pipe and an additional thread. The deflater
+ * is borrowed from a {@link DeflaterPool} and checked in when the end of the
+ * stream is reached or when the stream is closed.
+ * 
+ * @author Jerome Louvel
+ */
+public class EncodeInputStream extends InputStream {
+
+    /** The GZIP header, without file name nor modification time. */
+    private static final byte[] GZIP_HEADER = { (byte) 0x1f, (byte) 0x8b,
+            Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0 };
+
+    /** The checksum of the uncompressed bytes, for the GZIP format. */
+    private final CRC32 crc;
+
+    /** The deflater, null once checked in. */
+    private volatile Deflater deflater;
+
+    /** The pool of the deflater. */
+    private final DeflaterPool deflaterPool;
+
+    /** Indicates if the end of the source stream has been reached. */
+    private boolean finishing;
+
+    /** The buffer of uncompressed bytes read from the source. */
+    private final byte[] input;
+
+    /** The bytes of the GZIP header or trailer to return first. */
+    private byte[] pending;
+
+    /** The index of the next pending byte to return. */
+    private int pendingIndex;
+
+    /** The buffer of the single byte reads. */
+    private final byte[] singleByte;
+
+    /** The source stream. */
+    private final InputStream source;
+
+    /**
+     * Constructor.
+     * 
+     * @param source
+     *            The source stream.
+     * @param gzip
+     *            True if the GZIP format must be produced, false for the
+     *            DEFLATE format.
+     * @param deflaterPool
+     *            The pool of deflaters to use. For the GZIP format, deflaters
+     *            must omit the ZLIB header and checksum.
+     */
+    public EncodeInputStream(InputStream source, boolean gzip,
+            DeflaterPool deflaterPool) {
+        this.source = source;
+        this.deflaterPool = deflaterPool;
+        this.deflater = deflaterPool.checkout();
+        this.finishing = false;
+        this.input = new byte[IoUtils.BUFFER_SIZE];
+        this.crc = gzip ? new CRC32() : null;
+        this.pending = gzip ? GZIP_HEADER : null;
+        this.pendingIndex = 0;
+        this.singleByte = new byte[1];
+    }
+
+    /**
+     * Checks in the deflater into its pool, if not already done.
+     */
+    private void checkin() {
+        Deflater deflater = this.deflater;
+        this.deflater = null;
+
+        if (deflater != null) {
+            this.deflaterPool.checkin(deflater);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        checkin();
+        this.source.close();
+    }
+
+    /**
+     * Returns the GZIP trailer, made of the checksum and the size of the
+     * uncompressed bytes.
+     * 
+     * @param deflater
+     *            The finished deflater.
+     * @return The GZIP trailer.
+     */
+    private byte[] getTrailer(Deflater deflater) {
+        byte[] result = new byte[8];
+        long crc = this.crc.getValue();
+        long size = deflater.getBytesRead();
+
+        for (int i = 0; i < 4; i++) {
+            result[i] = (byte) (crc >> (8 * i));
+            result[i + 4] = (byte) (size >> (8 * i));
+        }
+
+        return result;
+    }
+
+    @Override
+    public int read() throws IOException {
+        return (read(this.singleByte, 0, 1) == -1) ? -1
+                : (this.singleByte[0] & 0xff);
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+
+        for (;;) {
+            if (this.pending != null) {
+                int result = Math.min(len, this.pending.length
+                        - this.pendingIndex);
+                System.arraycopy(this.pending, this.pendingIndex, b, off,
+                        result);
+                this.pendingIndex += result;
+
+                if (this.pendingIndex == this.pending.length) {
+                    this.pending = null;
+                    this.pendingIndex = 0;
+                }
+
+                return result;
+            }
+
+            Deflater deflater = this.deflater;
+
+            if (deflater == null) {
+                return -1;
+            } else if (deflater.finished()) {
+                if (this.crc != null) {
+                    this.pending = getTrailer(deflater);
+                }
+
+                checkin();
+            } else if (deflater.needsInput() && !this.finishing) {
+                int count = this.source.read(this.input);
+
+                if (count == -1) {
+                    deflater.finish();
+                    this.finishing = true;
+                } else if (count > 0) {
+                    if (this.crc != null) {
+                        this.crc.update(this.input, 0, count);
+                    }
+
+                    deflater.setInput(this.input, 0, count);
+                }
+            } else {
+                int result = deflater.deflate(b, off, len);
+
+                if (result > 0) {
+                    return result;
+                }
+            }
+        }
+    }
+
+}
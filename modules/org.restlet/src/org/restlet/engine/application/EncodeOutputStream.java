@@ -0,0 +1,153 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or or EPL 1.0 (the "Licenses"). You can
+ * select the license that you prefer but you may not use this file except in
+ * compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.application;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import org.restlet.engine.io.IoUtils;
+
+// [excludes gwt]
+/**
+ * Output stream compressing the written bytes in the GZIP or DEFLATE formats,
+ * using a deflater borrowed from a {@link DeflaterPool}. The deflater is
+ * checked in when the stream is finished or released.
+ * 
+ * @author Jerome Louvel
+ */
+public class EncodeOutputStream extends DeflaterOutputStream {
+
+    /** The GZIP header, without file name nor modification time. */
+    private static final byte[] GZIP_HEADER = { (byte) 0x1f, (byte) 0x8b,
+            Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0 };
+
+    /** The checksum of the uncompressed bytes, for the GZIP format. */
+    private final CRC32 crc;
+
+    /** The pool of the deflater. */
+    private final DeflaterPool deflaterPool;
+
+    /** Indicates if the stream has been finished. */
+    private boolean finished;
+
+    /**
+     * Constructor.
+     * 
+     * @param outputStream
+     *            The target output stream.
+     * @param gzip
+     *            True if the GZIP format must be produced, false for the
+     *            DEFLATE format.
+     * @param deflaterPool
+     *            The pool of deflaters to use. For the GZIP format, deflaters
+     *            must omit the ZLIB header and checksum.
+     * @throws IOException
+     */
+    public EncodeOutputStream(OutputStream outputStream, boolean gzip,
+            DeflaterPool deflaterPool) throws IOException {
+        super(outputStream, deflaterPool.checkout(), IoUtils.BUFFER_SIZE);
+        this.deflaterPool = deflaterPool;
+        this.crc = gzip ? new CRC32() : null;
+        this.finished = false;
+
+        if (gzip) {
+            try {
+                outputStream.write(GZIP_HEADER);
+            } catch (IOException e) {
+                release();
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        finish();
+        this.out.close();
+    }
+
+    @Override
+    public void finish() throws IOException {
+        if (!this.finished) {
+            this.finished = true;
+
+            try {
+                super.finish();
+
+                if (this.crc != null) {
+                    writeInt(this.crc.getValue());
+                    writeInt(this.def.getBytesRead());
+                }
+            } finally {
+                release();
+            }
+        }
+    }
+
+    /**
+     * Checks in the deflater into its pool without finishing the stream, for
+     * example after a failure while writing. The stream can't be written
+     * anymore.
+     */
+    public void release() {
+        Deflater deflater = this.def;
+        this.def = null;
+        this.finished = true;
+
+        if (deflater != null) {
+            this.deflaterPool.checkin(deflater);
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (this.def == null) {
+            throw new IOException("The stream is already finished");
+        }
+
+        super.write(b, off, len);
+
+        if (this.crc != null) {
+            this.crc.update(b, off, len);
+        }
+    }
+
+    /**
+     * Writes the four lower bytes of a value, in little-endian order.
+     * 
+     * @param value
+     *            The value to write.
+     * @throws IOException
+     */
+    private void writeInt(long value) throws IOException {
+        for (int i = 0; i < 4; i++) {
+            this.out.write((int) (value >> (8 * i)) & 0xff);
+        }
+    }
+
+}
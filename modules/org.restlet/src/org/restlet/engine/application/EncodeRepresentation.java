@@ -36,7 +36,6 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.zip.Deflater;
 import java.util.zip.DeflaterOutputStream;
-import java.util.zip.GZIPOutputStream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
@@ -49,7 +48,12 @@ import org.restlet.util.WrapperRepresentation;
 
 // [excludes gwt]
 /**
- * Content that encodes a wrapped content. Allows to apply only one encoding.
+ * Content that encodes a wrapped content. Allows to apply only one encoding.<br>
+ * <br>
+ * The GZIP and DEFLATE encodings are applied while the content is written or
+ * read, using pooled deflaters (see {@link DeflaterPool}). In particular, the
+ * {@link #getStream()} method compresses the wrapped content as the returned
+ * stream is read, without relying on an additional thread.
  * 
  * @author Jerome Louvel
  */
@@ -67,6 +71,9 @@ public class EncodeRepresentation extends WrapperRepresentation {
     /** Indicates if the encoding can happen. */
     private volatile boolean canEncode;
 
+    /** The compression level. */
+    private volatile int compressionLevel;
+
     /** The encoding to apply. */
     private volatile Encoding encoding;
 
@@ -83,8 +90,25 @@ public class EncodeRepresentation extends WrapperRepresentation {
      */
     public EncodeRepresentation(Encoding encoding,
             Representation wrappedRepresentation) {
+        this(encoding, wrappedRepresentation, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param encoding
+     *            Encoder algorithm.
+     * @param wrappedRepresentation
+     *            The wrapped representation.
+     * @param compressionLevel
+     *            The compression level, between 0 (no compression) and 9
+     *            (best compression), or -1 for the default compression.
+     */
+    public EncodeRepresentation(Encoding encoding,
+            Representation wrappedRepresentation, int compressionLevel) {
         super(wrappedRepresentation);
         this.canEncode = getSupportedEncodings().contains(encoding);
+        this.compressionLevel = compressionLevel;
         this.encodings = null;
         this.encoding = encoding;
     }
@@ -129,12 +153,39 @@ public class EncodeRepresentation extends WrapperRepresentation {
     @Override
     public ReadableByteChannel getChannel() throws IOException {
         if (canEncode()) {
-            return IoUtils.getChannel(this);
+            if (Encoding.ZIP.equals(this.encoding)) {
+                return IoUtils.getChannel(this);
+            }
+
+            return IoUtils.getChannel(getStream());
         } else {
             return getWrappedRepresentation().getChannel();
         }
     }
 
+    /**
+     * Returns the compression level, between 0 (no compression) and 9 (best
+     * compression), or -1 for the default compression.
+     * 
+     * @return The compression level.
+     */
+    public int getCompressionLevel() {
+        return this.compressionLevel;
+    }
+
+    /**
+     * Returns the pool of deflaters matching the compression level and the
+     * given wrapping mode.
+     * 
+     * @param nowrap
+     *            True if the ZLIB header and checksum fields shouldn't be
+     *            written.
+     * @return The pool of deflaters.
+     */
+    private DeflaterPool getDeflaterPool(boolean nowrap) {
+        return DeflaterPool.getInstance(getCompressionLevel(), nowrap);
+    }
+
     /**
      * Returns the applied encodings.
      * 
@@ -238,9 +289,35 @@ public class EncodeRepresentation extends WrapperRepresentation {
         return result;
     }
 
+    /**
+     * Returns a stream with the encoded content. The GZIP and DEFLATE encodings
+     * are applied as the stream is read. The ZIP encoding relies on the
+     * {@link IoUtils#getStream(Representation)} method.
+     * 
+     * @return A stream with the encoded content.
+     */
     @Override
     public InputStream getStream() throws IOException {
         if (canEncode()) {
+            if (Encoding.IDENTITY.equals(this.encoding)) {
+                return getWrappedRepresentation().getStream();
+            } else if (!Encoding.ZIP.equals(this.encoding)) {
+                InputStream source = getWrappedRepresentation().getStream();
+
+                if (source != null) {
+                    if (Encoding.GZIP.equals(this.encoding)) {
+                        return new EncodeInputStream(source, true,
+                                getDeflaterPool(true));
+                    } else if (Encoding.DEFLATE.equals(this.encoding)) {
+                        return new EncodeInputStream(source, false,
+                                getDeflaterPool(false));
+                    } else if (Encoding.DEFLATE_NOWRAP.equals(this.encoding)) {
+                        return new EncodeInputStream(source, false,
+                                getDeflaterPool(true));
+                    }
+                }
+            }
+
             return IoUtils.getStream(this);
         } else {
             return getWrappedRepresentation().getStream();
@@ -256,21 +333,35 @@ public class EncodeRepresentation extends WrapperRepresentation {
         }
     }
 
+    /**
+     * Sets the compression level, between 0 (no compression) and 9 (best
+     * compression), or -1 for the default compression.
+     * 
+     * @param compressionLevel
+     *            The compression level.
+     */
+    public void setCompressionLevel(int compressionLevel) {
+        this.compressionLevel = compressionLevel;
+    }
+
     @Override
     public void write(OutputStream outputStream) throws IOException {
         if (canEncode()) {
             DeflaterOutputStream encoderOutputStream = null;
 
             if (this.encoding.equals(Encoding.GZIP)) {
-                encoderOutputStream = new GZIPOutputStream(outputStream);
+                encoderOutputStream = new EncodeOutputStream(outputStream,
+                        true, getDeflaterPool(true));
             } else if (this.encoding.equals(Encoding.DEFLATE)) {
-                encoderOutputStream = new DeflaterOutputStream(outputStream);
+                encoderOutputStream = new EncodeOutputStream(outputStream,
+                        false, getDeflaterPool(false));
             } else if (this.encoding.equals(Encoding.DEFLATE_NOWRAP)) {
-                encoderOutputStream = new DeflaterOutputStream(outputStream,
-                        new Deflater(Deflater.DEFAULT_COMPRESSION, true));
+                encoderOutputStream = new EncodeOutputStream(outputStream,
+                        false, getDeflaterPool(true));
             } else if (this.encoding.equals(Encoding.ZIP)) {
                 @SuppressWarnings("resource")
                 final ZipOutputStream stream = new ZipOutputStream(outputStream);
+                stream.setLevel(getCompressionLevel());
                 String name = "entry";
 
                 if (getWrappedRepresentation().getDisposition() != null) {
@@ -288,9 +379,16 @@ public class EncodeRepresentation extends WrapperRepresentation {
             }
 
             if (encoderOutputStream != null) {
-                getWrappedRepresentation().write(encoderOutputStream);
-                encoderOutputStream.flush();
-                encoderOutputStream.finish();
+                try {
+                    getWrappedRepresentation().write(encoderOutputStream);
+                    encoderOutputStream.flush();
+                    encoderOutputStream.finish();
+                } finally {
+                    if (encoderOutputStream instanceof EncodeOutputStream) {
+                        // Returns the deflater to its pool after a failure
+                        ((EncodeOutputStream) encoderOutputStream).release();
+                    }
+                }
             } else {
                 getWrappedRepresentation().write(outputStream);
             }
@@ -26,6 +26,7 @@ package org.restlet.engine.application;
 
 import java.util.Iterator;
 import java.util.List;
+import java.util.zip.Deflater;
 
 import org.restlet.Context;
 import org.restlet.Request;
@@ -142,7 +143,11 @@ public class Encoder extends Filter {
         Encoding bestEncoding = getBestEncoding(client);
 
         if (bestEncoding != null) {
-            result = new EncodeRepresentation(bestEncoding, representation);
+            int compressionLevel = (getEncoderService() == null) ? Deflater.DEFAULT_COMPRESSION
+                    : getEncoderService().getCompressionLevel(
+                            representation.getMediaType());
+            result = new EncodeRepresentation(bestEncoding, representation,
+                    compressionLevel);
         }
 
         return result;
@@ -573,7 +573,7 @@ public class IoUtils {
     /**
      * Returns an input stream based on the given representation's content and
      * its write(OutputStream) method. Internally, it uses a writer thread and a
-     * pipe stream.
+     * ring buffer pipe of {@link RingBufferPipe#DEFAULT_CAPACITY} bytes.
      * 
      * @param representation
      *            the representation to get the {@link java.io.OutputStream}
@@ -581,13 +581,32 @@ public class IoUtils {
      * @return A stream with the representation's content.
      */
     public static InputStream getStream(final Representation representation) {
+        return getStream(representation, RingBufferPipe.DEFAULT_CAPACITY);
+    }
+
+    // [ifndef gwt] method
+    /**
+     * Returns an input stream based on the given representation's content and
+     * its write(OutputStream) method. Internally, it uses a writer thread and a
+     * ring buffer pipe. Note that connectors able to provide an output stream
+     * should rather write the representation directly, on the calling thread.
+     * 
+     * @param representation
+     *            the representation to get the {@link java.io.OutputStream}
+     *            from.
+     * @param capacity
+     *            The capacity of the ring buffer pipe, in bytes.
+     * @return A stream with the representation's content.
+     */
+    public static InputStream getStream(final Representation representation,
+            int capacity) {
         InputStream result = null;
 
         if (representation == null) {
             return null;
         }
 
-        final PipeStream pipe = new PipeStream();
+        final RingBufferPipe pipe = new RingBufferPipe(capacity, TIMEOUT_MS);
         final java.io.OutputStream os = pipe.getOutputStream();
 
         // Creates a thread that will handle the task of continuously
@@ -37,7 +37,9 @@ import java.util.concurrent.TimeUnit;
  * based on a shared synchronized queue.
  * 
  * @author Jerome Louvel
+ * @deprecated Use {@link RingBufferPipe} instead.
  */
+@Deprecated
 public class PipeStream {
 
     /** The queue timeout. */
@@ -0,0 +1,360 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or or EPL 1.0 (the "Licenses"). You can
+ * select the license that you prefer but you may not use this file except in
+ * compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// [excludes gwt]
+/**
+ * Pipe connecting a single writing thread to a single reading thread through
+ * a bounded ring buffer of bytes. Contrary to the {@link PipeStream}, bytes are
+ * copied by blocks and no object is allocated per byte or per block. Threads
+ * waiting for data or for free space first spin for a short while, then park
+ * until they are signaled by the other side.<br>
+ * <br>
+ * Note that each side must only be used by one thread at a time.
+ * 
+ * @author Jerome Louvel
+ */
+public class RingBufferPipe {
+
+    /**
+     * The default capacity of the ring buffer. It looks for the System
+     * property "org.restlet.engine.io.pipeCapacity" and if not defined, uses
+     * eight times the {@link IoUtils#BUFFER_SIZE}.
+     */
+    public static final int DEFAULT_CAPACITY = Integer.getInteger(
+            "org.restlet.engine.io.pipeCapacity", 8 * IoUtils.BUFFER_SIZE);
+
+    /** The maximum delay of a single park, in nanoseconds. */
+    private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    /** The number of spins before parking a waiting thread. */
+    private static final int SPINS = (Runtime.getRuntime()
+            .availableProcessors() > 1) ? 256 : 0;
+
+    /**
+     * Returns the smallest power of two greater or equal to a given capacity.
+     * 
+     * @param capacity
+     *            The requested capacity.
+     * @return The actual capacity.
+     */
+    private static int getCapacity(int capacity) {
+        int result = 1;
+
+        while (result < capacity) {
+            result <<= 1;
+        }
+
+        return result;
+    }
+
+    /** The ring buffer. */
+    private final byte[] buffer;
+
+    /** The mask giving the buffer index of a position. */
+    private final int mask;
+
+    /** The number of bytes read since the creation of the pipe. */
+    private final AtomicLong readPosition;
+
+    /** Indicates if the reading side has been closed. */
+    private volatile boolean readerClosed;
+
+    /** The timeout of blocked operations, in milliseconds. */
+    private final long timeout;
+
+    /** The reading thread currently parked, if any. */
+    private volatile Thread waitingReader;
+
+    /** The writing thread currently parked, if any. */
+    private volatile Thread waitingWriter;
+
+    /** The number of bytes written since the creation of the pipe. */
+    private final AtomicLong writePosition;
+
+    /** Indicates if the writing side has been closed. */
+    private volatile boolean writerClosed;
+
+    /**
+     * Constructor using the default capacity and the default IO timeout.
+     */
+    public RingBufferPipe() {
+        this(DEFAULT_CAPACITY, IoUtils.TIMEOUT_MS);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param capacity
+     *            The capacity of the ring buffer, rounded to the next power of
+     *            two.
+     * @param timeout
+     *            The maximum time to wait for data or free space, in
+     *            milliseconds, or 0 for no timeout.
+     */
+    public RingBufferPipe(int capacity, long timeout) {
+        this.buffer = new byte[getCapacity(Math.max(1, capacity))];
+        this.mask = this.buffer.length - 1;
+        this.readPosition = new AtomicLong();
+        this.writePosition = new AtomicLong();
+        this.timeout = timeout;
+        this.readerClosed = false;
+        this.writerClosed = false;
+    }
+
+    /**
+     * Waits until data is available or the writing side is closed.
+     * 
+     * @param position
+     *            The current read position.
+     * @throws IOException
+     */
+    private void awaitData(long position) throws IOException {
+        for (int i = 0; i < SPINS; i++) {
+            if ((this.writePosition.get() != position) || this.writerClosed) {
+                return;
+            }
+        }
+
+        long deadline = System.nanoTime()
+                + TimeUnit.MILLISECONDS.toNanos(this.timeout);
+        this.waitingReader = Thread.currentThread();
+
+        try {
+            while ((this.writePosition.get() == position) && !this.writerClosed) {
+                park(deadline, "reading from");
+            }
+        } finally {
+            this.waitingReader = null;
+        }
+    }
+
+    /**
+     * Waits until free space is available or the reading side is closed.
+     * 
+     * @param position
+     *            The current write position.
+     * @throws IOException
+     */
+    private void awaitSpace(long position) throws IOException {
+        long full = position - this.buffer.length;
+
+        for (int i = 0; i < SPINS; i++) {
+            if ((this.readPosition.get() != full) || this.readerClosed) {
+                return;
+            }
+        }
+
+        long deadline = System.nanoTime()
+                + TimeUnit.MILLISECONDS.toNanos(this.timeout);
+        this.waitingWriter = Thread.currentThread();
+
+        try {
+            while ((this.readPosition.get() == full) && !this.readerClosed) {
+                park(deadline, "writing to");
+            }
+        } finally {
+            this.waitingWriter = null;
+        }
+    }
+
+    /**
+     * Returns the capacity of the ring buffer.
+     * 
+     * @return The capacity of the ring buffer.
+     */
+    public int getCapacity() {
+        return this.buffer.length;
+    }
+
+    /**
+     * Returns a new input stream that can read from the pipe.
+     * 
+     * @return A new input stream that can read from the pipe.
+     */
+    public InputStream getInputStream() {
+        return new InputStream() {
+            @Override
+            public int available() throws IOException {
+                return (int) (writePosition.get() - readPosition.get());
+            }
+
+            @Override
+            public void close() throws IOException {
+                readerClosed = true;
+                LockSupport.unpark(waitingWriter);
+            }
+
+            @Override
+            public int read() throws IOException {
+                byte[] b = new byte[1];
+                return (read(b, 0, 1) == -1) ? -1 : (b[0] & 0xff);
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                return RingBufferPipe.this.read(b, off, len);
+            }
+        };
+    }
+
+    /**
+     * Returns a new output stream that can write into the pipe.
+     * 
+     * @return A new output stream that can write into the pipe.
+     */
+    public OutputStream getOutputStream() {
+        return new OutputStream() {
+            @Override
+            public void close() throws IOException {
+                writerClosed = true;
+                LockSupport.unpark(waitingReader);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                RingBufferPipe.this.write(b, off, len);
+            }
+
+            @Override
+            public void write(int b) throws IOException {
+                RingBufferPipe.this.write(new byte[] { (byte) b }, 0, 1);
+            }
+        };
+    }
+
+    /**
+     * Parks the current thread until it is signaled or until a short delay.
+     * 
+     * @param deadline
+     *            The deadline, based on {@link System#nanoTime()}.
+     * @param operation
+     *            The description of the operation, for error messages.
+     * @throws IOException
+     */
+    private void park(long deadline, String operation) throws IOException {
+        long remaining = deadline - System.nanoTime();
+
+        if ((this.timeout > 0) && (remaining <= 0)) {
+            throw new IOException("Timeout while " + operation
+                    + " the ring buffer pipe");
+        }
+
+        LockSupport.parkNanos(this, (this.timeout > 0) ? Math.min(remaining,
+                PARK_NANOS) : PARK_NANOS);
+
+        if (Thread.interrupted()) {
+            throw new InterruptedIOException("Interruption occurred while "
+                    + operation + " the ring buffer pipe");
+        }
+    }
+
+    /**
+     * Reads bytes from the ring buffer.
+     * 
+     * @param b
+     *            The target array.
+     * @param off
+     *            The offset in the target array.
+     * @param len
+     *            The maximum number of bytes to read.
+     * @return The number of bytes read or -1 if the end was reached.
+     * @throws IOException
+     */
+    private int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+
+        long position = this.readPosition.get();
+        long available;
+
+        while ((available = this.writePosition.get() - position) == 0) {
+            if (this.writerClosed) {
+                // Check again as bytes may have been written before closing
+                if (this.writePosition.get() == position) {
+                    return -1;
+                }
+            } else {
+                awaitData(position);
+            }
+        }
+
+        int result = (int) Math.min(len, available);
+        int index = (int) (position & this.mask);
+        int first = Math.min(result, this.buffer.length - index);
+        System.arraycopy(this.buffer, index, b, off, first);
+        System.arraycopy(this.buffer, 0, b, off + first, result - first);
+        this.readPosition.set(position + result);
+        LockSupport.unpark(this.waitingWriter);
+        return result;
+    }
+
+    /**
+     * Writes bytes into the ring buffer, waiting for free space if needed.
+     * 
+     * @param b
+     *            The source array.
+     * @param off
+     *            The offset in the source array.
+     * @param len
+     *            The number of bytes to write.
+     * @throws IOException
+     */
+    private void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            if (this.readerClosed) {
+                throw new IOException("The ring buffer pipe was closed");
+            }
+
+            long position = this.writePosition.get();
+            long free = this.buffer.length
+                    - (position - this.readPosition.get());
+
+            if (free == 0) {
+                awaitSpace(position);
+            } else {
+                int count = (int) Math.min(len, free);
+                int index = (int) (position & this.mask);
+                int first = Math.min(count, this.buffer.length - index);
+                System.arraycopy(b, off, this.buffer, index, first);
+                System.arraycopy(b, off + first, this.buffer, 0, count - first);
+                this.writePosition.set(position + count);
+                LockSupport.unpark(this.waitingReader);
+                off += count;
+                len -= count;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,310 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or or EPL 1.0 (the "Licenses"). You can
+ * select the license that you prefer but you may not use this file except in
+ * compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.log;
+
+import java.util.Calendar;
+import java.util.logging.Level;
+
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.data.Method;
+import org.restlet.data.Status;
+import org.restlet.engine.Engine;
+import org.restlet.service.LogService;
+
+// [excludes gwt]
+/**
+ * Access log entry, capturing the fields of the default log format of the
+ * {@link LogService}. Instances are mutable so that they can be preallocated
+ * and reused by an {@link AccessLogWriter}, the formatting being deferred to
+ * its writer thread.
+ * 
+ * @author Jerome Louvel
+ */
+public class AccessLogRecord {
+
+    /**
+     * Appends a value or "-" if it is null.
+     * 
+     * @param sb
+     *            The target builder.
+     * @param value
+     *            The value to append.
+     */
+    private static void append(StringBuilder sb, String value) {
+        sb.append((value == null) ? "-" : value);
+    }
+
+    /**
+     * Appends a number padded with a zero if lower than 10.
+     * 
+     * @param sb
+     *            The target builder.
+     * @param value
+     *            The number to append.
+     */
+    private static void append2(StringBuilder sb, int value) {
+        if (value < 10) {
+            sb.append('0');
+        }
+
+        sb.append(value);
+    }
+
+    /** The client agent name. */
+    private String agent;
+
+    /** The client IP address. */
+    private String clientAddress;
+
+    /** The call duration in milliseconds. */
+    private int duration;
+
+    /** The host reference. */
+    private String hostRef;
+
+    /** The preformatted message, or null to use the default format. */
+    private String message;
+
+    /** The method name. */
+    private String method;
+
+    /** The resource path. */
+    private String path;
+
+    /** The resource query. */
+    private String query;
+
+    /** The size of the request entity, or -1 if unknown. */
+    private long receivedSize;
+
+    /** The referrer reference. */
+    private String referrer;
+
+    /** The size of the response entity, or -1 if unknown. */
+    private long sentSize;
+
+    /**
+     * The sequence number used by the ring buffer of the
+     * {@link AccessLogWriter}.
+     */
+    volatile long sequence;
+
+    /** The server IP address. */
+    private String serverAddress;
+
+    /** The server port. */
+    private int serverPort;
+
+    /** The response status code, or -1 if unknown. */
+    private int status;
+
+    /** The logging time in milliseconds since the epoch. */
+    private long time;
+
+    /** The remote user identifier. */
+    private String user;
+
+    /**
+     * Constructor.
+     */
+    public AccessLogRecord() {
+        clear();
+    }
+
+    /**
+     * Clears the captured fields so that they can be garbage collected.
+     */
+    public void clear() {
+        this.agent = null;
+        this.clientAddress = null;
+        this.duration = 0;
+        this.hostRef = null;
+        this.message = null;
+        this.method = null;
+        this.path = null;
+        this.query = null;
+        this.receivedSize = -1L;
+        this.referrer = null;
+        this.sentSize = -1L;
+        this.serverAddress = null;
+        this.serverPort = -1;
+        this.status = -1;
+        this.time = 0L;
+        this.user = null;
+    }
+
+    /**
+     * Appends the log entry to a string builder, without line separator.
+     * 
+     * @param sb
+     *            The target builder.
+     * @param calendar
+     *            The calendar used to format the date and time, in the time
+     *            zone of the log.
+     */
+    public void format(StringBuilder sb, Calendar calendar) {
+        if (this.message != null) {
+            sb.append(this.message);
+            return;
+        }
+
+        // Append the date and the time of the request
+        calendar.setTimeInMillis(this.time);
+        sb.append(calendar.get(Calendar.YEAR)).append('-');
+        append2(sb, calendar.get(Calendar.MONTH) + 1);
+        sb.append('-');
+        append2(sb, calendar.get(Calendar.DAY_OF_MONTH));
+        sb.append('\t');
+        append2(sb, calendar.get(Calendar.HOUR_OF_DAY));
+        sb.append(':');
+        append2(sb, calendar.get(Calendar.MINUTE));
+        sb.append(':');
+        append2(sb, calendar.get(Calendar.SECOND));
+        sb.append('\t');
+
+        append(sb, this.clientAddress);
+        sb.append('\t');
+        append(sb, this.user);
+        sb.append('\t');
+        append(sb, this.serverAddress);
+        sb.append('\t');
+
+        sb.append(this.serverPort);
+        sb.append('\t');
+        append(sb, this.method);
+        sb.append('\t');
+        append(sb, this.path);
+        sb.append('\t');
+        append(sb, this.query);
+        sb.append('\t');
+
+        if (this.status == -1) {
+            sb.append('-');
+        } else {
+            sb.append(this.status);
+        }
+
+        sb.append('\t');
+
+        if (this.sentSize == -1) {
+            sb.append('-');
+        } else {
+            sb.append(this.sentSize);
+        }
+
+        sb.append('\t');
+
+        if (this.receivedSize == -1) {
+            sb.append('-');
+        } else {
+            sb.append(this.receivedSize);
+        }
+
+        sb.append('\t');
+        sb.append(this.duration);
+        sb.append('\t');
+        append(sb, this.hostRef);
+        sb.append('\t');
+        append(sb, this.agent);
+        sb.append('\t');
+        append(sb, this.referrer);
+    }
+
+    /**
+     * Captures the fields of the default log format.
+     * 
+     * @param response
+     *            The response to log.
+     * @param duration
+     *            The call duration in milliseconds.
+     * @param user
+     *            The remote user identifier or null.
+     */
+    public void set(Response response, int duration, String user) {
+        Request request = response.getRequest();
+        this.time = System.currentTimeMillis();
+        this.clientAddress = request.getClientInfo().getUpstreamAddress();
+        this.user = user;
+        this.serverAddress = response.getServerInfo().getAddress();
+        this.serverPort = response.getServerInfo().getPort();
+        this.method = (request.getMethod() == null) ? null : request
+                .getMethod().getName();
+        this.path = (request.getResourceRef() == null) ? null : request
+                .getResourceRef().getPath();
+        this.query = (request.getResourceRef() == null) ? null : request
+                .getResourceRef().getQuery();
+        this.status = (response.getStatus() == null) ? -1 : response
+                .getStatus().getCode();
+
+        if (!response.isEntityAvailable()
+                || Status.REDIRECTION_NOT_MODIFIED.equals(response.getStatus())
+                || Status.SUCCESS_NO_CONTENT.equals(response.getStatus())
+                || Method.HEAD.equals(request.getMethod())) {
+            this.sentSize = 0L;
+        } else {
+            this.sentSize = response.getEntity().getSize();
+        }
+
+        try {
+            this.receivedSize = (request.getEntity() == null) ? 0L : request
+                    .getEntity().getSize();
+        } catch (Throwable t) {
+            // Error while getting the request's entity, cf issue #931
+            Engine.getLogger(LogService.class).log(Level.SEVERE,
+                    "Cannot retrieve size of request's entity", t);
+            this.receivedSize = -1L;
+        }
+
+        this.duration = duration;
+        this.hostRef = (request.getHostRef() == null) ? null : request
+                .getHostRef().toString();
+        this.agent = request.getClientInfo().getAgent();
+        this.referrer = (request.getReferrerRef() == null) ? null : request
+                .getReferrerRef().getIdentifier();
+        this.message = null;
+    }
+
+    /**
+     * Indicates if no entry has been captured.
+     * 
+     * @return True if no entry has been captured.
+     */
+    boolean isEmpty() {
+        return (this.message == null) && (this.time == 0L);
+    }
+
+    /**
+     * Sets a preformatted message, used instead of the default format.
+     * 
+     * @param message
+     *            The preformatted message.
+     */
+    public void setMessage(String message) {
+        clear();
+        this.message = message;
+    }
+
+}
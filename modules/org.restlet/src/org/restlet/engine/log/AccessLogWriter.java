@@ -0,0 +1,511 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or or EPL 1.0 (the "Licenses"). You can
+ * select the license that you prefer but you may not use this file except in
+ * compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.log;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Calendar;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.restlet.Response;
+import org.restlet.engine.Engine;
+
+// [excludes gwt]
+/**
+ * Asynchronous access log writer. Calling threads only capture the log entries
+ * into the preallocated records of a bounded ring buffer, lock-free. A single
+ * background thread formats them and writes them by batches to a file, rotated
+ * when a size limit is reached.<br>
+ * <br>
+ * When the ring buffer is full, new entries are either dropped and counted,
+ * which is the default, or the calling threads wait for some space to be
+ * freed, depending on the {@link #isBlocking()} property.<br>
+ * <br>
+ * The rotated files are named after the log file, suffixed by ".1" for the
+ * most recent one, ".2" for the previous one, etc.
+ * 
+ * @author Jerome Louvel
+ */
+public class AccessLogWriter implements Runnable {
+
+    /** The maximum number of characters formatted before a write. */
+    private static final int BATCH_SIZE = 64 * 1024;
+
+    /** The default number of records of the ring buffer. */
+    public static final int DEFAULT_CAPACITY = 8192;
+
+    /** The delay before the writer thread polls again an empty buffer. */
+    private static final long IDLE_NANOS = 10000000L;
+
+    /** The delay before a blocked caller retries to claim a record. */
+    private static final long RETRY_NANOS = 100000L;
+
+    /** The UTF-8 character set. */
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /** Indicates if the calling threads wait when the buffer is full. */
+    private volatile boolean blocking;
+
+    /** The current file channel. */
+    private FileChannel channel;
+
+    /** The maximum number of files, including the current one. */
+    private volatile int count;
+
+    /** The number of dropped entries. */
+    private final AtomicLong droppedCount;
+
+    /** The log file. */
+    private final File file;
+
+    /** The maximum size of a file in bytes before rotation, 0 for no limit. */
+    private volatile long limit;
+
+    /** The next position to read by the writer thread. */
+    private long head;
+
+    /** The logger. */
+    private final Logger logger;
+
+    /** The mask used to compute the record index from a position. */
+    private final int mask;
+
+    /** The number of calling threads claiming or filling a record. */
+    private final AtomicInteger publishers;
+
+    /** The preallocated records. */
+    private final AccessLogRecord[] records;
+
+    /** Indicates if the writer is running. */
+    private volatile boolean running;
+
+    /** The size of the current file. */
+    private long size;
+
+    /** The next position to claim by the calling threads. */
+    private final AtomicLong tail;
+
+    /** The writer thread. */
+    private volatile Thread thread;
+
+    /**
+     * Constructor. Uses the default capacity, no size limit and appends to the
+     * existing file.
+     * 
+     * @param file
+     *            The log file.
+     */
+    public AccessLogWriter(File file) {
+        this(file, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param file
+     *            The log file.
+     * @param capacity
+     *            The number of records of the ring buffer, rounded to the next
+     *            power of two.
+     */
+    public AccessLogWriter(File file, int capacity) {
+        int size = 1;
+
+        while (size < capacity) {
+            size <<= 1;
+        }
+
+        this.file = file;
+        this.logger = Engine.getLogger(AccessLogWriter.class);
+        this.mask = size - 1;
+        this.records = new AccessLogRecord[size];
+
+        for (int i = 0; i < size; i++) {
+            this.records[i] = new AccessLogRecord();
+            this.records[i].sequence = i;
+        }
+
+        this.publishers = new AtomicInteger();
+        this.tail = new AtomicLong();
+        this.droppedCount = new AtomicLong();
+        this.blocking = false;
+        this.count = 1;
+        this.limit = 0L;
+    }
+
+    /**
+     * Claims the next free record.
+     * 
+     * @return The position of the claimed record, or -1 if the entry must be
+     *         dropped.
+     */
+    private long claim() {
+        long pos = this.tail.get();
+
+        while (this.running) {
+            long dif = this.records[(int) pos & this.mask].sequence - pos;
+
+            if (dif == 0) {
+                if (this.tail.compareAndSet(pos, pos + 1)) {
+                    return pos;
+                }
+            } else if (dif < 0) {
+                // The buffer is full
+                if (!isBlocking()) {
+                    break;
+                }
+
+                LockSupport.parkNanos(this, RETRY_NANOS);
+            }
+
+            pos = this.tail.get();
+        }
+
+        this.droppedCount.incrementAndGet();
+        return -1L;
+    }
+
+    /**
+     * Returns the maximum number of files, including the current one. Default
+     * value is 1.
+     * 
+     * @return The maximum number of files.
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the number of entries dropped because the buffer was full or the
+     * writer stopped.
+     * 
+     * @return The number of dropped entries.
+     */
+    public long getDroppedCount() {
+        return this.droppedCount.get();
+    }
+
+    /**
+     * Returns the log file.
+     * 
+     * @return The log file.
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Returns a log file given its rotation index.
+     * 
+     * @param index
+     *            The rotation index, 0 for the current file.
+     * @return The log file.
+     */
+    private File getFile(int index) {
+        return (index == 0) ? this.file : new File(this.file.getPath() + "."
+                + index);
+    }
+
+    /**
+     * Returns the maximum size of a file in bytes before rotation. Default
+     * value is 0, meaning no limit.
+     * 
+     * @return The maximum size of a file in bytes.
+     */
+    public long getLimit() {
+        return limit;
+    }
+
+    /**
+     * Indicates if the calling threads wait when the buffer is full, instead
+     * of dropping the entries. Default value is false.
+     * 
+     * @return True if the calling threads wait when the buffer is full.
+     */
+    public boolean isBlocking() {
+        return blocking;
+    }
+
+    /**
+     * Indicates if the writer is running.
+     * 
+     * @return True if the writer is running.
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Opens the current log file in append mode.
+     * 
+     * @throws IOException
+     */
+    private void open() throws IOException {
+        this.channel = new FileOutputStream(this.file, true).getChannel();
+        this.size = this.channel.size();
+    }
+
+    /**
+     * Closes the current file, shifts the previous files and opens a new one.
+     * 
+     * @throws IOException
+     */
+    private void rotate() throws IOException {
+        this.channel.close();
+
+        for (int i = getCount() - 1; i >= 0; i--) {
+            File source = getFile(i);
+
+            if (source.exists()) {
+                if ((i + 1) < getCount()) {
+                    File target = getFile(i + 1);
+                    target.delete();
+
+                    if (!source.renameTo(target)) {
+                        this.logger.warning("Unable to rotate the access log file "
+                                + source);
+                    }
+                } else {
+                    source.delete();
+                }
+            }
+        }
+
+        open();
+    }
+
+    /**
+     * Formats and writes the entries until the writer is stopped and the
+     * buffer drained.
+     */
+    public void run() {
+        StringBuilder sb = new StringBuilder(BATCH_SIZE + 1024);
+        Calendar calendar = Calendar.getInstance();
+        long head = this.head;
+        int capacity = this.records.length;
+
+        for (;;) {
+            // Read the flags before draining so that no entry is left behind,
+            // including the ones of calling threads that claimed a record just
+            // before the writer was stopped
+            boolean running = this.running || (this.publishers.get() > 0);
+            AccessLogRecord record = this.records[(int) head & this.mask];
+
+            while ((sb.length() < BATCH_SIZE)
+                    && (record.sequence == (head + 1))) {
+                if (!record.isEmpty()) {
+                    record.format(sb, calendar);
+                    sb.append('\n');
+                }
+
+                record.clear();
+                record.sequence = head + capacity;
+                head++;
+                record = this.records[(int) head & this.mask];
+            }
+
+            this.head = head;
+
+            if (sb.length() > 0) {
+                write(sb);
+                sb.setLength(0);
+            } else if (running) {
+                LockSupport.parkNanos(this, IDLE_NANOS);
+            } else {
+                break;
+            }
+        }
+
+        try {
+            this.channel.close();
+        } catch (IOException e) {
+            this.logger.log(Level.WARNING,
+                    "Unable to close the access log file", e);
+        }
+    }
+
+    /**
+     * Indicates if the calling threads wait when the buffer is full, instead
+     * of dropping the entries.
+     * 
+     * @param blocking
+     *            True if the calling threads wait when the buffer is full.
+     */
+    public void setBlocking(boolean blocking) {
+        this.blocking = blocking;
+    }
+
+    /**
+     * Sets the maximum number of files, including the current one.
+     * 
+     * @param count
+     *            The maximum number of files.
+     */
+    public void setCount(int count) {
+        this.count = Math.max(1, count);
+    }
+
+    /**
+     * Sets the maximum size of a file in bytes before rotation.
+     * 
+     * @param limit
+     *            The maximum size of a file in bytes, 0 for no limit.
+     */
+    public void setLimit(long limit) {
+        this.limit = limit;
+    }
+
+    /**
+     * Opens the log file and starts the writer thread.
+     * 
+     * @throws IOException
+     */
+    public synchronized void start() throws IOException {
+        if (!this.running) {
+            open();
+            this.running = true;
+            this.thread = new LoggingThreadFactory(this.logger, true)
+                    .newThread(this);
+            this.thread.start();
+        }
+    }
+
+    /**
+     * Stops the writer thread, once the pending entries have been written, and
+     * closes the log file. Entries written afterwards are dropped and counted.
+     * 
+     * @throws InterruptedException
+     */
+    public synchronized void stop() throws InterruptedException {
+        if (this.running) {
+            this.running = false;
+            LockSupport.unpark(this.thread);
+            this.thread.join();
+            this.thread = null;
+        }
+    }
+
+    /**
+     * Appends a log entry with the default format, captured from a response.
+     * 
+     * @param response
+     *            The response to log.
+     * @param duration
+     *            The call duration in milliseconds.
+     * @param user
+     *            The remote user identifier or null.
+     * @return True if the entry was accepted, false if it was dropped.
+     */
+    public boolean write(Response response, int duration, String user) {
+        this.publishers.incrementAndGet();
+
+        try {
+            long pos = claim();
+
+            if (pos == -1) {
+                return false;
+            }
+
+            AccessLogRecord record = this.records[(int) pos & this.mask];
+
+            try {
+                record.set(response, duration, user);
+            } catch (RuntimeException e) {
+                record.clear();
+                throw e;
+            } finally {
+                record.sequence = pos + 1;
+            }
+
+            return true;
+        } finally {
+            this.publishers.decrementAndGet();
+        }
+    }
+
+    /**
+     * Appends a preformatted log entry.
+     * 
+     * @param message
+     *            The log entry, without line separator.
+     * @return True if the entry was accepted, false if it was dropped.
+     */
+    public boolean write(String message) {
+        this.publishers.incrementAndGet();
+
+        try {
+            long pos = claim();
+
+            if (pos == -1) {
+                return false;
+            }
+
+            AccessLogRecord record = this.records[(int) pos & this.mask];
+            record.setMessage(message);
+            record.sequence = pos + 1;
+            return true;
+        } finally {
+            this.publishers.decrementAndGet();
+        }
+    }
+
+    /**
+     * Writes a batch of formatted entries to the current file, rotating it
+     * first if needed.
+     * 
+     * @param sb
+     *            The formatted entries.
+     */
+    private void write(StringBuilder sb) {
+        byte[] bytes = sb.toString().getBytes(UTF_8);
+
+        try {
+            if ((getLimit() > 0) && (this.size > 0)
+                    && ((this.size + bytes.length) > getLimit())) {
+                rotate();
+            }
+
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+
+            while (buffer.hasRemaining()) {
+                this.channel.write(buffer);
+            }
+
+            this.size += bytes.length;
+        } catch (IOException e) {
+            this.logger.log(Level.WARNING,
+                    "Unable to write to the access log file", e);
+        }
+    }
+
+}
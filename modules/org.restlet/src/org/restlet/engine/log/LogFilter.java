@@ -91,12 +91,20 @@ public class LogFilter extends Filter {
     @Override
     protected void afterHandle(Request request, Response response) {
         try {
-            if (request.isLoggable() && this.logLogger.isLoggable(Level.INFO)) {
-                long startTime = (Long) request.getAttributes().get(
-                        "org.restlet.startTime");
-                int duration = (int) (System.currentTimeMillis() - startTime);
-                this.logLogger.log(Level.INFO, this.logService
-                        .getResponseLogMessage(response, duration));
+            if (request.isLoggable()) {
+                // [ifndef gwt]
+                if (this.logService.getAccessLogWriter() != null) {
+                    this.logService.writeResponseLog(response,
+                            getDuration(request));
+                    return;
+                }
+                // [enddef]
+
+                if (this.logLogger.isLoggable(Level.INFO)) {
+                    this.logLogger.log(Level.INFO, this.logService
+                            .getResponseLogMessage(response,
+                                    getDuration(request)));
+                }
             }
         } catch (Throwable e) {
             // Error while logging the call, cf issue #931
@@ -104,6 +112,20 @@ public class LogFilter extends Filter {
         }
     }
 
+    /**
+     * Returns the call duration, based on the start time saved by
+     * {@link #beforeHandle(Request, Response)}.
+     * 
+     * @param request
+     *            The request handled.
+     * @return The call duration in milliseconds.
+     */
+    private int getDuration(Request request) {
+        long startTime = (Long) request.getAttributes().get(
+                "org.restlet.startTime");
+        return (int) (System.currentTimeMillis() - startTime);
+    }
+
     /**
      * Allows filtering before processing by the next Restlet. Saves the start
      * time.
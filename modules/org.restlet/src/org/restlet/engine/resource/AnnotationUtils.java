@@ -26,7 +26,11 @@ package org.restlet.engine.resource;
 
 import java.io.IOException;
 import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
@@ -49,6 +53,9 @@ public class AnnotationUtils {
     /** Annotation info cache. */
     private static final ConcurrentMap<Class<?>, List<AnnotationInfo>> cache = new ConcurrentHashMap<Class<?>, List<AnnotationInfo>>();
 
+    /** Method annotation info cache, indexed by Restlet method. */
+    private static final ConcurrentMap<Class<?>, Map<Method, List<MethodAnnotationInfo>>> methodCache = new ConcurrentHashMap<Class<?>, Map<Method, List<MethodAnnotationInfo>>>();
+
     /** Current instance. */
     private static AnnotationUtils instance = new AnnotationUtils();
 
@@ -224,6 +231,7 @@ public class AnnotationUtils {
      */
     public void clearCache() {
         cache.clear();
+        methodCache.clear();
     }
 
     /**
@@ -233,13 +241,17 @@ public class AnnotationUtils {
      *            The resource class to introspect.
      * @return The list of annotation descriptors.
      */
-    public synchronized List<AnnotationInfo> getAnnotations(Class<?> clazz) {
+    public List<AnnotationInfo> getAnnotations(Class<?> clazz) {
         List<AnnotationInfo> result = cache.get(clazz);
 
         if (result == null) {
             // Inspect the class itself for annotations
             result = addAnnotations(result, clazz, clazz);
 
+            if (result == null) {
+                result = Collections.emptyList();
+            }
+
             // Put the list in the cache if no one was previously present
             List<AnnotationInfo> prev = cache.putIfAbsent(clazz, result);
 
@@ -288,6 +300,46 @@ public class AnnotationUtils {
         return null;
     }
 
+    /**
+     * Returns the first annotation descriptor of the given resource class
+     * matching the given Restlet method. Only the descriptors indexed under
+     * the Restlet method are inspected.
+     * 
+     * @param clazz
+     *            The resource class to introspect.
+     * @param restletMethod
+     *            The method to match.
+     * @param query
+     *            The query parameters.
+     * @param entity
+     *            The request entity to match or null if no entity is provided.
+     * @param metadataService
+     *            The metadata service to use.
+     * @param converterService
+     *            The converter service to use.
+     * @return The annotation descriptor.
+     * @throws IOException
+     */
+    public MethodAnnotationInfo getMethodAnnotation(Class<?> clazz,
+            Method restletMethod, Form query, Representation entity,
+            MetadataService metadataService,
+            org.restlet.service.ConverterService converterService)
+            throws IOException {
+        List<MethodAnnotationInfo> candidates = getMethodAnnotations(clazz)
+                .get(restletMethod);
+
+        if (candidates != null) {
+            for (MethodAnnotationInfo candidate : candidates) {
+                if (candidate.isCompatible(restletMethod, query, entity,
+                        metadataService, converterService)) {
+                    return candidate;
+                }
+            }
+        }
+
+        return null;
+    }
+
     /**
      * Returns the first annotation descriptor matching the given Restlet
      * method.
@@ -327,6 +379,59 @@ public class AnnotationUtils {
         return null;
     }
 
+    /**
+     * Returns the immutable dispatch table of the given resource class. It
+     * indexes the method annotation descriptors by Restlet method, keeping
+     * their declaration order. The table is computed once and then looked up
+     * without locking.
+     * 
+     * @param clazz
+     *            The resource class to introspect.
+     * @return The method annotation descriptors indexed by Restlet method.
+     */
+    public Map<Method, List<MethodAnnotationInfo>> getMethodAnnotations(
+            Class<?> clazz) {
+        Map<Method, List<MethodAnnotationInfo>> result = methodCache
+                .get(clazz);
+
+        if (result == null) {
+            Map<Method, List<MethodAnnotationInfo>> index = new LinkedHashMap<Method, List<MethodAnnotationInfo>>();
+
+            for (AnnotationInfo annotationInfo : getAnnotations(clazz)) {
+                if (annotationInfo instanceof MethodAnnotationInfo) {
+                    MethodAnnotationInfo mai = (MethodAnnotationInfo) annotationInfo;
+                    List<MethodAnnotationInfo> list = index.get(mai
+                            .getRestletMethod());
+
+                    if (list == null) {
+                        list = new ArrayList<MethodAnnotationInfo>();
+                        index.put(mai.getRestletMethod(), list);
+                    }
+
+                    list.add(mai);
+                }
+            }
+
+            for (Map.Entry<Method, List<MethodAnnotationInfo>> entry : index
+                    .entrySet()) {
+                entry.setValue(Collections.unmodifiableList(entry.getValue()));
+            }
+
+            result = Collections.unmodifiableMap(index);
+
+            // Put the table in the cache if no one was previously present
+            Map<Method, List<MethodAnnotationInfo>> prev = methodCache
+                    .putIfAbsent(clazz, result);
+
+            if (prev != null) {
+                // Reuse the previous entry
+                result = prev;
+            }
+        }
+
+        return result;
+    }
+
     /**
      * Returns an instance of {@link Method} according to the given annotations.
      * 
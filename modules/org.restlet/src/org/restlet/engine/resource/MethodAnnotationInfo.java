@@ -25,6 +25,8 @@
 package org.restlet.engine.resource;
 
 import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
@@ -54,12 +56,21 @@ public class MethodAnnotationInfo extends AnnotationInfo {
     /** The input part of the annotation value. */
     private final String input;
 
+    /** The accessible copy of the Java method used to invoke it. */
+    private volatile java.lang.reflect.Method invoker;
+
+    /** The input types of the Java method, resolved once. */
+    private volatile Class<?>[] javaInputTypes;
+
     /** The output part of the annotation value. */
     private final String output;
 
     /** The optional query part of the annotation value. */
     private final String query;
 
+    /** The query parameters required by the annotation value, parsed once. */
+    private final Form queryParameters;
+
     /** The matching Restlet method. */
     private final Method restletMethod;
 
@@ -106,6 +117,9 @@ public class MethodAnnotationInfo extends AnnotationInfo {
             this.input = null;
             this.output = null;
         }
+
+        this.queryParameters = (this.query == null) ? null : new Form(
+                this.query);
     }
 
     /**
@@ -163,14 +177,20 @@ public class MethodAnnotationInfo extends AnnotationInfo {
      * @return The input types of the Java method.
      */
     public Class<?>[] getJavaInputTypes() {
-        int count = getJavaMethod().getParameterTypes().length;
-        Class<?>[] classes = new Class[count];
+        Class<?>[] classes = this.javaInputTypes;
+
+        if (classes == null) {
+            int count = getJavaMethod().getParameterTypes().length;
+            classes = new Class[count];
+
+            for (int i = 0; i < count; i++) {
+                classes[i] = getJavaInputType(i);
+            }
 
-        for (int i = 0; i < count; i++) {
-            classes[i] = getJavaInputType(i);
+            this.javaInputTypes = classes;
         }
 
-        return classes;
+        return classes.clone();
     }
 
     /**
@@ -366,6 +386,46 @@ public class MethodAnnotationInfo extends AnnotationInfo {
         return result;
     }
 
+    /**
+     * Invokes the Java method on a given resource. For public methods, the
+     * access checks are only done once, by invoking an accessible copy of the
+     * Java method when the security manager allows it.
+     * 
+     * @param resource
+     *            The resource instance.
+     * @param parameters
+     *            The method parameters.
+     * @return The invocation result.
+     * @throws IllegalAccessException
+     * @throws InvocationTargetException
+     */
+    public Object invoke(Object resource, Object... parameters)
+            throws IllegalAccessException, InvocationTargetException {
+        java.lang.reflect.Method result = this.invoker;
+
+        if (result == null) {
+            result = getJavaMethod();
+
+            if (Modifier.isPublic(result.getModifiers())) {
+                try {
+                    java.lang.reflect.Method copy = result.getDeclaringClass()
+                            .getDeclaredMethod(result.getName(),
+                                    result.getParameterTypes());
+                    copy.setAccessible(true);
+                    result = copy;
+                } catch (NoSuchMethodException e) {
+                    // Keep the original method
+                } catch (SecurityException e) {
+                    // Keep the original method
+                }
+            }
+
+            this.invoker = result;
+        }
+
+        return result.invoke(resource, parameters);
+    }
+
     /**
      * Indicates if the annotated method described is compatible with the given
      * parameters.
@@ -385,23 +445,17 @@ public class MethodAnnotationInfo extends AnnotationInfo {
             Representation requestEntity, MetadataService metadataService,
             org.restlet.service.ConverterService converterService)
             throws IOException {
-        boolean result = true;
+        // Verify HTTP method
+        boolean result = getRestletMethod().equals(restletMethod);
 
         // Verify query parameters
-        if (getQuery() != null) {
-            Form requiredParams = new Form(getQuery());
-
-            for (Iterator<Parameter> iter = requiredParams.iterator(); iter
+        if (result && (this.queryParameters != null)) {
+            for (Iterator<Parameter> iter = this.queryParameters.iterator(); iter
                     .hasNext() && result;) {
                 result = queryParams.contains(iter.next());
             }
         }
 
-        // Verify HTTP method
-        if (result) {
-            result = getRestletMethod().equals(restletMethod);
-        }
-
         // Verify request entity
         if (result) {
             result = isCompatibleRequestEntity(requestEntity, metadataService,
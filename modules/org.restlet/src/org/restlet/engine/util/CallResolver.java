@@ -24,8 +24,6 @@
 
 package org.restlet.engine.util;
 
-import java.util.Date;
-
 import org.restlet.Request;
 import org.restlet.Response;
 import org.restlet.data.ChallengeResponse;
@@ -139,8 +137,7 @@ public class CallResolver extends Resolver<Object> {
                         result = cr.getScheme().getTechnicalName();
                     }
                 } else if (variableName.equals("d")) {
-                    result = DateUtils.format(new Date(),
-                            DateUtils.FORMAT_RFC_1123.get(0));
+                    result = HttpDateCodec.formatCurrentDate();
                 } else if (variableName.equals("ecs")) {
                     if ((this.request.getEntity() != null)
                             && (this.request.getEntity().getCharacterSet() != null)) {
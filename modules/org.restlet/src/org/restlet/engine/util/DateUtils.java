@@ -175,6 +175,12 @@ public final class DateUtils {
         }
 
         // [ifndef gwt]
+        String result = HttpDateCodec.format(date.getTime(), format);
+
+        if (result != null) {
+            return result;
+        }
+
         java.text.DateFormat formatter = null;
 
         if (FORMAT_RFC_3339.get(0).equals(format)) {
@@ -238,6 +244,12 @@ public final class DateUtils {
         for (int i = 0; (result == null) && (i < formatsSize); i++) {
             format = formats.get(i);
             // [ifndef gwt]
+            result = HttpDateCodec.parse(date, format);
+
+            if (result != null) {
+                break;
+            }
+
             java.text.DateFormat parser = null;
 
             if (FORMAT_RFC_3339.get(0).equals(format)) {
@@ -0,0 +1,587 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or or EPL 1.0 (the "Licenses"). You can
+ * select the license that you prefer but you may not use this file except in
+ * compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.util;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.restlet.data.Header;
+import org.restlet.engine.header.HeaderConstants;
+import org.restlet.util.Series;
+
+// [excludes gwt]
+/**
+ * Series of headers indexed by name. Lookups by name, which are case
+ * insensitive for HTTP headers, use a hash index lazily built on the
+ * lower-cased names instead of comparing the name of every header. The
+ * insertion order of the headers is preserved and reported by all lookup
+ * methods.<br>
+ * <br>
+ * Headers appended at the end of the list, which is the usual way to build a
+ * series, are added to the index incrementally. Any other modification of the
+ * list causes the index to be lazily rebuilt on the next lookup. Note that the
+ * names of the headers must not be changed while they belong to the series,
+ * they should be replaced instead.
+ * 
+ * @author Jerome Louvel
+ */
+public class HeaderSeries extends Series<Header> {
+
+    /**
+     * List of headers that counts its modifications, including the ones that
+     * don't change its structure, and distinguishes the appends at its end.
+     */
+    private static class HeaderList extends ArrayList<Header> {
+
+        private static final long serialVersionUID = 1L;
+
+        /** The number of modifications that were appends at the end. */
+        private int appends;
+
+        /** The number of modifications not reflected by the modCount field. */
+        private int changes;
+
+        /**
+         * Constructor.
+         * 
+         * @param initialCapacity
+         *            The initial list capacity.
+         */
+        public HeaderList(int initialCapacity) {
+            super(initialCapacity);
+        }
+
+        @Override
+        public boolean add(Header element) {
+            int modCount = this.modCount;
+
+            try {
+                return super.add(element);
+            } finally {
+                this.appends += this.modCount - modCount;
+            }
+        }
+
+        @Override
+        public boolean addAll(Collection<? extends Header> elements) {
+            int modCount = this.modCount;
+
+            try {
+                return super.addAll(elements);
+            } finally {
+                this.appends += this.modCount - modCount;
+            }
+        }
+
+        /**
+         * Returns a value changing after each modification of the list, except
+         * the appends at its end.
+         * 
+         * @return A value changing after each modification of the list, except
+         *         the appends at its end.
+         */
+        public int getModificationCount() {
+            return this.modCount + this.changes - this.appends;
+        }
+
+        @Override
+        public Header set(int index, Header element) {
+            this.changes++;
+            return super.set(index, element);
+        }
+
+        @Override
+        public List<Header> subList(int fromIndex, int toIndex) {
+            return new HeaderSubList(this, super.subList(fromIndex, toIndex));
+        }
+    }
+
+    /**
+     * Index of the headers, extended as headers are appended to the list.
+     */
+    private static class HeaderIndex {
+
+        /** The number of used slots. */
+        private int count;
+
+        /** The position of the last header of each slot. */
+        private int[] last;
+
+        /** The modification count of the list when indexed. */
+        private final int modificationCount;
+
+        /** The name of each group of headers, in canonical form if known. */
+        private String[] names;
+
+        /** The position of the next header with the same name, or -1. */
+        private int[] next;
+
+        /** The number of indexed headers. */
+        private int size;
+
+        /** The hash of each slot. */
+        private int[] slotHashes;
+
+        /** The position plus one of the first header of each slot. */
+        private int[] slots;
+
+        /**
+         * Constructor.
+         * 
+         * @param headers
+         *            The list of headers to index.
+         */
+        public HeaderIndex(HeaderList headers) {
+            this.modificationCount = headers.getModificationCount();
+            this.next = new int[Math.max(4, headers.size())];
+            this.slots = new int[getTableSize(headers.size())];
+            this.slotHashes = new int[this.slots.length];
+            this.names = new String[this.slots.length];
+            this.last = new int[this.slots.length];
+            update(headers);
+        }
+
+        /**
+         * Adds the header at the end of the indexed list.
+         * 
+         * @param name
+         *            The header name.
+         */
+        private void append(String name) {
+            int position = this.size++;
+
+            if (position == this.next.length) {
+                int[] next = new int[2 * position];
+                System.arraycopy(this.next, 0, next, 0, position);
+                this.next = next;
+            }
+
+            this.next[position] = -1;
+
+            if (name != null) {
+                int hash = hash(name);
+                int slot = find(name, hash);
+
+                if (this.slots[slot] == 0) {
+                    if (2 * (this.count + 1) > this.slots.length) {
+                        resize();
+                        slot = find(name, hash);
+                    }
+
+                    this.slots[slot] = position + 1;
+                    this.slotHashes[slot] = hash;
+                    this.names[slot] = getCanonicalName(name, hash);
+                    this.count++;
+                } else {
+                    this.next[this.last[slot]] = position;
+                }
+
+                this.last[slot] = position;
+            }
+        }
+
+        /**
+         * Returns the slot of a given name, or the empty slot where it should
+         * be added.
+         * 
+         * @param name
+         *            The header name.
+         * @param hash
+         *            The hash of the header name.
+         * @return The slot of the given name.
+         */
+        private int find(String name, int hash) {
+            int mask = this.slots.length - 1;
+            int slot = hash & mask;
+
+            while ((this.slots[slot] != 0)
+                    && ((this.slotHashes[slot] != hash) || !this.names[slot]
+                            .equalsIgnoreCase(name))) {
+                slot = (slot + 1) & mask;
+            }
+
+            return slot;
+        }
+
+        /**
+         * Returns the position of the first header with a given name, ignoring
+         * the case.
+         * 
+         * @param name
+         *            The header name.
+         * @return The position of the first header or -1.
+         */
+        public int getFirst(String name) {
+            return this.slots[find(name, hash(name))] - 1;
+        }
+
+        /**
+         * Returns the position of the next header with the same name.
+         * 
+         * @param position
+         *            The position of the current header.
+         * @return The position of the next header or -1.
+         */
+        public int getNext(int position) {
+            return this.next[position];
+        }
+
+        /**
+         * Indicates if the index can be updated to reflect the given list of
+         * headers, that is to say if headers were only appended since the
+         * index was built.
+         * 
+         * @param headers
+         *            The list of headers.
+         * @return True if the index can be updated.
+         */
+        public boolean isValid(HeaderList headers) {
+            return (this.size <= headers.size())
+                    && (this.modificationCount == headers
+                            .getModificationCount());
+        }
+
+        /**
+         * Doubles the size of the hash table.
+         */
+        private void resize() {
+            int[] slots = this.slots;
+            int[] slotHashes = this.slotHashes;
+            String[] names = this.names;
+            int[] last = this.last;
+            this.slots = new int[2 * slots.length];
+            this.slotHashes = new int[this.slots.length];
+            this.names = new String[this.slots.length];
+            this.last = new int[this.slots.length];
+
+            for (int i = 0; i < slots.length; i++) {
+                if (slots[i] != 0) {
+                    int slot = find(names[i], slotHashes[i]);
+                    this.slots[slot] = slots[i];
+                    this.slotHashes[slot] = slotHashes[i];
+                    this.names[slot] = names[i];
+                    this.last[slot] = last[i];
+                }
+            }
+        }
+
+        /**
+         * Indexes the headers appended to the list since the last update.
+         * 
+         * @param headers
+         *            The list of headers.
+         */
+        public void update(HeaderList headers) {
+            for (int i = this.size; i < headers.size(); i++) {
+                append(headers.get(i).getName());
+            }
+        }
+    }
+
+    /**
+     * View of a portion of a list of headers, that reports all its
+     * modifications to the parent list.
+     */
+    private static class HeaderSubList extends AbstractList<Header> {
+
+        /** The parent list. */
+        private final HeaderList parent;
+
+        /** The wrapped view of the parent list. */
+        private final List<Header> view;
+
+        /**
+         * Constructor.
+         * 
+         * @param parent
+         *            The parent list.
+         * @param view
+         *            The wrapped view of the parent list.
+         */
+        public HeaderSubList(HeaderList parent, List<Header> view) {
+            this.parent = parent;
+            this.view = view;
+        }
+
+        @Override
+        public void add(int index, Header element) {
+            this.view.add(index, element);
+        }
+
+        @Override
+        public Header get(int index) {
+            return this.view.get(index);
+        }
+
+        @Override
+        public Header remove(int index) {
+            return this.view.remove(index);
+        }
+
+        @Override
+        public Header set(int index, Header element) {
+            this.parent.changes++;
+            return this.view.set(index, element);
+        }
+
+        @Override
+        public int size() {
+            return this.view.size();
+        }
+    }
+
+    /** The well-known header names, as defined in {@link HeaderConstants}. */
+    private static final String[] KNOWN_NAMES;
+
+    /** The hashes of the well-known header names. */
+    private static final int[] KNOWN_HASHES;
+
+    static {
+        List<String> names = new ArrayList<String>();
+
+        for (Field field : HeaderConstants.class.getFields()) {
+            if (field.getName().startsWith("HEADER_")
+                    && Modifier.isStatic(field.getModifiers())
+                    && (field.getType() == String.class)) {
+                try {
+                    names.add((String) field.get(null));
+                } catch (IllegalAccessException e) {
+                    // Not a public constant
+                }
+            }
+        }
+
+        KNOWN_NAMES = new String[getTableSize(names.size())];
+        KNOWN_HASHES = new int[KNOWN_NAMES.length];
+        int mask = KNOWN_NAMES.length - 1;
+
+        for (String name : names) {
+            int hash = hash(name);
+            int slot = hash & mask;
+
+            while ((KNOWN_NAMES[slot] != null)
+                    && !KNOWN_NAMES[slot].equalsIgnoreCase(name)) {
+                slot = (slot + 1) & mask;
+            }
+
+            KNOWN_NAMES[slot] = name;
+            KNOWN_HASHES[slot] = hash;
+        }
+    }
+
+    /**
+     * Returns the canonical instance of a header name, that is to say the
+     * constant defined in {@link HeaderConstants} for well-known headers. This
+     * lets most lookups, which use these constants, succeed on a reference
+     * comparison.
+     * 
+     * @param name
+     *            The header name.
+     * @param hash
+     *            The hash of the header name.
+     * @return The canonical header name.
+     */
+    private static String getCanonicalName(String name, int hash) {
+        int mask = KNOWN_NAMES.length - 1;
+
+        for (int slot = hash & mask; KNOWN_NAMES[slot] != null; slot = (slot + 1)
+                & mask) {
+            if ((KNOWN_HASHES[slot] == hash)
+                    && KNOWN_NAMES[slot].equalsIgnoreCase(name)) {
+                return KNOWN_NAMES[slot];
+            }
+        }
+
+        return name;
+    }
+
+    /**
+     * Returns the size of a hash table able to contain a given number of
+     * entries, that is to say a power of two at least twice larger.
+     * 
+     * @param count
+     *            The number of entries.
+     * @return The size of the hash table.
+     */
+    private static int getTableSize(int count) {
+        int result = 4;
+
+        while (result < (2 * count)) {
+            result <<= 1;
+        }
+
+        return result;
+    }
+
+    /**
+     * Computes a case insensitive hash of a header name, consistent with the
+     * {@link String#equalsIgnoreCase(String)} method.
+     * 
+     * @param name
+     *            The header name.
+     * @return The case insensitive hash.
+     */
+    private static int hash(String name) {
+        int result = 0;
+
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+
+            if ((c >= 'A') && (c <= 'Z')) {
+                c += 'a' - 'A';
+            } else if (c > 127) {
+                c = Character.toLowerCase(Character.toUpperCase(c));
+            }
+
+            result = 31 * result + c;
+        }
+
+        return result ^ (result >>> 16);
+    }
+
+    /** The current index, lazily built. */
+    private HeaderIndex index;
+
+    /**
+     * Constructor.
+     */
+    public HeaderSeries() {
+        this(10);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param initialCapacity
+     *            The initial list capacity.
+     */
+    public HeaderSeries(int initialCapacity) {
+        super(Header.class, new HeaderList(initialCapacity));
+    }
+
+    @Override
+    public Header createEntry(String name, String value) {
+        return new Header(name, value);
+    }
+
+    @Override
+    public Header getFirst(String name, boolean ignoreCase) {
+        if (name == null) {
+            return super.getFirst(name, ignoreCase);
+        }
+
+        HeaderIndex index = getIndex();
+
+        for (int i = index.getFirst(name); i != -1; i = index.getNext(i)) {
+            Header header = get(i);
+
+            if (ignoreCase || name.equals(header.getName())) {
+                return header;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the index of the headers, updating it with the appended headers
+     * or rebuilding it if the list was modified otherwise.
+     * 
+     * @return The index of the headers.
+     */
+    private synchronized HeaderIndex getIndex() {
+        HeaderList headers = (HeaderList) getDelegate();
+        HeaderIndex result = this.index;
+
+        if ((result == null) || !result.isValid(headers)) {
+            result = new HeaderIndex(headers);
+            this.index = result;
+        } else {
+            result.update(headers);
+        }
+
+        return result;
+    }
+
+    @Override
+    public String getValues(String name, String separator, boolean ignoreCase) {
+        if (name == null) {
+            return super.getValues(name, separator, ignoreCase);
+        }
+
+        String result = null;
+        StringBuilder sb = null;
+        HeaderIndex index = getIndex();
+
+        for (int i = index.getFirst(name); i != -1; i = index.getNext(i)) {
+            Header header = get(i);
+
+            if (ignoreCase || name.equals(header.getName())) {
+                if (sb == null) {
+                    if (result == null) {
+                        result = header.getValue();
+                    } else {
+                        sb = new StringBuilder();
+                        sb.append(result).append(separator)
+                                .append(header.getValue());
+                    }
+                } else {
+                    sb.append(separator).append(header.getValue());
+                }
+            }
+        }
+
+        if (sb != null) {
+            result = sb.toString();
+        }
+
+        return result;
+    }
+
+    @Override
+    public Series<Header> subList(String name, boolean ignoreCase) {
+        if (name == null) {
+            return super.subList(name, ignoreCase);
+        }
+
+        Series<Header> result = new HeaderSeries();
+        HeaderIndex index = getIndex();
+
+        for (int i = index.getFirst(name); i != -1; i = index.getNext(i)) {
+            Header header = get(i);
+
+            if (ignoreCase || name.equals(header.getName())) {
+                result.add(header);
+            }
+        }
+
+        return result;
+    }
+
+}
@@ -0,0 +1,660 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or or EPL 1.0 (the "Licenses"). You can
+ * select the license that you prefer but you may not use this file except in
+ * compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.util;
+
+import java.util.Date;
+
+/**
+ * Fast codec of the HTTP date formats, which are always expressed in GMT:
+ * {@link DateUtils#FORMAT_RFC_1123}, {@link DateUtils#FORMAT_RFC_1036} and
+ * {@link DateUtils#FORMAT_ASC_TIME}. Dates are formatted and parsed by hand,
+ * without {@link java.text.SimpleDateFormat} nor {@link java.util.Calendar}
+ * instances.<br>
+ * <br>
+ * As most formatted dates are close to the current time, the RFC 1123
+ * representations of the most recent seconds are cached. Formatting the
+ * current date for a "Date" header is therefore a lookup most of the time.<br>
+ * <br>
+ * Only well-formed dates between years 1900 and 9999 are handled. Other dates
+ * are left to the lenient {@link DateUtils} methods, which rely on this class
+ * first.
+ * 
+ * @author Jerome Louvel
+ */
+public final class HttpDateCodec {
+
+    /** Formatted RFC 1123 date of a given second. */
+    private static final class Entry {
+
+        /** The number of seconds since the epoch. */
+        private final long seconds;
+
+        /** The formatted date. */
+        private final String text;
+
+        /**
+         * Constructor.
+         * 
+         * @param seconds
+         *            The number of seconds since the epoch.
+         * @param text
+         *            The formatted date.
+         */
+        private Entry(long seconds, String text) {
+            this.seconds = seconds;
+            this.text = text;
+        }
+    }
+
+    /** Cursor parsing a date string. */
+    private static final class Parser {
+
+        /** The current index. */
+        private int index;
+
+        /** The string to parse. */
+        private final String source;
+
+        /**
+         * Constructor.
+         * 
+         * @param source
+         *            The string to parse.
+         */
+        private Parser(String source) {
+            this.index = 0;
+            this.source = source;
+        }
+
+        /**
+         * Indicates if the whole string has been parsed.
+         * 
+         * @return True if the whole string has been parsed.
+         */
+        private boolean atEnd() {
+            return this.index == this.source.length();
+        }
+
+        /**
+         * Reads a given character.
+         * 
+         * @param c
+         *            The expected character.
+         * @return True if the character was read.
+         */
+        private boolean read(char c) {
+            if ((this.index < this.source.length())
+                    && (this.source.charAt(this.index) == c)) {
+                this.index++;
+                return true;
+            }
+
+            return false;
+        }
+
+        /**
+         * Reads a number.
+         * 
+         * @param minDigits
+         *            The minimum number of digits.
+         * @param maxDigits
+         *            The maximum number of digits.
+         * @return The number read or -1.
+         */
+        private int readNumber(int minDigits, int maxDigits) {
+            int start = this.index;
+            int result = 0;
+
+            while ((this.index < this.source.length())
+                    && (this.index - start < maxDigits)) {
+                char c = this.source.charAt(this.index);
+
+                if ((c < '0') || (c > '9')) {
+                    break;
+                }
+
+                result = result * 10 + (c - '0');
+                this.index++;
+            }
+
+            return (this.index - start < minDigits) ? -1 : result;
+        }
+
+        /**
+         * Reads a month name.
+         * 
+         * @return The month, from 1 to 12, or -1.
+         */
+        private int readMonth() {
+            if (this.index + 3 <= this.source.length()) {
+                for (int i = 0; i < MONTHS.length; i++) {
+                    if (this.source.regionMatches(true, this.index, MONTHS[i],
+                            0, 3)) {
+                        this.index += 3;
+                        return i + 1;
+                    }
+                }
+            }
+
+            return -1;
+        }
+
+        /**
+         * Reads a "HH:mm:ss" time.
+         * 
+         * @return The number of seconds since midnight or -1.
+         */
+        private int readTime() {
+            int hours = readNumber(2, 2);
+
+            if ((hours < 0) || (hours > 23) || !read(':')) {
+                return -1;
+            }
+
+            int minutes = readNumber(2, 2);
+
+            if ((minutes < 0) || (minutes > 59) || !read(':')) {
+                return -1;
+            }
+
+            int seconds = readNumber(2, 2);
+            return ((seconds < 0) || (seconds > 59)) ? -1 : hours * 3600
+                    + minutes * 60 + seconds;
+        }
+
+        /**
+         * Reads a short or long day name.
+         * 
+         * @return True if a day name was read.
+         */
+        private boolean readWeekDay() {
+            int start = this.index;
+
+            while ((this.index < this.source.length())
+                    && Character.isLetter(this.source.charAt(this.index))) {
+                this.index++;
+            }
+
+            int length = this.index - start;
+
+            for (int i = 0; i < DAYS.length; i++) {
+                if (((length == 3) || (length == DAY_NAMES[i].length()))
+                        && this.source.regionMatches(true, start,
+                                DAY_NAMES[i], 0, length)) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        /**
+         * Reads the GMT time zone at the end of the string.
+         * 
+         * @return True if the time zone was read.
+         */
+        private boolean readZone() {
+            int length = this.source.length() - this.index;
+            boolean result = (length == 3)
+                    && (this.source.regionMatches(true, this.index, "GMT", 0,
+                            3) || this.source.regionMatches(true, this.index,
+                            "UTC", 0, 3));
+
+            if (result) {
+                this.index += 3;
+            }
+
+            return result;
+        }
+    }
+
+    /** The short names of the days, starting with Sunday. */
+    private static final String[] DAYS = { "Sun", "Mon", "Tue", "Wed", "Thu",
+            "Fri", "Sat" };
+
+    /** The names of the days, starting with Sunday. */
+    private static final String[] DAY_NAMES = { "Sunday", "Monday",
+            "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday" };
+
+    /** Value returned by the parsing methods on failure. */
+    private static final long INVALID = Long.MIN_VALUE;
+
+    /** The first supported time: 1900-01-01T00:00:00Z. */
+    private static final long MIN_TIME = -2208988800000L;
+
+    /** The last supported time: 9999-12-31T23:59:59.999Z. */
+    private static final long MAX_TIME = 253402300799999L;
+
+    /** The number of days of the months, in a common year. */
+    private static final int[] MONTH_DAYS = { 31, 28, 31, 30, 31, 30, 31, 31,
+            30, 31, 30, 31 };
+
+    /** The short names of the months. */
+    private static final String[] MONTHS = { "Jan", "Feb", "Mar", "Apr",
+            "May", "Jun", "Jul", "Aug", "Sep", "Oct", "Nov", "Dec" };
+
+    /** The number of cached seconds, as a power of 2. */
+    private static final int CACHE_SIZE = 256;
+
+    /** The RFC 1123 dates of recent seconds, indexed by second. */
+    private static final Entry[] cache = new Entry[CACHE_SIZE];
+
+    /** The most recently formatted RFC 1123 date. */
+    private static volatile Entry current = new Entry(Long.MIN_VALUE, null);
+
+    /**
+     * Appends a number padded with zeros.
+     * 
+     * @param sb
+     *            The target builder.
+     * @param value
+     *            The positive number.
+     * @param digits
+     *            The minimum number of digits.
+     */
+    private static void append(StringBuilder sb, int value, int digits) {
+        for (int limit = 10; digits > 1; digits--, limit *= 10) {
+            if (value < limit) {
+                sb.append('0');
+            }
+        }
+
+        sb.append(value);
+    }
+
+    /**
+     * Returns the floor of the division of two numbers.
+     * 
+     * @param dividend
+     *            The dividend.
+     * @param divisor
+     *            The positive divisor.
+     * @return The floor of the division.
+     */
+    private static long floorDiv(long dividend, long divisor) {
+        long result = dividend / divisor;
+        return ((dividend % divisor) < 0) ? result - 1 : result;
+    }
+
+    /**
+     * Converts a number of days since the epoch to a civil date.
+     * 
+     * @param days
+     *            The number of days since the epoch.
+     * @param fields
+     *            The array receiving the year, the month from 1 to 12 and the
+     *            day of month.
+     */
+    private static void toCivil(long days, int[] fields) {
+        long z = days + 719468;
+        long era = ((z >= 0) ? z : z - 146096) / 146097;
+        long doe = z - era * 146097;
+        long yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        long mp = (5 * doy + 2) / 153;
+        fields[2] = (int) (doy - (153 * mp + 2) / 5 + 1);
+        fields[1] = (int) ((mp < 10) ? mp + 3 : mp - 9);
+        fields[0] = (int) (yoe + era * 400 + ((fields[1] <= 2) ? 1 : 0));
+    }
+
+    /**
+     * Returns the number of days since the epoch of a date.
+     * 
+     * @param year
+     *            The year.
+     * @param month
+     *            The month, from 1 to 12.
+     * @param day
+     *            The day of month, from 1 to 31.
+     * @return The number of days since the epoch.
+     */
+    private static long toEpochDay(int year, int month, int day) {
+        long y = (month <= 2) ? year - 1 : year;
+        long era = ((y >= 0) ? y : y - 399) / 400;
+        long yoe = y - era * 400;
+        long doy = (153 * ((month > 2) ? month - 3 : month + 9) + 2) / 5 + day
+                - 1;
+        long doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146097 + doe - 719468;
+    }
+
+    /**
+     * Formats a date according to one of the HTTP date formats.
+     * 
+     * @param time
+     *            The number of milliseconds since the epoch.
+     * @param format
+     *            The date format, one of the patterns of
+     *            {@link DateUtils#FORMAT_RFC_1123},
+     *            {@link DateUtils#FORMAT_RFC_1036} or
+     *            {@link DateUtils#FORMAT_ASC_TIME}.
+     * @return The formatted date or null if the format or the date isn't
+     *         supported.
+     */
+    public static String format(long time, String format) {
+        if ((time < MIN_TIME) || (time > MAX_TIME)) {
+            return null;
+        } else if (DateUtils.FORMAT_RFC_1123.get(0).equals(format)) {
+            return formatRfc1123(time);
+        } else if (DateUtils.FORMAT_RFC_1036.get(0).equals(format)) {
+            return format(time, 1036);
+        } else if (DateUtils.FORMAT_ASC_TIME.get(0).equals(format)) {
+            return format(time, 0);
+        }
+
+        return null;
+    }
+
+    /**
+     * Formats a supported date.
+     * 
+     * @param time
+     *            The number of milliseconds since the epoch.
+     * @param rfc
+     *            The format, either 1123, 1036 or 0 for asctime.
+     * @return The formatted date.
+     */
+    private static String format(long time, int rfc) {
+        long seconds = floorDiv(time, 1000L);
+        long days = floorDiv(seconds, 86400L);
+        int secondOfDay = (int) (seconds - days * 86400L);
+        int[] fields = new int[3];
+        toCivil(days, fields);
+        int year = fields[0];
+        int month = fields[1];
+        int day = fields[2];
+
+        // The epoch was a Thursday
+        int dayOfWeek = (int) ((days + 4) - 7 * floorDiv(days + 4, 7L));
+
+        StringBuilder sb = new StringBuilder(32);
+
+        if (rfc == 1036) {
+            sb.append(DAY_NAMES[dayOfWeek]).append(", ");
+            append(sb, day, 2);
+            sb.append('-').append(MONTHS[month - 1]).append('-');
+            append(sb, year % 100, 2);
+        } else if (rfc == 1123) {
+            sb.append(DAYS[dayOfWeek]).append(", ");
+            append(sb, day, 2);
+            sb.append(' ').append(MONTHS[month - 1]).append(' ');
+            append(sb, year, 4);
+        } else {
+            sb.append(DAYS[dayOfWeek]).append(' ')
+                    .append(MONTHS[month - 1]).append(' ');
+            append(sb, day, 2);
+        }
+
+        sb.append(' ');
+        append(sb, secondOfDay / 3600, 2);
+        sb.append(':');
+        append(sb, (secondOfDay / 60) % 60, 2);
+        sb.append(':');
+        append(sb, secondOfDay % 60, 2);
+
+        if (rfc == 0) {
+            sb.append(' ');
+            append(sb, year, 4);
+        } else {
+            sb.append(" GMT");
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Formats the current date according to the RFC 1123 format, as expected
+     * by the "Date" header.
+     * 
+     * @return The formatted current date.
+     */
+    public static String formatCurrentDate() {
+        return formatRfc1123(System.currentTimeMillis());
+    }
+
+    /**
+     * Formats a date according to the RFC 1123 format, using the cache of
+     * recent seconds.
+     * 
+     * @param time
+     *            The supported number of milliseconds since the epoch.
+     * @return The formatted date.
+     */
+    private static String formatRfc1123(long time) {
+        long seconds = floorDiv(time, 1000L);
+        Entry entry = current;
+
+        if (entry.seconds != seconds) {
+            // Entries are immutable, so racy accesses are safe
+            int index = (int) (seconds & (CACHE_SIZE - 1));
+            entry = cache[index];
+
+            if ((entry == null) || (entry.seconds != seconds)) {
+                entry = new Entry(seconds, format(time, 1123));
+                cache[index] = entry;
+            }
+
+            current = entry;
+        }
+
+        return entry.text;
+    }
+
+    /**
+     * Parses a date according to one of the HTTP date formats.
+     * 
+     * @param date
+     *            The date to parse.
+     * @param format
+     *            The date format, one of the patterns of
+     *            {@link DateUtils#FORMAT_RFC_1123},
+     *            {@link DateUtils#FORMAT_RFC_1036} or
+     *            {@link DateUtils#FORMAT_ASC_TIME}.
+     * @return The parsed date or null if the format isn't supported or the
+     *         date isn't well-formed.
+     */
+    public static Date parse(String date, String format) {
+        long result = INVALID;
+
+        if (date == null) {
+            return null;
+        } else if (DateUtils.FORMAT_RFC_1123.get(0).equals(format)) {
+            result = parseRfc1123(new Parser(date));
+        } else if (DateUtils.FORMAT_RFC_1036.get(0).equals(format)) {
+            result = parseRfc1036(new Parser(date));
+        } else if (DateUtils.FORMAT_ASC_TIME.get(0).equals(format)) {
+            result = parseAscTime(new Parser(date));
+        }
+
+        return (result == INVALID) ? null : new Date(result);
+    }
+
+    /**
+     * Parses an asctime date such as "Sun Nov  6 08:49:37 1994".
+     * 
+     * @param parser
+     *            The date parser.
+     * @return The parsed time or {@link #INVALID}.
+     */
+    private static long parseAscTime(Parser parser) {
+        if (!parser.readWeekDay() || !parser.read(' ')) {
+            return INVALID;
+        }
+
+        int month = parser.readMonth();
+
+        if ((month < 0) || !parser.read(' ')) {
+            return INVALID;
+        }
+
+        // Single digit days are padded with a space
+        parser.read(' ');
+        int day = parser.readNumber(1, 2);
+
+        if (!parser.read(' ')) {
+            return INVALID;
+        }
+
+        int time = parser.readTime();
+
+        if ((time < 0) || !parser.read(' ')) {
+            return INVALID;
+        }
+
+        int year = parser.readNumber(4, 4);
+        return parser.atEnd() ? toTime(year, month, day, time) : INVALID;
+    }
+
+    /**
+     * Parses an RFC 1036 date such as "Sunday, 06-Nov-94 08:49:37 GMT". Four
+     * digit years are also accepted, as often found in cookies.
+     * 
+     * @param parser
+     *            The date parser.
+     * @return The parsed time or {@link #INVALID}.
+     */
+    private static long parseRfc1036(Parser parser) {
+        if (!parser.readWeekDay() || !parser.read(',') || !parser.read(' ')) {
+            return INVALID;
+        }
+
+        int day = parser.readNumber(1, 2);
+
+        if (!parser.read('-')) {
+            return INVALID;
+        }
+
+        int month = parser.readMonth();
+
+        if ((month < 0) || !parser.read('-')) {
+            return INVALID;
+        }
+
+        int start = parser.index;
+        int year = parser.readNumber(2, 4);
+
+        if (parser.index - start == 2) {
+            // Same two-digit year window as SimpleDateFormat
+            int[] fields = new int[3];
+            toCivil(floorDiv(System.currentTimeMillis(), 86400000L), fields);
+            int base = fields[0] - 80;
+            year += base - (base % 100);
+
+            if (year < base) {
+                year += 100;
+            }
+        } else if (parser.index - start != 4) {
+            return INVALID;
+        }
+
+        if (!parser.read(' ')) {
+            return INVALID;
+        }
+
+        int time = parser.readTime();
+
+        if ((time < 0) || !parser.read(' ') || !parser.readZone()) {
+            return INVALID;
+        }
+
+        return toTime(year, month, day, time);
+    }
+
+    /**
+     * Parses an RFC 1123 date such as "Sun, 06 Nov 1994 08:49:37 GMT".
+     * 
+     * @param parser
+     *            The date parser.
+     * @return The parsed time or {@link #INVALID}.
+     */
+    private static long parseRfc1123(Parser parser) {
+        if (!parser.readWeekDay() || !parser.read(',') || !parser.read(' ')) {
+            return INVALID;
+        }
+
+        int day = parser.readNumber(1, 2);
+
+        if (!parser.read(' ')) {
+            return INVALID;
+        }
+
+        int month = parser.readMonth();
+
+        if ((month < 0) || !parser.read(' ')) {
+            return INVALID;
+        }
+
+        int year = parser.readNumber(4, 4);
+
+        if (!parser.read(' ')) {
+            return INVALID;
+        }
+
+        int time = parser.readTime();
+
+        if ((time < 0) || !parser.read(' ') || !parser.readZone()) {
+            return INVALID;
+        }
+
+        return toTime(year, month, day, time);
+    }
+
+    /**
+     * Returns the number of milliseconds since the epoch of a date.
+     * 
+     * @param year
+     *            The year.
+     * @param month
+     *            The month, from 1 to 12.
+     * @param day
+     *            The day of month.
+     * @param time
+     *            The number of seconds since midnight.
+     * @return The number of milliseconds or {@link #INVALID} if the date is
+     *         invalid or not supported.
+     */
+    private static long toTime(int year, int month, int day, int time) {
+        int monthDays = MONTH_DAYS[month - 1];
+
+        if ((month == 2)
+                && ((year % 4 == 0) && ((year % 100 != 0) || (year % 400 == 0)))) {
+            monthDays++;
+        }
+
+        if ((year < 1900) || (day < 1) || (day > monthDays)) {
+            return INVALID;
+        }
+
+        return (toEpochDay(year, month, day) * 86400L + time) * 1000L;
+    }
+
+    /**
+     * Private constructor to ensure that the class acts as a true utility class
+     * i.e. it isn't instantiable and extensible.
+     */
+    private HttpDateCodec() {
+    }
+
+}
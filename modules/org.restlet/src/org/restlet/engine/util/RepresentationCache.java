@@ -0,0 +1,208 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or or EPL 1.0 (the "Licenses"). You can
+ * select the license that you prefer but you may not use this file except in
+ * compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.util;
+
+import java.util.Date;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.restlet.data.Tag;
+import org.restlet.representation.Representation;
+
+// [excludes gwt]
+/**
+ * Bounded cache of values computed from representations, such as compiled
+ * templates. A cached value is only reused if the tag and the modification
+ * date of the representation are unchanged, so that a changed representation
+ * is computed again. Representations that have neither a tag nor a
+ * modification date shouldn't be cached as their changes can't be detected,
+ * see {@link #isCacheable(Representation)}.<br>
+ * <br>
+ * Once the capacity is reached, new keys aren't cached anymore while the
+ * values of existing keys can still be updated.<br>
+ * <br>
+ * Concurrency note: this class is thread-safe.
+ * 
+ * @author Jerome Louvel
+ * @param <K>
+ *            The type of keys.
+ * @param <V>
+ *            The type of cached values.
+ */
+public class RepresentationCache<K, V> {
+
+    /** Cache entry. */
+    private static class Entry<V> {
+        /** The modification date of the source representation. */
+        private final Date modificationDate;
+
+        /** The tag of the source representation. */
+        private final Tag tag;
+
+        /** The cached value. */
+        private final V value;
+
+        /**
+         * Constructor.
+         * 
+         * @param representation
+         *            The source representation.
+         * @param value
+         *            The cached value.
+         */
+        private Entry(Representation representation, V value) {
+            this.modificationDate = representation.getModificationDate();
+            this.tag = representation.getTag();
+            this.value = value;
+        }
+
+        /**
+         * Indicates if the entry was computed from the given version of the
+         * representation.
+         * 
+         * @param representation
+         *            The representation.
+         * @return True if the entry is still valid.
+         */
+        private boolean isValid(Representation representation) {
+            return SystemUtils.equals(this.tag, representation.getTag())
+                    && SystemUtils.equals(this.modificationDate,
+                            representation.getModificationDate());
+        }
+    }
+
+    /**
+     * Indicates if values computed from a representation can be cached, that
+     * is if it has a location reference identifying it and a tag or a
+     * modification date allowing to detect its changes.
+     * 
+     * @param representation
+     *            The representation.
+     * @return True if values computed from the representation can be cached.
+     */
+    public static boolean isCacheable(Representation representation) {
+        return (representation.getLocationRef() != null)
+                && ((representation.getTag() != null) || (representation
+                        .getModificationDate() != null));
+    }
+
+    /** The maximum number of cached entries. */
+    private final int capacity;
+
+    /** The cached entries. */
+    private final ConcurrentMap<K, Entry<V>> entries;
+
+    /**
+     * Constructor.
+     * 
+     * @param capacity
+     *            The maximum number of cached entries.
+     */
+    public RepresentationCache(int capacity) {
+        this.capacity = capacity;
+        this.entries = new ConcurrentHashMap<K, Entry<V>>();
+    }
+
+    /**
+     * Removes all the cached entries.
+     */
+    public void clear() {
+        this.entries.clear();
+    }
+
+    /**
+     * Returns the value cached for a key if it was computed from the same
+     * version of the given representation.
+     * 
+     * @param key
+     *            The key.
+     * @param representation
+     *            The current version of the source representation.
+     * @return The cached value or null if it is missing or stale.
+     */
+    public V get(K key, Representation representation) {
+        Entry<V> entry = this.entries.get(key);
+        return ((entry == null) || !entry.isValid(representation)) ? null
+                : entry.value;
+    }
+
+    /**
+     * Returns the maximum number of cached entries.
+     * 
+     * @return The maximum number of cached entries.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the live set of keys. Removing keys from it removes the
+     * matching entries.
+     * 
+     * @return The live set of keys.
+     */
+    public Set<K> keySet() {
+        return this.entries.keySet();
+    }
+
+    /**
+     * Caches a value computed from a representation, unless the capacity is
+     * reached and the key isn't already cached.
+     * 
+     * @param key
+     *            The key.
+     * @param representation
+     *            The source representation.
+     * @param value
+     *            The computed value.
+     */
+    public void put(K key, Representation representation, V value) {
+        if ((this.entries.size() < getCapacity())
+                || this.entries.containsKey(key)) {
+            this.entries.put(key, new Entry<V>(representation, value));
+        }
+    }
+
+    /**
+     * Removes the entry of a key.
+     * 
+     * @param key
+     *            The key.
+     */
+    public void remove(K key) {
+        this.entries.remove(key);
+    }
+
+    /**
+     * Returns the number of cached entries.
+     * 
+     * @return The number of cached entries.
+     */
+    public int size() {
+        return this.entries.size();
+    }
+
+}
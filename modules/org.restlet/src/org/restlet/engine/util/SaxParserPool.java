@@ -0,0 +1,152 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or or EPL 1.0 (the "Licenses"). You can
+ * select the license that you prefer but you may not use this file except in
+ * compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.util;
+
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.logging.Level;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+
+import org.restlet.Context;
+
+// [excludes gwt]
+/**
+ * Bounded pool of SAX parsers sharing the same parsing options. Parsers are
+ * reset when checked in, which restores the options set by their factory. It
+ * is shared by the extensions parsing XML documents.
+ * 
+ * @author Jerome Louvel
+ */
+public class SaxParserPool extends Pool<SAXParser> {
+
+    /** The maximum number of idle parsers kept by each pool. */
+    public static final int MAX_IDLE_PARSERS = 4 * Runtime.getRuntime()
+            .availableProcessors();
+
+    /** The shared pools, indexed by parsing options. */
+    private static final AtomicReferenceArray<SaxParserPool> POOLS = new AtomicReferenceArray<SaxParserPool>(
+            32);
+
+    /**
+     * Returns the shared pool for the given parsing options.
+     * 
+     * @param namespaceAware
+     *            Indicates if the parsers are namespace aware.
+     * @param validatingDtd
+     *            Indicates if the parsers validate the DTD.
+     * @param xIncludeAware
+     *            Indicates if the parsers are XInclude aware.
+     * @param secureProcessing
+     *            Indicates if the secure processing feature is enabled.
+     * @param expandingEntityRefs
+     *            Indicates if the external entities are expanded.
+     * @return The pool of parsers.
+     */
+    public static SaxParserPool getInstance(boolean namespaceAware,
+            boolean validatingDtd, boolean xIncludeAware,
+            boolean secureProcessing, boolean expandingEntityRefs) {
+        int index = (namespaceAware ? 1 : 0) | (validatingDtd ? 2 : 0)
+                | (xIncludeAware ? 4 : 0) | (secureProcessing ? 8 : 0)
+                | (expandingEntityRefs ? 16 : 0);
+        SaxParserPool result = POOLS.get(index);
+
+        if (result == null) {
+            POOLS.compareAndSet(index, null, new SaxParserPool(index));
+            result = POOLS.get(index);
+        }
+
+        return result;
+    }
+
+    /** The parsing options, as a bit mask. */
+    private final int options;
+
+    /**
+     * Constructor.
+     * 
+     * @param options
+     *            The parsing options, as a bit mask.
+     */
+    private SaxParserPool(int options) {
+        super();
+        this.options = options;
+    }
+
+    @Override
+    protected void clear(SAXParser parser) {
+        parser.reset();
+    }
+
+    /**
+     * Creates a configured parser.
+     * 
+     * @return A new parser or null if it couldn't be created.
+     */
+    @Override
+    protected SAXParser createObject() {
+        try {
+            SAXParserFactory spf = SAXParserFactory.newInstance();
+            spf.setNamespaceAware(isOption(1));
+
+            // Keep before the external entity preferences
+            spf.setValidating(isOption(2));
+            spf.setXIncludeAware(isOption(4));
+            spf.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING,
+                    isOption(8));
+            spf.setFeature(
+                    "http://xml.org/sax/features/external-general-entities",
+                    isOption(16));
+            spf.setFeature(
+                    "http://xml.org/sax/features/external-parameter-entities",
+                    isOption(16));
+            return spf.newSAXParser();
+        } catch (Exception e) {
+            Context.getCurrentLogger().log(Level.WARNING,
+                    "Problem creating SAX parser", e);
+            return null;
+        }
+    }
+
+    @Override
+    protected Queue<SAXParser> createStore() {
+        return new ArrayBlockingQueue<SAXParser>(MAX_IDLE_PARSERS);
+    }
+
+    /**
+     * Indicates if a parsing option is enabled.
+     * 
+     * @param option
+     *            The option bit.
+     * @return True if the option is enabled.
+     */
+    private boolean isOption(int option) {
+        return (this.options & option) != 0;
+    }
+
+}
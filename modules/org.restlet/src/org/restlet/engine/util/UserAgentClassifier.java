@@ -0,0 +1,242 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or or EPL 1.0 (the "Licenses"). You can
+ * select the license that you prefer but you may not use this file except in
+ * compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.restlet.Context;
+import org.restlet.data.CharacterSet;
+import org.restlet.data.ClientInfo;
+import org.restlet.engine.Engine;
+import org.restlet.engine.io.IoUtils;
+import org.restlet.routing.Template;
+import org.restlet.routing.Variable;
+
+// [excludes gwt]
+/**
+ * Thread-safe classifier of agent names, based on the templates declared in
+ * the "agent.properties" file. The templates are compiled once and tried in
+ * order until one matches. As clients send a small set of distinct agent
+ * names, the attributes extracted from the most recently used names are kept
+ * in a bounded LRU cache, turning most classifications into a hash lookup.
+ * 
+ * @see ClientInfo#getAgentAttributes()
+ * @author Jerome Louvel
+ */
+public class UserAgentClassifier {
+
+    /** The default number of agent names whose attributes are cached. */
+    public static final int DEFAULT_CACHE_SIZE = 1024;
+
+    /** The shared instance based on the "agent.properties" file. */
+    private static volatile UserAgentClassifier instance;
+
+    /**
+     * Returns the shared instance, based on the templates declared in the
+     * "agent.properties" file of the "org/restlet/data" classpath directory.
+     * 
+     * @return The shared instance.
+     */
+    public static UserAgentClassifier getInstance() {
+        // Lazy initialization with double-check.
+        UserAgentClassifier u = instance;
+
+        if (u == null) {
+            synchronized (UserAgentClassifier.class) {
+                u = instance;
+
+                if (u == null) {
+                    u = new UserAgentClassifier(loadPatterns(),
+                            DEFAULT_CACHE_SIZE);
+                    instance = u;
+                }
+            }
+        }
+
+        return u;
+    }
+
+    /**
+     * Loads the template patterns from the "agent.properties" file.
+     * 
+     * @return The template patterns.
+     */
+    private static List<String> loadPatterns() {
+        List<String> result = new ArrayList<String>();
+        java.net.URL userAgentPropertiesUrl = Engine
+                .getResource("org/restlet/data/agent.properties");
+
+        if (userAgentPropertiesUrl != null) {
+            try {
+                BufferedReader reader = new BufferedReader(
+                        new InputStreamReader(
+                                userAgentPropertiesUrl.openStream(),
+                                CharacterSet.UTF_8.getName()),
+                        IoUtils.BUFFER_SIZE);
+
+                try {
+                    String line = reader.readLine();
+
+                    for (; line != null; line = reader.readLine()) {
+                        if ((line.trim().length() > 0)
+                                && !line.trim().startsWith("#")) {
+                            result.add(line);
+                        }
+                    }
+                } finally {
+                    reader.close();
+                }
+            } catch (IOException e) {
+                Context.getCurrentLogger().warning(
+                        "Cannot read '" + userAgentPropertiesUrl.toString()
+                                + "' due to: " + e.getMessage());
+            }
+        }
+
+        return result;
+    }
+
+    /** The attributes of the most recently classified agent names. */
+    private final Map<String, Map<String, String>> cache;
+
+    /** The compiled templates. */
+    private final Template[] templates;
+
+    /**
+     * Constructor.
+     * 
+     * @param patterns
+     *            The template patterns, tried in order.
+     * @param cacheSize
+     *            The maximum number of agent names whose attributes are
+     *            cached.
+     */
+    public UserAgentClassifier(List<String> patterns, final int cacheSize) {
+        this.cache = new LinkedHashMap<String, Map<String, String>>(16, 0.75F,
+                true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(
+                    Map.Entry<String, Map<String, String>> eldest) {
+                return size() > cacheSize;
+            }
+        };
+
+        // Predefined variables, used to catch the name, version and optional
+        // comment of the agent.
+        Variable agentName = new Variable(Variable.TYPE_TOKEN);
+        Variable agentVersion = new Variable(Variable.TYPE_TOKEN);
+        Variable agentComment = new Variable(Variable.TYPE_COMMENT);
+        Variable agentCommentAttribute = new Variable(
+                Variable.TYPE_COMMENT_ATTRIBUTE);
+        Variable facultativeData = new Variable(Variable.TYPE_ALL, null,
+                false, false);
+
+        this.templates = new Template[patterns.size()];
+
+        for (int i = 0; i < this.templates.length; i++) {
+            Template template = new Template(patterns.get(i),
+                    Template.MODE_EQUALS);
+            template.getVariables().put("agentName", agentName);
+            template.getVariables().put("agentVersion", agentVersion);
+            template.getVariables().put("agentComment", agentComment);
+            template.getVariables().put("agentOs", agentCommentAttribute);
+            template.getVariables().put("commentAttribute",
+                    agentCommentAttribute);
+            template.getVariables().put("facultativeData", facultativeData);
+
+            // Compile the template once for all
+            template.match("");
+            this.templates[i] = template;
+        }
+    }
+
+    /**
+     * Returns the attributes extracted from an agent name by the first
+     * matching template.
+     * 
+     * @param agent
+     *            The agent name.
+     * @return The unmodifiable map of attributes, empty if no template
+     *         matched.
+     */
+    public Map<String, String> getAttributes(String agent) {
+        if (agent == null) {
+            return Collections.emptyMap();
+        }
+
+        Map<String, String> result;
+
+        synchronized (this.cache) {
+            result = this.cache.get(agent);
+        }
+
+        if (result == null) {
+            result = parse(agent);
+
+            synchronized (this.cache) {
+                this.cache.put(agent, result);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Parses an agent name with the first matching template.
+     * 
+     * @param agent
+     *            The agent name.
+     * @return The unmodifiable map of attributes, empty if no template
+     *         matched.
+     */
+    private Map<String, String> parse(String agent) {
+        Map<String, Object> variables = new HashMap<String, Object>();
+
+        for (Template template : this.templates) {
+            if (template.parse(agent, variables, false) > -1) {
+                Map<String, String> result = new HashMap<String, String>();
+
+                for (Map.Entry<String, Object> entry : variables.entrySet()) {
+                    result.put(entry.getKey(), (String) entry.getValue());
+                }
+
+                return Collections.unmodifiableMap(result);
+            }
+        }
+
+        return Collections.emptyMap();
+    }
+
+}
@@ -25,6 +25,8 @@
 package org.restlet.representation;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 
 import org.restlet.data.MediaType;
 
@@ -35,6 +37,18 @@ import org.restlet.data.MediaType;
  */
 public class ByteArrayRepresentation extends InputRepresentation {
 
+    /** The wrapped byte array. */
+    private final byte[] byteArray;
+
+    /** The length to expose inside the byte array. */
+    private final int length;
+
+    /** The offset inside the byte array. */
+    private final int offset;
+
+    /** Indicates if the stream was handed out or replaced. */
+    private volatile boolean streamTaken;
+
     /**
      * Constructor.
      * 
@@ -42,7 +56,7 @@ public class ByteArrayRepresentation extends InputRepresentation {
      *            The byte array to wrap.
      */
     public ByteArrayRepresentation(byte[] byteArray) {
-        super(new ByteArrayInputStream(byteArray));
+        this(byteArray, 0, byteArray.length);
     }
 
     /**
@@ -56,6 +70,9 @@ public class ByteArrayRepresentation extends InputRepresentation {
      */
     public ByteArrayRepresentation(byte[] byteArray, int offSet, int length) {
         super(new ByteArrayInputStream(byteArray, offSet, length));
+        this.byteArray = byteArray;
+        this.offset = offSet;
+        this.length = length;
     }
 
     /**
@@ -71,6 +88,9 @@ public class ByteArrayRepresentation extends InputRepresentation {
     public ByteArrayRepresentation(byte[] byteArray, int offSet, int length,
             MediaType mediaType) {
         super(new ByteArrayInputStream(byteArray, offSet, length), mediaType);
+        this.byteArray = byteArray;
+        this.offset = offSet;
+        this.length = length;
     }
 
     /**
@@ -89,6 +109,9 @@ public class ByteArrayRepresentation extends InputRepresentation {
             MediaType mediaType, long expectedSize) {
         super(new ByteArrayInputStream(byteArray, offSet, length), mediaType,
                 expectedSize);
+        this.byteArray = byteArray;
+        this.offset = offSet;
+        this.length = length;
     }
 
     /**
@@ -100,7 +123,7 @@ public class ByteArrayRepresentation extends InputRepresentation {
      *            The media type.
      */
     public ByteArrayRepresentation(byte[] byteArray, MediaType mediaType) {
-        super(new ByteArrayInputStream(byteArray), mediaType);
+        this(byteArray, 0, byteArray.length, mediaType);
     }
 
     /**
@@ -113,7 +136,64 @@ public class ByteArrayRepresentation extends InputRepresentation {
      */
     public ByteArrayRepresentation(byte[] byteArray, MediaType mediaType,
             long expectedSize) {
-        super(new ByteArrayInputStream(byteArray), mediaType, expectedSize);
+        this(byteArray, 0, byteArray.length, mediaType, expectedSize);
+    }
+
+    /**
+     * Returns the wrapped byte array. Connectors can use it with
+     * {@link #getOffset()} and {@link #getLength()} to write the content
+     * without copying it, as long as {@link #isByteArrayAvailable()} returns
+     * true.
+     * 
+     * @return The wrapped byte array.
+     */
+    public byte[] getByteArray() {
+        return byteArray;
+    }
+
+    /**
+     * Returns the length to expose inside the byte array.
+     * 
+     * @return The length to expose inside the byte array.
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Returns the offset inside the byte array.
+     * 
+     * @return The offset inside the byte array.
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    @Override
+    public InputStream getStream() throws IOException {
+        this.streamTaken = true;
+        return super.getStream();
+    }
+
+    /**
+     * Indicates if the content is still fully exposed by the wrapped byte
+     * array, meaning that the representation is available and that its stream
+     * was neither handed out, and possibly partially read, nor replaced.
+     * 
+     * @return True if the content can be written from the wrapped byte array.
+     */
+    public boolean isByteArrayAvailable() {
+        return !this.streamTaken && isAvailable();
+    }
+
+    @Override
+    public void setStream(InputStream stream) {
+        super.setStream(stream);
+
+        // The byte array is only set once the initial stream is set
+        if (this.byteArray != null) {
+            this.streamTaken = true;
+        }
     }
 
 }
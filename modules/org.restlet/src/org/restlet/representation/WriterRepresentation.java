@@ -25,6 +25,7 @@
 package org.restlet.representation;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Reader;
 
 import org.restlet.data.MediaType;
@@ -70,4 +71,17 @@ public abstract class WriterRepresentation extends CharacterRepresentation {
         return IoUtils.getReader(this);
     }
 
+    /**
+     * Returns a stream with the representation's content, encoded with its
+     * character set. Internally, it uses a writer thread and a ring buffer
+     * pipe.
+     * 
+     * @return A stream with the representation's content.
+     * @see IoUtils#getStream(org.restlet.representation.Representation)
+     */
+    @Override
+    public InputStream getStream() throws IOException {
+        return IoUtils.getStream(this);
+    }
+
 }
@@ -25,6 +25,8 @@
 package org.restlet.resource;
 
 import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -33,6 +35,7 @@ import org.restlet.Request;
 import org.restlet.Response;
 import org.restlet.Restlet;
 import org.restlet.data.Status;
+import org.restlet.engine.resource.AnnotationUtils;
 
 /**
  * Restlet that can find the target server resource that will effectively handle
@@ -95,6 +98,9 @@ public class Finder extends Restlet {
     /** Target {@link ServerResource} subclass. */
     private volatile Class<? extends ServerResource> targetClass;
 
+    /** The default constructor of the last instantiated resource class. */
+    private volatile Constructor<? extends ServerResource> targetConstructor;
+
     /**
      * Constructor.
      */
@@ -145,7 +151,12 @@ public class Finder extends Restlet {
         if (targetClass != null) {
             try {
                 // Invoke the default constructor
-                result = targetClass.newInstance();
+                result = getTargetConstructor(targetClass).newInstance();
+            } catch (InvocationTargetException e) {
+                getLogger()
+                        .log(Level.WARNING,
+                                "Exception while instantiating the target server resource.",
+                                e.getTargetException());
             } catch (Exception e) {
                 getLogger()
                         .log(Level.WARNING,
@@ -203,6 +214,39 @@ public class Finder extends Restlet {
         return this.targetClass;
     }
 
+    /**
+     * Returns the default constructor of a given {@link ServerResource}
+     * subclass. A public constructor is made accessible when possible, so
+     * that the access checks aren't done again for each instantiation, and
+     * cached for the next calls.
+     * 
+     * @param targetClass
+     *            The target resource class.
+     * @return The default constructor.
+     * @throws NoSuchMethodException
+     */
+    private Constructor<? extends ServerResource> getTargetConstructor(
+            Class<? extends ServerResource> targetClass)
+            throws NoSuchMethodException {
+        Constructor<? extends ServerResource> result = this.targetConstructor;
+
+        if ((result == null) || (result.getDeclaringClass() != targetClass)) {
+            result = targetClass.getDeclaredConstructor();
+
+            if (Modifier.isPublic(result.getModifiers())) {
+                try {
+                    result.setAccessible(true);
+                } catch (SecurityException e) {
+                    // Check the access for each call
+                }
+            }
+
+            this.targetConstructor = result;
+        }
+
+        return result;
+    }
+
     /**
      * Handles a call.
      * 
@@ -245,6 +289,27 @@ public class Finder extends Restlet {
         }
     }
 
+    /**
+     * Starts the finder. The annotation dispatch table and the default
+     * constructor of the target resource class are resolved eagerly so that
+     * the first calls don't pay for the introspection.
+     */
+    @Override
+    public synchronized void start() throws Exception {
+        if (isStopped() && (getTargetClass() != null)) {
+            AnnotationUtils.getInstance().getMethodAnnotations(
+                    getTargetClass());
+
+            try {
+                getTargetConstructor(getTargetClass());
+            } catch (NoSuchMethodException e) {
+                // Reported when the first call is handled
+            }
+        }
+
+        super.start();
+    }
+
     /**
      * Sets the target resource class which must be a subclass of
      * {@link ServerResource}.
@@ -27,6 +27,7 @@ package org.restlet.resource;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
@@ -489,12 +490,14 @@ public abstract class ServerResource extends Resource {
 
         try {
             if (parameterTypes.length > 0) {
-                List<Object> parameters = new ArrayList<Object>();
+                Object[] parameters = new Object[parameterTypes.length];
                 Object parameter = null;
 
-                for (Class<?> parameterType : parameterTypes) {
+                for (int i = 0; i < parameterTypes.length; i++) {
+                    Class<?> parameterType = parameterTypes[i];
+
                     if (Variant.class.equals(parameterType)) {
-                        parameters.add(variant);
+                        parameters[i] = variant;
                     } else {
                         if (getRequestEntity() != null
                                 && getRequestEntity().isAvailable()
@@ -513,14 +516,13 @@ public abstract class ServerResource extends Resource {
                             parameter = null;
                         }
 
-                        parameters.add(parameter);
+                        parameters[i] = parameter;
                     }
                 }
 
-                resultObject = annotationInfo.getJavaMethod().invoke(this,
-                        parameters.toArray());
+                resultObject = annotationInfo.invoke(this, parameters);
             } else {
-                resultObject = annotationInfo.getJavaMethod().invoke(this);
+                resultObject = annotationInfo.invoke(this);
             }
 
             if (resultObject != null) {
@@ -777,8 +779,8 @@ public abstract class ServerResource extends Resource {
             Representation entity) throws IOException {
         if (isAnnotated()) {
             return AnnotationUtils.getInstance().getMethodAnnotation(
-                    getAnnotations(), method, query, entity,
-                    getMetadataService(), getConverterService());
+                    getClass(), method, query, entity, getMetadataService(),
+                    getConverterService());
         }
 
         return null;
@@ -794,6 +796,22 @@ public abstract class ServerResource extends Resource {
                 getClass()) : null;
     }
 
+    /**
+     * Returns the method annotation descriptors matching the given Restlet
+     * method, in declaration order.
+     * 
+     * @param method
+     *            The Restlet method.
+     * @return The method annotation descriptors.
+     */
+    private List<MethodAnnotationInfo> getMethodAnnotations(Method method) {
+        List<MethodAnnotationInfo> result = isAnnotated() ? AnnotationUtils
+                .getInstance().getMethodAnnotations(getClass()).get(method)
+                : null;
+        return (result == null) ? Collections
+                .<MethodAnnotationInfo> emptyList() : result;
+    }
+
     /**
      * Returns the attribute value by looking up the given name in the request
      * attributes maps. The toString() method is then invoked on the attribute
@@ -945,56 +963,52 @@ public abstract class ServerResource extends Resource {
                 List<Variant> annoVariants = null;
                 method = (Method.HEAD.equals(method)) ? Method.GET : method;
 
-                for (AnnotationInfo annotationInfo : getAnnotations()) {
+                for (MethodAnnotationInfo methodAnnotationInfo : getMethodAnnotations(method)) {
                     try {
-                        if (annotationInfo instanceof MethodAnnotationInfo) {
-                            MethodAnnotationInfo methodAnnotationInfo = (MethodAnnotationInfo) annotationInfo;
-
-                            if (methodAnnotationInfo
-                                    .isCompatible(method, getQuery(),
-                                            getRequestEntity(),
+                        if (methodAnnotationInfo
+                                .isCompatible(method, getQuery(),
+                                        getRequestEntity(),
+                                        getMetadataService(),
+                                        getConverterService())) {
+                            annoVariants = methodAnnotationInfo
+                                    .getResponseVariants(
                                             getMetadataService(),
-                                            getConverterService())) {
-                                annoVariants = methodAnnotationInfo
-                                        .getResponseVariants(
-                                                getMetadataService(),
-                                                getConverterService());
-
-                                if (annoVariants != null) {
-                                    // Compute an affinity score between this
-                                    // annotation and the input entity.
-                                    float score = 0.5f;
-                                    if ((getRequest().getEntity() != null)
-                                            && getRequest().getEntity()
-                                                    .isAvailable()) {
-                                        MediaType emt = getRequest()
-                                                .getEntity().getMediaType();
-                                        List<MediaType> amts = getMetadataService()
-                                                .getAllMediaTypes(
-                                                        methodAnnotationInfo
-                                                                .getInput());
-                                        if (amts != null) {
-                                            for (MediaType amt : amts) {
-                                                if (amt.equals(emt)) {
-                                                    score = 1.0f;
-                                                } else if (amt.includes(emt)) {
-                                                    score = Math.max(0.8f,
-                                                            score);
-                                                } else if (amt
-                                                        .isCompatible(emt)) {
-                                                    score = Math.max(0.6f,
-                                                            score);
-                                                }
+                                            getConverterService());
+
+                            if (annoVariants != null) {
+                                // Compute an affinity score between this
+                                // annotation and the input entity.
+                                float score = 0.5f;
+                                if ((getRequest().getEntity() != null)
+                                        && getRequest().getEntity()
+                                                .isAvailable()) {
+                                    MediaType emt = getRequest()
+                                            .getEntity().getMediaType();
+                                    List<MediaType> amts = getMetadataService()
+                                            .getAllMediaTypes(
+                                                    methodAnnotationInfo
+                                                            .getInput());
+                                    if (amts != null) {
+                                        for (MediaType amt : amts) {
+                                            if (amt.equals(emt)) {
+                                                score = 1.0f;
+                                            } else if (amt.includes(emt)) {
+                                                score = Math.max(0.8f,
+                                                        score);
+                                            } else if (amt
+                                                    .isCompatible(emt)) {
+                                                score = Math.max(0.6f,
+                                                        score);
                                             }
                                         }
                                     }
+                                }
 
-                                    for (Variant v : annoVariants) {
-                                        VariantInfo vi = new VariantInfo(v,
-                                                methodAnnotationInfo);
-                                        vi.setInputScore(score);
-                                        result.add(vi);
-                                    }
+                                for (Variant v : annoVariants) {
+                                    VariantInfo vi = new VariantInfo(v,
+                                            methodAnnotationInfo);
+                                    vi.setInputScore(score);
+                                    result.add(vi);
                                 }
                             }
                         }
@@ -1827,20 +1841,11 @@ public abstract class ServerResource extends Resource {
      */
     public void updateAllowedMethods() {
         getAllowedMethods().clear();
-        List<AnnotationInfo> annotations = getAnnotations();
 
-        if (annotations != null) {
-            for (AnnotationInfo annotationInfo : annotations) {
-                if (annotationInfo instanceof MethodAnnotationInfo) {
-                    MethodAnnotationInfo methodAnnotationInfo = (MethodAnnotationInfo) annotationInfo;
-
-                    if (!getAllowedMethods().contains(
-                            methodAnnotationInfo.getRestletMethod())) {
-                        getAllowedMethods().add(
-                                methodAnnotationInfo.getRestletMethod());
-                    }
-                }
-            }
+        if (isAnnotated()) {
+            getAllowedMethods().addAll(
+                    AnnotationUtils.getInstance()
+                            .getMethodAnnotations(getClass()).keySet());
         }
     }
 
@@ -0,0 +1,318 @@
+/**
+ * Copyright 2005-2014 Restlet
+ *
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or or EPL 1.0 (the "Licenses"). You can
+ * select the license that you prefer but you may not use this file except in
+ * compliance with one of these Licenses.
+ *
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ *
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ *
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ *
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ *
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.routing;
+
+import java.util.Arrays;
+
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.data.Reference;
+import org.restlet.util.RouteList;
+
+/**
+ * Immutable index of a list of routes, based on a character trie of the
+ * literal prefix of each URI template, that is to say the part of the pattern
+ * located before the first variable. Given the remaining part of a resource
+ * reference, only the routes whose literal prefix matches it are scored, in
+ * the order of the original list, which preserves the semantics of the
+ * {@link RouteList#getFirst(Request, Response, float)} and
+ * {@link RouteList#getBest(Request, Response, float)} methods.<br>
+ * <br>
+ * Routes that aren't plain {@link TemplateRoute} instances based on a plain
+ * {@link Template} are always scored, as their behavior can't be predicted.<br>
+ * <br>
+ * Note that the index is a snapshot of the routes list. It must be rebuilt
+ * when the list is modified, which can be detected via the
+ * {@link #isValid(RouteList)} method.
+ *
+ * @author Jerome Louvel
+ */
+class RouteIndex {
+
+    /** Node of the literal prefixes trie. */
+    private static final class Node {
+        /** The sorted characters leading to the child nodes. */
+        private char[] chars = new char[0];
+
+        /** The child nodes, in the order of the characters. */
+        private Node[] children = new Node[0];
+
+        /** The positions of the routes whose literal prefix ends here. */
+        private int[] positions = new int[0];
+
+        /**
+         * Returns the child node for a given character.
+         *
+         * @param c
+         *            The character.
+         * @return The child node or null.
+         */
+        private Node getChild(char c) {
+            int i = Arrays.binarySearch(this.chars, c);
+            return (i < 0) ? null : this.children[i];
+        }
+
+        /**
+         * Returns the child node for a given character, creating it if needed.
+         *
+         * @param c
+         *            The character.
+         * @return The child node.
+         */
+        private Node getOrCreateChild(char c) {
+            int i = Arrays.binarySearch(this.chars, c);
+
+            if (i < 0) {
+                i = -(i + 1);
+                char[] chars = new char[this.chars.length + 1];
+                Node[] children = new Node[this.children.length + 1];
+                System.arraycopy(this.chars, 0, chars, 0, i);
+                System.arraycopy(this.children, 0, children, 0, i);
+                System.arraycopy(this.chars, i, chars, i + 1,
+                        this.chars.length - i);
+                System.arraycopy(this.children, i, children, i + 1,
+                        this.children.length - i);
+                chars[i] = c;
+                children[i] = new Node();
+                this.chars = chars;
+                this.children = children;
+            }
+
+            return this.children[i];
+        }
+
+        /**
+         * Adds a route position, positions being added in increasing order.
+         *
+         * @param position
+         *            The route position.
+         */
+        private void addPosition(int position) {
+            this.positions = Arrays.copyOf(this.positions,
+                    this.positions.length + 1);
+            this.positions[this.positions.length - 1] = position;
+        }
+    }
+
+    /** Scratch buffer of candidate positions, reused by each thread. */
+    private static final ThreadLocal<int[]> CANDIDATES = new ThreadLocal<int[]>() {
+        @Override
+        protected int[] initialValue() {
+            return new int[16];
+        }
+    };
+
+    /**
+     * Returns the literal prefix of a route, or null if the route must always
+     * be scored.
+     *
+     * @param route
+     *            The route.
+     * @return The literal prefix or null.
+     */
+    private static String getLiteralPrefix(Route route) {
+        String result = null;
+
+        if ((route != null) && (route.getClass() == TemplateRoute.class)) {
+            Template template = ((TemplateRoute) route).getTemplate();
+
+            if ((template != null) && (template.getClass() == Template.class)
+                    && (template.getPattern() != null)) {
+                String pattern = template.getPattern();
+                int end = 0;
+
+                while ((end < pattern.length())
+                        && (pattern.charAt(end) != '{')
+                        && (pattern.charAt(end) != '}')) {
+                    end++;
+                }
+
+                result = pattern.substring(0, end);
+            }
+        }
+
+        return result;
+    }
+
+    /** The modification count of the routes list when indexed. */
+    private final int modificationCount;
+
+    /** The indexed routes list. */
+    private final RouteList routeList;
+
+    /** The snapshot of the routes. */
+    private final Route[] routes;
+
+    /** The root of the literal prefixes trie. */
+    private final Node root;
+
+    /**
+     * Constructor.
+     *
+     * @param routeList
+     *            The routes list to index.
+     */
+    public RouteIndex(RouteList routeList) {
+        // Read the count first, so that concurrent changes invalidate us
+        this.modificationCount = routeList.getModificationCount();
+        this.routeList = routeList;
+        this.routes = routeList.toArray(new Route[0]);
+        this.root = new Node();
+
+        for (int i = 0; i < this.routes.length; i++) {
+            String prefix = getLiteralPrefix(this.routes[i]);
+            Node node = this.root;
+
+            if (prefix != null) {
+                for (int j = 0; j < prefix.length(); j++) {
+                    node = node.getOrCreateChild(prefix.charAt(j));
+                }
+            }
+
+            node.addPosition(i);
+        }
+    }
+
+    /**
+     * Collects, in increasing order, the positions of the routes that can
+     * match a given call.
+     *
+     * @param request
+     *            The request to route.
+     * @return The scratch buffer of positions, terminated by -1.
+     */
+    private int[] getCandidates(Request request) {
+        int[] result = CANDIDATES.get();
+
+        if (result.length <= this.routes.length) {
+            result = new int[this.routes.length + 1];
+            CANDIDATES.set(result);
+        }
+
+        int count = 0;
+        Node node = this.root;
+        Reference resourceRef = request.getResourceRef();
+        String remainingPart = null;
+
+        if (resourceRef != null) {
+            // Routes may match the query, which only extends the path
+            remainingPart = resourceRef.getRemainingPart(false, true);
+
+            if (remainingPart == null) {
+                remainingPart = resourceRef.getRemainingPart(false, false);
+            }
+        }
+
+        int i = 0;
+
+        while (node != null) {
+            System.arraycopy(node.positions, 0, result, count,
+                    node.positions.length);
+            count += node.positions.length;
+
+            if ((remainingPart != null) && (i < remainingPart.length())
+                    && (node.chars.length > 0)) {
+                node = node.getChild(remainingPart.charAt(i++));
+            } else {
+                node = null;
+            }
+        }
+
+        Arrays.sort(result, 0, count);
+        result[count] = -1;
+        return result;
+    }
+
+    /**
+     * Returns the best route match for a given call.
+     *
+     * @param request
+     *            The request to score.
+     * @param response
+     *            The response to score.
+     * @param requiredScore
+     *            The minimum score required to have a match.
+     * @return The best route match or null.
+     * @see RouteList#getBest(Request, Response, float)
+     */
+    public Route getBest(Request request, Response response, float requiredScore) {
+        Route result = null;
+        float bestScore = 0F;
+        float score;
+        int[] candidates = getCandidates(request);
+
+        for (int i = 0; candidates[i] != -1; i++) {
+            Route current = this.routes[candidates[i]];
+            score = current.score(request, response);
+
+            if ((score > bestScore) && (score >= requiredScore)) {
+                bestScore = score;
+                result = current;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the first route match for a given call.
+     *
+     * @param request
+     *            The request to score.
+     * @param response
+     *            The response to score.
+     * @param requiredScore
+     *            The minimum score required to have a match.
+     * @return The first route match or null.
+     * @see RouteList#getFirst(Request, Response, float)
+     */
+    public Route getFirst(Request request, Response response,
+            float requiredScore) {
+        int[] candidates = getCandidates(request);
+
+        for (int i = 0; candidates[i] != -1; i++) {
+            Route current = this.routes[candidates[i]];
+
+            if (current.score(request, response) >= requiredScore) {
+                return current;
+            }
+        }
+
+        // No match found
+        return null;
+    }
+
+    /**
+     * Indicates if the index still reflects the given routes list.
+     *
+     * @param routeList
+     *            The current routes list.
+     * @return True if the index still reflects the given routes list.
+     */
+    public boolean isValid(RouteList routeList) {
+        return (this.routeList == routeList)
+                && (this.modificationCount == routeList.getModificationCount());
+    }
+}
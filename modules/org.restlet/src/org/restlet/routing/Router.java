@@ -145,9 +145,18 @@ public class Router extends Restlet {
     /** The minimum score required to have a match. */
     private volatile float requiredScore;
 
+    /**
+     * Indicates if the routes should be indexed by the literal prefix of their
+     * URI template.
+     */
+    private volatile boolean indexingRoutes;
+
     /** The delay (in milliseconds) before a new attempt. */
     private volatile long retryDelay;
 
+    /** The index of the routes, lazily built. */
+    private volatile RouteIndex routeIndex;
+
     /** The modifiable list of routes. */
     private volatile RouteList routes;
 
@@ -180,6 +189,7 @@ public class Router extends Restlet {
         this.requiredScore = 0.5F;
         this.maxAttempts = 1;
         this.retryDelay = 500L;
+        this.indexingRoutes = false;
     }
 
     /**
@@ -532,13 +542,23 @@ public class Router extends Restlet {
                 // Select the routing mode
                 switch (getRoutingMode()) {
                 case MODE_BEST_MATCH:
-                    result = getRoutes().getBest(request, response,
-                            getRequiredScore());
+                    if (isIndexingRoutes()) {
+                        result = getRouteIndex().getBest(request, response,
+                                getRequiredScore());
+                    } else {
+                        result = getRoutes().getBest(request, response,
+                                getRequiredScore());
+                    }
                     break;
 
                 case MODE_FIRST_MATCH:
-                    result = getRoutes().getFirst(request, response,
-                            getRequiredScore());
+                    if (isIndexingRoutes()) {
+                        result = getRouteIndex().getFirst(request, response,
+                                getRequiredScore());
+                    } else {
+                        result = getRoutes().getFirst(request, response,
+                                getRequiredScore());
+                    }
                     break;
 
                 case MODE_LAST_MATCH:
@@ -602,6 +622,24 @@ public class Router extends Restlet {
         return this.retryDelay;
     }
 
+    /**
+     * Returns the index of the current routes, building it if the routes list
+     * has been replaced or modified since the last call.
+     * 
+     * @return The index of the current routes.
+     */
+    private RouteIndex getRouteIndex() {
+        RouteList routes = getRoutes();
+        RouteIndex result = this.routeIndex;
+
+        if ((result == null) || !result.isValid(routes)) {
+            result = new RouteIndex(routes);
+            this.routeIndex = result;
+        }
+
+        return result;
+    }
+
     /**
      * Returns the modifiable list of routes. Creates a new instance if no one
      * has been set.
@@ -714,6 +752,27 @@ public class Router extends Restlet {
                 Redirector.MODE_CLIENT_TEMPORARY));
     }
 
+    /**
+     * Indicates if the routes should be indexed by the literal prefix of their
+     * URI template, that is to say the part located before the first
+     * variable. When enabled, only the routes whose literal prefix matches the
+     * remaining part of the resource reference are scored, in the order of the
+     * routes list, for the {@link #MODE_BEST_MATCH} and
+     * {@link #MODE_FIRST_MATCH} routing modes. The selected route is the same
+     * as without indexing, but routers with many routes are faster. Routes
+     * that aren't plain {@link TemplateRoute} instances are always scored.<br>
+     * <br>
+     * The index is rebuilt when the list of routes is modified or replaced.
+     * However, changes made to the URI template of an existing route after the
+     * routing has started aren't taken into account. By default, it returns
+     * false.
+     * 
+     * @return True if the routes should be indexed.
+     */
+    public boolean isIndexingRoutes() {
+        return this.indexingRoutes;
+    }
+
     /**
      * Sets the default matching mode to use when selecting routes based on
      * URIs. By default it is set to {@link Template#MODE_EQUALS}.
@@ -749,6 +808,18 @@ public class Router extends Restlet {
         this.defaultRoute = defaultRoute;
     }
 
+    /**
+     * Indicates if the routes should be indexed by the literal prefix of their
+     * URI template. By default, it is set to false.
+     * 
+     * @param indexingRoutes
+     *            True if the routes should be indexed.
+     * @see #isIndexingRoutes()
+     */
+    public void setIndexingRoutes(boolean indexingRoutes) {
+        this.indexingRoutes = indexingRoutes;
+    }
+
     /**
      * Sets the maximum number of attempts if no attachment could be matched on
      * the first attempt. This is useful when the attachment scoring is dynamic
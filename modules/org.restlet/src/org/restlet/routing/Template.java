@@ -231,6 +231,33 @@ public class Template {
         return result;
     }
 
+    /**
+     * Indicates if the given character can be part of a URI path segment,
+     * excluding the percent-encoded octets.
+     * 
+     * @param character
+     *            The character to test.
+     * @return True if the character can be part of a URI path segment.
+     */
+    private static boolean isSegmentChar(char character) {
+        return Reference.isUnreserved(character)
+                || Reference.isSubDelimiter(character) || (character == ':')
+                || (character == '@');
+    }
+
+    /**
+     * Indicates if the given character is an hexadecimal digit.
+     * 
+     * @param character
+     *            The character to test.
+     * @return True if the character is an hexadecimal digit.
+     */
+    private static boolean isHexDigit(char character) {
+        return ((character >= '0') && (character <= '9'))
+                || ((character >= 'a') && (character <= 'f'))
+                || ((character >= 'A') && (character <= 'F'));
+    }
+
     /** The default variable to use when no matching variable descriptor exists. */
     private volatile Variable defaultVariable;
 
@@ -252,6 +279,18 @@ public class Template {
     /** The sequence of Regex variable names as found in the pattern string. */
     private volatile List<String> regexVariables;
 
+    /**
+     * The literal parts surrounding the variables, when the pattern can be
+     * matched segment by segment without Regex, or null.
+     */
+    private volatile String[] segmentLiterals;
+
+    /**
+     * The variable descriptors matching the segment literals, when the pattern
+     * can be matched segment by segment without Regex, or null.
+     */
+    private volatile Variable[] segmentVariables;
+
     /** The map of variables associated to the route's template. */
     private final Map<String, Variable> variables;
 
@@ -558,6 +597,7 @@ public class Template {
                         }
                     }
 
+                    compileSegments();
                     this.regexPattern = Pattern.compile(patternBuffer
                             .toString());
                 }
@@ -567,6 +607,151 @@ public class Template {
         return this.regexPattern;
     }
 
+    /**
+     * Detects if the pattern can be matched segment by segment, without
+     * relying on the Regex engine. This is the case when all variables are
+     * required or optional URI segments, used once and followed by the end of
+     * the pattern or by a literal character that can't be part of a segment,
+     * such as '/' or '?'. In this case, there is no ambiguity about where each
+     * variable value ends and no backtracking is needed.
+     */
+    private void compileSegments() {
+        List<String> literals = new ArrayList<String>();
+        List<Variable> vars = new ArrayList<Variable>();
+        List<String> names = new ArrayList<String>();
+        String pattern = getPattern();
+        int start = 0;
+        int open = pattern.indexOf('{');
+        boolean eligible = true;
+
+        while (eligible && (open != -1)) {
+            int close = pattern.indexOf('}', open);
+
+            if (close == -1) {
+                eligible = false;
+            } else {
+                String name = pattern.substring(open + 1, close);
+                Variable var = getVariables().get(name);
+
+                if (var == null) {
+                    var = getDefaultVariable();
+                }
+
+                for (int i = 0; eligible && (i < name.length()); i++) {
+                    eligible = Reference.isUnreserved(name.charAt(i));
+                }
+
+                eligible = eligible && (name.length() > 0)
+                        && !names.contains(name)
+                        && !var.isFixed()
+                        && (var.getType() == Variable.TYPE_URI_SEGMENT);
+                literals.add(pattern.substring(start, open));
+                names.add(name);
+                vars.add(var);
+                start = close + 1;
+                open = pattern.indexOf('{', start);
+
+                if (eligible && (start < pattern.length())) {
+                    char next = pattern.charAt(start);
+                    eligible = (next != '{') && (next != '%')
+                            && !isSegmentChar(next);
+                }
+            }
+        }
+
+        if (eligible && (pattern.indexOf('}', start) == -1)) {
+            literals.add(pattern.substring(start));
+            this.segmentVariables = vars.toArray(new Variable[vars.size()]);
+            this.segmentLiterals = literals
+                    .toArray(new String[literals.size()]);
+        } else {
+            this.segmentVariables = null;
+            this.segmentLiterals = null;
+        }
+    }
+
+    /**
+     * Indicates if the segment matching can be used instead of the Regex
+     * engine.
+     * 
+     * @param literals
+     *            The literal parts of the pattern.
+     * @param vars
+     *            The variables descriptors.
+     * @return True if the segment matching can be used.
+     */
+    private boolean isSegmentMatching(String[] literals, Variable[] vars) {
+        return (literals != null) && (vars != null)
+                && (literals.length == vars.length + 1)
+                && (vars.length == getRegexVariables().size())
+                && ((getMatchingMode() == MODE_EQUALS) || (getMatchingMode() == MODE_STARTS_WITH));
+    }
+
+    /**
+     * Matches the formatted string segment by segment. Only usable when the
+     * pattern was detected as compatible by {@link #compileSegments()}.
+     * 
+     * @param formattedString
+     *            The formatted string to match.
+     * @param literals
+     *            The literal parts of the pattern.
+     * @param vars
+     *            The variables descriptors.
+     * @param bounds
+     *            The array to update with the start and end index of each
+     *            variable value, or null.
+     * @return The number of matched characters or -1 if the match failed.
+     */
+    private int matchSegments(String formattedString, String[] literals,
+            Variable[] vars, int[] bounds) {
+        int length = formattedString.length();
+        int index = 0;
+
+        for (int i = 0; i < literals.length; i++) {
+            String literal = literals[i];
+
+            if (!formattedString.startsWith(literal, index)) {
+                return -1;
+            }
+
+            index += literal.length();
+
+            if (i < vars.length) {
+                int start = index;
+                boolean inSegment = true;
+
+                while (inSegment && (index < length)) {
+                    char next = formattedString.charAt(index);
+
+                    if (isSegmentChar(next)) {
+                        index++;
+                    } else if ((next == '%') && (index + 2 < length)
+                            && isHexDigit(formattedString.charAt(index + 1))
+                            && isHexDigit(formattedString.charAt(index + 2))) {
+                        index += 3;
+                    } else {
+                        inSegment = false;
+                    }
+                }
+
+                if ((index == start) && vars[i].isRequired()) {
+                    return -1;
+                }
+
+                if (bounds != null) {
+                    bounds[2 * i] = start;
+                    bounds[2 * i + 1] = index;
+                }
+            }
+        }
+
+        if ((getMatchingMode() == MODE_EQUALS) && (index != length)) {
+            return -1;
+        }
+
+        return index;
+    }
+
     /**
      * Returns the sequence of Regex variable names as found in the pattern
      * string.
@@ -675,8 +860,15 @@ public class Template {
 
         try {
             if (formattedString != null) {
-                final Matcher matcher = getRegexPattern().matcher(
-                        formattedString);
+                final Pattern regex = getRegexPattern();
+                final String[] literals = this.segmentLiterals;
+                final Variable[] vars = this.segmentVariables;
+
+                if (isSegmentMatching(literals, vars)) {
+                    return matchSegments(formattedString, literals, vars, null);
+                }
+
+                final Matcher matcher = regex.matcher(formattedString);
 
                 if ((getMatchingMode() == MODE_EQUALS) && matcher.matches()) {
                     result = matcher.end();
@@ -734,7 +926,38 @@ public class Template {
 
         if (formattedString != null) {
             try {
-                Matcher matcher = getRegexPattern().matcher(formattedString);
+                Pattern regex = getRegexPattern();
+                String[] literals = this.segmentLiterals;
+                Variable[] vars = this.segmentVariables;
+
+                if (isSegmentMatching(literals, vars)) {
+                    int[] bounds = new int[2 * vars.length];
+                    result = matchSegments(formattedString, literals, vars,
+                            bounds);
+
+                    for (int i = 0; (result != -1) && (i < vars.length); i++) {
+                        String attributeName = getRegexVariables().get(i);
+                        String attributeValue = formattedString.substring(
+                                bounds[2 * i], bounds[2 * i + 1]);
+
+                        if (vars[i].isDecodingOnParse()) {
+                            attributeValue = Reference.decode(attributeValue);
+                        }
+
+                        if (loggable) {
+                            getLogger().fine(
+                                    "Template variable \"" + attributeName
+                                            + "\" matched with value \""
+                                            + attributeValue + "\"");
+                        }
+
+                        variables.put(attributeName, attributeValue);
+                    }
+
+                    return result;
+                }
+
+                Matcher matcher = regex.matcher(formattedString);
                 boolean matched = ((getMatchingMode() == MODE_EQUALS) && matcher
                         .matches())
                         || ((getMatchingMode() == MODE_STARTS_WITH) && matcher
@@ -892,6 +1115,8 @@ public class Template {
     public void setPattern(String pattern) {
         this.pattern = pattern;
         this.regexPattern = null;
+        this.segmentLiterals = null;
+        this.segmentVariables = null;
     }
 
     /**
@@ -26,6 +26,7 @@ package org.restlet.security;
 
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Group that contains member groups and users.
@@ -49,6 +50,12 @@ public class Group {
     /** The modifiable list of members user references. */
     private final List<User> memberUsers;
 
+    /**
+     * The modification counters of the realms caching lookups based on this
+     * group.
+     */
+    private final CopyOnWriteArrayList<AtomicLong> modificationCounters;
+
     /** The display name. */
     private volatile String name;
 
@@ -86,8 +93,23 @@ public class Group {
         this.name = name;
         this.description = description;
         this.inheritingRoles = inheritingRoles;
-        this.memberGroups = new CopyOnWriteArrayList<Group>();
-        this.memberUsers = new CopyOnWriteArrayList<User>();
+        this.modificationCounters = new CopyOnWriteArrayList<AtomicLong>();
+        this.memberGroups = new TrackedList<Group>(
+                new CopyOnWriteArrayList<Group>(), this.modificationCounters);
+        this.memberUsers = new TrackedList<User>(
+                new CopyOnWriteArrayList<User>(), this.modificationCounters);
+    }
+
+    /**
+     * Registers the modification counter of a realm caching lookups based on
+     * this group. It is incremented when the member groups, member users or
+     * the roles inheritance change.
+     * 
+     * @param counter
+     *            The modification counter of the realm.
+     */
+    void addModificationCounter(AtomicLong counter) {
+        this.modificationCounters.addIfAbsent(counter);
     }
 
     /**
@@ -150,6 +172,7 @@ public class Group {
      */
     public void setInheritingRoles(boolean inheritingRoles) {
         this.inheritingRoles = inheritingRoles;
+        TrackedList.increment(this.modificationCounters);
     }
 
     /**
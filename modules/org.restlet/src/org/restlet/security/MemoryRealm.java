@@ -25,10 +25,17 @@
 package org.restlet.security;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.restlet.Application;
 import org.restlet.Request;
@@ -38,7 +45,31 @@ import org.restlet.engine.security.RoleMapping;
 
 /**
  * Security realm based on a memory model. The model is composed of root groups,
- * users and mapping to associated roles.
+ * users and mapping to associated roles.<br>
+ * <br>
+ * Lookups are served by indexes computed from the model: users by identifier,
+ * groups and roles by member, as well as the flattened roles of each enroled
+ * user. Those indexes are lazily computed again after a modification, but only
+ * the part depending on the modified elements:
+ * <ul>
+ * <li>adding or removing users and changing their identifiers only indexes
+ * the users again, which is proportional to the number of users;</li>
+ * <li>mapping or unmapping roles only indexes the role mappings again, which
+ * is proportional to the number of mappings;</li>
+ * <li>structural changes, that is to say changes to the root groups, to the
+ * member groups or users of a group, or to the "inheritRoles" property of a
+ * group, walk the whole group hierarchy again, which is proportional to the
+ * number of memberships times the depth of the hierarchy.</li>
+ * </ul>
+ * The flattened roles of the enroled users are computed again on demand after
+ * role mapping or structural changes. Bulk changes are best done before the
+ * realm is used, or grouped between lookups, as each lookup following a
+ * change pays for the rebuild.<br>
+ * <br>
+ * The realm registers its own modification counters on the groups and users it
+ * indexes, so that changes to other realms don't invalidate its indexes. Note
+ * that a group or user removed from the realm keeps the counter registered,
+ * and its later modifications still cause a rebuild.
  * 
  * @author Jerome Louvel
  */
@@ -53,22 +84,9 @@ public class MemoryRealm extends Realm {
             User user = findUser(clientInfo.getUser().getIdentifier());
 
             if (user != null) {
-                // Find all the inherited groups of this user
-                Set<Group> userGroups = findGroups(user);
-
-                // Add roles specific to this user
-                Set<Role> userRoles = findRoles(user);
-
-                for (Role role : userRoles) {
-                    clientInfo.getRoles().add(role);
-                }
-
-                // Add roles common to group members
-                Set<Role> groupRoles = findRoles(userGroups);
-
-                for (Role role : groupRoles) {
-                    clientInfo.getRoles().add(role);
-                }
+                // Add roles specific to this user, then the ones common to the
+                // inherited groups
+                clientInfo.getRoles().addAll(getIndex().getEnroledRoles(user));
             }
         }
     }
@@ -111,12 +129,172 @@ public class MemoryRealm extends Realm {
         }
     }
 
+    /**
+     * Indexes of the security model. Each part is valid as long as the
+     * elements it depends on aren't modified.
+     */
+    private static final class Index {
+
+        /** The groups of each member user, including all ancestors. */
+        private final Map<User, Set<Group>> allGroups;
+
+        /** The flattened roles of each enroled user. */
+        private final ConcurrentMap<User, Set<Role>> enroledRoles;
+
+        /** The value of the group modifications counter. */
+        private final long groupModifications;
+
+        /** The groups of each member user, including inheritable ancestors. */
+        private final Map<User, Set<Group>> groups;
+
+        /** The value of the role mapping modifications counter. */
+        private final long mappingModifications;
+
+        /** The roles mapped to each user or group. */
+        private final Map<Object, Set<Role>> roles;
+
+        /** The value of the user modifications counter. */
+        private final long userModifications;
+
+        /** The users by identifier. */
+        private final ConcurrentMap<String, User> users;
+
+        /**
+         * Constructor.
+         * 
+         * @param previous
+         *            The previous indexes, whose flattened roles are kept if
+         *            the groups and the role mappings are unchanged, or null.
+         * @param groupModifications
+         *            The value of the group modifications counter.
+         * @param groups
+         *            The groups of each member user, including inheritable
+         *            ancestors.
+         * @param allGroups
+         *            The groups of each member user, including all ancestors.
+         * @param mappingModifications
+         *            The value of the role mapping modifications counter.
+         * @param roles
+         *            The roles mapped to each user or group.
+         * @param userModifications
+         *            The value of the user modifications counter.
+         * @param users
+         *            The users by identifier.
+         */
+        private Index(Index previous, long groupModifications,
+                Map<User, Set<Group>> groups,
+                Map<User, Set<Group>> allGroups, long mappingModifications,
+                Map<Object, Set<Role>> roles, long userModifications,
+                ConcurrentMap<String, User> users) {
+            this.allGroups = allGroups;
+            this.groupModifications = groupModifications;
+            this.groups = groups;
+            this.mappingModifications = mappingModifications;
+            this.roles = roles;
+            this.userModifications = userModifications;
+            this.users = users;
+
+            if ((previous != null) && (previous.groups == groups)
+                    && (previous.roles == roles)) {
+                this.enroledRoles = previous.enroledRoles;
+            } else {
+                this.enroledRoles = new ConcurrentHashMap<User, Set<Role>>();
+            }
+        }
+
+        /**
+         * Returns the roles of a user and of its inherited groups.
+         * 
+         * @param user
+         *            The user.
+         * @return The roles found.
+         */
+        private Set<Role> getEnroledRoles(User user) {
+            Set<Role> result = this.enroledRoles.get(user);
+
+            if (result == null) {
+                result = new LinkedHashSet<Role>(getRoles(user));
+                Set<Group> userGroups = this.groups.get(user);
+
+                if (userGroups != null) {
+                    for (Group group : userGroups) {
+                        result.addAll(getRoles(group));
+                    }
+                }
+
+                result = Collections.unmodifiableSet(result);
+                this.enroledRoles.putIfAbsent(user, result);
+            }
+
+            return result;
+        }
+
+        /**
+         * Returns the groups where a given user is a member.
+         * 
+         * @param user
+         *            The member user.
+         * @param inheritOnly
+         *            Indicates if only the ancestors groups that have their
+         *            "inheritRoles" property enabled should be included.
+         * @return The groups found.
+         */
+        private Set<Group> getGroups(User user, boolean inheritOnly) {
+            Set<Group> result = (inheritOnly ? this.groups : this.allGroups)
+                    .get(user);
+            return (result == null) ? Collections.<Group> emptySet() : result;
+        }
+
+        /**
+         * Returns the roles mapped to a given user or group.
+         * 
+         * @param source
+         *            The source user or group.
+         * @return The roles found.
+         */
+        private Set<Role> getRoles(Object source) {
+            Set<Role> result = this.roles.get(source);
+            return (result == null) ? Collections.<Role> emptySet() : result;
+        }
+
+        /**
+         * Indicates if the model was modified since the indexes were computed.
+         * 
+         * @param groupModifications
+         *            The current value of the group modifications counter.
+         * @param mappingModifications
+         *            The current value of the role mapping modifications
+         *            counter.
+         * @param userModifications
+         *            The current value of the user modifications counter.
+         * @return True if the indexes are still valid.
+         */
+        private boolean isValid(long groupModifications,
+                long mappingModifications, long userModifications) {
+            return (this.groupModifications == groupModifications)
+                    && (this.mappingModifications == mappingModifications)
+                    && (this.userModifications == userModifications);
+        }
+    }
+
+    /** Counts the modifications of the root groups and indexed groups. */
+    private final AtomicLong groupModifications;
+
+    /** The current indexes, lazily computed. */
+    private volatile Index index;
+
+    /** Counts the modifications of the role mappings. */
+    private final AtomicLong mappingModifications;
+
     /** The modifiable list of role mappings. */
     private final List<RoleMapping> roleMappings;
 
     /** The modifiable list of root groups. */
     private final List<Group> rootGroups;
 
+    /** Counts the modifications of the users and of their identifiers. */
+    private final AtomicLong userModifications;
+
     /** The modifiable list of users. */
     private final List<User> users;
 
@@ -126,18 +304,24 @@ public class MemoryRealm extends Realm {
     public MemoryRealm() {
         setVerifier(new DefaultVerifier());
         setEnroler(new DefaultEnroler());
-        this.rootGroups = new CopyOnWriteArrayList<Group>();
-        this.roleMappings = new CopyOnWriteArrayList<RoleMapping>();
-        this.users = new CopyOnWriteArrayList<User>();
+        this.groupModifications = new AtomicLong();
+        this.mappingModifications = new AtomicLong();
+        this.userModifications = new AtomicLong();
+        this.rootGroups = new TrackedList<Group>(
+                new CopyOnWriteArrayList<Group>(),
+                Collections.singletonList(this.groupModifications));
+        this.roleMappings = new TrackedList<RoleMapping>(
+                new CopyOnWriteArrayList<RoleMapping>(),
+                Collections.singletonList(this.mappingModifications));
+        this.users = new TrackedList<User>(new CopyOnWriteArrayList<User>(),
+                Collections.singletonList(this.userModifications));
     }
 
     /**
-     * Recursively adds groups where a given user is a member.
+     * Recursively adds groups to the sets of their member users.
      * 
-     * @param user
-     *            The member user.
      * @param userGroups
-     *            The set of user groups to update.
+     *            The sets of groups to update, by member user.
      * @param currentGroup
      *            The current group to inspect.
      * @param stack
@@ -146,13 +330,22 @@ public class MemoryRealm extends Realm {
      *            Indicates if only the ancestors groups that have their
      *            "inheritRoles" property enabled should be added.
      */
-    private void addGroups(User user, Set<Group> userGroups,
+    private void addGroups(Map<User, Set<Group>> userGroups,
             Group currentGroup, List<Group> stack, boolean inheritOnly) {
         if ((currentGroup != null) && !stack.contains(currentGroup)) {
+            // Register before reading, so that concurrent changes are caught
+            currentGroup.addModificationCounter(this.groupModifications);
             stack.add(currentGroup);
 
-            if (currentGroup.getMemberUsers().contains(user)) {
-                userGroups.add(currentGroup);
+            for (User user : currentGroup.getMemberUsers()) {
+                Set<Group> groups = userGroups.get(user);
+
+                if (groups == null) {
+                    groups = new HashSet<Group>();
+                    userGroups.put(user, groups);
+                }
+
+                groups.add(currentGroup);
 
                 // Add the ancestor groups as well
                 boolean inherit = !inheritOnly
@@ -161,17 +354,109 @@ public class MemoryRealm extends Realm {
 
                 for (int i = stack.size() - 2; inherit && (i >= 0); i--) {
                     group = stack.get(i);
-                    userGroups.add(group);
+                    groups.add(group);
                     inherit = !inheritOnly || group.isInheritingRoles();
                 }
             }
 
             for (Group group : currentGroup.getMemberGroups()) {
-                addGroups(user, userGroups, group, stack, inheritOnly);
+                addGroups(userGroups, group, stack, inheritOnly);
             }
         }
     }
 
+    /**
+     * Adds the roles belonging to a given application.
+     * 
+     * @param application
+     *            The parent application.
+     * @param result
+     *            The set of roles to update.
+     * @param roles
+     *            The roles to filter.
+     */
+    private void addRoles(Application application, Set<Role> result,
+            Set<Role> roles) {
+        for (Role role : roles) {
+            if (role.getApplication() == application) {
+                result.add(role);
+            }
+        }
+    }
+
+    /**
+     * Computes the indexes of the current security model, reusing the parts of
+     * the previous indexes that are still valid.
+     * 
+     * @param previous
+     *            The previous indexes or null.
+     * @return The new indexes.
+     */
+    private Index createIndex(Index previous) {
+        // Read the counters before the model, so that concurrent changes are
+        // caught by the next lookup
+        long groupModifications = this.groupModifications.get();
+        long mappingModifications = this.mappingModifications.get();
+        long userModifications = this.userModifications.get();
+        Map<User, Set<Group>> allGroups;
+        Map<User, Set<Group>> groups;
+        Map<Object, Set<Role>> roles;
+        ConcurrentMap<String, User> users;
+
+        if ((previous != null)
+                && (previous.groupModifications == groupModifications)) {
+            allGroups = previous.allGroups;
+            groups = previous.groups;
+        } else {
+            // Recursively find the groups of all member users
+            allGroups = new HashMap<User, Set<Group>>();
+            groups = new HashMap<User, Set<Group>>();
+
+            for (Group group : getRootGroups()) {
+                addGroups(groups, group, new ArrayList<Group>(), true);
+                addGroups(allGroups, group, new ArrayList<Group>(), false);
+            }
+        }
+
+        if ((previous != null)
+                && (previous.mappingModifications == mappingModifications)) {
+            roles = previous.roles;
+        } else {
+            // Index the role mappings by source
+            roles = new HashMap<Object, Set<Role>>();
+
+            for (RoleMapping mapping : getRoleMappings()) {
+                Set<Role> sourceRoles = roles.get(mapping.getSource());
+
+                if (sourceRoles == null) {
+                    sourceRoles = new HashSet<Role>();
+                    roles.put(mapping.getSource(), sourceRoles);
+                }
+
+                sourceRoles.add(mapping.getTarget());
+            }
+        }
+
+        if ((previous != null)
+                && (previous.userModifications == userModifications)) {
+            users = previous.users;
+        } else {
+            // Index the users, keeping the first one for a given identifier
+            users = new ConcurrentHashMap<String, User>();
+
+            for (User user : getUsers()) {
+                user.addModificationCounter(this.userModifications);
+
+                if (user.getIdentifier() != null) {
+                    users.putIfAbsent(user.getIdentifier(), user);
+                }
+            }
+        }
+
+        return new Index(previous, groupModifications, groups, allGroups,
+                mappingModifications, roles, userModifications, users);
+    }
+
     /**
      * Finds the set of groups where a given user is a member. Note that
      * inheritable ancestors groups are also returned.
@@ -195,16 +480,7 @@ public class MemoryRealm extends Realm {
      * @return The set of groups.
      */
     public Set<Group> findGroups(User user, boolean inheritOnly) {
-        Set<Group> result = new HashSet<Group>();
-        List<Group> stack;
-
-        // Recursively find user groups
-        for (Group group : getRootGroups()) {
-            stack = new ArrayList<Group>();
-            addGroups(user, result, group, stack, inheritOnly);
-        }
-
-        return result;
+        return new HashSet<Group>(getIndex().getGroups(user, inheritOnly));
     }
 
     /**
@@ -225,16 +501,9 @@ public class MemoryRealm extends Realm {
         }
 
         Set<Role> result = new HashSet<Role>();
-        Object source;
 
-        for (RoleMapping mapping : getRoleMappings()) {
-            source = mapping.getSource();
-
-            if ((userGroup != null) && userGroup.equals(source)) {
-                if (mapping.getTarget().getApplication() == application) {
-                    result.add(mapping.getTarget());
-                }
-            }
+        if (userGroup != null) {
+            addRoles(application, result, getIndex().getRoles(userGroup));
         }
 
         return result;
@@ -258,15 +527,12 @@ public class MemoryRealm extends Realm {
         }
 
         Set<Role> result = new HashSet<Role>();
-        Object source;
 
-        for (RoleMapping mapping : getRoleMappings()) {
-            source = mapping.getSource();
+        if (userGroups != null) {
+            Index index = getIndex();
 
-            if ((userGroups != null) && userGroups.contains(source)) {
-                if (mapping.getTarget().getApplication() == application) {
-                    result.add(mapping.getTarget());
-                }
+            for (Group userGroup : userGroups) {
+                addRoles(application, result, index.getRoles(userGroup));
             }
         }
 
@@ -291,16 +557,9 @@ public class MemoryRealm extends Realm {
         }
 
         Set<Role> result = new HashSet<Role>();
-        Object source;
-
-        for (RoleMapping mapping : getRoleMappings()) {
-            source = mapping.getSource();
 
-            if ((user != null) && user.equals(source)) {
-                if (mapping.getTarget().getApplication() == application) {
-                    result.add(mapping.getTarget());
-                }
-            }
+        if (user != null) {
+            addRoles(application, result, getIndex().getRoles(user));
         }
 
         return result;
@@ -315,14 +574,9 @@ public class MemoryRealm extends Realm {
      */
     public Set<Role> findRoles(Group userGroup) {
         Set<Role> result = new HashSet<Role>();
-        Object source;
-
-        for (RoleMapping mapping : getRoleMappings()) {
-            source = mapping.getSource();
 
-            if ((userGroup != null) && userGroup.equals(source)) {
-                result.add(mapping.getTarget());
-            }
+        if (userGroup != null) {
+            result.addAll(getIndex().getRoles(userGroup));
         }
 
         return result;
@@ -337,13 +591,12 @@ public class MemoryRealm extends Realm {
      */
     public Set<Role> findRoles(Set<Group> userGroups) {
         Set<Role> result = new HashSet<Role>();
-        Object source;
 
-        for (RoleMapping mapping : getRoleMappings()) {
-            source = mapping.getSource();
+        if (userGroups != null) {
+            Index index = getIndex();
 
-            if ((userGroups != null) && userGroups.contains(source)) {
-                result.add(mapping.getTarget());
+            for (Group userGroup : userGroups) {
+                result.addAll(index.getRoles(userGroup));
             }
         }
 
@@ -359,14 +612,9 @@ public class MemoryRealm extends Realm {
      */
     public Set<Role> findRoles(User user) {
         Set<Role> result = new HashSet<Role>();
-        Object source;
 
-        for (RoleMapping mapping : getRoleMappings()) {
-            source = mapping.getSource();
-
-            if ((user != null) && user.equals(source)) {
-                result.add(mapping.getTarget());
-            }
+        if (user != null) {
+            result.addAll(getIndex().getRoles(user));
         }
 
         return result;
@@ -380,14 +628,26 @@ public class MemoryRealm extends Realm {
      * @return The matched user or null.
      */
     public User findUser(String userIdentifier) {
-        User result = null;
-        User user;
+        return (userIdentifier == null) ? null : getIndex().users
+                .get(userIdentifier);
+    }
+
+    /**
+     * Returns the current indexes of the security model, computing them again
+     * if the model was modified.
+     * 
+     * @return The current indexes.
+     */
+    private Index getIndex() {
+        Index result = this.index;
 
-        for (int i = 0; (result == null) && (i < getUsers().size()); i++) {
-            user = getUsers().get(i);
+        if (!isValid(result)) {
+            synchronized (this) {
+                result = this.index;
 
-            if (user.getIdentifier().equals(userIdentifier)) {
-                result = user;
+                if (!isValid(result)) {
+                    this.index = result = createIndex(result);
+                }
             }
         }
 
@@ -421,6 +681,20 @@ public class MemoryRealm extends Realm {
         return users;
     }
 
+    /**
+     * Indicates if the given indexes are still valid.
+     * 
+     * @param index
+     *            The indexes or null.
+     * @return True if the indexes are still valid.
+     */
+    private boolean isValid(Index index) {
+        return (index != null)
+                && index.isValid(this.groupModifications.get(),
+                        this.mappingModifications.get(),
+                        this.userModifications.get());
+    }
+
     /**
      * Maps a group defined in a component to a role defined in the application.
      * 
@@ -541,7 +815,7 @@ public class MemoryRealm extends Realm {
     private void unmap(Object source, Role role) {
         RoleMapping mapping;
 
-        for (int i = getRoleMappings().size(); i >= 0; i--) {
+        for (int i = getRoleMappings().size() - 1; i >= 0; i--) {
             mapping = getRoleMappings().get(i);
 
             if (mapping.getSource().equals(source)
@@ -0,0 +1,169 @@
+/**
+ * Copyright 2005-2014 Restlet
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or or EPL 1.0 (the "Licenses"). You can
+ * select the license that you prefer but you may not use this file except in
+ * compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.security;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.restlet.util.WrapperList;
+
+/**
+ * List wrapper counting its modifications. It lets the realms detect changes
+ * to their security model in order to invalidate their cached lookups. Each
+ * realm registers its own counter, so that a change only invalidates the
+ * lookups of the realms using the list. Note that the iterators of the wrapped
+ * list shouldn't support modifications.
+ * 
+ * @author Jerome Louvel
+ */
+class TrackedList<E> extends WrapperList<E> {
+
+    /**
+     * Increments a list of modification counters.
+     * 
+     * @param counters
+     *            The modification counters to increment.
+     */
+    static void increment(List<AtomicLong> counters) {
+        for (AtomicLong counter : counters) {
+            counter.incrementAndGet();
+        }
+    }
+
+    /** The modification counters to increment. */
+    private final List<AtomicLong> counters;
+
+    /**
+     * Constructor.
+     * 
+     * @param delegate
+     *            The delegate list.
+     * @param counters
+     *            The modification counters to increment, possibly updated
+     *            concurrently.
+     */
+    public TrackedList(List<E> delegate, List<AtomicLong> counters) {
+        super(delegate);
+        this.counters = counters;
+    }
+
+    @Override
+    public boolean add(E element) {
+        try {
+            return super.add(element);
+        } finally {
+            increment(this.counters);
+        }
+    }
+
+    @Override
+    public void add(int index, E element) {
+        try {
+            super.add(index, element);
+        } finally {
+            increment(this.counters);
+        }
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends E> elements) {
+        try {
+            return super.addAll(elements);
+        } finally {
+            increment(this.counters);
+        }
+    }
+
+    @Override
+    public boolean addAll(int index, Collection<? extends E> elements) {
+        try {
+            return super.addAll(index, elements);
+        } finally {
+            increment(this.counters);
+        }
+    }
+
+    @Override
+    public void clear() {
+        try {
+            super.clear();
+        } finally {
+            increment(this.counters);
+        }
+    }
+
+    @Override
+    public E remove(int index) {
+        try {
+            return super.remove(index);
+        } finally {
+            increment(this.counters);
+        }
+    }
+
+    @Override
+    public boolean remove(Object element) {
+        try {
+            return super.remove(element);
+        } finally {
+            increment(this.counters);
+        }
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> elements) {
+        try {
+            return super.removeAll(elements);
+        } finally {
+            increment(this.counters);
+        }
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> elements) {
+        try {
+            return super.retainAll(elements);
+        } finally {
+            increment(this.counters);
+        }
+    }
+
+    @Override
+    public E set(int index, E element) {
+        try {
+            return super.set(index, element);
+        } finally {
+            increment(this.counters);
+        }
+    }
+
+    @Override
+    public List<E> subList(int fromIndex, int toIndex) {
+        return new TrackedList<E>(getDelegate().subList(fromIndex, toIndex),
+                this.counters);
+    }
+
+}
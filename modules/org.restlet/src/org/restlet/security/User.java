@@ -25,6 +25,8 @@
 package org.restlet.security;
 
 import java.security.Principal;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * User part of a security realm. Note the same user can be member of several
@@ -48,6 +50,12 @@ public class User implements Principal {
     /** The last name. */
     private volatile String lastName;
 
+    /**
+     * The modification counters of the realms caching lookups based on this
+     * user.
+     */
+    private final CopyOnWriteArrayList<AtomicLong> modificationCounters;
+
     /** The secret. */
     private volatile char[] secret;
 
@@ -101,6 +109,7 @@ public class User implements Principal {
         this.firstName = firstName;
         this.lastName = lastName;
         this.email = email;
+        this.modificationCounters = new CopyOnWriteArrayList<AtomicLong>();
     }
 
     /**
@@ -134,6 +143,17 @@ public class User implements Principal {
         this(identifier, secret.toCharArray(), firstName, lastName, email);
     }
 
+    /**
+     * Registers the modification counter of a realm caching lookups based on
+     * this user. It is incremented when the identifier changes.
+     * 
+     * @param counter
+     *            The modification counter of the realm.
+     */
+    void addModificationCounter(AtomicLong counter) {
+        this.modificationCounters.addIfAbsent(counter);
+    }
+
     /**
      * Returns the email.
      * 
@@ -216,6 +236,7 @@ public class User implements Principal {
      */
     public void setIdentifier(String identifier) {
         this.identifier = identifier;
+        TrackedList.increment(this.modificationCounters);
     }
 
     /**
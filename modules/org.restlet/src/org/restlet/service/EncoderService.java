@@ -27,7 +27,10 @@ package org.restlet.service;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.Deflater;
 
 import org.restlet.Context;
 import org.restlet.data.Encoding;
@@ -83,6 +86,16 @@ public class EncoderService extends Service {
      */
     private final List<MediaType> acceptedMediaTypes;
 
+    /**
+     * The compression levels by media type.
+     */
+    private final Map<MediaType, Integer> compressionLevels;
+
+    /**
+     * The default compression level.
+     */
+    private volatile int defaultCompressionLevel;
+
     /**
      * The media types that should be ignored.
      */
@@ -111,6 +124,8 @@ public class EncoderService extends Service {
         this.mininumSize = DEFAULT_MINIMUM_SIZE;
         this.acceptedMediaTypes = new CopyOnWriteArrayList<MediaType>(
                 getDefaultAcceptedMediaTypes());
+        this.compressionLevels = new ConcurrentHashMap<MediaType, Integer>();
+        this.defaultCompressionLevel = Deflater.DEFAULT_COMPRESSION;
         this.ignoredMediaTypes = new CopyOnWriteArrayList<MediaType>(
                 getDefaultIgnoredMediaTypes());
     }
@@ -193,6 +208,59 @@ public class EncoderService extends Service {
         return this.acceptedMediaTypes;
     }
 
+    /**
+     * Returns the compression level to use for a given media type. The level
+     * registered for the media type itself is returned first, then the level
+     * of a registered media type including it, such as "text/*", and finally
+     * the default compression level.
+     * 
+     * @param mediaType
+     *            The media type of the representation to encode.
+     * @return The compression level, between 0 (no compression) and 9 (best
+     *         compression), or -1 for the default compression.
+     */
+    public int getCompressionLevel(MediaType mediaType) {
+        Integer result = null;
+
+        if ((mediaType != null) && !getCompressionLevels().isEmpty()) {
+            result = getCompressionLevels().get(mediaType);
+
+            for (Iterator<Map.Entry<MediaType, Integer>> iter = getCompressionLevels()
+                    .entrySet().iterator(); (result == null) && iter.hasNext();) {
+                Map.Entry<MediaType, Integer> entry = iter.next();
+
+                if (entry.getKey().includes(mediaType)) {
+                    result = entry.getValue();
+                }
+            }
+        }
+
+        return (result == null) ? getDefaultCompressionLevel() : result;
+    }
+
+    /**
+     * Returns the modifiable map of compression levels by media type. Levels
+     * range from 0 (no compression) to 9 (best compression), -1 being the
+     * default compression.
+     * 
+     * @return The modifiable map of compression levels by media type.
+     * @see #getCompressionLevel(MediaType)
+     */
+    public Map<MediaType, Integer> getCompressionLevels() {
+        return this.compressionLevels;
+    }
+
+    /**
+     * Returns the compression level used when no level is registered for the
+     * media type of a representation. By default, it returns -1, the default
+     * compression.
+     * 
+     * @return The default compression level.
+     */
+    public int getDefaultCompressionLevel() {
+        return this.defaultCompressionLevel;
+    }
+
     /**
      * Returns the media types that should be ignored.
      * 
@@ -213,6 +281,18 @@ public class EncoderService extends Service {
         return this.mininumSize;
     }
 
+    /**
+     * Sets the compression level used when no level is registered for the
+     * media type of a representation.
+     * 
+     * @param defaultCompressionLevel
+     *            The default compression level, between 0 (no compression) and
+     *            9 (best compression), or -1 for the default compression.
+     */
+    public void setDefaultCompressionLevel(int defaultCompressionLevel) {
+        this.defaultCompressionLevel = defaultCompressionLevel;
+    }
+
     /**
      * Sets the minimum size a representation must have before compression is
      * done.
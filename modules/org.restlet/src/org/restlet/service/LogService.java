@@ -24,16 +24,21 @@
 
 package org.restlet.service;
 
+// [ifndef gwt] line
+import java.io.IOException;
+// [ifndef gwt] line
+import java.util.Calendar;
 import java.util.logging.Level;
 
 import org.restlet.Application;
 import org.restlet.Context;
 import org.restlet.Request;
 import org.restlet.Response;
-import org.restlet.data.Method;
 import org.restlet.data.Reference;
-import org.restlet.data.Status;
-import org.restlet.engine.Engine;
+// [ifndef gwt] line
+import org.restlet.engine.log.AccessLogRecord;
+// [ifndef gwt] line
+import org.restlet.engine.log.AccessLogWriter;
 import org.restlet.engine.log.LogFilter;
 import org.restlet.representation.Representation;
 import org.restlet.resource.ClientResource;
@@ -82,6 +87,19 @@ import org.restlet.routing.Template;
  */
 public class LogService extends Service {
 
+    // [ifndef gwt] member
+    /** The calendar used by each thread to format the log entries. */
+    private static final ThreadLocal<Calendar> CALENDAR = new ThreadLocal<Calendar>() {
+        @Override
+        protected Calendar initialValue() {
+            return Calendar.getInstance();
+        }
+    };
+
+    // [ifndef gwt] member
+    /** The asynchronous access log writer. */
+    private volatile AccessLogWriter accessLogWriter;
+
     /** Indicates if the debugging mode is enabled. */
     private volatile boolean debugging;
 
@@ -123,6 +141,8 @@ public class LogService extends Service {
         this.responseLogFormat = null;
         this.logPropertiesRef = null;
         this.identityCheck = false;
+        // [ifndef gwt] line
+        this.accessLogWriter = null;
     }
 
     @Override
@@ -130,6 +150,16 @@ public class LogService extends Service {
         return new LogFilter(context, this);
     }
 
+    // [ifndef gwt] method
+    /**
+     * Returns the asynchronous access log writer.
+     * 
+     * @return The asynchronous access log writer or null.
+     */
+    public AccessLogWriter getAccessLogWriter() {
+        return accessLogWriter;
+    }
+
     /**
      * Format a log entry using the default IIS log format.
      * 
@@ -141,123 +171,12 @@ public class LogService extends Service {
      */
     protected String getDefaultResponseLogMessage(Response response,
             int duration) {
-        StringBuilder sb = new StringBuilder();
-        Request request = response.getRequest();
-        long currentTime = System.currentTimeMillis();
-
-        // Append the date of the request
-        sb.append(String.format("%tF", currentTime));
-        sb.append('\t');
-
-        // Append the time of the request
-        sb.append(String.format("%tT", currentTime));
-        sb.append('\t');
-
-        // Append the client IP address
-        String clientAddress = request.getClientInfo().getUpstreamAddress();
-        sb.append((clientAddress == null) ? "-" : clientAddress);
-        sb.append('\t');
-
-        // Append the user name (via IDENT protocol)
-        if (isIdentityCheck()) {
-            // [ifndef gae]
-            org.restlet.engine.log.IdentClient ic = new org.restlet.engine.log.IdentClient(
-                    request.getClientInfo().getUpstreamAddress(), request
-                            .getClientInfo().getPort(), response
-                            .getServerInfo().getPort());
-            sb.append((ic.getUserIdentifier() == null) ? "-" : ic
-                    .getUserIdentifier());
-        } else if ((request.getChallengeResponse() != null)
-                && (request.getChallengeResponse().getIdentifier() != null)) {
-            sb.append(request.getChallengeResponse().getIdentifier());
-        } else {
-            // [enddef]
-            sb.append('-');
-        }
-
-        sb.append('\t');
-
-        // Append the server IP address
-        String serverAddress = response.getServerInfo().getAddress();
-        sb.append((serverAddress == null) ? "-" : serverAddress);
-        sb.append('\t');
-
-        // Append the server port
-        Integer serverport = response.getServerInfo().getPort();
-        sb.append((serverport == null) ? "-" : serverport.toString());
-        sb.append('\t');
-
-        // Append the method name
-        String methodName = (request.getMethod() == null) ? "-" : request
-                .getMethod().getName();
-        sb.append((methodName == null) ? "-" : methodName);
-
-        // Append the resource path
-        sb.append('\t');
-        String resourcePath = (request.getResourceRef() == null) ? "-"
-                : request.getResourceRef().getPath();
-        sb.append((resourcePath == null) ? "-" : resourcePath);
-
-        // Append the resource query
-        sb.append('\t');
-        String resourceQuery = (request.getResourceRef() == null) ? "-"
-                : request.getResourceRef().getQuery();
-        sb.append((resourceQuery == null) ? "-" : resourceQuery);
-
-        // Append the status code
-        sb.append('\t');
-        sb.append((response.getStatus() == null) ? "-" : Integer
-                .toString(response.getStatus().getCode()));
-
-        // Append the returned size
-        sb.append('\t');
-
-        if (!response.isEntityAvailable()
-                || Status.REDIRECTION_NOT_MODIFIED.equals(response.getStatus())
-                || Status.SUCCESS_NO_CONTENT.equals(response.getStatus())
-                || Method.HEAD.equals(request.getMethod())) {
-            sb.append('0');
-        } else {
-            sb.append((response.getEntity().getSize() == -1) ? "-" : Long
-                    .toString(response.getEntity().getSize()));
-        }
-
-        // Append the received size
-        sb.append('\t');
-
-        try {
-            if (request.getEntity() == null) {
-                sb.append('0');
-            } else {
-                sb.append((request.getEntity().getSize() == -1) ? "-" : Long
-                        .toString(request.getEntity().getSize()));
-            }
-        } catch (Throwable t) {
-            // Error while getting the request's entity, cf issue #931
-            Engine.getLogger(LogService.class).log(Level.SEVERE,
-                    "Cannot retrieve size of request's entity", t);
-            sb.append("-");
-        }
-
-        // Append the duration
-        sb.append('\t');
-        sb.append(duration);
-
-        // Append the host reference
-        sb.append('\t');
-        sb.append((request.getHostRef() == null) ? "-" : request.getHostRef()
-                .toString());
-
-        // Append the agent name
-        sb.append('\t');
-        String agentName = request.getClientInfo().getAgent();
-        sb.append((agentName == null) ? "-" : agentName);
-
-        // Append the referrer
-        sb.append('\t');
-        sb.append((request.getReferrerRef() == null) ? "-" : request
-                .getReferrerRef().getIdentifier());
-
+        StringBuilder sb = new StringBuilder(256);
+        // [ifndef gwt]
+        AccessLogRecord record = new AccessLogRecord();
+        record.set(response, duration, getResponseLogUser(response));
+        record.format(sb, CALENDAR.get());
+        // [enddef]
         return sb.toString();
     }
 
@@ -329,6 +248,34 @@ public class LogService extends Service {
         return result;
     }
 
+    /**
+     * Returns the remote user identifier of a response log entry, either via
+     * the IDENT protocol if the identity check is enabled, or via the
+     * challenge response of the request.
+     * 
+     * @param response
+     *            The response to log.
+     * @return The remote user identifier or null.
+     */
+    protected String getResponseLogUser(Response response) {
+        String result = null;
+        Request request = response.getRequest();
+
+        if (isIdentityCheck()) {
+            // [ifndef gae]
+            org.restlet.engine.log.IdentClient ic = new org.restlet.engine.log.IdentClient(
+                    request.getClientInfo().getUpstreamAddress(), request
+                            .getClientInfo().getPort(), response
+                            .getServerInfo().getPort());
+            result = ic.getUserIdentifier();
+        } else if (request.getChallengeResponse() != null) {
+            result = request.getChallengeResponse().getIdentifier();
+            // [enddef]
+        }
+
+        return result;
+    }
+
     /**
      * Indicates if the debugging mode is enabled. False by default.
      * 
@@ -364,6 +311,45 @@ public class LogService extends Service {
                 .match(request.getResourceRef().getTargetRef().toString()) > 0;
     }
 
+    // [ifndef gwt] method
+    /**
+     * Sets the asynchronous access log writer. When set, the access log
+     * entries are handed to this writer instead of the JDK's logger. With the
+     * default log format, the entries are only captured by the calling threads
+     * and formatted later by the writer thread. The writer is started and
+     * stopped with this service. If the service is already started, the new
+     * writer is started and the previous one is stopped.
+     * 
+     * @param accessLogWriter
+     *            The asynchronous access log writer or null.
+     */
+    public synchronized void setAccessLogWriter(AccessLogWriter accessLogWriter) {
+        AccessLogWriter previous = this.accessLogWriter;
+
+        if (isStarted() && (accessLogWriter != previous)) {
+            if (accessLogWriter != null) {
+                try {
+                    accessLogWriter.start();
+                } catch (IOException e) {
+                    Context.getCurrentLogger().log(Level.WARNING,
+                            "Unable to start the access log writer", e);
+                }
+            }
+
+            this.accessLogWriter = accessLogWriter;
+
+            if (previous != null) {
+                try {
+                    previous.stop();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        } else {
+            this.accessLogWriter = accessLogWriter;
+        }
+    }
+
     /**
      * Indicates if the debugging mode is enabled.
      * 
@@ -474,5 +460,51 @@ public class LogService extends Service {
             }
         }
         // [enddef]
+
+        // [ifndef gwt]
+        if (getAccessLogWriter() != null) {
+            getAccessLogWriter().start();
+        }
+        // [enddef]
+    }
+
+    /**
+     * Stops the log service and its access log writer if any, once the pending
+     * entries have been written.
+     */
+    @Override
+    public synchronized void stop() throws Exception {
+        // [ifndef gwt]
+        if (getAccessLogWriter() != null) {
+            getAccessLogWriter().stop();
+        }
+        // [enddef]
+
+        super.stop();
+    }
+
+    // [ifndef gwt] method
+    /**
+     * Writes an access log entry with the access log writer. With the default
+     * format, the entry is only captured here and formatted by the writer
+     * thread.
+     * 
+     * @param response
+     *            The response to log.
+     * @param duration
+     *            The call duration (in milliseconds).
+     * @return True if the entry was accepted, false if it was dropped.
+     */
+    public boolean writeResponseLog(Response response, int duration) {
+        AccessLogWriter writer = getAccessLogWriter();
+
+        if (writer == null) {
+            return false;
+        } else if (this.responseLogTemplate == null) {
+            return writer.write(response, duration,
+                    getResponseLogUser(response));
+        } else {
+            return writer.write(getResponseLogMessage(response, duration));
+        }
     }
 }
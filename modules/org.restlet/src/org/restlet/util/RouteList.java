@@ -24,10 +24,12 @@
 
 package org.restlet.util;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Random;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.restlet.Request;
 import org.restlet.Response;
@@ -51,12 +53,16 @@ public final class RouteList extends WrapperList<Route> {
     /** The index of the last route used in the round robin mode. */
     private volatile int lastIndex;
 
+    /** The number of structural modifications made to this list. */
+    private final AtomicInteger modificationCount;
+
     /**
      * Constructor.
      */
     public RouteList() {
         super(new CopyOnWriteArrayList<Route>());
         this.lastIndex = -1;
+        this.modificationCount = new AtomicInteger();
     }
 
     /**
@@ -68,6 +74,52 @@ public final class RouteList extends WrapperList<Route> {
     public RouteList(List<Route> delegate) {
         super(new CopyOnWriteArrayList<Route>(delegate));
         this.lastIndex = -1;
+        this.modificationCount = new AtomicInteger();
+    }
+
+    @Override
+    public boolean add(Route route) {
+        try {
+            return super.add(route);
+        } finally {
+            this.modificationCount.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void add(int index, Route route) {
+        try {
+            super.add(index, route);
+        } finally {
+            this.modificationCount.incrementAndGet();
+        }
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends Route> routes) {
+        try {
+            return super.addAll(routes);
+        } finally {
+            this.modificationCount.incrementAndGet();
+        }
+    }
+
+    @Override
+    public boolean addAll(int index, Collection<? extends Route> routes) {
+        try {
+            return super.addAll(index, routes);
+        } finally {
+            this.modificationCount.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void clear() {
+        try {
+            super.clear();
+        } finally {
+            this.modificationCount.incrementAndGet();
+        }
     }
 
     /**
@@ -121,6 +173,17 @@ public final class RouteList extends WrapperList<Route> {
         return null;
     }
 
+    /**
+     * Returns the number of structural modifications made to this list since
+     * its creation. This allows callers caching information derived from the
+     * routes, such as routing indexes, to detect when it becomes stale.
+     * 
+     * @return The number of structural modifications.
+     */
+    public int getModificationCount() {
+        return this.modificationCount.get();
+    }
+
     /**
      * Returns the last route match for a given call.
      * 
@@ -220,6 +283,33 @@ public final class RouteList extends WrapperList<Route> {
         return null;
     }
 
+    @Override
+    public Route remove(int index) {
+        try {
+            return super.remove(index);
+        } finally {
+            this.modificationCount.incrementAndGet();
+        }
+    }
+
+    @Override
+    public boolean remove(Object route) {
+        try {
+            return super.remove(route);
+        } finally {
+            this.modificationCount.incrementAndGet();
+        }
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> routes) {
+        try {
+            return super.removeAll(routes);
+        } finally {
+            this.modificationCount.incrementAndGet();
+        }
+    }
+
     /**
      * Removes all routes routing to a given target.
      * 
@@ -234,6 +324,24 @@ public final class RouteList extends WrapperList<Route> {
         }
     }
 
+    @Override
+    public boolean retainAll(Collection<?> routes) {
+        try {
+            return super.retainAll(routes);
+        } finally {
+            this.modificationCount.incrementAndGet();
+        }
+    }
+
+    @Override
+    public Route set(int index, Route route) {
+        try {
+            return super.set(index, route);
+        } finally {
+            this.modificationCount.incrementAndGet();
+        }
+    }
+
     /**
      * Returns a view of the portion of this list between the specified
      * fromIndex, inclusive, and toIndex, exclusive.